@@ -0,0 +1,159 @@
+package pl.logistic.logisticops.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.logistic.logisticops.dto.TopicUpdateDTO;
+import pl.logistic.logisticops.dto.TrackingFrameDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🎞️ Konflacja komunikatów pozycji dla tematów STOMP
+ *
+ * Zamiast wysyłać każdy ping, trzyma tylko ostatni stan per slot (temat, ewentualnie
+ * z id pojazdu - kilka pojazdów jednego transportu dzieli temat) i wysyła go co
+ * flush-interval-ms. Stan nadpisany przed wysyłką liczony jest jako odrzucony (dropped).
+ * Przy wysyłce temat bez subskrybentów jest pomijany (bez serializacji), a wszystkie
+ * zmienione sloty trafiają dodatkowo w jednej ramce na frame-destination - dashboard
+ * subskrybuje jeden temat zamiast setek. Tematy .../secure (pozycje wojskowe) nie trafiają
+ * do ramki - dostęp do nich kontrolowany jest per temat, a ramka jest wspólna.
+ *
+ * enabled=false: wysyłka natychmiastowa, jak przed konflacją. Sesje binarne: TrackingEncoding.
+ *
+ * Metryki: logisticops.websocket.conflation.updates{result=queued|dropped},
+ * logisticops.websocket.conflation.sent{kind=topic|frame|skipped}, logisticops.websocket.conflation.pending
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConflatingBroadcaster {
+
+    private static final String SECURE_SUFFIX = "/secure";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicSubscriptionRegistry subscriptions;
+    private final TrackingEncoding encoding;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.conflation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.conflation.frame-destination:/topic/tracking/frames}")
+    private String frameDestination;
+
+    private final Map<Slot, Object> pending = new ConcurrentHashMap<>();
+    private long sequence;
+
+    private Counter queued;
+    private Counter dropped;
+    private Counter sentToTopic;
+    private Counter sentFrames;
+    private Counter skipped;
+
+    /**
+     * Temat i opcjonalny klucz encji (null = jeden stan na temat)
+     */
+    private record Slot(String destination, Long entityId) {
+    }
+
+    @PostConstruct
+    void init() {
+        queued = updates("queued");
+        dropped = updates("dropped");
+        sentToTopic = sent("topic");
+        sentFrames = sent("frame");
+        skipped = sent("skipped");
+        Gauge.builder("logisticops.websocket.conflation.pending", pending, Map::size)
+                .description("Stany czekające na najbliższą wysyłkę")
+                .register(meterRegistry);
+    }
+
+    private Counter updates(String result) {
+        return Counter.builder("logisticops.websocket.conflation.updates")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter sent(String kind) {
+        return Counter.builder("logisticops.websocket.conflation.sent")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 📨 Ostatni stan tematu
+     */
+    public void publish(String destination, Object payload) {
+        publish(destination, null, payload);
+    }
+
+    /**
+     * 📨 Ostatni stan encji na wspólnym temacie (np. pojazd na temacie transportu)
+     */
+    public void publish(String destination, Long entityId, Object payload) {
+        if (!enabled) {
+            messagingTemplate.convertAndSend(destination, payload, encoding.headersFor(payload));
+            return;
+        }
+        if (pending.put(new Slot(destination, entityId), payload) != null) {
+            dropped.increment();
+        } else {
+            queued.increment();
+        }
+    }
+
+    /**
+     * 🚀 Wyślij zebrane stany; slot usuwany przed wysyłką, więc stan nadesłany
+     * w trakcie trafi do następnej ramki, a nie zginie
+     */
+    @Scheduled(fixedRateString = "${websocket.conflation.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        boolean framed = subscriptions.hasSubscribers(frameDestination);
+        List<TopicUpdateDTO> frame = framed ? new ArrayList<>(pending.size()) : null;
+
+        for (Slot slot : pending.keySet()) {
+            Object payload = pending.remove(slot);
+            if (payload == null) {
+                continue;
+            }
+            try {
+                if (subscriptions.hasSubscribers(slot.destination())) {
+                    messagingTemplate.convertAndSend(slot.destination(), payload, encoding.headersFor(payload));
+                    sentToTopic.increment();
+                } else {
+                    skipped.increment();
+                }
+            } catch (RuntimeException e) {
+                log.error("❌ Failed to send conflated update to {}", slot.destination(), e);
+            }
+            if (frame != null && !slot.destination().endsWith(SECURE_SUFFIX)) {
+                frame.add(new TopicUpdateDTO(slot.destination(), payload));
+            }
+        }
+
+        if (frame != null && !frame.isEmpty()) {
+            TrackingFrameDTO trackingFrame = TrackingFrameDTO.builder()
+                    .sequence(++sequence)
+                    .timestamp(System.currentTimeMillis())
+                    .updates(frame)
+                    .build();
+            messagingTemplate.convertAndSend(frameDestination, trackingFrame, encoding.headersFor(trackingFrame));
+            sentFrames.increment();
+        }
+    }
+}
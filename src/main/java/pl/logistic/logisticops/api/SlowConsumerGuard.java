@@ -0,0 +1,288 @@
+package pl.logistic.logisticops.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 🐢 OCHRONA PRZED WOLNYMI ODBIORCAMI STOMP
+ *
+ * Głębokość kolejki sesji = komunikaty MESSAGE przyjęte do kanału wychodzącego, a jeszcze
+ * niezapisane do gniazda (kolejka wykonawcy kanału + bufor ConcurrentWebSocketSessionDecorator).
+ * Przy depth ≥ conflate-threshold komunikaty tematów ze stanem (pozycje, położenia, ramki -
+ * conflatable-destinations) są dla tej sesji pomijane: najbliższa wysyłka konflacji niesie
+ * nowszy stan. Alerty, zmiany infrastruktury i widoki (delty) nie są pomijane - przy
+ * depth ≥ max-pending-messages sesja jest zamykana (klient wznawia od swojej wersji).
+ *
+ * Komunikat policzony w preSend, którego kanał ostatecznie nie wysłał (odrzucony przez
+ * kolejny interceptor lub błąd wysyłki), zdejmowany jest z kolejki w afterSendCompletion -
+ * nie zawyża głębokości na stałe.
+ *
+ * Twarde limity transportu (websocket.transport.send-time-limit-ms, send-buffer-size-bytes)
+ * egzekwuje Spring - też zamknięciem sesji; oba przypadki liczone osobno.
+ *
+ * Metryki: logisticops.websocket.session.queue.depth{stat=max|total},
+ * logisticops.websocket.session.send.seconds{stat=max}, logisticops.websocket.sessions.slow,
+ * logisticops.websocket.outbound.dropped, logisticops.websocket.sessions.disconnected{reason}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlowConsumerGuard {
+
+    private static final CloseStatus SLOW_CONSUMER = CloseStatus.SESSION_NOT_RELIABLE.withReason("Slow consumer");
+
+    // Znacznik komunikatu przepuszczonego bez liczenia (ArrayDeque nie przyjmuje null)
+    private static final SessionState NOT_COUNTED = new SessionState(null);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.slow-consumer.conflate-threshold:50}")
+    private int conflateThreshold;
+
+    @Value("${websocket.slow-consumer.max-pending-messages:1000}")
+    private int maxPendingMessages;
+
+    @Value("${websocket.slow-consumer.conflatable-destinations:/topic/vehicle/*/tracking,/topic/transport/*/tracking,"
+            + "/topic/transport/*/tracking/secure,/topic/transport/*/location,/topic/transport/*/convoy,/topic/tracking/frames}")
+    private String[] conflatableDestinations;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // Sesje komunikatów przepuszczonych przez preSend, czekających na afterSendCompletion (send() bywa zagnieżdżony)
+    private final ThreadLocal<Deque<SessionState>> inFlight = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private Counter dropped;
+    private Counter disconnectedSlow;
+    private Counter disconnectedSendLimit;
+    private Counter disconnectedNormal;
+    private Counter disconnectedError;
+
+    /**
+     * 📊 Kolejka i bieżący zapis jednej sesji
+     */
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean slowConsumer = new AtomicBoolean();
+        private volatile long sendStartedNanos;  // 0 = brak zapisu w toku
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        dropped = Counter.builder("logisticops.websocket.outbound.dropped")
+                .description("Komunikaty ze stanem pominięte dla wolnych sesji")
+                .register(meterRegistry);
+        disconnectedSlow = disconnected("slow_consumer");
+        disconnectedSendLimit = disconnected("send_limit");
+        disconnectedNormal = disconnected("normal");
+        disconnectedError = disconnected("error");
+
+        sessionGauge("logisticops.websocket.session.queue.depth", "max", state -> state.pending.get(), true);
+        sessionGauge("logisticops.websocket.session.queue.depth", "total", state -> state.pending.get(), false);
+        sessionGauge("logisticops.websocket.session.send.seconds", "max", SlowConsumerGuard::sendSeconds, true);
+        Gauge.builder("logisticops.websocket.sessions.slow", sessions,
+                        map -> map.values().stream().filter(state -> state.pending.get() >= conflateThreshold).count())
+                .description("Sesje z kolejką powyżej progu konflacji")
+                .register(meterRegistry);
+    }
+
+    private Counter disconnected(String reason) {
+        return Counter.builder("logisticops.websocket.sessions.disconnected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void sessionGauge(String name, String stat, ToDoubleFunction<SessionState> value, boolean max) {
+        Gauge.builder(name, sessions, map -> {
+                    double result = 0;
+                    for (SessionState state : map.values()) {
+                        double v = value.applyAsDouble(state);
+                        result = max ? Math.max(result, v) : result + v;
+                    }
+                    return result;
+                })
+                .tag("stat", stat)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔌 Dekorator handlera WebSocket - sesja podana dalej mierzy zapisy do gniazda
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new MeteredSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                try {
+                    super.afterConnectionClosed(session, closeStatus);
+                } finally {
+                    SessionState state = sessions.remove(session.getId());
+                    countDisconnect(state, closeStatus);
+                }
+            }
+        };
+    }
+
+    /**
+     * 📤 Decyzja per komunikat: wyślij, pomiń (stan zastąpi następny) albo zamknij sesję
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+                    inFlight.get().push(NOT_COUNTED);
+                    return message;
+                }
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+                if (state == null) {
+                    inFlight.get().push(NOT_COUNTED);
+                    return message;
+                }
+
+                int depth = state.pending.get();
+                if (depth >= maxPendingMessages) {
+                    disconnectSlow(state, depth);
+                    return null;
+                }
+                if (depth >= conflateThreshold && conflatable(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                    dropped.increment();
+                    return null;
+                }
+                state.pending.incrementAndGet();
+                inFlight.get().push(state);
+                return message;
+            }
+
+            @Override
+            public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+                SessionState state = inFlight.get().poll();
+                if (state != null && state != NOT_COUNTED && (!sent || ex != null)) {
+                    // Nieprzyjęty przez kanał - do gniazda nie trafi, więc nie zdejmie go MeteredSession
+                    state.pending.updateAndGet(depth -> depth > 0 ? depth - 1 : 0);
+                }
+            }
+        };
+    }
+
+    private boolean conflatable(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : conflatableDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void disconnectSlow(SessionState state, int depth) {
+        // Sesja mogła właśnie zostać zamknięta limitem Springa - wtedy to nie nasza decyzja
+        if (!state.session.isOpen() || !state.slowConsumer.compareAndSet(false, true)) {
+            return;
+        }
+        log.warn("🐢 Closing slow WebSocket session {} ({} messages pending, writing for {} s)",
+                state.session.getId(), depth, String.format("%.1f", sendSeconds(state)));
+        try {
+            state.session.close(SLOW_CONSUMER);
+        } catch (IOException e) {
+            log.debug("Closing slow session {} failed: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    private void countDisconnect(SessionState state, CloseStatus closeStatus) {
+        if (state != null && state.slowConsumer.get()) {
+            disconnectedSlow.increment();
+        } else if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+            // Przekroczony send-time-limit lub send-buffer-size (ConcurrentWebSocketSessionDecorator)
+            disconnectedSendLimit.increment();
+        } else if (closeStatus.equalsCode(CloseStatus.NORMAL) || closeStatus.equalsCode(CloseStatus.GOING_AWAY)) {
+            disconnectedNormal.increment();
+        } else {
+            disconnectedError.increment();
+        }
+    }
+
+    private static double sendSeconds(SessionState state) {
+        long started = state.sendStartedNanos;
+        return started != 0 ? (System.nanoTime() - started) / 1e9 : 0;
+    }
+
+    /**
+     * ✍️ Sesja widoczna dla obsługi STOMP: zapis ramki MESSAGE zdejmuje ją z kolejki sesji
+     */
+    private static final class MeteredSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        private MeteredSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.sendStartedNanos = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.sendStartedNanos = 0;
+                if (isMessageFrame(message)) {
+                    state.pending.updateAndGet(depth -> depth > 0 ? depth - 1 : 0);
+                }
+            }
+        }
+
+        // Z ramek serwera tylko MESSAGE zaczyna się od 'M' (CONNECTED, RECEIPT, ERROR, heartbeat)
+        private static boolean isMessageFrame(WebSocketMessage<?> message) {
+            if (message instanceof TextMessage text) {
+                byte[] bytes = text.asBytes();
+                return bytes.length > 0 && bytes[0] == 'M';
+            }
+            if (message instanceof BinaryMessage binary) {
+                return binary.getPayloadLength() > 0 && binary.getPayload().get(binary.getPayload().position()) == 'M';
+            }
+            return false;
+        }
+    }
+}
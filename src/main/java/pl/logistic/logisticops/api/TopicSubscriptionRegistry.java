@@ -0,0 +1,73 @@
+package pl.logistic.logisticops.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📋 Liczba subskrypcji STOMP per destination
+ *
+ * Pozwala pominąć budowanie i serializację komunikatu, gdy nikt nie słucha danego tematu
+ * (np. /topic/vehicle/{id}/tracking). Śledzi subskrypcje per sesja, bo UNSUBSCRIBE
+ * i rozłączenie nie niosą nazwy tematu.
+ */
+@Component
+@Slf4j
+public class TopicSubscriptionRegistry {
+
+    // sesja → (id subskrypcji → destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+
+    public boolean hasSubscribers(String destination) {
+        return subscribers.containsKey(destination);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (headers.getSessionId() == null || headers.getSubscriptionId() == null || destination == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), destination);
+        if (previous != null) {
+            release(previous);
+        }
+        subscribers.merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = headers.getSessionId() != null ? sessions.get(headers.getSessionId()) : null;
+        if (subscriptions == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        String destination = subscriptions.remove(headers.getSubscriptionId());
+        if (destination != null) {
+            release(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+            log.debug("📋 Session {} closed, released {} subscriptions", event.getSessionId(), subscriptions.size());
+        }
+    }
+
+    private void release(String destination) {
+        subscribers.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
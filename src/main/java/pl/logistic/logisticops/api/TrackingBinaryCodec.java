@@ -0,0 +1,331 @@
+package pl.logistic.logisticops.api;
+
+import pl.logistic.logisticops.dto.TopicUpdateDTO;
+import pl.logistic.logisticops.dto.TrackingFrameDTO;
+import pl.logistic.logisticops.dto.TransportLocationDTO;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.dto.ViewportUpdateDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 📦 Zwarty binarny format komunikatów śledzenia STOMP (alternatywa dla JSON)
+ *
+ * <pre>
+ *  0  u16  magic 0x4C54 ("LT")
+ *  2  u8   wersja (1)
+ *  3  u8   rodzaj: 1 = pozycje, 2 = położenie transportu, 3 = aktualizacja widoku mapy,
+ *          4 = ramka zbiorcza
+ *
+ * Pozycje:  varint liczba, potem dla każdej pozycji zigzag-varinty różnic względem poprzedniej
+ *           (pierwsza względem zera): id, id transportu, id pojazdu, szer. × 10^6, dł. × 10^6,
+ *           czas ms (id 0 = brak); dalej varinty bez różnic: prędkość × 10 + 1, kurs (0-359) + 1,
+ *           paliwo × 10 + 1 (0 = brak)
+ * Położenie: zigzag szer. × 10^6, zigzag dł. × 10^6, varint postęp × 10 + 1, varint czas ms
+ * Widok:    varint numer ramki, u8 migawka (0/1), blok pozycji
+ * Ramka:    varint numer, varint czas ms, varint liczba, potem dla każdego tematu:
+ *           varint długość + temat UTF-8, varint długość + zagnieżdżony komunikat (z nagłówkiem)
+ * </pre>
+ *
+ * Czas (LocalDateTime serwera) zapisywany jako ms od epoki liczone jak dla UTC - dekodowanie
+ * odtwarza ten sam czas lokalny. Współrzędne zaokrąglane do 10^-6° (~0,1 m), prędkość i paliwo
+ * do 0,1; sensorData i model pojazdu pomijane (są w JSON i REST). Pozycje bez współrzędnych
+ * lub czasu, widoki z alertami/infrastrukturą i ramki z innymi komunikatami (np. konwój) nie mają
+ * postaci binarnej - zostają w JSON.
+ */
+public final class TrackingBinaryCodec {
+
+    static final short MAGIC = 0x4C54;
+    static final byte VERSION = 1;
+    static final byte KIND_POSITIONS = 1;
+    static final byte KIND_LOCATION = 2;
+    static final byte KIND_VIEWPORT = 3;
+    static final byte KIND_FRAME = 4;
+
+    private static final double COORDINATE_SCALE = 1e6;
+    private static final double DECIMAL_SCALE = 10.0;
+
+    private TrackingBinaryCodec() {
+    }
+
+    /**
+     * 🔐 Postać binarna komunikatu albo null, gdy typ (lub zawartość) nie ma postaci binarnej
+     */
+    public static byte[] encode(Object payload) {
+        if (payload instanceof VehicleTrackingDTO position) {
+            return encodePositions(List.of(position));
+        }
+        if (payload instanceof TransportLocationDTO location) {
+            return encodeLocation(location);
+        }
+        if (payload instanceof ViewportUpdateDTO update) {
+            return encodeViewport(update);
+        }
+        if (payload instanceof TrackingFrameDTO frame) {
+            return encodeFrame(frame);
+        }
+        return null;
+    }
+
+    public static byte[] encodePositions(List<VehicleTrackingDTO> positions) {
+        if (!encodable(positions)) {
+            return null;
+        }
+        Writer out = header(KIND_POSITIONS, 8 + positions.size() * 24);
+        writePositions(out, positions);
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeLocation(TransportLocationDTO location) {
+        if (location.getLatitude() == null || location.getLongitude() == null || location.getTimestamp() == null) {
+            return null;
+        }
+        Writer out = header(KIND_LOCATION, 24);
+        out.zigzag(scale(location.getLatitude(), COORDINATE_SCALE));
+        out.zigzag(scale(location.getLongitude(), COORDINATE_SCALE));
+        out.varint(optional(location.getProgress()));
+        out.varint(location.getTimestamp());
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeViewport(ViewportUpdateDTO update) {
+        boolean onlyPositions = (update.getAlerts() == null || update.getAlerts().isEmpty())
+                && (update.getInfrastructure() == null || update.getInfrastructure().isEmpty());
+        List<VehicleTrackingDTO> positions = update.getPositions() != null ? update.getPositions() : List.of();
+        if (!onlyPositions || !encodable(positions)) {
+            return null;
+        }
+        Writer out = header(KIND_VIEWPORT, 16 + positions.size() * 24);
+        out.varint(update.getSequence() != null ? update.getSequence() : 0);
+        out.put(Boolean.TRUE.equals(update.getSnapshot()) ? 1 : 0);
+        writePositions(out, positions);
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeFrame(TrackingFrameDTO frame) {
+        List<TopicUpdateDTO> updates = frame.getUpdates() != null ? frame.getUpdates() : List.of();
+        byte[][] destinations = new byte[updates.size()][];
+        byte[][] payloads = new byte[updates.size()][];
+        int size = 24;
+        for (int i = 0; i < updates.size(); i++) {
+            TopicUpdateDTO update = updates.get(i);
+            payloads[i] = update.getPayload() instanceof TrackingFrameDTO ? null : encode(update.getPayload());
+            if (payloads[i] == null || update.getDestination() == null) {
+                return null;
+            }
+            destinations[i] = update.getDestination().getBytes(StandardCharsets.UTF_8);
+            size += destinations[i].length + payloads[i].length + 4;
+        }
+        Writer out = header(KIND_FRAME, size);
+        out.varint(frame.getSequence() != null ? frame.getSequence() : 0);
+        out.varint(frame.getTimestamp() != null ? frame.getTimestamp() : 0);
+        out.varint(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            out.bytes(destinations[i]);
+            out.bytes(payloads[i]);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean encodable(List<VehicleTrackingDTO> positions) {
+        for (VehicleTrackingDTO position : positions) {
+            if (position.getLatitude() == null || position.getLongitude() == null || position.getRecordedAt() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writePositions(Writer out, List<VehicleTrackingDTO> positions) {
+        out.varint(positions.size());
+        long id = 0, transportId = 0, vehicleId = 0, lat = 0, lng = 0, time = 0;
+        for (VehicleTrackingDTO position : positions) {
+            long nextId = orZero(position.getId());
+            long nextTransportId = orZero(position.getTransportId());
+            long nextVehicleId = orZero(position.getVehicleId());
+            long nextLat = scale(position.getLatitude(), COORDINATE_SCALE);
+            long nextLng = scale(position.getLongitude(), COORDINATE_SCALE);
+            long nextTime = epochMillis(position.getRecordedAt());
+
+            out.zigzag(nextId - id);
+            out.zigzag(nextTransportId - transportId);
+            out.zigzag(nextVehicleId - vehicleId);
+            out.zigzag(nextLat - lat);
+            out.zigzag(nextLng - lng);
+            out.zigzag(nextTime - time);
+            out.varint(optional(position.getSpeedKmh()));
+            out.varint(heading(position.getHeadingDegrees()));
+            out.varint(optional(position.getFuelLevelPercentage()));
+
+            id = nextId;
+            transportId = nextTransportId;
+            vehicleId = nextVehicleId;
+            lat = nextLat;
+            lng = nextLng;
+            time = nextTime;
+        }
+    }
+
+    /**
+     * 🔓 Dekoduj komunikat rodzaju pozycje lub widok (pozycje widoku) - wzorzec dla klientów
+     *
+     * @throws IllegalArgumentException gdy nagłówek jest niepoprawny lub dane ucięte
+     */
+    public static List<VehicleTrackingDTO> decodePositions(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.u16() != (MAGIC & 0xFFFF) || in.u8() != VERSION) {
+            throw new IllegalArgumentException("Not a tracking frame");
+        }
+        int kind = in.u8();
+        if (kind == KIND_VIEWPORT) {
+            in.varint();
+            in.u8();
+        } else if (kind != KIND_POSITIONS) {
+            throw new IllegalArgumentException("Frame kind " + kind + " carries no positions");
+        }
+
+        int count = (int) in.varint();
+        List<VehicleTrackingDTO> positions = new ArrayList<>(count);
+        long id = 0, transportId = 0, vehicleId = 0, lat = 0, lng = 0, time = 0;
+        for (int i = 0; i < count; i++) {
+            id += in.zigzag();
+            transportId += in.zigzag();
+            vehicleId += in.zigzag();
+            lat += in.zigzag();
+            lng += in.zigzag();
+            time += in.zigzag();
+            long speed = in.varint();
+            long heading = in.varint();
+            long fuel = in.varint();
+
+            positions.add(VehicleTrackingDTO.builder()
+                    .id(id != 0 ? id : null)
+                    .transportId(transportId != 0 ? transportId : null)
+                    .vehicleId(vehicleId != 0 ? vehicleId : null)
+                    .latitude(lat / COORDINATE_SCALE)
+                    .longitude(lng / COORDINATE_SCALE)
+                    .recordedAt(LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1000),
+                            (int) Math.floorMod(time, 1000) * 1_000_000, ZoneOffset.UTC))
+                    .speedKmh(speed != 0 ? (speed - 1) / DECIMAL_SCALE : null)
+                    .headingDegrees(heading != 0 ? (int) (heading - 1) : null)
+                    .fuelLevelPercentage(fuel != 0 ? (fuel - 1) / DECIMAL_SCALE : null)
+                    .build());
+        }
+        return positions;
+    }
+
+    private static Writer header(byte kind, int sizeHint) {
+        Writer out = new Writer(sizeHint);
+        out.put(MAGIC >>> 8);
+        out.put(MAGIC);
+        out.put(VERSION);
+        out.put(kind);
+        return out;
+    }
+
+    private static long scale(double value, double scale) {
+        return Math.round(value * scale);
+    }
+
+    private static long optional(Double value) {
+        return value != null && value >= 0 ? scale(value, DECIMAL_SCALE) + 1 : 0;
+    }
+
+    /**
+     * Kurs sprowadzony do 0-359 (np. -90 → 270, 360 → 0) - ujemny dawałby 10-bajtowy varint
+     */
+    private static long heading(Integer degrees) {
+        return degrees != null ? Math.floorMod(degrees, 360) + 1L : 0;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int length;
+
+        private Writer(int sizeHint) {
+            buffer = new byte[Math.max(16, sizeHint)];
+        }
+
+        private void put(int value) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((int) value);
+        }
+
+        private void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        private void bytes(byte[] value) {
+            varint(value.length);
+            if (length + value.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + value.length));
+            }
+            System.arraycopy(value, 0, buffer, length, value.length);
+            length += value.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private int u8() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated tracking frame");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private int u16() {
+            return (u8() << 8) | u8();
+        }
+
+        private long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in tracking frame");
+        }
+
+        private long zigzag() {
+            long raw = varint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
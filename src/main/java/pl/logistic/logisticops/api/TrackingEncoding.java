@@ -0,0 +1,173 @@
+package pl.logistic.logisticops.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🗜️ NEGOCJACJA KODOWANIA KOMUNIKATÓW ŚLEDZENIA (JSON / binarne)
+ *
+ * Domyślnie wszystko idzie jako JSON. Klient połączony czystym WebSocketem na /ws-native
+ * może w ramce CONNECT podać nagłówek "tracking-encoding: binary" - wtedy komunikaty śledzenia
+ * mające postać binarną (TrackingBinaryCodec) dostaje jako ramki binarne z content-type
+ * application/octet-stream i nagłówkiem "tracking-encoding: binary"; pozostałe nadal w JSON.
+ * Przez SockJS (/ws) tylko JSON - SockJS nie przenosi ramek binarnych.
+ *
+ * Nadawca dokłada zakodowany komunikat do nagłówków (headersFor) - kodowanie raz na komunikat,
+ * i tylko gdy jest choć jedna sesja binarna; podmiana treści w kanale wychodzącym per sesja.
+ *
+ * Metryki: logisticops.websocket.binary.sessions, logisticops.websocket.binary.frames
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingEncoding {
+
+    public static final String ENCODING_HEADER = "tracking-encoding";
+    public static final String BINARY = "binary";
+
+    private static final String NATIVE_SESSION_ATTRIBUTE = "trackingNativeWebSocket";
+    private static final String BINARY_PAYLOAD_HEADER = "trackingBinaryPayload";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.binary.enabled:true}")
+    private boolean enabled;
+
+    private final Set<String> binarySessions = ConcurrentHashMap.newKeySet();
+    private Counter binaryFrames;
+
+    @PostConstruct
+    void init() {
+        binaryFrames = Counter.builder("logisticops.websocket.binary.frames")
+                .description("Komunikaty śledzenia wysłane w postaci binarnej")
+                .register(meterRegistry);
+        Gauge.builder("logisticops.websocket.binary.sessions", binarySessions, Set::size)
+                .description("Sesje STOMP z kodowaniem binarnym")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 📨 Nagłówki komunikatu do tematu (z postacią binarną, gdy ktoś może jej użyć)
+     */
+    public MessageHeaders headersFor(Object payload) {
+        return headersFor(payload, null);
+    }
+
+    /**
+     * 📨 Nagłówki komunikatu do jednej sesji (/user/{sessionId}/...) lub tematu (sessionId = null)
+     */
+    public MessageHeaders headersFor(Object payload, String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (sessionId != null) {
+            headers.setSessionId(sessionId);
+        }
+        boolean wanted = sessionId != null ? binarySessions.contains(sessionId) : !binarySessions.isEmpty();
+        if (wanted) {
+            byte[] binary = TrackingBinaryCodec.encode(payload);
+            if (binary != null) {
+                headers.setHeader(BINARY_PAYLOAD_HEADER, binary);
+            }
+        }
+        headers.setLeaveMutable(true);
+        return headers.getMessageHeaders();
+    }
+
+    /**
+     * 🤝 Znacznik sesji czystego WebSocketa (endpoint /ws-native)
+     */
+    public HandshakeInterceptor nativeEndpointMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(NATIVE_SESSION_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    /**
+     * 📥 CONNECT z "tracking-encoding: binary" - rejestracja sesji binarnej
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+                if (headers.getCommand() == StompCommand.CONNECT
+                        && BINARY.equalsIgnoreCase(headers.getFirstNativeHeader(ENCODING_HEADER))) {
+                    register(headers);
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * 📤 Podmiana treści na postać binarną dla sesji, które o nią prosiły
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                Object binary = message.getHeaders().get(BINARY_PAYLOAD_HEADER);
+                if (!(binary instanceof byte[] bytes)
+                        || !binarySessions.contains(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))) {
+                    return message;
+                }
+                SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+                headers.removeHeader(BINARY_PAYLOAD_HEADER);
+                headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+                headers.setNativeHeader(ENCODING_HEADER, BINARY);
+                binaryFrames.increment();
+                return MessageBuilder.createMessage(bytes, headers.getMessageHeaders());
+            }
+        };
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        binarySessions.remove(event.getSessionId());
+    }
+
+    private void register(StompHeaderAccessor headers) {
+        Map<String, Object> attributes = headers.getSessionAttributes();
+        if (!enabled || attributes == null || !Boolean.TRUE.equals(attributes.get(NATIVE_SESSION_ATTRIBUTE))) {
+            log.debug("🗜️ Session {} asked for binary tracking frames, staying on JSON", headers.getSessionId());
+            return;
+        }
+        binarySessions.add(headers.getSessionId());
+        log.debug("🗜️ Session {} receives binary tracking frames", headers.getSessionId());
+    }
+}
@@ -0,0 +1,270 @@
+package pl.logistic.logisticops.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import pl.logistic.logisticops.dto.AlertDTO;
+import pl.logistic.logisticops.dto.InfrastructureChangeDTO;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.dto.ViewportUpdateDTO;
+import pl.logistic.logisticops.dto.request.ViewportRequestDTO;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.BoxGridIndex;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.mapper.InfrastructureMapper;
+import pl.logistic.logisticops.model.Infrastructure;
+import pl.logistic.logisticops.tracking.LatestPositionStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 🗺️ SUBSKRYPCJE WIDOKU MAPY (viewport)
+ *
+ * Klient STOMP wysyła na /app/viewport prostokąt i zoom swojej mapy, a na
+ * /user/queue/viewport dostaje tylko pozycje, alerty i zmiany infrastruktury z tego
+ * prostokąta. Widoki wszystkich sesji leżą w siatkowym indeksie (BoxGridIndex), więc
+ * przypisanie zdarzenia do odbiorców to jedna komórka siatki - koszt nie rośnie z liczbą
+ * klientów oglądających inne rejony.
+ *
+ * Pozycje konflowane per sesja i pojazd, wysyłane razem z alertami jedną ramką na sesję
+ * co websocket.conflation.flush-interval-ms. Zmiana widoku dosyła migawkę ostatnich pozycji
+ * z LatestPositionStore. Infrastruktura tylko dla widoków z zoomem ≥ infrastructure-min-zoom.
+ *
+ * Metryki: logisticops.websocket.viewports, logisticops.websocket.viewport.routed{kind}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ViewportRouter {
+
+    public static final String USER_DESTINATION = "/queue/viewport";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LatestPositionStore latestPositionStore;
+    private final InfrastructureMapper infrastructureMapper;
+    private final TrackingEncoding encoding;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.viewport.cell-size-deg:0.25}")
+    private double cellSizeDeg;
+
+    @Value("${websocket.viewport.max-cells-per-viewport:256}")
+    private int maxCellsPerViewport;
+
+    @Value("${websocket.viewport.infrastructure-min-zoom:8}")
+    private int infrastructureMinZoom;
+
+    private BoxGridIndex<Viewport> index;
+    private final Map<String, Viewport> sessions = new ConcurrentHashMap<>();
+
+    private Counter routedPositions;
+    private Counter routedAlerts;
+    private Counter routedInfrastructure;
+
+    /**
+     * 📺 Widok jednej sesji i zmiany czekające na wysyłkę
+     */
+    private static final class Viewport {
+        private final String sessionId;
+        private final int zoom;
+        private final Map<Long, VehicleTrackingDTO> positions = new ConcurrentHashMap<>();
+        private final Queue<AlertDTO> alerts = new ConcurrentLinkedQueue<>();
+        private final Queue<InfrastructureChangeDTO> infrastructure = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean snapshot = new AtomicBoolean(true);
+        private long sequence;
+
+        private Viewport(String sessionId, int zoom) {
+            this.sessionId = sessionId;
+            this.zoom = zoom;
+        }
+
+        private boolean isEmpty() {
+            return positions.isEmpty() && alerts.isEmpty() && infrastructure.isEmpty() && !snapshot.get();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        index = new BoxGridIndex<>(cellSizeDeg, maxCellsPerViewport);
+        routedPositions = routed("position");
+        routedAlerts = routed("alert");
+        routedInfrastructure = routed("infrastructure");
+        Gauge.builder("logisticops.websocket.viewports", sessions, Map::size)
+                .description("Sesje z aktywną subskrypcją widoku mapy")
+                .register(meterRegistry);
+    }
+
+    private Counter routed(String kind) {
+        return Counter.builder("logisticops.websocket.viewport.routed")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🗺️ Ustaw (lub zmień) widok sesji; najbliższa wysyłka niesie migawkę pozycji
+     *
+     * @throws IllegalArgumentException gdy prostokąt jest pusty lub przechodzi przez antypołudnik
+     */
+    public void subscribe(String sessionId, ViewportRequestDTO request) {
+        if (request.getMinLatitude() > request.getMaxLatitude() || request.getMinLongitude() > request.getMaxLongitude()) {
+            throw new IllegalArgumentException("Viewport min corner must be south-west of max corner");
+        }
+        BoundingBox box = new BoundingBox(request.getMinLatitude(), request.getMinLongitude(),
+                request.getMaxLatitude(), request.getMaxLongitude());
+        Viewport viewport = new Viewport(sessionId, request.getZoom() != null ? request.getZoom() : 0);
+        for (VehicleTrackingDTO position : latestPositionStore.findInBox(box)) {
+            if (position.getVehicleId() != null) {
+                viewport.positions.put(position.getVehicleId(), position);
+            }
+        }
+
+        Viewport previous = sessions.put(sessionId, viewport);
+        if (previous != null) {
+            index.remove(previous);
+        }
+        index.put(viewport, box);
+        log.debug("🗺️ Session {} viewport {} (zoom {}), {} positions in snapshot",
+                sessionId, box, viewport.zoom, viewport.positions.size());
+    }
+
+    public void unsubscribe(String sessionId) {
+        Viewport viewport = sessions.remove(sessionId);
+        if (viewport != null) {
+            index.remove(viewport);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        unsubscribe(event.getSessionId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsPersisted(VehiclePositionsPersistedEvent event) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        for (VehicleTrackingDTO position : event.getPositions()) {
+            if (position.getVehicleId() == null || position.getLatitude() == null || position.getLongitude() == null) {
+                continue;
+            }
+            index.forEachContaining(position.getLatitude(), position.getLongitude(), viewport -> {
+                viewport.positions.put(position.getVehicleId(), position);
+                routedPositions.increment();
+            });
+        }
+    }
+
+    /**
+     * 🚨 Nowy alert w punkcie (pozycja transportu lub obiekt infrastruktury)
+     */
+    public void routeAlert(double latitude, double longitude, AlertDTO alert) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        index.forEachContaining(latitude, longitude, viewport -> {
+            viewport.alerts.add(alert);
+            routedAlerts.increment();
+        });
+    }
+
+    /**
+     * 🏗️ Zmiana infrastruktury - do widoków zawierających nowe lub poprzednie położenie
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInfrastructureChanged(InfrastructureChangedEvent event) {
+        if (sessions.isEmpty() || event.getChangeType() == InfrastructureChangedEvent.ChangeType.SYNCED) {
+            return;
+        }
+        for (Infrastructure infrastructure : event.getInfrastructure()) {
+            Set<Viewport> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            Consumer<Viewport> collect = viewport -> {
+                if (viewport.zoom >= infrastructureMinZoom) {
+                    targets.add(viewport);
+                }
+            };
+            if (infrastructure.getLatitude() != null && infrastructure.getLongitude() != null) {
+                index.forEachContaining(infrastructure.getLatitude(), infrastructure.getLongitude(), collect);
+            }
+            for (GeoPoint previous : event.getPreviousLocations()) {
+                index.forEachContaining(previous.latitude(), previous.longitude(), collect);
+            }
+            if (targets.isEmpty()) {
+                continue;
+            }
+
+            InfrastructureChangeDTO change = new InfrastructureChangeDTO(
+                    event.getChangeType().name(), infrastructureMapper.toDTO(infrastructure));
+            for (Viewport viewport : targets) {
+                viewport.infrastructure.add(change);
+                routedInfrastructure.increment();
+            }
+        }
+    }
+
+    /**
+     * 🚀 Jedna ramka na sesję ze zmianami od poprzedniej wysyłki
+     */
+    @Scheduled(fixedRateString = "${websocket.conflation.flush-interval-ms:1000}")
+    public void flush() {
+        for (Viewport viewport : sessions.values()) {
+            if (viewport.isEmpty()) {
+                continue;
+            }
+            try {
+                ViewportUpdateDTO update = ViewportUpdateDTO.builder()
+                        .sequence(++viewport.sequence)
+                        .snapshot(viewport.snapshot.getAndSet(false))
+                        .positions(drain(viewport.positions))
+                        .alerts(drain(viewport.alerts))
+                        .infrastructure(drain(viewport.infrastructure))
+                        .build();
+                messagingTemplate.convertAndSendToUser(viewport.sessionId, USER_DESTINATION, update,
+                        encoding.headersFor(update, viewport.sessionId));
+            } catch (RuntimeException e) {
+                log.error("❌ Failed to send viewport update to session {}", viewport.sessionId, e);
+            }
+        }
+    }
+
+    private static List<VehicleTrackingDTO> drain(Map<Long, VehicleTrackingDTO> positions) {
+        List<VehicleTrackingDTO> result = new ArrayList<>(positions.size());
+        for (Long vehicleId : positions.keySet()) {
+            VehicleTrackingDTO position = positions.remove(vehicleId);
+            if (position != null) {
+                result.add(position);
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> result = new ArrayList<>();
+        for (T item = queue.poll(); item != null; item = queue.poll()) {
+            result.add(item);
+        }
+        return result;
+    }
+}
@@ -1,19 +1,55 @@
 package pl.logistic.logisticops.api;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final TrackingEncoding trackingEncoding;
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.transport.send-buffer-size-bytes:524288}")
+    private int sendBufferSizeBytes;
+
+    @Value("${websocket.transport.message-size-limit-bytes:65536}")
+    private int messageSizeLimitBytes;
+
+    @Value("${websocket.channels.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.channels.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.channels.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.channels.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.channels.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.channels.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
     
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
     }
     
     @Override
@@ -21,5 +57,41 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("*")
                 .withSockJS();
+
+        // Czysty WebSocket - jedyna droga do binarnych ramek śledzenia
+        registry.addEndpoint("/ws-native")
+                .setAllowedOrigins("*")
+                .addInterceptors(trackingEncoding.nativeEndpointMarker());
+    }
+
+    /**
+     * Limity per sesja: zapis dłuższy niż send-time-limit lub bufor ponad send-buffer-size
+     * zamyka sesję zamiast blokować wątki kanału wychodzącego
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeBytes)
+                .setMessageSizeLimit(messageSizeLimitBytes)
+                .addDecoratorFactory(slowConsumerGuard::decorate);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(trackingEncoding.inboundInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        // Najpierw decyzja o pominięciu, potem (kosztowniejsza) podmiana na postać binarną
+        registration.interceptors(slowConsumerGuard.outboundInterceptor(), trackingEncoding.outboundInterceptor());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package pl.logistic.logisticops.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class RouteExecutorConfig {
+
+    /**
+     * 🧵 Wirtualne wątki dla równoległego pobierania wariantów tras (blokujące wywołania HTTP)
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService routeVariantExecutor() {
+        return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("LogisticOps-RouteVariant-", 0).factory());
+    }
+}
@@ -8,7 +8,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.logistic.logisticops.dto.InfrastructureDTO;
+import pl.logistic.logisticops.dto.InfrastructureSyncDTO;
 import pl.logistic.logisticops.dto.request.CreateInfrastructureRequestDTO;
+import pl.logistic.logisticops.service.InfrastructureChangeLog;
 import pl.logistic.logisticops.service.InfrastructureService;
 
 import jakarta.validation.Valid;
@@ -21,12 +23,23 @@ import java.util.List;
 public class InfrastructureController {
 
     private final InfrastructureService infrastructureService;
+    private final InfrastructureChangeLog infrastructureChangeLog;
 
     @GetMapping
     public ResponseEntity<Page<InfrastructureDTO>> getAllInfrastructure(Pageable pageable) {
         return ResponseEntity.ok(infrastructureService.getAllInfrastructure(pageable));
     }
 
+    @GetMapping("/snapshot")
+    public ResponseEntity<InfrastructureSyncDTO> getInfrastructureSnapshot() {
+        return ResponseEntity.ok(infrastructureChangeLog.snapshot());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<InfrastructureSyncDTO> getInfrastructureChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(infrastructureChangeLog.changesSince(since));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<InfrastructureDTO> getInfrastructureById(@PathVariable Long id) {
         return infrastructureService.getInfrastructureById(id)
@@ -48,7 +61,11 @@ public class InfrastructureController {
     public ResponseEntity<List<InfrastructureDTO>> getInfrastructureNearPoint(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "10.0") Double radiusKm) {
+            @RequestParam(defaultValue = "10.0") Double radiusKm,
+            @RequestParam(required = false) Integer limit) {
+        if (limit != null) {
+            return ResponseEntity.ok(infrastructureService.getNearestInfrastructure(latitude, longitude, limit, radiusKm));
+        }
         return ResponseEntity.ok(infrastructureService.getInfrastructureNearPoint(latitude, longitude, radiusKm));
     }
 
@@ -0,0 +1,54 @@
+package pl.logistic.logisticops.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.logistic.logisticops.dto.MilitaryDeviceDTO;
+import pl.logistic.logisticops.dto.request.RegisterMilitaryDeviceRequestDTO;
+import pl.logistic.logisticops.enums.CertificateStatus;
+import pl.logistic.logisticops.service.MilitaryDeviceService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/military-devices")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MilitaryDeviceController {
+
+    private final MilitaryDeviceService deviceService;
+
+    @GetMapping
+    public ResponseEntity<List<MilitaryDeviceDTO>> getAllDevices() {
+        return ResponseEntity.ok(deviceService.getAllDevices());
+    }
+
+    @GetMapping("/{deviceId}")
+    public ResponseEntity<MilitaryDeviceDTO> getDevice(@PathVariable String deviceId) {
+        return ResponseEntity.ok(deviceService.getDevice(deviceId));
+    }
+
+    @PostMapping
+    public ResponseEntity<MilitaryDeviceDTO> registerDevice(@Valid @RequestBody RegisterMilitaryDeviceRequestDTO request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(deviceService.registerDevice(request));
+    }
+
+    @PatchMapping("/{deviceId}/transport")
+    public ResponseEntity<MilitaryDeviceDTO> bindTransport(@PathVariable String deviceId,
+                                                           @RequestParam(required = false) Long transportId) {
+        return ResponseEntity.ok(deviceService.bindTransport(deviceId, transportId));
+    }
+
+    @PatchMapping("/{deviceId}/certificate")
+    public ResponseEntity<MilitaryDeviceDTO> updateCertificateStatus(@PathVariable String deviceId,
+                                                                     @RequestParam CertificateStatus status) {
+        return ResponseEntity.ok(deviceService.updateCertificateStatus(deviceId, status));
+    }
+
+    @DeleteMapping("/{deviceId}")
+    public ResponseEntity<MilitaryDeviceDTO> deactivateDevice(@PathVariable String deviceId) {
+        return ResponseEntity.ok(deviceService.deactivateDevice(deviceId));
+    }
+}
@@ -1,13 +1,21 @@
 package pl.logistic.logisticops.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.logistic.logisticops.model.MilitaryGpsData;
 import pl.logistic.logisticops.service.MilitaryGpsIntegrationService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +26,10 @@ import java.util.Map;
 class MilitaryGpsController {
 
     private final MilitaryGpsIntegrationService militaryGpsService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.tracking.bulk.max-records:10000}")
+    private int maxBatchRecords;
 
     /**
      * 📡 Endpoint dla urządzeń GPS wojskowych
@@ -43,6 +55,46 @@ class MilitaryGpsController {
         ));
     }
 
+    /**
+     * 📦 Wsad pozycji - tablica JSON lub strumień NDJSON (odtwarzanie bufora urządzenia)
+     *
+     * Rekordy czytane strumieniowo; status każdego rekordu zwracany w kolejności przesłania.
+     * Rekordy RETRY_LATER (pełna kolejka zapisu) urządzenie powinno wysłać ponownie.
+     */
+    @PostMapping(value = "/positions",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> receiveGpsPositions(
+            InputStream body,
+            @RequestHeader("Authorization") String authToken) throws IOException {
+
+        if (!isValidMilitaryToken(authToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("status", "UNAUTHORIZED", "message", "Invalid military token"));
+        }
+
+        return ResponseEntity.ok(militaryGpsService.receiveSecureGpsBatch(readBatch(body)));
+    }
+
+    /**
+     * Root-level tablica i sekwencja obiektów (NDJSON) czytane tym samym iteratorem
+     */
+    private List<MilitaryGpsData> readBatch(InputStream body) throws IOException {
+        List<MilitaryGpsData> batch = new ArrayList<>();
+        try (MappingIterator<MilitaryGpsData> records = objectMapper
+                .readerFor(MilitaryGpsData.class)
+                .readValues(body)) {
+            while (records.hasNextValue()) {
+                if (batch.size() >= maxBatchRecords) {
+                    throw new IllegalArgumentException("Batch exceeds " + maxBatchRecords + " records");
+                }
+                batch.add(records.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed GPS record #" + batch.size() + ": " + e.getOriginalMessage());
+        }
+        return batch;
+    }
+
     /**
      * 📊 Status urządzeń GPS w terenie
      */
@@ -0,0 +1,59 @@
+package pl.logistic.logisticops.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.logistic.logisticops.dto.RestrictedZoneDTO;
+import pl.logistic.logisticops.dto.request.RestrictedZoneRequestDTO;
+import pl.logistic.logisticops.service.GeofenceService;
+import pl.logistic.logisticops.service.RestrictedZoneService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/restricted-zones")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RestrictedZoneController {
+
+    private final RestrictedZoneService zoneService;
+    private final GeofenceService geofenceService;
+
+    @GetMapping
+    public ResponseEntity<List<RestrictedZoneDTO>> getAllZones() {
+        return ResponseEntity.ok(zoneService.getAllZones());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RestrictedZoneDTO> getZone(@PathVariable Long id) {
+        return ResponseEntity.ok(zoneService.getZone(id));
+    }
+
+    /**
+     * Aktywne strefy zawierające punkt - z indeksu geofencingu w pamięci
+     */
+    @GetMapping("/containing")
+    public ResponseEntity<List<GeofenceService.ZoneInfo>> getZonesContaining(@RequestParam Double latitude,
+                                                                             @RequestParam Double longitude) {
+        return ResponseEntity.ok(geofenceService.zonesAt(latitude, longitude));
+    }
+
+    @PostMapping
+    public ResponseEntity<RestrictedZoneDTO> createZone(@Valid @RequestBody RestrictedZoneRequestDTO request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(zoneService.createZone(request));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<RestrictedZoneDTO> updateZone(@PathVariable Long id,
+                                                        @Valid @RequestBody RestrictedZoneRequestDTO request) {
+        return ResponseEntity.ok(zoneService.updateZone(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteZone(@PathVariable Long id) {
+        zoneService.deleteZone(id);
+        return ResponseEntity.noContent().build();
+    }
+}
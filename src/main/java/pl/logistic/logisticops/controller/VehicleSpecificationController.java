@@ -3,15 +3,20 @@ package pl.logistic.logisticops.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.logistic.logisticops.dto.VehicleSpecificationDTO;
 import pl.logistic.logisticops.dto.request.CreateVehicleRequestDTO;
 import pl.logistic.logisticops.enums.VehicleType;
 import pl.logistic.logisticops.service.VehicleSpecificationService;
+import pl.logistic.logisticops.tracking.VehicleHistoryStreamer;
 
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +26,7 @@ import java.util.List;
 public class VehicleSpecificationController {
 
     private final VehicleSpecificationService vehicleService;
+    private final VehicleHistoryStreamer historyStreamer;
 
     @GetMapping
     public ResponseEntity<Page<VehicleSpecificationDTO>> getAllVehicles(Pageable pageable) {
@@ -34,6 +40,28 @@ public class VehicleSpecificationController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 🕒 Historia pozycji pojazdu - domyślnie uproszczona do zoomu mapy lub budżetu punktów,
+     * simplify=false zwraca surowe pozycje; odpowiedź strumieniowana
+     */
+    @GetMapping(value = "/{id}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getVehicleHistory(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "true") boolean simplify,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Integer maxPoints) {
+
+        VehicleHistoryStreamer.HistoryQuery query =
+                new VehicleHistoryStreamer.HistoryQuery(id, from, to, simplify, zoom, maxPoints);
+        historyStreamer.validate(query);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> historyStreamer.write(query, out));
+    }
+
     @GetMapping("/type/{type}")
     public ResponseEntity<List<VehicleSpecificationDTO>> getVehiclesByType(@PathVariable VehicleType type) {
         return ResponseEntity.ok(vehicleService.getVehiclesByType(type));
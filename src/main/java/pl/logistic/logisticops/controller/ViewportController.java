@@ -0,0 +1,45 @@
+package pl.logistic.logisticops.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import pl.logistic.logisticops.api.ViewportRouter;
+import pl.logistic.logisticops.dto.request.ViewportRequestDTO;
+
+import java.util.Map;
+
+/**
+ * 🗺️ Protokół widoku mapy: SEND /app/viewport (prostokąt + zoom), SEND /app/viewport/clear,
+ * SUBSCRIBE /user/queue/viewport (zmiany w widoku), błędy na /user/queue/errors
+ */
+@Controller
+@RequiredArgsConstructor
+public class ViewportController {
+
+    private final ViewportRouter viewportRouter;
+
+    @MessageMapping("/viewport")
+    public void updateViewport(@Valid @Payload ViewportRequestDTO request, SimpMessageHeaderAccessor headers) {
+        viewportRouter.subscribe(headers.getSessionId(), request);
+    }
+
+    @MessageMapping("/viewport/clear")
+    public void clearViewport(SimpMessageHeaderAccessor headers) {
+        viewportRouter.unsubscribe(headers.getSessionId());
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleException(Exception e) {
+        return Map.of(
+                "error", e.getClass().getSimpleName(),
+                "message", String.valueOf(e.getMessage()),
+                "timestamp", System.currentTimeMillis()
+        );
+    }
+}
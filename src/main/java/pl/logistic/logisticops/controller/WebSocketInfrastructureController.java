@@ -2,11 +2,15 @@ package pl.logistic.logisticops.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
+import pl.logistic.logisticops.dto.InfrastructureSyncDTO;
+import pl.logistic.logisticops.geo.StrRTree;
 import pl.logistic.logisticops.model.Infrastructure;
-import pl.logistic.logisticops.repository.InfrastructureRepository;
+import pl.logistic.logisticops.service.InfrastructureChangeLog;
+import pl.logistic.logisticops.service.InfrastructureSpatialIndex;
 import pl.logistic.logisticops.service.RealTimeInfrastructureService;
 
 import java.util.List;
@@ -16,14 +20,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class WebSocketInfrastructureController {
 
-    private final InfrastructureRepository infrastructureRepository;
+    private final InfrastructureChangeLog infrastructureChangeLog;
+    private final InfrastructureSpatialIndex spatialIndex;
     private final SimpMessagingTemplate messagingTemplate;
     private final RealTimeInfrastructureService realTimeService;
 
+    /**
+     * 🔄 Stan startowy dla klienta: migawka albo (z "sinceVersion") zmiany od jego wersji;
+     * dalsze zmiany na /topic/infrastructure/changes
+     */
     @MessageMapping("/infrastructure/subscribe")
-    @SendTo("/topic/infrastructure/all")
-    public List<Infrastructure> subscribeToInfrastructureUpdates() {
-        return infrastructureRepository.findByIsActiveTrue();
+    @SendToUser(destinations = "/queue/infrastructure", broadcast = false)
+    public InfrastructureSyncDTO subscribeToInfrastructureUpdates(@Payload(required = false) Map<String, Object> request) {
+        Object sinceVersion = request != null ? request.get("sinceVersion") : null;
+        return infrastructureChangeLog.changesSince(
+                sinceVersion != null ? Long.valueOf(sinceVersion.toString()) : null);
     }
 
     @MessageMapping("/infrastructure/check-status")
@@ -42,8 +53,10 @@ public class WebSocketInfrastructureController {
         Double radius = request.get("radius") != null ?
                 Double.valueOf(request.get("radius").toString()) : 10.0;
 
-        List<Infrastructure> nearbyInfrastructure =
-                infrastructureRepository.findNearPoint(latitude, longitude, radius);
+        List<Infrastructure> nearbyInfrastructure = spatialIndex.findWithinRadius(latitude, longitude, radius)
+                .stream()
+                .map(StrRTree.Hit::item)
+                .toList();
 
         messagingTemplate.convertAndSend("/topic/infrastructure/nearby", Map.of(
                 "requestId", request.get("requestId"),
@@ -0,0 +1,24 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 🚛 Zbiorcza pozycja konwoju - jeden komunikat zamiast jednego na pojazd
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConvoyPositionDTO {
+    private Long transportId;
+    private Double latitude;
+    private Double longitude;
+    private Double speedKmh;
+    private Integer headingDegrees;
+    private Double fuelLevelPercentage;
+    private LocalDateTime recordedAt;
+    private List<ConvoyVehicleDTO> vehicles;
+}
@@ -0,0 +1,13 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConvoyVehicleDTO {
+    private Long trackingId;
+    private Long vehicleId;
+    private String vehicleModel;
+}
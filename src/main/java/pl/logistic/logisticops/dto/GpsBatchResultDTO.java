@@ -0,0 +1,18 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GpsBatchResultDTO {
+    private Integer received;
+    private Integer accepted;
+    private Integer rejected;
+    private LocalDateTime processedAt;
+    private List<GpsRecordStatusDTO> records;   // W kolejności przesłania
+}
@@ -0,0 +1,18 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+import pl.logistic.logisticops.enums.GpsRecordStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GpsRecordStatusDTO {
+    private Integer index;              // Pozycja rekordu w przesłanym wsadzie
+    private String deviceId;
+    private LocalDateTime timestamp;
+    private GpsRecordStatus status;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+/**
+ * 🏗️ Zmiana obiektu infrastruktury (CREATED, UPDATED, STATUS_CHANGED, DELETED)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InfrastructureChangeDTO {
+    private String changeType;
+    private InfrastructureDTO infrastructure;
+}
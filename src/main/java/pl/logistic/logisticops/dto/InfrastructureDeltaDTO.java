@@ -0,0 +1,18 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+import pl.logistic.logisticops.enums.InfrastructureChangeType;
+
+/**
+ * 🔁 Jedna zmiana infrastruktury; infrastructure = null dla DEACTIVATE
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InfrastructureDeltaDTO {
+    private Long version;
+    private InfrastructureChangeType type;
+    private Long infrastructureId;
+    private InfrastructureDTO infrastructure;
+}
@@ -0,0 +1,21 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 🔄 Stan infrastruktury klienta: migawka (snapshot = true, infrastructure) albo zmiany
+ * z zakresu (fromVersion, version] (changes). Po zastosowaniu klient jest w wersji version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InfrastructureSyncDTO {
+    private Long fromVersion;
+    private Long version;
+    private Boolean snapshot;
+    private List<InfrastructureDTO> infrastructure;
+    private List<InfrastructureDeltaDTO> changes;
+}
@@ -0,0 +1,24 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+import pl.logistic.logisticops.enums.CertificateStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MilitaryDeviceDTO {
+    private Long id;
+    private String deviceId;
+    private Long vehicleId;
+    private String vehicleModel;
+    private Long transportId;
+    private String certificateSerial;
+    private CertificateStatus certificateStatus;
+    private LocalDateTime certificateExpiresAt;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
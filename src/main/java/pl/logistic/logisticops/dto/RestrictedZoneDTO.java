@@ -0,0 +1,24 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.geo.GeoPoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RestrictedZoneDTO {
+    private Long id;
+    private String name;
+    private String zoneType;
+    private AlertLevel alertLevel;
+    private List<GeoPoint> boundary;
+    private String description;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
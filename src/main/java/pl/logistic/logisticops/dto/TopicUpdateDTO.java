@@ -0,0 +1,15 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+/**
+ * 📨 Ostatni stan jednego tematu w ramce zbiorczej
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopicUpdateDTO {
+    private String destination;
+    private Object payload;
+}
@@ -0,0 +1,18 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 🎞️ Ramka zbiorcza - ostatnie stany wszystkich tematów śledzenia zmienionych od poprzedniej ramki
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrackingFrameDTO {
+    private Long sequence;
+    private Long timestamp;
+    private List<TopicUpdateDTO> updates;
+}
@@ -0,0 +1,17 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+/**
+ * 📍 Bieżące położenie transportu (/topic/transport/{id}/location)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransportLocationDTO {
+    private Double latitude;
+    private Double longitude;
+    private Double progress;
+    private Long timestamp;
+}
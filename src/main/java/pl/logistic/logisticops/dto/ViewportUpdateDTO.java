@@ -0,0 +1,22 @@
+package pl.logistic.logisticops.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * 🗺️ Zmiany w widoku mapy klienta od poprzedniej wysyłki (/user/queue/viewport)
+ *
+ * snapshot = true: pełny stan pozycji w nowym widoku (po zmianie widoku).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ViewportUpdateDTO {
+    private Long sequence;
+    private Boolean snapshot;
+    private List<VehicleTrackingDTO> positions;
+    private List<AlertDTO> alerts;
+    private List<InfrastructureChangeDTO> infrastructure;
+}
@@ -42,6 +42,8 @@ public class IntelligentRouteRequestDTO {
 
     private LocalDateTime plannedDeparture;
 
+    @Builder.Default
     private Boolean avoidRestrictions = true;
+    @Builder.Default
     private Boolean includeAlternatives = true;
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package pl.logistic.logisticops.dto.request;
+
+import lombok.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegisterMilitaryDeviceRequestDTO {
+
+    @NotNull(message = "Device id is required")
+    @Pattern(regexp = "^(GTX|DAGR|SOTAS)-[0-9A-F]{8}$", message = "Device id must look like GTX-0000A1F3")
+    private String deviceId;
+
+    @NotNull(message = "Vehicle id is required")
+    private Long vehicleId;
+
+    private Long transportId;
+
+    @NotBlank(message = "Certificate serial is required")
+    @Size(max = 128, message = "Certificate serial cannot exceed 128 characters")
+    private String certificateSerial;
+
+    @Future(message = "Certificate expiry must be in the future")
+    private LocalDateTime certificateExpiresAt;
+
+    // Klucz wgrany do terminala (256 bit, hex) - wymagany do nadawania przez odbiornik binarny
+    @Pattern(regexp = "^[0-9A-Fa-f]{64}$", message = "Frame key must be 64 hex characters (256 bit)")
+    private String frameKey;
+}
@@ -0,0 +1,33 @@
+package pl.logistic.logisticops.dto.request;
+
+import lombok.*;
+import jakarta.validation.constraints.*;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.geo.GeoPoint;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RestrictedZoneRequestDTO {
+
+    @NotBlank(message = "Zone name is required")
+    @Size(max = 255, message = "Zone name cannot exceed 255 characters")
+    private String name;
+
+    @NotBlank(message = "Zone type is required")
+    @Size(max = 50, message = "Zone type cannot exceed 50 characters")
+    private String zoneType;
+
+    private AlertLevel alertLevel;
+
+    @NotNull(message = "Zone boundary is required")
+    @Size(min = 3, max = 10000, message = "Zone boundary must have between 3 and 10000 vertices")
+    private List<GeoPoint> boundary;
+
+    private String description;
+
+    private Boolean active;
+}
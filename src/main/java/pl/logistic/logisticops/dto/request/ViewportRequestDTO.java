@@ -0,0 +1,38 @@
+package pl.logistic.logisticops.dto.request;
+
+import lombok.*;
+import jakarta.validation.constraints.*;
+
+/**
+ * 🗺️ Widok mapy konsoli operatora (STOMP /app/viewport)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ViewportRequestDTO {
+
+    @NotNull
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double minLatitude;
+
+    @NotNull
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double minLongitude;
+
+    @NotNull
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double maxLatitude;
+
+    @NotNull
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double maxLongitude;
+
+    @Min(value = 0, message = "Zoom must be between 0 and 22")
+    @Max(value = 22, message = "Zoom must be between 0 and 22")
+    private Integer zoom;
+}
@@ -0,0 +1,7 @@
+package pl.logistic.logisticops.enums;
+
+public enum CertificateStatus {
+    VALID,
+    SUSPENDED,  // Czasowo wstrzymany (np. utrata łączności z urządzeniem)
+    REVOKED     // Unieważniony - urządzenie utracone lub skompromitowane
+}
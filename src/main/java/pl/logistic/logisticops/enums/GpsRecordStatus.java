@@ -0,0 +1,10 @@
+package pl.logistic.logisticops.enums;
+
+
+public enum GpsRecordStatus {
+    ACCEPTED,
+    DROPPED,
+    INVALID,
+    UNAUTHORIZED_DEVICE,
+    RETRY_LATER
+}
@@ -0,0 +1,7 @@
+package pl.logistic.logisticops.enums;
+
+public enum InfrastructureChangeType {
+    ADD,
+    UPDATE,
+    DEACTIVATE
+}
@@ -0,0 +1,47 @@
+package pl.logistic.logisticops.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.model.Infrastructure;
+
+import java.util.List;
+
+/**
+ * 🏗️ Zdarzenie zmiany infrastruktury (CRUD, zmiana statusu, synchronizacja OSM)
+ *
+ * Publikowane przez serwisy modyfikujące tabelę infrastructure, obsługiwane po commicie
+ * przez komponenty trzymające dane infrastruktury w pamięci.
+ */
+@Getter
+@AllArgsConstructor
+public class InfrastructureChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED,
+        SYNCED
+    }
+
+    private final ChangeType changeType;
+
+    // Stan obiektów po zmianie (dla DELETED - ostatni znany stan, dla SYNCED - obiekty dodane synchronizacją)
+    private final List<Infrastructure> infrastructure;
+
+    // Położenia sprzed zmiany (UPDATED może przesunąć obiekt)
+    private final List<GeoPoint> previousLocations;
+
+    public static InfrastructureChangedEvent of(ChangeType changeType, Infrastructure infrastructure) {
+        return new InfrastructureChangedEvent(changeType, List.of(infrastructure), List.of());
+    }
+
+    public static InfrastructureChangedEvent updated(Infrastructure infrastructure, GeoPoint previousLocation) {
+        return new InfrastructureChangedEvent(ChangeType.UPDATED, List.of(infrastructure), List.of(previousLocation));
+    }
+
+    public static InfrastructureChangedEvent synced(List<Infrastructure> added) {
+        return new InfrastructureChangedEvent(ChangeType.SYNCED, List.copyOf(added), List.of());
+    }
+}
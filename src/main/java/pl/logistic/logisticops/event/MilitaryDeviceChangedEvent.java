@@ -0,0 +1,16 @@
+package pl.logistic.logisticops.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 🛡️ Zmiana wpisu rejestru urządzeń GPS (rejestracja, powiązanie, certyfikat)
+ *
+ * Publikowane w transakcji zmiany; rejestr w pamięci odświeża wpis po commicie.
+ */
+@Getter
+@AllArgsConstructor
+public class MilitaryDeviceChangedEvent {
+
+    private final String deviceId;
+}
@@ -0,0 +1,16 @@
+package pl.logistic.logisticops.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 🚧 Zmiana strefy zakazanej (utworzenie, edycja, usunięcie)
+ *
+ * Publikowane w transakcji zmiany; indeks stref w pamięci przebudowywany jest po commicie.
+ */
+@Getter
+@AllArgsConstructor
+public class RestrictedZoneChangedEvent {
+
+    private final Long zoneId;
+}
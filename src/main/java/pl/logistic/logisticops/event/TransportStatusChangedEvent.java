@@ -0,0 +1,23 @@
+package pl.logistic.logisticops.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pl.logistic.logisticops.enums.TransportStatus;
+
+/**
+ * 🚚 Zdarzenie zmiany statusu transportu (w tym zatwierdzenia trasy)
+ *
+ * Obsługiwane po commicie przez komponenty trzymające w pamięci stan per transport.
+ */
+@Getter
+@AllArgsConstructor
+public class TransportStatusChangedEvent {
+
+    private final Long transportId;
+    private final TransportStatus oldStatus;
+    private final TransportStatus newStatus;
+
+    public boolean isFinished() {
+        return newStatus == TransportStatus.COMPLETED || newStatus == TransportStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,35 @@
+package pl.logistic.logisticops.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+
+import java.util.List;
+
+/**
+ * 📍 Wsad pozycji zapisany w vehicle_tracking (z nadanymi id)
+ *
+ * Publikowane przez wątek zapisu potoku śledzenia po commicie wsadu; obsługa
+ * (broadcast, alerty) odbywa się poza ścieżką przyjmowania pozycji.
+ * Wsad konwoju (convoyTransportId != null) to jedna wspólna pozycja wszystkich pojazdów
+ * transportu - obsługiwany zbiorczo, po commicie transakcji aktualizacji transportu.
+ */
+@Getter
+@AllArgsConstructor
+public class VehiclePositionsPersistedEvent {
+
+    private final List<VehicleTrackingDTO> positions;
+    private final Long convoyTransportId;
+
+    public VehiclePositionsPersistedEvent(List<VehicleTrackingDTO> positions) {
+        this(positions, null);
+    }
+
+    public static VehiclePositionsPersistedEvent convoy(Long transportId, List<VehicleTrackingDTO> positions) {
+        return new VehiclePositionsPersistedEvent(positions, transportId);
+    }
+
+    public boolean isConvoy() {
+        return convoyTransportId != null;
+    }
+}
@@ -0,0 +1,11 @@
+package pl.logistic.logisticops.exception;
+
+/**
+ * 🚦 Kolejka potoku śledzenia pełna - nadawca powinien ponowić później
+ */
+public class TrackingBackpressureException extends RuntimeException {
+
+    public TrackingBackpressureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,40 @@
+package pl.logistic.logisticops.geo;
+
+/**
+ * 📦 Prostokąt ograniczający w stopniach (lat/lng)
+ */
+public record BoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+
+    public static BoundingBox of(double lat1, double lng1, double lat2, double lng2) {
+        return new BoundingBox(Math.min(lat1, lat2), Math.min(lng1, lng2),
+                Math.max(lat1, lat2), Math.max(lng1, lng2));
+    }
+
+    public boolean contains(double lat, double lng) {
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return other.minLat <= maxLat && other.maxLat >= minLat &&
+                other.minLng <= maxLng && other.maxLng >= minLng;
+    }
+
+    public boolean intersects(double oMinLat, double oMinLng, double oMaxLat, double oMaxLng) {
+        return oMinLat <= maxLat && oMaxLat >= minLat && oMinLng <= maxLng && oMaxLng >= minLng;
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minLat, other.minLat), Math.min(minLng, other.minLng),
+                Math.max(maxLat, other.maxLat), Math.max(maxLng, other.maxLng));
+    }
+
+    /**
+     * ➕ Rozszerz prostokąt o margines w kilometrach
+     */
+    public BoundingBox expandKm(double marginKm) {
+        double dLat = marginKm / GeoUtils.KM_PER_DEGREE_LAT;
+        double maxAbsLat = Math.min(89.0, Math.max(Math.abs(minLat), Math.abs(maxLat)));
+        double dLng = marginKm / (GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(maxAbsLat)));
+        return new BoundingBox(minLat - dLat, minLng - dLng, maxLat + dLat, maxLng + dLng);
+    }
+}
@@ -0,0 +1,113 @@
+package pl.logistic.logisticops.geo;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 🔲 Modyfikowalny siatkowy indeks prostokątów do zapytań "które prostokąty zawierają punkt"
+ *
+ * Prostokąt rejestrowany jest w komórkach, które pokrywa; zapytanie przegląda tylko
+ * wpisy jednej komórki (plus listę szerokich), więc koszt nie rośnie z liczbą wpisów
+ * w innych częściach mapy. Prostokąty pokrywające więcej niż maxCellsPerBox komórek
+ * trafiają na listę szerokich sprawdzaną przy każdym zapytaniu.
+ *
+ * Zapytania bez blokad; zmiany (put/remove) serializowane. Bez przejścia przez antypołudnik.
+ */
+public final class BoxGridIndex<T> {
+
+    private final double cellDeg;
+    private final int maxCellsPerBox;
+    private final Map<T, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry<T>>> cells = new ConcurrentHashMap<>();
+    private final Set<Entry<T>> wide = ConcurrentHashMap.newKeySet();
+
+    private record Entry<T>(T item, BoundingBox box) {
+    }
+
+    public BoxGridIndex(double cellDeg, int maxCellsPerBox) {
+        if (cellDeg <= 0 || maxCellsPerBox < 1) {
+            throw new IllegalArgumentException("Cell size and cell limit must be positive");
+        }
+        this.cellDeg = cellDeg;
+        this.maxCellsPerBox = maxCellsPerBox;
+    }
+
+    /**
+     * ➕ Zarejestruj (lub przenieś) prostokąt wpisu
+     */
+    public synchronized void put(T item, BoundingBox box) {
+        remove(item);
+        Entry<T> entry = new Entry<>(item, box);
+        entries.put(item, entry);
+
+        int minRow = cell(box.minLat());
+        int maxRow = cell(box.maxLat());
+        int minCol = cell(box.minLng());
+        int maxCol = cell(box.maxLng());
+        if ((long) (maxRow - minRow + 1) * (maxCol - minCol + 1) > maxCellsPerBox) {
+            wide.add(entry);
+            return;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cells.computeIfAbsent(cellKey(row, col), key -> ConcurrentHashMap.newKeySet()).add(entry);
+            }
+        }
+    }
+
+    public synchronized void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null || wide.remove(entry)) {
+            return;
+        }
+        BoundingBox box = entry.box();
+        for (int row = cell(box.minLat()); row <= cell(box.maxLat()); row++) {
+            for (int col = cell(box.minLng()); col <= cell(box.maxLng()); col++) {
+                long key = cellKey(row, col);
+                Set<Entry<T>> members = cells.get(key);
+                if (members != null && members.remove(entry) && members.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 🎯 Odwiedź wpisy, których prostokąt zawiera punkt
+     */
+    public void forEachContaining(double lat, double lng, Consumer<? super T> visitor) {
+        Set<Entry<T>> members = cells.get(cellKey(cell(lat), cell(lng)));
+        if (members != null) {
+            visit(members, lat, lng, visitor);
+        }
+        if (!wide.isEmpty()) {
+            visit(wide, lat, lng, visitor);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int wideCount() {
+        return wide.size();
+    }
+
+    private void visit(Set<Entry<T>> candidates, double lat, double lng, Consumer<? super T> visitor) {
+        for (Entry<T> entry : candidates) {
+            if (entry.box().contains(lat, lng)) {
+                visitor.accept(entry.item());
+            }
+        }
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDeg);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,7 @@
+package pl.logistic.logisticops.geo;
+
+/**
+ * 📍 Punkt geograficzny (stopnie dziesiętne)
+ */
+public record GeoPoint(double latitude, double longitude) {
+}
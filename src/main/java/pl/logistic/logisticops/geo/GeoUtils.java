@@ -0,0 +1,70 @@
+package pl.logistic.logisticops.geo;
+
+/**
+ * 🌍 Podstawowe obliczenia geodezyjne (kula o promieniu 6371 km)
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 📏 Odległość haversine w kilometrach
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * 📦 Prostokąt (lat/lng) zawierający okrąg o zadanym promieniu
+     */
+    public static BoundingBox boundingBoxAround(double lat, double lng, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        // Przy biegunach cos -> 0, wtedy bierzemy pełny zakres długości
+        double dLng = cosLat < 1e-6 ? 180.0 : Math.min(180.0, radiusKm / (KM_PER_DEGREE_LAT * cosLat));
+        return new BoundingBox(lat - dLat, lng - dLng, lat + dLat, lng + dLng);
+    }
+
+    /**
+     * 📐 Dokładna (haversine) minimalna odległość od punktu do prostokąta lat/lng.
+     * Boki prostokąta wzdłuż południków są łukami koła wielkiego, więc najbliższy punkt
+     * na takim boku liczymy analitycznie zamiast obcinać szerokość geograficzną.
+     */
+    public static double minDistanceToBoxKm(double lat, double lng, BoundingBox box) {
+        if (box.contains(lat, lng)) {
+            return 0.0;
+        }
+
+        if (lng >= box.minLng() && lng <= box.maxLng()) {
+            double clampedLat = clamp(lat, box.minLat(), box.maxLat());
+            return haversineKm(lat, lng, clampedLat, lng);
+        }
+
+        double edgeLng = angularDistance(lng, box.minLng()) <= angularDistance(lng, box.maxLng())
+                ? box.minLng() : box.maxLng();
+        double dLng = Math.toRadians(angularDistance(lng, edgeLng));
+        double closestLat = Math.toDegrees(Math.atan(Math.tan(Math.toRadians(lat)) / Math.cos(dLng)));
+
+        return haversineKm(lat, lng, clamp(closestLat, box.minLat(), box.maxLat()), edgeLng);
+    }
+
+    public static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double angularDistance(double lng1, double lng2) {
+        double d = Math.abs(lng1 - lng2) % 360.0;
+        return d > 180.0 ? 360.0 - d : d;
+    }
+}
@@ -0,0 +1,197 @@
+package pl.logistic.logisticops.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔷 Siatkowy indeks wielokątów do zapytań "w których wielokątach leży punkt"
+ *
+ * Każdy wielokąt rejestrowany jest w komórkach siatki pokrytych jego prostokątem
+ * ograniczającym; zapytanie bierze kandydatów z jednej komórki, odrzuca ich po
+ * prostokącie i dopiero dla pozostałych liczy przecięcia promienia z krawędziami.
+ * Wielokąty pokrywające więcej niż maxCellsPerPolygon komórek trafiają na osobną
+ * listę sprawdzaną zawsze (po prostokącie) - siatka nie puchnie od kilku ogromnych stref.
+ *
+ * Wielokąty proste, jeden pierścień, bez przejścia przez antypołudnik.
+ * Obiekt jest niemutowalny i bezpieczny wątkowo.
+ */
+public final class PolygonGridIndex<T> {
+
+    private final List<T> items;
+    private final double[][] lats;
+    private final double[][] lngs;
+    private final BoundingBox[] bounds;
+    private final double cellDeg;
+    private final Map<Long, int[]> cells;  // komórka -> indeksy wielokątów
+    private final int[] oversized;
+
+    private PolygonGridIndex(Builder<T> builder) {
+        int count = builder.items.size();
+        this.items = List.copyOf(builder.items);
+        this.lats = builder.lats.toArray(new double[count][]);
+        this.lngs = builder.lngs.toArray(new double[count][]);
+        this.bounds = builder.bounds.toArray(new BoundingBox[count]);
+        this.cellDeg = builder.cellDeg;
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BoundingBox box = bounds[i];
+            int minRow = cell(box.minLat());
+            int maxRow = cell(box.maxLat());
+            int minCol = cell(box.minLng());
+            int maxCol = cell(box.maxLng());
+            long cellCount = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+            if (cellCount > builder.maxCellsPerPolygon) {
+                large.add(i);
+                continue;
+            }
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    buckets.computeIfAbsent(cellKey(row, col), key -> new ArrayList<>(2)).add(i);
+                }
+            }
+        }
+
+        Map<Long, int[]> result = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, polygons) -> result.put(key, toArray(polygons)));
+        this.cells = result;
+        this.oversized = toArray(large);
+    }
+
+    public static <T> Builder<T> builder(double cellDeg, int maxCellsPerPolygon) {
+        return new Builder<>(cellDeg, maxCellsPerPolygon);
+    }
+
+    /**
+     * 🎯 Wielokąty zawierające punkt (w kolejności dodania); pusta lista bez alokacji
+     */
+    public List<T> containing(double lat, double lng) {
+        List<T> result = null;
+        int[] candidates = cells.get(cellKey(cell(lat), cell(lng)));
+        if (candidates != null) {
+            result = collect(candidates, lat, lng, result);
+        }
+        if (oversized.length > 0) {
+            result = collect(oversized, lat, lng, result);
+        }
+        return result != null ? result : List.of();
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    public int oversizedCount() {
+        return oversized.length;
+    }
+
+    private List<T> collect(int[] candidates, double lat, double lng, List<T> result) {
+        for (int index : candidates) {
+            if (bounds[index].contains(lat, lng) && contains(lats[index], lngs[index], lat, lng)) {
+                if (result == null) {
+                    result = new ArrayList<>(2);
+                }
+                result.add(items.get(index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Test parzystości przecięć promienia biegnącego na wschód od punktu
+     */
+    static boolean contains(double[] ringLats, double[] ringLngs, double lat, double lng) {
+        boolean inside = false;
+        int n = ringLats.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double latI = ringLats[i];
+            double latJ = ringLats[j];
+            if ((latI > lat) != (latJ > lat)) {
+                double crossLng = ringLngs[i] + (lat - latI) * (ringLngs[j] - ringLngs[i]) / (latJ - latI);
+                if (lng < crossLng) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDeg);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    public static final class Builder<T> {
+        private final double cellDeg;
+        private final int maxCellsPerPolygon;
+        private final List<T> items = new ArrayList<>();
+        private final List<double[]> lats = new ArrayList<>();
+        private final List<double[]> lngs = new ArrayList<>();
+        private final List<BoundingBox> bounds = new ArrayList<>();
+
+        private Builder(double cellDeg, int maxCellsPerPolygon) {
+            if (cellDeg <= 0 || maxCellsPerPolygon < 1) {
+                throw new IllegalArgumentException("Cell size and cell limit must be positive");
+            }
+            this.cellDeg = cellDeg;
+            this.maxCellsPerPolygon = maxCellsPerPolygon;
+        }
+
+        /**
+         * ➕ Dodaj wielokąt; pierścień może (nie musi) być domknięty powtórzonym pierwszym wierzchołkiem
+         *
+         * @throws IllegalArgumentException gdy pierścień ma mniej niż 3 wierzchołki
+         */
+        public Builder<T> add(T item, List<GeoPoint> ring) {
+            int n = ring.size();
+            if (n > 1 && ring.get(0).equals(ring.get(n - 1))) {
+                n--;
+            }
+            if (n < 3) {
+                throw new IllegalArgumentException("Polygon needs at least 3 vertices");
+            }
+
+            double[] ringLats = new double[n];
+            double[] ringLngs = new double[n];
+            double minLat = Double.MAX_VALUE, minLng = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                GeoPoint point = ring.get(i);
+                ringLats[i] = point.latitude();
+                ringLngs[i] = point.longitude();
+                minLat = Math.min(minLat, point.latitude());
+                maxLat = Math.max(maxLat, point.latitude());
+                minLng = Math.min(minLng, point.longitude());
+                maxLng = Math.max(maxLng, point.longitude());
+            }
+
+            items.add(item);
+            lats.add(ringLats);
+            lngs.add(ringLngs);
+            bounds.add(new BoundingBox(minLat, minLng, maxLat, maxLng));
+            return this;
+        }
+
+        public PolygonGridIndex<T> build() {
+            return new PolygonGridIndex<>(this);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.logistic.logisticops.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🧵 Kodek "Encoded Polyline Algorithm Format" (Google Maps, precyzja 1e-5)
+ */
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * 🔓 Dekoduj polilinię do listy punktów
+     *
+     * @throws IllegalArgumentException gdy polilinia jest ucięta lub uszkodzona
+     */
+    public static List<GeoPoint> decode(String encoded) {
+        List<GeoPoint> points = new ArrayList<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return points;
+        }
+
+        int index = 0;
+        int lat = 0;
+        int lng = 0;
+        int length = encoded.length();
+
+        while (index < length) {
+            int[] cursor = {index};
+            lat += decodeValue(encoded, cursor);
+            lng += decodeValue(encoded, cursor);
+            index = cursor[0];
+
+            points.add(new GeoPoint(lat / PRECISION, lng / PRECISION));
+        }
+
+        return points;
+    }
+
+    /**
+     * 🔒 Zakoduj listę punktów jako polilinię
+     */
+    public static String encode(List<GeoPoint> points) {
+        StringBuilder result = new StringBuilder(points.size() * 8);
+        long previousLat = 0;
+        long previousLng = 0;
+
+        for (GeoPoint point : points) {
+            long lat = Math.round(point.latitude() * PRECISION);
+            long lng = Math.round(point.longitude() * PRECISION);
+
+            encodeValue(lat - previousLat, result);
+            encodeValue(lng - previousLng, result);
+
+            previousLat = lat;
+            previousLng = lng;
+        }
+
+        return result.toString();
+    }
+
+    private static int decodeValue(String encoded, int[] cursor) {
+        int result = 0;
+        int shift = 0;
+        int chunk;
+
+        do {
+            if (cursor[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline at position " + cursor[0]);
+            }
+            chunk = encoded.charAt(cursor[0]++) - 63;
+            if (chunk < 0 || chunk > 63) {
+                throw new IllegalArgumentException("Invalid polyline character at position " + (cursor[0] - 1));
+            }
+            result |= (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+
+        return (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long v = value < 0 ? ~(value << 1) : (value << 1);
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+}
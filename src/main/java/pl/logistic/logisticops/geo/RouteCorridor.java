@@ -0,0 +1,311 @@
+package pl.logistic.logisticops.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 🛣️ Korytarz (bufor) wokół pełnej geometrii trasy.
+ *
+ * Trasa to ciąg segmentów (kroków Google), każdy z własną polilinią. Krawędzie polilinii
+ * są rozkładane do siatki komórek o boku ~2x bufor, dzięki czemu rzutowanie punktu na trasę
+ * sprawdza tylko krawędzie z sąsiednich komórek, a nie całą geometrię.
+ *
+ * Obiekt jest niemutowalny i bezpieczny wątkowo.
+ */
+public final class RouteCorridor {
+
+    private static final double MIN_CELL_KM = 0.5;
+    private static final double EDGE_EPSILON_DEG = 1e-9;
+
+    private final double bufferKm;
+    private final double[] lats;
+    private final double[] lngs;
+    private final double[] along;          // skumulowany dystans wierzchołka od startu trasy
+    private final int[] vertexSegment;     // indeks segmentu, do którego należy wierzchołek
+    private final int segmentCount;
+    private final BoundingBox bounds;
+
+    private final double cellDegLat;
+    private final double cellDegLng;
+    private final Map<Long, int[]> cells;  // komórka -> indeksy krawędzi (wierzchołek początkowy)
+
+    /**
+     * 🎯 Obiekt znaleziony w korytarzu
+     *
+     * @param offsetKm        odległość od osi trasy
+     * @param distanceAlongKm dystans od początku trasy do punktu rzutu
+     * @param segmentIndex    indeks segmentu trasy (kolejność dodania w builderze)
+     */
+    public record Hit<T>(T item, double offsetKm, double distanceAlongKm, int segmentIndex) {
+    }
+
+    /**
+     * 📐 Rzut punktu na oś trasy
+     */
+    public record Projection(double offsetKm, double distanceAlongKm, int segmentIndex) {
+    }
+
+    private RouteCorridor(double bufferKm, List<List<GeoPoint>> segments) {
+        this.bufferKm = bufferKm;
+        this.segmentCount = segments.size();
+
+        int vertexCount = segments.stream().mapToInt(List::size).sum();
+        this.lats = new double[vertexCount];
+        this.lngs = new double[vertexCount];
+        this.along = new double[vertexCount];
+        this.vertexSegment = new int[vertexCount];
+
+        double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        double distance = 0.0;
+        int v = 0;
+
+        for (int s = 0; s < segments.size(); s++) {
+            for (GeoPoint point : segments.get(s)) {
+                if (v > 0) {
+                    distance += GeoUtils.haversineKm(lats[v - 1], lngs[v - 1], point.latitude(), point.longitude());
+                }
+                lats[v] = point.latitude();
+                lngs[v] = point.longitude();
+                along[v] = distance;
+                vertexSegment[v] = s;
+
+                minLat = Math.min(minLat, point.latitude());
+                minLng = Math.min(minLng, point.longitude());
+                maxLat = Math.max(maxLat, point.latitude());
+                maxLng = Math.max(maxLng, point.longitude());
+                v++;
+            }
+        }
+
+        this.bounds = vertexCount == 0 ? null
+                : new BoundingBox(minLat, minLng, maxLat, maxLng).expandKm(bufferKm);
+
+        double cellKm = Math.max(MIN_CELL_KM, 2 * bufferKm);
+        double maxAbsLat = vertexCount == 0 ? 0 : Math.min(89.0, Math.max(Math.abs(minLat), Math.abs(maxLat)));
+        this.cellDegLat = cellKm / GeoUtils.KM_PER_DEGREE_LAT;
+        this.cellDegLng = cellKm / (GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(maxAbsLat)));
+        this.cells = buildCells(cellKm);
+    }
+
+    public static Builder builder(double bufferKm) {
+        return new Builder(bufferKm);
+    }
+
+    /**
+     * 🧱 Rozłóż krawędzie do siatki: każda krawędź jest próbkowana co pół komórki,
+     * więc punkt w odległości <= bufor od krawędzi zawsze trafi w sąsiedztwo 3x3
+     */
+    private Map<Long, int[]> buildCells(double cellKm) {
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+
+        for (int edge = 0; edge < lats.length; edge++) {
+            int to = edgeEnd(edge);
+            if (to < 0) continue;
+
+            double lengthKm = along[to] - along[edge];
+            int samples = Math.max(1, (int) Math.ceil(lengthKm / (cellKm / 2)));
+            long previousKey = Long.MIN_VALUE;
+
+            for (int k = 0; k <= samples; k++) {
+                double t = k / (double) samples;
+                double lat = lats[edge] + t * (lats[to] - lats[edge]);
+                double lng = lngs[edge] + t * (lngs[to] - lngs[edge]);
+                long key = cellKey(cellRow(lat), cellCol(lng));
+                if (key != previousKey) {
+                    List<Integer> bucket = buckets.computeIfAbsent(key, k2 -> new ArrayList<>(4));
+                    if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != edge) {
+                        bucket.add(edge);
+                    }
+                    previousKey = key;
+                }
+            }
+        }
+
+        Map<Long, int[]> result = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, edges) -> result.put(key, edges.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Koniec krawędzi zaczynającej się w wierzchołku edge; krawędzie nie przechodzą
+     * między segmentami. Segment jednopunktowy daje krawędź zdegenerowaną (edge -> edge).
+     */
+    private int edgeEnd(int edge) {
+        boolean hasNext = edge + 1 < lats.length && vertexSegment[edge + 1] == vertexSegment[edge];
+        if (hasNext) {
+            return edge + 1;
+        }
+        boolean hasPrevious = edge > 0 && vertexSegment[edge - 1] == vertexSegment[edge];
+        return hasPrevious ? -1 : edge;
+    }
+
+    /**
+     * 📐 Rzutuj punkt na trasę; null gdy punkt leży poza korytarzem
+     */
+    public Projection locate(double lat, double lng) {
+        if (bounds == null || !bounds.contains(lat, lng)) {
+            return null;
+        }
+
+        int row = cellRow(lat);
+        int col = cellCol(lng);
+        double kx = GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(lat));
+        double ky = GeoUtils.KM_PER_DEGREE_LAT;
+
+        int bestEdge = -1;
+        double bestT = 0;
+        double bestDistanceSq = Double.POSITIVE_INFINITY;
+
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int[] edges = cells.get(cellKey(row + dr, col + dc));
+                if (edges == null) continue;
+
+                for (int edge : edges) {
+                    int to = edgeEnd(edge);
+                    // Lokalne rzutowanie równoodległościowe wokół punktu zapytania
+                    double ax = (lngs[edge] - lng) * kx, ay = (lats[edge] - lat) * ky;
+                    double bx = (lngs[to] - lng) * kx, by = (lats[to] - lat) * ky;
+                    double dx = bx - ax, dy = by - ay;
+                    double lengthSq = dx * dx + dy * dy;
+                    double t = lengthSq == 0 ? 0 : GeoUtils.clamp(-(ax * dx + ay * dy) / lengthSq, 0, 1);
+                    double px = ax + t * dx, py = ay + t * dy;
+                    double distanceSq = px * px + py * py;
+
+                    if (distanceSq < bestDistanceSq) {
+                        bestDistanceSq = distanceSq;
+                        bestEdge = edge;
+                        bestT = t;
+                    }
+                }
+            }
+        }
+
+        if (bestEdge < 0) {
+            return null;
+        }
+
+        int to = edgeEnd(bestEdge);
+        double closestLat = lats[bestEdge] + bestT * (lats[to] - lats[bestEdge]);
+        double closestLng = lngs[bestEdge] + bestT * (lngs[to] - lngs[bestEdge]);
+        double offsetKm = GeoUtils.haversineKm(lat, lng, closestLat, closestLng);
+        if (offsetKm > bufferKm) {
+            return null;
+        }
+
+        double distanceAlong = along[bestEdge] + bestT * (along[to] - along[bestEdge]);
+        return new Projection(offsetKm, distanceAlong, vertexSegment[bestEdge]);
+    }
+
+    /**
+     * 🧩 Prostokąty pokrywające korytarz: zajęte komórki siatki z sąsiedztwem 3x3,
+     * sklejone w poziome pasy. Każdy punkt, dla którego locate() może zwrócić rzut,
+     * leży w którymś z nich - w przeciwieństwie do bounds() nie obejmują pustego
+     * obszaru między końcami długiej, ukośnej trasy.
+     */
+    public List<BoundingBox> coveringBoxes() {
+        if (bounds == null) {
+            return List.of();
+        }
+
+        TreeMap<Integer, TreeSet<Integer>> rows = new TreeMap<>();
+        for (long key : cells.keySet()) {
+            int row = (int) (key >> 32);
+            int col = (int) key;
+            for (int dr = -1; dr <= 1; dr++) {
+                TreeSet<Integer> cols = rows.computeIfAbsent(row + dr, r -> new TreeSet<>());
+                cols.add(col - 1);
+                cols.add(col);
+                cols.add(col + 1);
+            }
+        }
+
+        List<BoundingBox> boxes = new ArrayList<>();
+        rows.forEach((row, cols) -> {
+            int runStart = cols.first();
+            int previous = runStart;
+            for (int col : cols.tailSet(runStart, false)) {
+                if (col != previous + 1) {
+                    boxes.add(cellRun(row, runStart, previous));
+                    runStart = col;
+                }
+                previous = col;
+            }
+            boxes.add(cellRun(row, runStart, previous));
+        });
+        return boxes;
+    }
+
+    private BoundingBox cellRun(int row, int fromCol, int toCol) {
+        // Margines EDGE_EPSILON_DEG - floor(lat / krok) i row * krok mogą się różnić o ulp na granicy komórki
+        return new BoundingBox(row * cellDegLat - EDGE_EPSILON_DEG, fromCol * cellDegLng - EDGE_EPSILON_DEG,
+                (row + 1) * cellDegLat + EDGE_EPSILON_DEG, (toCol + 1) * cellDegLng + EDGE_EPSILON_DEG);
+    }
+
+    /**
+     * Prostokąt obejmujący cały korytarz (z buforem); null dla pustej trasy
+     */
+    public BoundingBox bounds() {
+        return bounds;
+    }
+
+    public double bufferKm() {
+        return bufferKm;
+    }
+
+    public double lengthKm() {
+        return along.length == 0 ? 0.0 : along[along.length - 1];
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    public boolean isEmpty() {
+        return bounds == null;
+    }
+
+    private int cellRow(double lat) {
+        return (int) Math.floor(lat / cellDegLat);
+    }
+
+    private int cellCol(double lng) {
+        return (int) Math.floor(lng / cellDegLng);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * 🏗️ Builder - segmenty dodawane w kolejności przejazdu
+     */
+    public static final class Builder {
+        private final double bufferKm;
+        private final List<List<GeoPoint>> segments = new ArrayList<>();
+
+        private Builder(double bufferKm) {
+            if (bufferKm <= 0) {
+                throw new IllegalArgumentException("Corridor buffer must be positive");
+            }
+            this.bufferKm = bufferKm;
+        }
+
+        /**
+         * Dodaj segment; pusta geometria zachowuje numerację segmentów, ale nie tworzy krawędzi
+         */
+        public Builder addSegment(List<GeoPoint> path) {
+            segments.add(List.copyOf(path));
+            return this;
+        }
+
+        public RouteCorridor build() {
+            return new RouteCorridor(bufferKm, segments);
+        }
+    }
+}
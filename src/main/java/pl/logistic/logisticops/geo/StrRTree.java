@@ -0,0 +1,289 @@
+package pl.logistic.logisticops.geo;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 🌲 Niemutowalne R-drzewo punktów ładowane hurtowo algorytmem STR (Sort-Tile-Recursive).
+ *
+ * Drzewo budowane jest raz z pełnej listy obiektów, a zapytania (prostokąt, promień,
+ * k-najbliższych) są bezpieczne wątkowo. Odległości liczone są metryką haversine.
+ */
+public final class StrRTree<T> {
+
+    public static final int DEFAULT_NODE_CAPACITY = 16;
+
+    private final Node root;
+    private final int size;
+
+    public record Hit<T>(T item, double distanceKm) {
+    }
+
+    private StrRTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <T> StrRTree<T> build(Collection<T> items,
+                                        ToDoubleFunction<T> latitude,
+                                        ToDoubleFunction<T> longitude) {
+        return build(items, latitude, longitude, DEFAULT_NODE_CAPACITY);
+    }
+
+    public static <T> StrRTree<T> build(Collection<T> items,
+                                        ToDoubleFunction<T> latitude,
+                                        ToDoubleFunction<T> longitude,
+                                        int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2");
+        }
+        if (items.isEmpty()) {
+            return new StrRTree<>(null, 0);
+        }
+
+        List<Node> leaves = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>(items.size());
+        for (T item : items) {
+            entries.add(new Entry(latitude.applyAsDouble(item), longitude.applyAsDouble(item), item));
+        }
+
+        for (List<Entry> tile : tile(entries, nodeCapacity, e -> e.lng, e -> e.lat)) {
+            leaves.add(Node.leaf(tile));
+        }
+
+        List<Node> level = leaves;
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            for (List<Node> tile : tile(level, nodeCapacity, Node::centerLng, Node::centerLat)) {
+                parents.add(Node.branch(tile));
+            }
+            level = parents;
+        }
+
+        return new StrRTree<>(level.get(0), entries.size());
+    }
+
+    /**
+     * 🧱 Podział STR: sortowanie po długości, cięcie na pionowe plastry,
+     * w każdym plastrze sortowanie po szerokości i pakowanie po nodeCapacity
+     */
+    private static <E> List<List<E>> tile(List<E> elements, int capacity,
+                                          ToDoubleFunction<E> xKey, ToDoubleFunction<E> yKey) {
+        List<E> sorted = new ArrayList<>(elements);
+        sorted.sort(Comparator.comparingDouble(xKey));
+
+        int nodeCount = (int) Math.ceil(sorted.size() / (double) capacity);
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * capacity;
+
+        List<List<E>> tiles = new ArrayList<>(nodeCount);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<E> slice = new ArrayList<>(sorted.subList(sliceStart, Math.min(sliceStart + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(yKey));
+
+            for (int start = 0; start < slice.size(); start += capacity) {
+                tiles.add(slice.subList(start, Math.min(start + capacity, slice.size())));
+            }
+        }
+        return tiles;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 📦 Wszystkie obiekty wewnątrz prostokąta
+     */
+    public List<T> searchBoundingBox(BoundingBox box) {
+        List<T> result = new ArrayList<>();
+        visitBoundingBox(box, result::add);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void visitBoundingBox(BoundingBox box, Consumer<T> visitor) {
+        if (root == null || !box.intersects(root.minLat, root.minLng, root.maxLat, root.maxLng)) {
+            return;
+        }
+
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.children == null) {
+                for (int i = 0; i < node.items.length; i++) {
+                    if (box.contains(node.lats[i], node.lngs[i])) {
+                        visitor.accept((T) node.items[i]);
+                    }
+                }
+            } else {
+                for (Node child : node.children) {
+                    if (box.intersects(child.minLat, child.minLng, child.maxLat, child.maxLng)) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * ⭕ Obiekty w promieniu (haversine), posortowane rosnąco po odległości
+     */
+    @SuppressWarnings("unchecked")
+    public List<Hit<T>> searchRadius(double lat, double lng, double radiusKm, Predicate<T> filter) {
+        List<Hit<T>> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+
+        BoundingBox box = GeoUtils.boundingBoxAround(lat, lng, radiusKm);
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.children == null) {
+                for (int i = 0; i < node.items.length; i++) {
+                    if (!box.contains(node.lats[i], node.lngs[i])) continue;
+
+                    double distance = GeoUtils.haversineKm(lat, lng, node.lats[i], node.lngs[i]);
+                    T item = (T) node.items[i];
+                    if (distance <= radiusKm && filter.test(item)) {
+                        result.add(new Hit<>(item, distance));
+                    }
+                }
+            } else {
+                for (Node child : node.children) {
+                    if (box.intersects(child.minLat, child.minLng, child.maxLat, child.maxLng)
+                            && GeoUtils.minDistanceToBoxKm(lat, lng, child.bounds()) <= radiusKm) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return result;
+    }
+
+    /**
+     * 🎯 k najbliższych obiektów (best-first po dolnym ograniczeniu odległości do węzła)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Hit<T>> nearest(double lat, double lng, int k, double maxDistanceKm, Predicate<T> filter) {
+        List<Hit<T>> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        if (root == null || k <= 0) {
+            return result;
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceKm));
+        queue.add(new Candidate(GeoUtils.minDistanceToBoxKm(lat, lng, root.bounds()), root, null));
+
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate candidate = queue.poll();
+            if (candidate.distanceKm > maxDistanceKm) {
+                break;
+            }
+
+            if (candidate.node == null) {
+                result.add(new Hit<>((T) candidate.item, candidate.distanceKm));
+                continue;
+            }
+
+            Node node = candidate.node;
+            if (node.children == null) {
+                for (int i = 0; i < node.items.length; i++) {
+                    T item = (T) node.items[i];
+                    if (filter.test(item)) {
+                        double distance = GeoUtils.haversineKm(lat, lng, node.lats[i], node.lngs[i]);
+                        queue.add(new Candidate(distance, null, item));
+                    }
+                }
+            } else {
+                for (Node child : node.children) {
+                    queue.add(new Candidate(GeoUtils.minDistanceToBoxKm(lat, lng, child.bounds()), child, null));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public void forEach(Consumer<T> visitor) {
+        if (root == null) {
+            return;
+        }
+        visitBoundingBox(new BoundingBox(-90, -180, 90, 180), visitor);
+    }
+
+    // ========================================
+    // STRUKTURY WEWNĘTRZNE
+    // ========================================
+
+    private record Entry(double lat, double lng, Object item) {
+    }
+
+    private record Candidate(double distanceKm, Node node, Object item) {
+    }
+
+    private static final class Node {
+        private double minLat = Double.POSITIVE_INFINITY;
+        private double minLng = Double.POSITIVE_INFINITY;
+        private double maxLat = Double.NEGATIVE_INFINITY;
+        private double maxLng = Double.NEGATIVE_INFINITY;
+
+        private Node[] children;
+        private double[] lats;
+        private double[] lngs;
+        private Object[] items;
+
+        static Node leaf(List<Entry> entries) {
+            Node node = new Node();
+            node.lats = new double[entries.size()];
+            node.lngs = new double[entries.size()];
+            node.items = new Object[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                node.lats[i] = entry.lat;
+                node.lngs[i] = entry.lng;
+                node.items[i] = entry.item;
+                node.extend(entry.lat, entry.lng, entry.lat, entry.lng);
+            }
+            return node;
+        }
+
+        static Node branch(List<Node> children) {
+            Node node = new Node();
+            node.children = children.toArray(new Node[0]);
+            for (Node child : node.children) {
+                node.extend(child.minLat, child.minLng, child.maxLat, child.maxLng);
+            }
+            return node;
+        }
+
+        private void extend(double oMinLat, double oMinLng, double oMaxLat, double oMaxLng) {
+            minLat = Math.min(minLat, oMinLat);
+            minLng = Math.min(minLng, oMinLng);
+            maxLat = Math.max(maxLat, oMaxLat);
+            maxLng = Math.max(maxLng, oMaxLng);
+        }
+
+        double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        double centerLng() {
+            return (minLng + maxLng) / 2;
+        }
+
+        BoundingBox bounds() {
+            return new BoundingBox(minLat, minLng, maxLat, maxLng);
+        }
+    }
+}
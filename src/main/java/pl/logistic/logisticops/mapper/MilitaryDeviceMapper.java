@@ -0,0 +1,15 @@
+package pl.logistic.logisticops.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import pl.logistic.logisticops.dto.MilitaryDeviceDTO;
+import pl.logistic.logisticops.model.MilitaryDevice;
+
+@Mapper(componentModel = "spring")
+public interface MilitaryDeviceMapper {
+
+    @Mapping(target = "vehicleId", source = "vehicle.id")
+    @Mapping(target = "vehicleModel", source = "vehicle.model")
+    @Mapping(target = "transportId", source = "transport.id")
+    MilitaryDeviceDTO toDTO(MilitaryDevice device);
+}
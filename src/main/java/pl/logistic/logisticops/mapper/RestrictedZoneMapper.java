@@ -0,0 +1,13 @@
+package pl.logistic.logisticops.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import pl.logistic.logisticops.dto.RestrictedZoneDTO;
+import pl.logistic.logisticops.model.RestrictedZone;
+
+@Mapper(componentModel = "spring")
+public interface RestrictedZoneMapper {
+
+    @Mapping(target = "boundary", expression = "java(pl.logistic.logisticops.geo.PolylineCodec.decode(zone.getPolygon()))")
+    RestrictedZoneDTO toDTO(RestrictedZone zone);
+}
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Alert {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alerts_seq")
+    @SequenceGenerator(name = "alerts_seq", sequenceName = "alerts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "message", nullable = false, columnDefinition = "TEXT")
@@ -35,6 +36,7 @@ public class Alert {
     private Infrastructure relatedInfrastructure;
 
     @Column(name = "resolved", nullable = false)
+    @Builder.Default
     private Boolean resolved = false;
 
     @Column(name = "timestamp", nullable = false)
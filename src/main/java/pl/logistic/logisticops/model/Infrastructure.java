@@ -17,7 +17,8 @@ import java.util.List;
 @Builder
 public class Infrastructure {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "infrastructure_seq")
+    @SequenceGenerator(name = "infrastructure_seq", sequenceName = "infrastructure_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "external_id", unique = true)
@@ -48,6 +49,7 @@ public class Infrastructure {
     private Integer maxAxleWeightKg;
 
     @Column(name = "is_active", nullable = false)
+    @Builder.Default
     private Boolean isActive = true;
 
     @Column(name = "description")
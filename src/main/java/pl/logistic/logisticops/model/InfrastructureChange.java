@@ -0,0 +1,44 @@
+package pl.logistic.logisticops.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+import pl.logistic.logisticops.enums.InfrastructureChangeType;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "infrastructure_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InfrastructureChange implements Persistable<Long> {
+    @Id
+    @Column(name = "version")
+    private Long version; // Nadawana przez InfrastructureChangeLog, nie przez bazę
+
+    @Column(name = "infrastructure_id", nullable = false)
+    private Long infrastructureId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private InfrastructureChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Override
+    public Long getId() {
+        return version;
+    }
+
+    /**
+     * Wpisy są tylko dopisywane - saveAll robi persist (INSERT wsadem) bez SELECT po przypisanym id
+     */
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
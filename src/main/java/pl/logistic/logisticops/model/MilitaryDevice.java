@@ -0,0 +1,66 @@
+package pl.logistic.logisticops.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import pl.logistic.logisticops.enums.CertificateStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "military_devices")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MilitaryDevice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false, unique = true, length = 32)
+    private String deviceId; // GTX-12345678, DAGR-..., SOTAS-...
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicle_id", nullable = false)
+    private VehicleSpecification vehicle;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transport_id")
+    private Transport transport;
+
+    @Column(name = "certificate_serial", nullable = false, length = 128)
+    private String certificateSerial;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "certificate_status", nullable = false)
+    @Builder.Default
+    private CertificateStatus certificateStatus = CertificateStatus.VALID;
+
+    @Column(name = "certificate_expires_at")
+    private LocalDateTime certificateExpiresAt;
+
+    @Column(name = "active", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @ToString.Exclude
+    @Column(name = "frame_key", length = 64)
+    private String frameKey; // klucz HMAC-SHA256 ramek terminala (hex), null = brak
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,57 @@
+package pl.logistic.logisticops.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import pl.logistic.logisticops.enums.AlertLevel;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "restricted_zones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RestrictedZone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "zone_type", nullable = false, length = 50)
+    private String zoneType; // MILITARY_BASE, AMMUNITION_DEPOT, TRAINING_AREA, NO_GO
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "alert_level", nullable = false)
+    @Builder.Default
+    private AlertLevel alertLevel = AlertLevel.CRITICAL;
+
+    @Column(name = "polygon", nullable = false, columnDefinition = "TEXT")
+    private String polygon; // Encoded polyline pierścienia (bez powtórzonego pierwszego wierzchołka)
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "active", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
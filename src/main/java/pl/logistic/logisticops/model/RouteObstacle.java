@@ -11,7 +11,8 @@ import lombok.*;
 @Builder
 public class RouteObstacle {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "route_obstacles_seq")
+    @SequenceGenerator(name = "route_obstacles_seq", sequenceName = "route_obstacles_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,6 +30,7 @@ public class RouteObstacle {
     private String restrictionType; // HEIGHT, WEIGHT, AXLE_WEIGHT
 
     @Column(name = "alternative_route_needed")
+    @Builder.Default
     private Boolean alternativeRouteNeeded = false;
 
     @Column(name = "notes")
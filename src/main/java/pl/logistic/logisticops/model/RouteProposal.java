@@ -33,6 +33,7 @@ public class RouteProposal {
     private Double fuelConsumptionLiters;
 
     @Column(name = "approved", nullable = false)
+    @Builder.Default
     private Boolean approved = false;
 
     @Column(name = "generated_at", nullable = false)
@@ -11,7 +11,8 @@ import lombok.*;
 @Builder
 public class RouteSegment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "route_segments_seq")
+    @SequenceGenerator(name = "route_segments_seq", sequenceName = "route_segments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -48,9 +48,11 @@ public class Transport {
     private Double currentLongitude;
 
     @Column(name = "progress_percentage")
+    @Builder.Default
     private Double progressPercentage = 0.0;
 
     @Column(name = "distance_covered_km")
+    @Builder.Default
     private Double distanceCoveredKm = 0.0;
 
     @Column(name = "distance_remaining_km")
@@ -36,6 +36,7 @@ public class User {
     private String lastName;
 
     @Column(name = "active", nullable = false)
+    @Builder.Default
     private Boolean active = true;
 
     @Column(name = "created_at", nullable = false)
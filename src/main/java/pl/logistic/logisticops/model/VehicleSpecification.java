@@ -46,6 +46,7 @@ public class VehicleSpecification {
     private String description;
 
     @Column(name = "active", nullable = false)
+    @Builder.Default
     private Boolean active = true;
 
     @Column(name = "created_at", nullable = false)
@@ -5,9 +5,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+// Partycjonowana zakresowo po recorded_at (Liquibase 016, TrackingPartitionMaintenance)
 @Table(name = "vehicle_tracking", indexes = {
-        @Index(name = "idx_tracking_transport", columnList = "transport_id"),
-        @Index(name = "idx_tracking_vehicle", columnList = "vehicle_id"),
+        @Index(name = "idx_tracking_transport_time", columnList = "transport_id, recorded_at"),
+        @Index(name = "idx_tracking_vehicle_time", columnList = "vehicle_id, recorded_at"),
         @Index(name = "idx_tracking_time", columnList = "recorded_at")
 })
 @Data
@@ -16,7 +17,8 @@ import java.time.LocalDateTime;
 @Builder
 public class VehicleTracking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehicle_tracking_seq")
+    @SequenceGenerator(name = "vehicle_tracking_seq", sequenceName = "vehicle_tracking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,30 @@
+package pl.logistic.logisticops.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pl.logistic.logisticops.model.InfrastructureChange;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InfrastructureChangeRepository extends JpaRepository<InfrastructureChange, Long> {
+
+    @Query("SELECT MAX(c.version) FROM InfrastructureChange c")
+    Long findMaxVersion();
+
+    @Query("SELECT MIN(c.version) FROM InfrastructureChange c")
+    Long findMinVersion();
+
+    long countByVersionGreaterThanAndVersionLessThanEqual(Long fromExclusive, Long toInclusive);
+
+    List<InfrastructureChange> findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAsc(
+            Long fromExclusive, Long toInclusive);
+
+    @Modifying
+    @Query("DELETE FROM InfrastructureChange c WHERE c.changedAt < :cutoff AND c.version < :keepFrom")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("keepFrom") Long keepFrom);
+}
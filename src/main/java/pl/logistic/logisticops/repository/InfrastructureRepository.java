@@ -4,8 +4,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.logistic.logisticops.geo.BoundingBox;
 import pl.logistic.logisticops.model.Infrastructure;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +15,9 @@ public interface InfrastructureRepository extends JpaRepository<Infrastructure,
 
     Infrastructure findByExternalId(String externalId);
 
+    @Query("SELECT i.externalId FROM Infrastructure i WHERE i.externalId IN :externalIds")
+    List<String> findExistingExternalIds(@Param("externalIds") Collection<String> externalIds);
+
     List<Infrastructure> findByType(String type);
 
     List<Infrastructure> findByIsActiveTrue();
@@ -21,14 +26,50 @@ public interface InfrastructureRepository extends JpaRepository<Infrastructure,
 
     List<Infrastructure> findByRoadNumber(String roadNumber);
 
-    @Query("SELECT i FROM Infrastructure i WHERE " +
-            "(:maxHeightCm IS NULL OR i.maxHeightCm < :maxHeightCm) OR " +
-            "(:maxWeightKg IS NULL OR i.maxWeightKg < :maxWeightKg) OR " +
-            "(:maxAxleWeightKg IS NULL OR i.maxAxleWeightKg < :maxAxleWeightKg)")
-    List<Infrastructure> findPotentialRestrictions(
-            @Param("maxHeightCm") Integer maxHeightCm,
-            @Param("maxWeightKg") Integer maxWeightKg,
-            @Param("maxAxleWeightKg") Integer maxAxleWeightKg);
+    /**
+     * 🚧 Aktywne obiekty, których limit jest niższy niż parametry transportu.
+     * Puste limity nie pasują (NULL < x), parametr 0 wyłącza dane kryterium.
+     * Każda gałąź OR korzysta z częściowego indeksu (015-partial-indexes-for-restrictions).
+     */
+    @Query("SELECT i FROM Infrastructure i WHERE i.isActive = true AND (" +
+            "i.maxHeightCm < :maxHeightCm OR " +
+            "i.maxWeightKg < :maxWeightKg OR " +
+            "i.maxAxleWeightKg < :maxAxleWeightKg)")
+    List<Infrastructure> findActiveRestrictions(
+            @Param("maxHeightCm") int maxHeightCm,
+            @Param("maxWeightKg") int maxWeightKg,
+            @Param("maxAxleWeightKg") int maxAxleWeightKg);
+
+    @Query("SELECT i FROM Infrastructure i WHERE i.isActive = true AND (" +
+            "i.maxHeightCm < :maxHeightCm OR " +
+            "i.maxWeightKg < :maxWeightKg OR " +
+            "i.maxAxleWeightKg < :maxAxleWeightKg) AND " +
+            "i.latitude BETWEEN :minLat AND :maxLat AND i.longitude BETWEEN :minLng AND :maxLng")
+    List<Infrastructure> findActiveRestrictionsInArea(
+            @Param("maxHeightCm") int maxHeightCm,
+            @Param("maxWeightKg") int maxWeightKg,
+            @Param("maxAxleWeightKg") int maxAxleWeightKg,
+            @Param("minLat") double minLat,
+            @Param("minLng") double minLng,
+            @Param("maxLat") double maxLat,
+            @Param("maxLng") double maxLng);
+
+    /**
+     * 🚧 Ograniczenia dla transportu (null = kryterium pominięte), opcjonalnie tylko w obszarze
+     */
+    default List<Infrastructure> findRestrictionsFor(Integer maxHeightCm, Integer maxWeightKg,
+                                                     Integer maxAxleWeightKg, BoundingBox area) {
+        int height = maxHeightCm != null ? maxHeightCm : 0;
+        int weight = maxWeightKg != null ? maxWeightKg : 0;
+        int axle = maxAxleWeightKg != null ? maxAxleWeightKg : 0;
+        if (height <= 0 && weight <= 0 && axle <= 0) {
+            return List.of();
+        }
+        return area == null
+                ? findActiveRestrictions(height, weight, axle)
+                : findActiveRestrictionsInArea(height, weight, axle,
+                area.minLat(), area.minLng(), area.maxLat(), area.maxLng());
+    }
 
     @Query("SELECT i FROM Infrastructure i WHERE " +
             "SQRT((i.latitude - :latitude) * (i.latitude - :latitude) + " +
@@ -0,0 +1,18 @@
+package pl.logistic.logisticops.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.logistic.logisticops.model.MilitaryDevice;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MilitaryDeviceRepository extends JpaRepository<MilitaryDevice, Long> {
+
+    Optional<MilitaryDevice> findByDeviceId(String deviceId);
+
+    boolean existsByDeviceId(String deviceId);
+
+    List<MilitaryDevice> findByVehicleId(Long vehicleId);
+}
@@ -0,0 +1,15 @@
+package pl.logistic.logisticops.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.logistic.logisticops.model.RestrictedZone;
+
+import java.util.List;
+
+@Repository
+public interface RestrictedZoneRepository extends JpaRepository<RestrictedZone, Long> {
+
+    List<RestrictedZone> findByActiveTrue();
+
+    List<RestrictedZone> findByZoneType(String zoneType);
+}
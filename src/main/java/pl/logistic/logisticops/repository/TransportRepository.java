@@ -1,14 +1,17 @@
 package pl.logistic.logisticops.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import pl.logistic.logisticops.enums.TransportStatus;
 import pl.logistic.logisticops.model.Transport;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransportRepository extends JpaRepository<Transport, Long> {
@@ -36,4 +39,16 @@ public interface TransportRepository extends JpaRepository<Transport, Long> {
 
     @Query("SELECT t FROM Transport t WHERE t.progressPercentage BETWEEN :minProgress AND :maxProgress")
     List<Transport> findByProgressBetween(@Param("minProgress") Double minProgress, @Param("maxProgress") Double maxProgress);
-}
\ No newline at end of file
+
+    @Query("SELECT t.approvedRoute.id FROM Transport t WHERE t.id = :transportId")
+    Optional<Long> findApprovedRouteId(@Param("transportId") Long transportId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transport t SET t.currentLatitude = :latitude, t.currentLongitude = :longitude, " +
+            "t.updatedAt = :updatedAt WHERE t.id = :transportId")
+    int updateCurrentPosition(@Param("transportId") Long transportId,
+                              @Param("latitude") Double latitude,
+                              @Param("longitude") Double longitude,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -23,10 +23,17 @@ public interface VehicleTrackingRepository extends JpaRepository<VehicleTracking
     List<VehicleTracking> findByTransportIdAndRecordedAtBetweenOrderByRecordedAtDesc(
             Long transportId, LocalDateTime from, LocalDateTime to);
 
+    /**
+     * Ostatnie pozycje pojazdów transportu nie starsze niż since - warunek na recorded_at
+     * w obu zapytaniach ogranicza skan do partycji z okresu retencji
+     */
     @Query("SELECT vt FROM VehicleTracking vt WHERE vt.transport.id = :transportId " +
+            "AND vt.recordedAt >= :since " +
             "AND vt.recordedAt = (SELECT MAX(vt2.recordedAt) FROM VehicleTracking vt2 " +
-            "WHERE vt2.vehicle.id = vt.vehicle.id AND vt2.transport.id = :transportId)")
-    List<VehicleTracking> findLatestByTransportId(@Param("transportId") Long transportId);
+            "WHERE vt2.vehicle.id = vt.vehicle.id AND vt2.transport.id = :transportId " +
+            "AND vt2.recordedAt >= :since)")
+    List<VehicleTracking> findLatestByTransportId(@Param("transportId") Long transportId,
+                                                  @Param("since") LocalDateTime since);
 
     @Query("SELECT vt FROM VehicleTracking vt WHERE vt.vehicle.id = :vehicleId " +
             "ORDER BY vt.recordedAt DESC LIMIT 1")
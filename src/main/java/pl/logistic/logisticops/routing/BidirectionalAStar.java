@@ -0,0 +1,232 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.geo.GeoUtils;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 🧭 Dwukierunkowy A* na grafie CSR
+ *
+ * Potencjał uśredniony: pf(v) = (h(v,t) - h(s,v)) / 2, pr(v) = -pf(v), gdzie h to czas
+ * przejazdu w linii prostej z maksymalną prędkością grafu. Oba kierunki widzą wtedy te same
+ * zredukowane koszty, a warunek stopu to topF + topR >= najlepsza znaleziona trasa.
+ *
+ * Tablice robocze są wersjonowane (zapytanie nie czyści pamięci O(n)) i wypożyczane z puli -
+ * warianty tras liczone są na wirtualnych wątkach, więc ThreadLocal alokowałby je przy każdym zapytaniu.
+ */
+public final class BidirectionalAStar {
+
+    private final RoadGraph graph;
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 🛤️ Wynik: krawędzie w kolejności przejazdu i łączny koszt
+     */
+    public record Path(int[] edges, double weight, int settledNodes) {
+    }
+
+    public BidirectionalAStar(RoadGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Najtańsza trasa source → target; null gdy brak trasy lub przekroczono maxSettledNodes
+     */
+    public Path route(int source, int target, EdgeWeighting weighting, int maxSettledNodes) {
+        if (source == target) {
+            return new Path(new int[0], 0.0, 0);
+        }
+
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch(graph.nodeCount());
+        }
+        try {
+            s.nextQuery();
+            return search(s, source, target, weighting, maxSettledNodes);
+        } finally {
+            scratchPool.offer(s);
+        }
+    }
+
+    private Path search(Scratch s, int source, int target, EdgeWeighting weighting, int maxSettledNodes) {
+        double invSpeed = 1.0 / graph.maxSpeedMps();
+        double sLat = graph.latitude(source), sLng = graph.longitude(source);
+        double tLat = graph.latitude(target), tLng = graph.longitude(target);
+
+        s.visitForward(source, 0.0, -1, -1);
+        s.visitReverse(target, 0.0, -1);
+        s.forwardHeap.push(potential(s, source, sLat, sLng, tLat, tLng, invSpeed), source);
+        s.reverseHeap.push(-potential(s, target, sLat, sLng, tLat, tLng, invSpeed), target);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int settled = 0;
+
+        while (!s.forwardHeap.isEmpty() && !s.reverseHeap.isEmpty()) {
+            double topForward = s.forwardHeap.peekKey();
+            double topReverse = s.reverseHeap.peekKey();
+            if (topForward + topReverse >= best) {
+                break;
+            }
+            if (++settled > maxSettledNodes) {
+                return null;
+            }
+
+            if (topForward <= topReverse) {
+                int u = s.forwardHeap.pop();
+                double gu = s.forwardCost[u];
+                if (topForward > gu + s.potential[u] + 1e-9) {
+                    continue; // nieaktualny wpis kopca
+                }
+                for (int e = graph.firstOutEdge(u), end = graph.endOutEdge(u); e < end; e++) {
+                    double w = weighting.weight(e);
+                    if (w == Double.POSITIVE_INFINITY) continue;
+
+                    int v = graph.edgeTarget(e);
+                    double gv = gu + w;
+                    if (!s.hasForward(v) || gv < s.forwardCost[v]) {
+                        double pv = s.hasPotential(v) ? s.potential[v] : potential(s, v, sLat, sLng, tLat, tLng, invSpeed);
+                        s.visitForward(v, gv, e, u);
+                        s.forwardHeap.push(gv + pv, v);
+                        if (s.hasReverse(v) && gv + s.reverseCost[v] < best) {
+                            best = gv + s.reverseCost[v];
+                            meeting = v;
+                        }
+                    }
+                }
+            } else {
+                int u = s.reverseHeap.pop();
+                double gu = s.reverseCost[u];
+                if (topReverse > gu - s.potential[u] + 1e-9) {
+                    continue;
+                }
+                for (int slot = graph.firstInEdge(u), end = graph.endInEdge(u); slot < end; slot++) {
+                    int e = graph.inEdge(slot);
+                    double w = weighting.weight(e);
+                    if (w == Double.POSITIVE_INFINITY) continue;
+
+                    int v = graph.inSource(slot);
+                    double gv = gu + w;
+                    if (!s.hasReverse(v) || gv < s.reverseCost[v]) {
+                        double pv = s.hasPotential(v) ? s.potential[v] : potential(s, v, sLat, sLng, tLat, tLng, invSpeed);
+                        s.visitReverse(v, gv, e);
+                        s.reverseHeap.push(gv - pv, v);
+                        if (s.hasForward(v) && gv + s.forwardCost[v] < best) {
+                            best = gv + s.forwardCost[v];
+                            meeting = v;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return null;
+        }
+        return new Path(unpack(s, meeting), best, settled);
+    }
+
+    private int[] unpack(Scratch s, int meeting) {
+        int count = 0;
+        for (int v = meeting; s.forwardEdge[v] >= 0; v = s.forwardParent[v]) count++;
+        for (int v = meeting; s.reverseEdge[v] >= 0; v = graph.edgeTarget(s.reverseEdge[v])) count++;
+
+        int[] edges = new int[count];
+        int i = 0;
+        for (int v = meeting; s.forwardEdge[v] >= 0; v = s.forwardParent[v]) {
+            edges[i++] = s.forwardEdge[v];
+        }
+        reverse(edges, i);
+        for (int v = meeting; s.reverseEdge[v] >= 0; v = graph.edgeTarget(s.reverseEdge[v])) {
+            edges[i++] = s.reverseEdge[v];
+        }
+        return edges;
+    }
+
+    private static void reverse(int[] array, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    private double potential(Scratch s, int v, double sLat, double sLng, double tLat, double tLng, double invSpeed) {
+        double lat = graph.latitude(v), lng = graph.longitude(v);
+        double toTarget = GeoUtils.haversineKm(lat, lng, tLat, tLng) * 1000.0 * invSpeed;
+        double fromSource = GeoUtils.haversineKm(sLat, sLng, lat, lng) * 1000.0 * invSpeed;
+        double p = (toTarget - fromSource) / 2.0;
+        s.potential[v] = p;
+        s.potentialVersion[v] = s.version;
+        return p;
+    }
+
+    /**
+     * 🧮 Stan roboczy jednego zapytania (rozmiar = liczba węzłów grafu)
+     */
+    private static final class Scratch {
+        final double[] forwardCost;
+        final double[] reverseCost;
+        final int[] forwardEdge;
+        final int[] forwardParent;
+        final int[] reverseEdge;
+        final double[] potential;
+        final int[] forwardVersion;
+        final int[] reverseVersion;
+        final int[] potentialVersion;
+        final MinHeap forwardHeap = new MinHeap();
+        final MinHeap reverseHeap = new MinHeap();
+        int version;
+
+        Scratch(int nodeCount) {
+            forwardCost = new double[nodeCount];
+            reverseCost = new double[nodeCount];
+            forwardEdge = new int[nodeCount];
+            forwardParent = new int[nodeCount];
+            reverseEdge = new int[nodeCount];
+            potential = new double[nodeCount];
+            forwardVersion = new int[nodeCount];
+            reverseVersion = new int[nodeCount];
+            potentialVersion = new int[nodeCount];
+        }
+
+        void nextQuery() {
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(forwardVersion, 0);
+                Arrays.fill(reverseVersion, 0);
+                Arrays.fill(potentialVersion, 0);
+                version = 1;
+            }
+            forwardHeap.clear();
+            reverseHeap.clear();
+        }
+
+        boolean hasForward(int v) {
+            return forwardVersion[v] == version;
+        }
+
+        boolean hasReverse(int v) {
+            return reverseVersion[v] == version;
+        }
+
+        boolean hasPotential(int v) {
+            return potentialVersion[v] == version;
+        }
+
+        void visitForward(int v, double cost, int edge, int parent) {
+            forwardVersion[v] = version;
+            forwardCost[v] = cost;
+            forwardEdge[v] = edge;
+            forwardParent[v] = parent;
+        }
+
+        void visitReverse(int v, double cost, int edge) {
+            reverseVersion[v] = version;
+            reverseCost[v] = cost;
+            reverseEdge[v] = edge;
+        }
+    }
+}
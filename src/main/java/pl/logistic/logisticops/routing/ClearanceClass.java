@@ -0,0 +1,93 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 📐 Klasa skrajni dla preprocessingu hierarchii skrótów
+ *
+ * Hierarchia budowana dla klasy zawiera tylko krawędzie, których limity mieszczą całą klasę,
+ * więc każdy transport nie większy niż klasa może z niej korzystać bez sprawdzania ograniczeń.
+ * Progi odpowiadają kubełkom wysokości/masy/nacisku z VehicleSpecification
+ * (pojedynczy pojazd kołowy → zestaw z czołgiem podstawowym → transport ponadgabarytowy).
+ */
+public record ClearanceClass(String name, int maxHeightCm, int totalWeightKg, int maxAxleLoadKg) {
+
+    public static final List<ClearanceClass> DEFAULTS = List.of(
+            new ClearanceClass("LIGHT", 380, 40_000, 10_000),
+            new ClearanceClass("STANDARD", 400, 60_000, 11_500),
+            new ClearanceClass("HEAVY", 450, 80_000, 13_000),
+            new ClearanceClass("OVERSIZE", 500, 120_000, 16_000)
+    );
+
+    private static final Comparator<ClearanceClass> TIGHTEST_FIRST = Comparator
+            .comparingInt(ClearanceClass::maxHeightCm)
+            .thenComparingInt(ClearanceClass::totalWeightKg)
+            .thenComparingInt(ClearanceClass::maxAxleLoadKg);
+
+    public ClearanceClass {
+        if (name == null || !name.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid clearance class name: " + name);
+        }
+    }
+
+    /**
+     * Format NAZWA:wysokośćCm:masaKg:naciskKg, np. HEAVY:450:80000:13000
+     */
+    public static ClearanceClass parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Clearance class must be NAME:heightCm:weightKg:axleKg - got " + spec);
+        }
+        return new ClearanceClass(parts[0],
+                Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    }
+
+    public static List<ClearanceClass> parseAll(String specs) {
+        return Arrays.stream(specs.split(","))
+                .filter(spec -> !spec.isBlank())
+                .map(ClearanceClass::parse)
+                .toList();
+    }
+
+    /**
+     * 🎯 Najciaśniejsza klasa, która wciąż mieści transport (najwięcej dostępnych dróg)
+     */
+    public static Optional<ClearanceClass> tightestCovering(Iterable<ClearanceClass> classes,
+                                                            TransportConstraintsDTO constraints) {
+        ClearanceClass best = null;
+        for (ClearanceClass candidate : classes) {
+            if (candidate.covers(constraints) && (best == null || TIGHTEST_FIRST.compare(candidate, best) < 0)) {
+                best = candidate;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public boolean covers(TransportConstraintsDTO constraints) {
+        return constraints == null
+                || (valueOf(constraints.getMaxHeightCm()) <= maxHeightCm
+                && valueOf(constraints.getTotalWeightKg()) <= totalWeightKg
+                && valueOf(constraints.getMaxAxleLoadKg()) <= maxAxleLoadKg);
+    }
+
+    /**
+     * Ograniczenia "najgorszego" transportu w klasie - do filtrowania krawędzi grafu
+     */
+    public TransportConstraintsDTO asConstraints() {
+        return TransportConstraintsDTO.builder()
+                .maxHeightCm(maxHeightCm)
+                .totalWeightKg(totalWeightKg)
+                .maxAxleLoadKg(maxAxleLoadKg)
+                .description("Clearance class " + name)
+                .build();
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,411 @@
+package pl.logistic.logisticops.routing;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * ⚡ Hierarchia skrótów (Contraction Hierarchy) dla jednej klasy skrajni
+ *
+ * Węzły mają rangi nadane przy kontrakcji; zapytanie to dwukierunkowy Dijkstra, w którym
+ * oba kierunki idą wyłącznie "w górę" hierarchii (graf fwd: u → v o wyższej randze,
+ * graf bwd: krawędzie wchodzące do v z węzłów o wyższej randze). Skróty pamiętają węzeł
+ * środkowy (via >= 0), krawędzie oryginalne ich id w RoadGraph (via = -(edge + 1)).
+ *
+ * Tablice są buforami - po wczytaniu z pliku wskazują wprost na zmapowaną pamięć,
+ * więc start aplikacji nie kopiuje ani nie przelicza hierarchii.
+ */
+public final class ContractionHierarchy {
+
+    /** Pliki hierarchii w katalogu app.routing.ch.directory: ch-NAZWA_KLASY.bin */
+    public static final String FILE_PREFIX = "ch-";
+    public static final String FILE_SUFFIX = ".bin";
+
+    private static final int FILE_MAGIC = 0x4C4F4348; // "LOCH"
+    private static final int FILE_VERSION = 1;
+
+    private final ClearanceClass clearanceClass;
+    private final long graphFingerprint;
+    private final int nodeCount;
+
+    private final IntBuffer fwdFirst;
+    private final IntBuffer fwdTarget;
+    private final FloatBuffer fwdWeight;
+    private final IntBuffer fwdVia;
+
+    private final IntBuffer bwdFirst;
+    private final IntBuffer bwdTarget;
+    private final FloatBuffer bwdWeight;
+    private final IntBuffer bwdVia;
+
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    ContractionHierarchy(ClearanceClass clearanceClass, long graphFingerprint, int nodeCount,
+                         IntBuffer fwdFirst, IntBuffer fwdTarget, FloatBuffer fwdWeight, IntBuffer fwdVia,
+                         IntBuffer bwdFirst, IntBuffer bwdTarget, FloatBuffer bwdWeight, IntBuffer bwdVia) {
+        this.clearanceClass = clearanceClass;
+        this.graphFingerprint = graphFingerprint;
+        this.nodeCount = nodeCount;
+        this.fwdFirst = fwdFirst;
+        this.fwdTarget = fwdTarget;
+        this.fwdWeight = fwdWeight;
+        this.fwdVia = fwdVia;
+        this.bwdFirst = bwdFirst;
+        this.bwdTarget = bwdTarget;
+        this.bwdWeight = bwdWeight;
+        this.bwdVia = bwdVia;
+    }
+
+    /**
+     * 🏗️ Preprocessing: kontrakcja wszystkich węzłów grafu dla danej klasy skrajni
+     */
+    public static ContractionHierarchy build(RoadGraph graph, ClearanceClass clearanceClass) {
+        return new ContractionHierarchyBuilder(graph, clearanceClass).build();
+    }
+
+    public ClearanceClass clearanceClass() {
+        return clearanceClass;
+    }
+
+    public long graphFingerprint() {
+        return graphFingerprint;
+    }
+
+    public int shortcutEdgeCount() {
+        return fwdTarget.limit() + bwdTarget.limit();
+    }
+
+    // ========================================
+    // ZAPYTANIE
+    // ========================================
+
+    /**
+     * Najszybsza trasa source → target w krawędziach RoadGraph; null gdy brak trasy
+     */
+    public BidirectionalAStar.Path route(int source, int target) {
+        if (source == target) {
+            return new BidirectionalAStar.Path(new int[0], 0.0, 0);
+        }
+
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch(nodeCount);
+        }
+        try {
+            s.nextQuery();
+            return search(s, source, target);
+        } finally {
+            scratchPool.offer(s);
+        }
+    }
+
+    private BidirectionalAStar.Path search(Scratch s, int source, int target) {
+        s.visitForward(source, 0.0, -1, -1);
+        s.visitReverse(target, 0.0, -1, -1);
+        s.forwardHeap.push(0.0, source);
+        s.reverseHeap.push(0.0, target);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int settled = 0;
+
+        while (true) {
+            boolean forwardActive = !s.forwardHeap.isEmpty() && s.forwardHeap.peekKey() < best;
+            boolean reverseActive = !s.reverseHeap.isEmpty() && s.reverseHeap.peekKey() < best;
+            if (!forwardActive && !reverseActive) {
+                break;
+            }
+            boolean forward = forwardActive
+                    && (!reverseActive || s.forwardHeap.peekKey() <= s.reverseHeap.peekKey());
+
+            if (forward) {
+                double key = s.forwardHeap.peekKey();
+                int u = s.forwardHeap.pop();
+                if (key > s.forwardCost[u]) continue;
+                settled++;
+
+                if (s.hasReverse(u) && key + s.reverseCost[u] < best) {
+                    best = key + s.reverseCost[u];
+                    meeting = u;
+                }
+                if (stalledForward(s, u)) continue;
+
+                for (int k = fwdFirst.get(u), end = fwdFirst.get(u + 1); k < end; k++) {
+                    int v = fwdTarget.get(k);
+                    double cost = key + fwdWeight.get(k);
+                    if (!s.hasForward(v) || cost < s.forwardCost[v]) {
+                        s.visitForward(v, cost, u, k);
+                        s.forwardHeap.push(cost, v);
+                    }
+                }
+            } else {
+                double key = s.reverseHeap.peekKey();
+                int u = s.reverseHeap.pop();
+                if (key > s.reverseCost[u]) continue;
+                settled++;
+
+                if (s.hasForward(u) && key + s.forwardCost[u] < best) {
+                    best = key + s.forwardCost[u];
+                    meeting = u;
+                }
+                if (stalledReverse(s, u)) continue;
+
+                for (int k = bwdFirst.get(u), end = bwdFirst.get(u + 1); k < end; k++) {
+                    int v = bwdTarget.get(k);
+                    double cost = key + bwdWeight.get(k);
+                    if (!s.hasReverse(v) || cost < s.reverseCost[v]) {
+                        s.visitReverse(v, cost, u, k);
+                        s.reverseHeap.push(cost, v);
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return null;
+        }
+        return new BidirectionalAStar.Path(unpack(s, meeting), best, settled);
+    }
+
+    /**
+     * Stall-on-demand: u osiągnięty taniej przez wyższy węzeł - nie rozwijamy go dalej
+     */
+    private boolean stalledForward(Scratch s, int u) {
+        double cost = s.forwardCost[u];
+        for (int k = bwdFirst.get(u), end = bwdFirst.get(u + 1); k < end; k++) {
+            int higher = bwdTarget.get(k);
+            if (s.hasForward(higher) && s.forwardCost[higher] + bwdWeight.get(k) < cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean stalledReverse(Scratch s, int u) {
+        double cost = s.reverseCost[u];
+        for (int k = fwdFirst.get(u), end = fwdFirst.get(u + 1); k < end; k++) {
+            int higher = fwdTarget.get(k);
+            if (s.hasReverse(higher) && s.reverseCost[higher] + fwdWeight.get(k) < cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ========================================
+    // ROZPAKOWANIE SKRÓTÓW
+    // ========================================
+
+    private int[] unpack(Scratch s, int meeting) {
+        EdgeList edges = new EdgeList();
+
+        // Część w przód: od spotkania wstecz do startu, potem odwrócenie
+        int forwardHops = 0;
+        for (int v = meeting; s.forwardParent[v] >= 0; v = s.forwardParent[v]) forwardHops++;
+        int[] forwardEntries = new int[forwardHops];
+        int i = forwardHops;
+        for (int v = meeting; s.forwardParent[v] >= 0; v = s.forwardParent[v]) {
+            forwardEntries[--i] = s.forwardEntry[v];
+        }
+        int from = meeting;
+        for (int v = meeting; s.forwardParent[v] >= 0; v = s.forwardParent[v]) from = s.forwardParent[v];
+        for (int entry : forwardEntries) {
+            int to = fwdTarget.get(entry);
+            expand(from, to, fwdVia.get(entry), edges);
+            from = to;
+        }
+
+        // Część wstecz: od spotkania w stronę celu
+        for (int v = meeting; s.reverseParent[v] >= 0; v = s.reverseParent[v]) {
+            int entry = s.reverseEntry[v];
+            expand(v, s.reverseParent[v], bwdVia.get(entry), edges);
+        }
+        return edges.toArray();
+    }
+
+    /**
+     * Rozwiń krawędź hierarchii from → to do krawędzi oryginalnych (stos zamiast rekurencji)
+     */
+    private void expand(int from, int to, int via, EdgeList out) {
+        int[] stack = new int[48];
+        int top = 0;
+        stack[top++] = from;
+        stack[top++] = to;
+        stack[top++] = via;
+
+        while (top > 0) {
+            int v = stack[--top];
+            int b = stack[--top];
+            int a = stack[--top];
+            if (v < 0) {
+                out.add(-(v + 1));
+                continue;
+            }
+            // Skrót a → b przez v: a → v jest w bwd(v), v → b w fwd(v)
+            int second = findEntry(fwdFirst, fwdTarget, v, b);
+            int first = findEntry(bwdFirst, bwdTarget, v, a);
+            if (top + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = v;
+            stack[top++] = b;
+            stack[top++] = fwdVia.get(second);
+            stack[top++] = a;
+            stack[top++] = v;
+            stack[top++] = bwdVia.get(first);
+        }
+    }
+
+    private static int findEntry(IntBuffer first, IntBuffer target, int node, int neighbor) {
+        for (int k = first.get(node), end = first.get(node + 1); k < end; k++) {
+            if (target.get(k) == neighbor) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("Corrupted contraction hierarchy: missing edge " + node + " - " + neighbor);
+    }
+
+    // ========================================
+    // ZAPIS / MAPOWANIE
+    // ========================================
+
+    public void write(Path file) throws IOException {
+        try (GraphFiles.Writer out = GraphFiles.writer(file)) {
+            out.putInt(FILE_MAGIC).putInt(FILE_VERSION)
+                    .putInt((int) (graphFingerprint >>> 32)).putInt((int) graphFingerprint)
+                    .putUtf(clearanceClass.name())
+                    .putInt(clearanceClass.maxHeightCm())
+                    .putInt(clearanceClass.totalWeightKg())
+                    .putInt(clearanceClass.maxAxleLoadKg())
+                    .putInt(nodeCount)
+                    .putInt(fwdTarget.limit())
+                    .putInt(bwdTarget.limit());
+            writeSection(out, fwdFirst, fwdTarget, fwdWeight, fwdVia);
+            writeSection(out, bwdFirst, bwdTarget, bwdWeight, bwdVia);
+            out.commit();
+        }
+    }
+
+    private static void writeSection(GraphFiles.Writer out, IntBuffer first, IntBuffer target,
+                                     FloatBuffer weight, IntBuffer via) throws IOException {
+        out.putInts(toArray(first), first.limit());
+        out.putInts(toArray(target), target.limit());
+        float[] weights = new float[weight.limit()];
+        weight.get(0, weights);
+        out.putFloats(weights, weights.length);
+        out.putInts(toArray(via), via.limit());
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] values = new int[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    public static String fileName(ClearanceClass clearanceClass) {
+        return FILE_PREFIX + clearanceClass.name() + FILE_SUFFIX;
+    }
+
+    /**
+     * 🗺️ Zmapuj plik hierarchii (bez kopiowania do sterty)
+     */
+    public static ContractionHierarchy map(Path file) throws IOException {
+        try (GraphFiles.Reader in = GraphFiles.reader(file)) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported contraction hierarchy file: " + file);
+            }
+            long fingerprint = ((long) in.readInt() << 32) | (in.readInt() & 0xffffffffL);
+            ClearanceClass clearanceClass = new ClearanceClass(in.readUtf(), in.readInt(), in.readInt(), in.readInt());
+            int nodeCount = in.readInt();
+            int fwdCount = in.readInt();
+            int bwdCount = in.readInt();
+
+            return new ContractionHierarchy(clearanceClass, fingerprint, nodeCount,
+                    in.mapInts(nodeCount + 1), in.mapInts(fwdCount), in.mapFloats(fwdCount), in.mapInts(fwdCount),
+                    in.mapInts(nodeCount + 1), in.mapInts(bwdCount), in.mapFloats(bwdCount), in.mapInts(bwdCount));
+        }
+    }
+
+    /**
+     * Rosnąca lista identyfikatorów krawędzi
+     */
+    private static final class EdgeList {
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 🧮 Stan roboczy jednego zapytania
+     */
+    private static final class Scratch {
+        final double[] forwardCost;
+        final double[] reverseCost;
+        final int[] forwardParent;
+        final int[] forwardEntry;
+        final int[] reverseParent;
+        final int[] reverseEntry;
+        final int[] forwardVersion;
+        final int[] reverseVersion;
+        final MinHeap forwardHeap = new MinHeap();
+        final MinHeap reverseHeap = new MinHeap();
+        int version;
+
+        Scratch(int nodeCount) {
+            forwardCost = new double[nodeCount];
+            reverseCost = new double[nodeCount];
+            forwardParent = new int[nodeCount];
+            forwardEntry = new int[nodeCount];
+            reverseParent = new int[nodeCount];
+            reverseEntry = new int[nodeCount];
+            forwardVersion = new int[nodeCount];
+            reverseVersion = new int[nodeCount];
+        }
+
+        void nextQuery() {
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(forwardVersion, 0);
+                Arrays.fill(reverseVersion, 0);
+                version = 1;
+            }
+            forwardHeap.clear();
+            reverseHeap.clear();
+        }
+
+        boolean hasForward(int v) {
+            return forwardVersion[v] == version;
+        }
+
+        boolean hasReverse(int v) {
+            return reverseVersion[v] == version;
+        }
+
+        void visitForward(int v, double cost, int parent, int entry) {
+            forwardVersion[v] = version;
+            forwardCost[v] = cost;
+            forwardParent[v] = parent;
+            forwardEntry[v] = entry;
+        }
+
+        void visitReverse(int v, double cost, int parent, int entry) {
+            reverseVersion[v] = version;
+            reverseCost[v] = cost;
+            reverseParent[v] = parent;
+            reverseEntry[v] = entry;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package pl.logistic.logisticops.routing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * 🏗️ Kontrakcja węzłów grafu (preprocessing offline)
+ *
+ * Kolejność: leniwie aktualizowany priorytet = 2 * różnica krawędzi + liczba
+ * skontraktowanych sąsiadów + poziom. Skrót u → w przez v dodawany jest tylko wtedy,
+ * gdy ograniczone wyszukiwanie świadka (z pominięciem v) nie znajdzie ścieżki nie dłuższej.
+ * Krawędzie węzła w chwili kontrakcji prowadzą wyłącznie do węzłów o wyższej randze -
+ * zapisane od razu tworzą grafy fwd/bwd hierarchii.
+ */
+@Slf4j
+final class ContractionHierarchyBuilder {
+
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final RoadGraph graph;
+    private final ClearanceClass clearanceClass;
+    private final int nodeCount;
+
+    private final Adjacency[] out;
+    private final Adjacency[] in;
+    private final int[] contractedNeighbors;
+    private final int[] level;
+
+    private final Adjacency[] upward;
+    private final Adjacency[] downward;
+
+    private final double[] witnessCost;
+    private final int[] witnessVersion;
+    private final MinHeap witnessHeap = new MinHeap();
+    private int version;
+
+    ContractionHierarchyBuilder(RoadGraph graph, ClearanceClass clearanceClass) {
+        this.graph = graph;
+        this.clearanceClass = clearanceClass;
+        this.nodeCount = graph.nodeCount();
+        this.out = new Adjacency[nodeCount];
+        this.in = new Adjacency[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.level = new int[nodeCount];
+        this.upward = new Adjacency[nodeCount];
+        this.downward = new Adjacency[nodeCount];
+        this.witnessCost = new double[nodeCount];
+        this.witnessVersion = new int[nodeCount];
+
+        for (int v = 0; v < nodeCount; v++) {
+            out[v] = new Adjacency();
+            in[v] = new Adjacency();
+        }
+    }
+
+    ContractionHierarchy build() {
+        long started = System.nanoTime();
+
+        // Krawędzie dopuszczone dla klasy; limity poniżej klasy = krawędź nie istnieje
+        EdgeWeighting weighting = EdgeWeighting.fastest(graph, clearanceClass.asConstraints());
+        int excluded = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = graph.firstOutEdge(u); e < graph.endOutEdge(u); e++) {
+                double weight = weighting.weight(e);
+                int v = graph.edgeTarget(e);
+                if (weight == Double.POSITIVE_INFINITY) {
+                    excluded++;
+                } else if (u != v) {
+                    addOrImprove(u, v, (float) weight, -(e + 1));
+                }
+            }
+        }
+
+        MinHeap queue = new MinHeap();
+        for (int v = 0; v < nodeCount; v++) {
+            queue.push(priority(v), v);
+        }
+
+        int contracted = 0;
+        int progressStep = Math.max(1, nodeCount / 10);
+        while (!queue.isEmpty()) {
+            int v = queue.pop();
+            double current = priority(v);
+            if (!queue.isEmpty() && current > queue.peekKey()) {
+                queue.push(current, v); // leniwa aktualizacja - priorytet wzrósł
+                continue;
+            }
+
+            contract(v);
+            if (++contracted % progressStep == 0) {
+                log.info("⚡ CH {}: contracted {}%", clearanceClass.name(), contracted * 100L / nodeCount);
+            }
+        }
+
+        ContractionHierarchy hierarchy = toHierarchy();
+        log.info("⚡ CH {} built in {}s: {} nodes, {} hierarchy edges, {} edges excluded by clearance",
+                clearanceClass.name(), (System.nanoTime() - started) / 1_000_000_000,
+                nodeCount, hierarchy.shortcutEdgeCount(), excluded);
+        return hierarchy;
+    }
+
+    private void contract(int v) {
+        upward[v] = out[v].copy();
+        downward[v] = in[v].copy();
+
+        addShortcuts(v, true);
+
+        Adjacency outgoing = out[v];
+        for (int i = 0; i < outgoing.size; i++) {
+            int w = outgoing.node[i];
+            in[w].remove(v);
+            neighborContracted(w, v);
+        }
+        Adjacency incoming = in[v];
+        for (int i = 0; i < incoming.size; i++) {
+            int u = incoming.node[i];
+            out[u].remove(v);
+            neighborContracted(u, v);
+        }
+        out[v] = null;
+        in[v] = null;
+    }
+
+    private void neighborContracted(int neighbor, int v) {
+        contractedNeighbors[neighbor]++;
+        level[neighbor] = Math.max(level[neighbor], level[v] + 1);
+    }
+
+    private double priority(int v) {
+        int shortcuts = addShortcuts(v, false);
+        int edgeDifference = shortcuts - in[v].size - out[v].size;
+        return 2.0 * edgeDifference + contractedNeighbors[v] + level[v];
+    }
+
+    /**
+     * Policz (i opcjonalnie dodaj) skróty potrzebne po usunięciu v
+     */
+    private int addShortcuts(int v, boolean add) {
+        Adjacency incoming = in[v];
+        Adjacency outgoing = out[v];
+        int shortcuts = 0;
+
+        for (int i = 0; i < incoming.size; i++) {
+            int u = incoming.node[i];
+            double toV = incoming.weight[i];
+
+            double maxOut = -1;
+            for (int j = 0; j < outgoing.size; j++) {
+                if (outgoing.node[j] != u) {
+                    maxOut = Math.max(maxOut, outgoing.weight[j]);
+                }
+            }
+            if (maxOut < 0) continue;
+
+            witnessSearch(u, v, toV + maxOut);
+
+            for (int j = 0; j < outgoing.size; j++) {
+                int w = outgoing.node[j];
+                if (w == u) continue;
+
+                double viaV = toV + outgoing.weight[j];
+                boolean witnessed = witnessVersion[w] == version && witnessCost[w] <= viaV;
+                if (!witnessed) {
+                    shortcuts++;
+                    if (add) {
+                        addOrImprove(u, w, (float) viaV, v);
+                    }
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Ograniczony Dijkstra z u z pominięciem v; każda znaleziona odległość to istniejąca ścieżka
+     */
+    private void witnessSearch(int source, int skipped, double maxCost) {
+        version++;
+        witnessHeap.clear();
+        witnessCost[source] = 0.0;
+        witnessVersion[source] = version;
+        witnessHeap.push(0.0, source);
+
+        int settled = 0;
+        while (!witnessHeap.isEmpty()) {
+            double cost = witnessHeap.peekKey();
+            if (cost > maxCost) break;
+            int x = witnessHeap.pop();
+            if (cost > witnessCost[x]) continue;
+            if (++settled > WITNESS_SETTLE_LIMIT) break;
+
+            Adjacency edges = out[x];
+            for (int i = 0; i < edges.size; i++) {
+                int y = edges.node[i];
+                if (y == skipped) continue;
+                double next = cost + edges.weight[i];
+                if (witnessVersion[y] != version || next < witnessCost[y]) {
+                    witnessCost[y] = next;
+                    witnessVersion[y] = version;
+                    witnessHeap.push(next, y);
+                }
+            }
+        }
+    }
+
+    private void addOrImprove(int u, int v, float weight, int via) {
+        int i = out[u].indexOf(v);
+        if (i >= 0) {
+            if (weight < out[u].weight[i]) {
+                out[u].set(i, weight, via);
+                in[v].set(in[v].indexOf(u), weight, via);
+            }
+            return;
+        }
+        out[u].add(v, weight, via);
+        in[v].add(u, weight, via);
+    }
+
+    private ContractionHierarchy toHierarchy() {
+        int[][] fwd = toCsr(upward);
+        int[][] bwd = toCsr(downward);
+        return new ContractionHierarchy(clearanceClass, graph.fingerprint(), nodeCount,
+                IntBuffer.wrap(fwd[0]), IntBuffer.wrap(fwd[1]), FloatBuffer.wrap(weights(upward, fwd[1].length)), IntBuffer.wrap(fwd[2]),
+                IntBuffer.wrap(bwd[0]), IntBuffer.wrap(bwd[1]), FloatBuffer.wrap(weights(downward, bwd[1].length)), IntBuffer.wrap(bwd[2]));
+    }
+
+    private int[][] toCsr(Adjacency[] lists) {
+        int[] first = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            first[v + 1] = first[v] + lists[v].size;
+        }
+        int[] target = new int[first[nodeCount]];
+        int[] via = new int[first[nodeCount]];
+        for (int v = 0; v < nodeCount; v++) {
+            System.arraycopy(lists[v].node, 0, target, first[v], lists[v].size);
+            System.arraycopy(lists[v].via, 0, via, first[v], lists[v].size);
+        }
+        return new int[][]{first, target, via};
+    }
+
+    private float[] weights(Adjacency[] lists, int count) {
+        float[] weights = new float[count];
+        int offset = 0;
+        for (Adjacency list : lists) {
+            System.arraycopy(list.weight, 0, weights, offset, list.size);
+            offset += list.size;
+        }
+        return weights;
+    }
+
+    /**
+     * Lista sąsiedztwa węzła w trakcie kontrakcji
+     */
+    private static final class Adjacency {
+        int[] node = new int[4];
+        float[] weight = new float[4];
+        int[] via = new int[4];
+        int size;
+
+        int indexOf(int neighbor) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == neighbor) return i;
+            }
+            return -1;
+        }
+
+        void add(int neighbor, float w, int v) {
+            if (size == node.length) {
+                int capacity = Math.max(4, size * 2);
+                node = Arrays.copyOf(node, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                via = Arrays.copyOf(via, capacity);
+            }
+            node[size] = neighbor;
+            weight[size] = w;
+            via[size] = v;
+            size++;
+        }
+
+        void set(int i, float w, int v) {
+            weight[i] = w;
+            via[i] = v;
+        }
+
+        void remove(int neighbor) {
+            int i = indexOf(neighbor);
+            if (i >= 0) {
+                size--;
+                node[i] = node[size];
+                weight[i] = weight[size];
+                via[i] = via[size];
+            }
+        }
+
+        Adjacency copy() {
+            Adjacency copy = new Adjacency();
+            copy.node = Arrays.copyOf(node, size);
+            copy.weight = Arrays.copyOf(weight, size);
+            copy.via = Arrays.copyOf(via, size);
+            copy.size = size;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+
+import java.util.BitSet;
+
+/**
+ * ⚖️ Koszt krawędzi w sekundach; Double.POSITIVE_INFINITY = krawędź zablokowana
+ *
+ * Koszt nigdy nie jest mniejszy od czasu przejazdu, więc heurystyka
+ * odległość / maxSpeed pozostaje dopuszczalna dla każdego wariantu.
+ */
+@FunctionalInterface
+public interface EdgeWeighting {
+
+    double weight(int edge);
+
+    /**
+     * 🎯 Najszybsza trasa z pominięciem krawędzi, których limity są poniżej ograniczeń transportu
+     */
+    static EdgeWeighting fastest(RoadGraph graph, TransportConstraintsDTO constraints) {
+        return edge -> graph.isPassable(edge, constraints) ? graph.edgeTimeS(edge) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 🛡️ Preferencja dróg wyższych klas (mniej ciasnych przejazdów, mniej zabudowy)
+     */
+    static EdgeWeighting safe(RoadGraph graph, TransportConstraintsDTO constraints) {
+        return edge -> graph.isPassable(edge, constraints)
+                ? graph.edgeTimeS(edge) * graph.edgeRoadClass(edge).getSafetyFactor()
+                : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 🔄 Kara za krawędzie użyte już przez inną trasę - wymusza wariant alternatywny
+     */
+    static EdgeWeighting penalized(EdgeWeighting base, BitSet usedEdges, double penaltyFactor) {
+        return edge -> usedEdges.get(edge) ? base.weight(edge) * penaltyFactor : base.weight(edge);
+    }
+}
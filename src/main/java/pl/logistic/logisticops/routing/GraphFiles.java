@@ -0,0 +1,194 @@
+package pl.logistic.logisticops.routing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 💾 Binarny zapis/odczyt tablic grafu (big-endian, sekcje kolejno po nagłówku)
+ *
+ * Zapis idzie do pliku tymczasowego podmienianego atomowo. Odczyt mapuje każdą sekcję
+ * osobno (FileChannel.map), więc pojedyncza tablica może mieć do 2 GB, a cały plik więcej.
+ */
+final class GraphFiles {
+
+    private GraphFiles() {
+    }
+
+    static Writer writer(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    static Reader reader(Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private boolean committed;
+
+        private Writer(Path target) throws IOException {
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.target = target;
+            this.temporary = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        Writer putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            return this;
+        }
+
+        Writer putUtf(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            return putBytes(bytes, bytes.length);
+        }
+
+        Writer putInts(int[] values, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                ensure(Integer.BYTES);
+                buffer.putInt(values[i]);
+            }
+            return this;
+        }
+
+        Writer putFloats(float[] values, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                ensure(Float.BYTES);
+                buffer.putFloat(values[i]);
+            }
+            return this;
+        }
+
+        Writer putBytes(byte[] values, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                ensure(1);
+                buffer.put(values[i]);
+            }
+            return this;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Zapisz bufor na dysk i podmień plik docelowy
+         */
+        void commit() throws IOException {
+            flush();
+            channel.force(false);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private long position;
+
+        private Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        int readInt() throws IOException {
+            return read(Integer.BYTES).getInt();
+        }
+
+        String readUtf() throws IOException {
+            int length = readInt();
+            return new String(read(length).array(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Małe pola nagłówka czytane zwykłym odczytem - mapowanie tylko dla tablic
+         */
+        private ByteBuffer read(int bytes) throws IOException {
+            ByteBuffer field = ByteBuffer.allocate(bytes);
+            while (field.hasRemaining()) {
+                if (channel.read(field, position + field.position()) < 0) {
+                    throw new IOException("Truncated graph file");
+                }
+            }
+            position += bytes;
+            return field.flip();
+        }
+
+        IntBuffer mapInts(int count) throws IOException {
+            return map((long) count * Integer.BYTES).asIntBuffer();
+        }
+
+        FloatBuffer mapFloats(int count) throws IOException {
+            return map((long) count * Float.BYTES).asFloatBuffer();
+        }
+
+        int[] readInts(int count) throws IOException {
+            int[] values = new int[count];
+            mapInts(count).get(values);
+            return values;
+        }
+
+        float[] readFloats(int count) throws IOException {
+            float[] values = new float[count];
+            mapFloats(count).get(values);
+            return values;
+        }
+
+        byte[] readBytes(int count) throws IOException {
+            byte[] values = new byte[count];
+            map(count).get(values);
+            return values;
+        }
+
+        private MappedByteBuffer map(long bytes) throws IOException {
+            if (position + bytes > channel.size()) {
+                throw new IOException("Truncated graph file");
+            }
+            MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+            position += bytes;
+            return section;
+        }
+
+        /**
+         * Zmapowane sekcje pozostają ważne po zamknięciu kanału
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package pl.logistic.logisticops.routing;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> int z adresowaniem otwartym (identyfikatory węzłów OSM -> indeksy tymczasowe).
+ * Bez opakowywania typów - przy milionach węzłów HashMap&lt;Long, Integer&gt; zajmuje kilka razy więcej pamięci.
+ */
+final class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    int get(long key, int defaultValue) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
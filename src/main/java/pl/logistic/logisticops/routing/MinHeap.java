@@ -0,0 +1,60 @@
+package pl.logistic.logisticops.routing;
+
+import java.util.Arrays;
+
+/**
+ * Kopiec binarny (klucz double, wartość int) z leniwym usuwaniem nieaktualnych wpisów
+ */
+final class MinHeap {
+    private double[] keys = new double[1024];
+    private int[] values = new int[1024];
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    void push(double key, int value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    int pop() {
+        int top = values[0];
+        double key = keys[--size];
+        int value = values[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return top;
+    }
+}
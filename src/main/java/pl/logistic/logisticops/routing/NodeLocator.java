@@ -0,0 +1,101 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.geo.GeoUtils;
+
+import java.util.Arrays;
+
+/**
+ * 📍 Przyciąganie współrzędnych do najbliższego węzła grafu
+ *
+ * Siatka komórek 0.01° (~1.1 km); każdy wpis to (komórka << 32 | węzeł) w posortowanej
+ * tablicy long[], więc komórkę znajdujemy wyszukiwaniem binarnym bez obiektów pośrednich.
+ * Szukanie rozszerza się pierścieniami komórek aż do promienia przyciągania.
+ */
+public final class NodeLocator {
+
+    private static final double CELL_DEG = 0.01;
+    private static final int LAT_OFFSET = 9_000;
+    private static final int LNG_OFFSET = 18_000;
+    private static final int LNG_CELLS = 36_001;
+
+    private final RoadGraph graph;
+    private final long[] entries;
+
+    public NodeLocator(RoadGraph graph) {
+        this.graph = graph;
+        this.entries = new long[graph.nodeCount()];
+        for (int node = 0; node < entries.length; node++) {
+            long cell = cell(row(graph.latitude(node)), col(graph.longitude(node)));
+            entries[node] = (cell << 32) | node;
+        }
+        Arrays.sort(entries);
+    }
+
+    /**
+     * Najbliższy węzeł w promieniu maxDistanceKm; -1 gdy brak
+     */
+    public int nearest(double lat, double lng, double maxDistanceKm) {
+        int row = row(lat);
+        int col = col(lng);
+        double cellKm = CELL_DEG * GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat))));
+        int maxRing = (int) Math.ceil(maxDistanceKm / cellKm) + 1;
+
+        int best = -1;
+        double bestDistance = maxDistanceKm;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Pierścień ring leży co najmniej (ring - 1) komórek od punktu
+            if (best >= 0 && (ring - 1) * cellKm > bestDistance) {
+                break;
+            }
+            for (int dr = -ring; dr <= ring; dr++) {
+                boolean edgeRow = Math.abs(dr) == ring;
+                for (int dc = -ring; dc <= ring; dc += edgeRow ? 1 : 2 * ring) {
+                    int found = nearestInCell(row + dr, col + dc, lat, lng, bestDistance);
+                    if (found >= 0) {
+                        best = found;
+                        bestDistance = GeoUtils.haversineKm(lat, lng, graph.latitude(found), graph.longitude(found));
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int nearestInCell(int row, int col, double lat, double lng, double maxDistance) {
+        if (row < -LAT_OFFSET || row > LAT_OFFSET || col < -LNG_OFFSET || col > LNG_OFFSET) {
+            return -1;
+        }
+        long cell = cell(row, col);
+        int index = Arrays.binarySearch(entries, cell << 32);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        int best = -1;
+        double bestDistance = maxDistance;
+        while (index < entries.length && (entries[index] >>> 32) == cell) {
+            int node = (int) entries[index];
+            double distance = GeoUtils.haversineKm(lat, lng, graph.latitude(node), graph.longitude(node));
+            if (distance <= bestDistance) {
+                bestDistance = distance;
+                best = node;
+            }
+            index++;
+        }
+        return best;
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor(lat / CELL_DEG);
+    }
+
+    private static int col(double lng) {
+        return (int) Math.floor(lng / CELL_DEG);
+    }
+
+    private static long cell(int row, int col) {
+        return (long) (row + LAT_OFFSET) * LNG_CELLS + (col + LNG_OFFSET);
+    }
+}
@@ -0,0 +1,257 @@
+package pl.logistic.logisticops.routing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 📥 Budowa grafu drogowego z lokalnego pliku OSM XML (.osm lub .osm.gz)
+ *
+ * Plik czytany strumieniowo (StAX): węzły trafiają do tablic współrzędnych, drogi
+ * przejezdne dla pojazdów ciężkich są zapamiętywane jako listy węzłów. Do grafu trafiają
+ * tylko węzły użyte przez drogi. Limity wysokości/masy/nacisku z tagów drogi (mosty,
+ * tunele, wiadukty) zapisywane są na krawędziach.
+ */
+@Slf4j
+public final class OsmGraphLoader {
+
+    private static final double LINK_SPEED_FACTOR = 0.6;
+
+    private OsmGraphLoader() {
+    }
+
+    public static RoadGraph load(Path file) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            InputStream in = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw;
+            return load(in);
+        }
+    }
+
+    public static RoadGraph load(InputStream in) throws IOException {
+        long started = System.nanoTime();
+        ParsedOsm osm = new ParsedOsm();
+
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                parse(reader, osm);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid OSM XML: " + e.getMessage(), e);
+        }
+
+        RoadGraph graph = buildGraph(osm);
+        log.info("🕸️ Road graph loaded: {} nodes, {} edges, {} ways in {}ms",
+                graph.nodeCount(), graph.edgeCount(), osm.ways.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return graph;
+    }
+
+    // ========================================
+    // PARSOWANIE
+    // ========================================
+
+    private static void parse(XMLStreamReader reader, ParsedOsm osm) throws XMLStreamException {
+        long[] wayRefs = new long[256];
+        int wayRefCount = 0;
+        Map<String, String> wayTags = new HashMap<>();
+        boolean inWay = false;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "node" -> osm.addNode(
+                            Long.parseLong(reader.getAttributeValue(null, "id")),
+                            Double.parseDouble(reader.getAttributeValue(null, "lat")),
+                            Double.parseDouble(reader.getAttributeValue(null, "lon")));
+                    case "way" -> {
+                        inWay = true;
+                        wayRefCount = 0;
+                        wayTags.clear();
+                    }
+                    case "nd" -> {
+                        if (inWay) {
+                            if (wayRefCount == wayRefs.length) {
+                                wayRefs = Arrays.copyOf(wayRefs, wayRefCount * 2);
+                            }
+                            wayRefs[wayRefCount++] = Long.parseLong(reader.getAttributeValue(null, "ref"));
+                        }
+                    }
+                    case "tag" -> {
+                        if (inWay) {
+                            wayTags.put(reader.getAttributeValue(null, "k"), reader.getAttributeValue(null, "v"));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(reader.getLocalName())) {
+                inWay = false;
+                osm.addWay(wayRefs, wayRefCount, wayTags);
+            }
+        }
+    }
+
+    // ========================================
+    // BUDOWA GRAFU
+    // ========================================
+
+    private static RoadGraph buildGraph(ParsedOsm osm) {
+        RoadGraph.Builder builder = RoadGraph.builder();
+
+        // Numeracja zwarta: tylko węzły użyte przez drogi
+        int[] graphNode = new int[osm.nodeCount];
+        Arrays.fill(graphNode, -1);
+
+        for (Way way : osm.ways) {
+            int wayName = builder.wayName(way.name);
+            int restriction = builder.restriction(way.heightCm, way.weightKg, way.axleKg);
+
+            int previous = -1;
+            for (int tmp : way.nodes) {
+                if (graphNode[tmp] < 0) {
+                    graphNode[tmp] = builder.addNode(osm.lats[tmp], osm.lngs[tmp]);
+                }
+                int current = graphNode[tmp];
+
+                if (previous >= 0 && previous != current) {
+                    if (way.direction >= 0) {
+                        builder.addEdge(previous, current, way.roadClass, way.speedKmh, wayName, restriction);
+                    }
+                    if (way.direction <= 0) {
+                        builder.addEdge(current, previous, way.roadClass, way.speedKmh, wayName, restriction);
+                    }
+                }
+                previous = current;
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Droga przejezdna; direction: 1 = zgodnie z kolejnością węzłów, -1 = przeciwnie, 0 = oba kierunki
+     */
+    private record Way(int[] nodes, RoadClass roadClass, double speedKmh, int direction, String name,
+                       Integer heightCm, Integer weightKg, Integer axleKg) {
+    }
+
+    /**
+     * Stan parsowania - węzły w tablicach prymitywnych, identyfikatory OSM w LongIntHashMap
+     */
+    private static final class ParsedOsm {
+        private final LongIntHashMap nodeIndex = new LongIntHashMap(1 << 16);
+        private double[] lats = new double[1 << 16];
+        private double[] lngs = new double[1 << 16];
+        private int nodeCount;
+        private final List<Way> ways = new ArrayList<>();
+
+        void addNode(long osmId, double lat, double lng) {
+            if (nodeCount == lats.length) {
+                lats = Arrays.copyOf(lats, nodeCount * 2);
+                lngs = Arrays.copyOf(lngs, nodeCount * 2);
+            }
+            lats[nodeCount] = lat;
+            lngs[nodeCount] = lng;
+            nodeIndex.put(osmId, nodeCount++);
+        }
+
+        void addWay(long[] refs, int refCount, Map<String, String> tags) {
+            String highway = tags.get("highway");
+            RoadClass roadClass = RoadClass.fromHighwayTag(highway);
+            if (roadClass == null || refCount < 2 || !isAccessible(tags)) {
+                return;
+            }
+
+            int[] nodes = new int[refCount];
+            int count = 0;
+            for (int i = 0; i < refCount; i++) {
+                int tmp = nodeIndex.get(refs[i], -1);
+                if (tmp >= 0) {
+                    nodes[count++] = tmp; // węzły spoza wycinka pomijamy
+                }
+            }
+            if (count < 2) {
+                return;
+            }
+
+            double speed = roadClass.getSpeedKmh();
+            Double maxSpeed = parseMaxSpeed(tags.get("maxspeed"));
+            if (maxSpeed != null && maxSpeed < speed) {
+                speed = maxSpeed;
+            }
+            if (highway.endsWith("_link")) {
+                speed *= LINK_SPEED_FACTOR;
+            }
+
+            String name = tags.getOrDefault("name", tags.getOrDefault("ref", ""));
+
+            ways.add(new Way(Arrays.copyOf(nodes, count), roadClass, Math.max(5.0, speed),
+                    direction(tags, roadClass), name,
+                    OsmTagParser.parseHeightCm(tags), OsmTagParser.parseWeightKg(tags), OsmTagParser.parseAxleLoadKg(tags)));
+        }
+
+        private static boolean isAccessible(Map<String, String> tags) {
+            for (String key : new String[]{"access", "vehicle", "motor_vehicle", "hgv"}) {
+                String value = tags.get(key);
+                if ("no".equals(value) || "private".equals(value)) {
+                    return false;
+                }
+            }
+            return !"construction".equals(tags.get("highway"));
+        }
+
+        private static int direction(Map<String, String> tags, RoadClass roadClass) {
+            String oneway = tags.get("oneway");
+            if ("-1".equals(oneway) || "reverse".equals(oneway)) {
+                return -1;
+            }
+            if ("yes".equals(oneway) || "1".equals(oneway) || "true".equals(oneway)) {
+                return 1;
+            }
+            if ("no".equals(oneway)) {
+                return 0;
+            }
+            // Ronda i autostrady są jednokierunkowe domyślnie
+            boolean implied = "roundabout".equals(tags.get("junction")) || roadClass == RoadClass.MOTORWAY;
+            return implied ? 1 : 0;
+        }
+
+        private static Double parseMaxSpeed(String value) {
+            if (value == null) {
+                return null;
+            }
+            String digits = value.replaceAll("[^0-9.]", "");
+            if (digits.isEmpty()) {
+                return null;
+            }
+            try {
+                double speed = Double.parseDouble(digits);
+                return value.contains("mph") ? speed * 1.609 : speed;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package pl.logistic.logisticops.routing;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🏷️ Parsowanie ograniczeń z tagów OSM (wysokość, masa, nacisk na oś)
+ *
+ * Wspólne dla synchronizacji infrastruktury (Overpass) i budowy grafu drogowego.
+ * Zwraca null, gdy tag nie istnieje lub nie zawiera liczby (np. "none", "default").
+ */
+public final class OsmTagParser {
+
+    private static final String[] HEIGHT_KEYS = {"maxheight", "maxheight:physical", "bridge:maxheight", "tunnel:maxheight", "barrier:height"};
+    private static final String[] WEIGHT_KEYS = {"maxweight", "maxweight:signed", "bridge:maxweight", "maxweight:conditional"};
+    private static final String[] AXLE_KEYS = {"maxaxleload", "maxweight:axle", "maxaxleweight"};
+
+    private static final Pattern NUMBER = Pattern.compile("(\\d+(?:[.,]\\d+)?)");
+    private static final Pattern FEET_INCHES = Pattern.compile("(\\d+)\\s*'\\s*(?:(\\d+)\\s*\")?");
+
+    private OsmTagParser() {
+    }
+
+    /**
+     * 📏 Limit wysokości w cm (wartości < 10 traktowane jako metry, zapis 12'6" jako stopy/cale)
+     */
+    public static Integer parseHeightCm(Map<String, ?> tags) {
+        for (String key : HEIGHT_KEYS) {
+            Object value = tags.get(key);
+            if (value == null) continue;
+
+            String text = value.toString();
+            Matcher feet = FEET_INCHES.matcher(text);
+            if (feet.find()) {
+                int inches = Integer.parseInt(feet.group(1)) * 12 + (feet.group(2) != null ? Integer.parseInt(feet.group(2)) : 0);
+                return (int) Math.round(inches * 2.54);
+            }
+
+            Double number = firstNumber(text);
+            if (number != null) {
+                // If value seems to be in meters, convert to cm
+                return number < 10 ? (int) (number * 100) : number.intValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ⚖️ Limit masy w kg (OSM podaje tony)
+     */
+    public static Integer parseWeightKg(Map<String, ?> tags) {
+        return parseTons(tags, WEIGHT_KEYS);
+    }
+
+    /**
+     * 🛞 Limit nacisku na oś w kg (OSM podaje tony)
+     */
+    public static Integer parseAxleLoadKg(Map<String, ?> tags) {
+        return parseTons(tags, AXLE_KEYS);
+    }
+
+    private static Integer parseTons(Map<String, ?> tags, String[] keys) {
+        for (String key : keys) {
+            Object value = tags.get(key);
+            if (value == null) continue;
+
+            Double tons = firstNumber(value.toString());
+            if (tons != null) {
+                // Convert tons to kg
+                return (int) (tons * 1000);
+            }
+        }
+        return null;
+    }
+
+    private static Double firstNumber(String text) {
+        Matcher matcher = NUMBER.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(matcher.group(1).replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.logistic.logisticops.routing;
+
+/**
+ * 🛣️ Klasy dróg OSM dopuszczone dla transportu ciężkiego
+ *
+ * Prędkości to realne średnie dla zestawów niskopodwoziowych, nie limity drogowe.
+ * safetyFactor podnosi koszt dróg niższych klas w wariancie SAFE.
+ */
+public enum RoadClass {
+    MOTORWAY(80, 1.0),
+    TRUNK(70, 1.0),
+    PRIMARY(60, 1.0),
+    SECONDARY(50, 1.1),
+    TERTIARY(40, 1.3),
+    UNCLASSIFIED(30, 1.6),
+    RESIDENTIAL(25, 1.8),
+    LIVING_STREET(10, 2.5),
+    SERVICE(15, 2.0);
+
+    private final int speedKmh;
+    private final double safetyFactor;
+
+    RoadClass(int speedKmh, double safetyFactor) {
+        this.speedKmh = speedKmh;
+        this.safetyFactor = safetyFactor;
+    }
+
+    public int getSpeedKmh() {
+        return speedKmh;
+    }
+
+    public double getSafetyFactor() {
+        return safetyFactor;
+    }
+
+    /**
+     * Klasa dla wartości tagu highway (zjazdy *_link mapowane na klasę drogi głównej); null = niedostępna
+     */
+    public static RoadClass fromHighwayTag(String highway) {
+        if (highway == null) {
+            return null;
+        }
+        String base = highway.endsWith("_link") ? highway.substring(0, highway.length() - 5) : highway;
+        return switch (base) {
+            case "motorway" -> MOTORWAY;
+            case "trunk" -> TRUNK;
+            case "primary" -> PRIMARY;
+            case "secondary" -> SECONDARY;
+            case "tertiary" -> TERTIARY;
+            case "unclassified", "road" -> UNCLASSIFIED;
+            case "residential" -> RESIDENTIAL;
+            case "living_street" -> LIVING_STREET;
+            case "service" -> SERVICE;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,457 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+import pl.logistic.logisticops.geo.GeoUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🕸️ Graf drogowy w formacie CSR (Compressed Sparse Row)
+ *
+ * Krawędzie wychodzące węzła v to zakres [firstOut[v], firstOut[v+1]) w tablicach krawędzi.
+ * Krawędzie przychodzące (dla wyszukiwania wstecz) są osobnym indeksem CSR wskazującym
+ * na identyfikatory krawędzi w przód. Współrzędne trzymane są jako int * 1e7.
+ *
+ * Ograniczenia (wysokość/masa/nacisk) są rzadkie, więc krawędź trzyma tylko indeks
+ * do tabeli ograniczeń (-1 = brak). Graf jest niemutowalny i bezpieczny wątkowo.
+ */
+public final class RoadGraph {
+
+    /** Nazwa pliku grafu w katalogu app.routing.ch.directory */
+    public static final String FILE_NAME = "road-graph.bin";
+
+    static final double COORDINATE_SCALE = 1e7;
+    static final int NO_RESTRICTION = -1;
+
+    private static final int FILE_MAGIC = 0x4C4F5247; // "LORG"
+    private static final int FILE_VERSION = 1;
+
+    private final int[] latE7;
+    private final int[] lngE7;
+
+    private final int[] firstOut;
+    private final int[] edgeTarget;
+    private final float[] edgeLengthM;
+    private final float[] edgeTimeS;
+    private final byte[] edgeRoadClass;
+    private final int[] edgeWay;
+    private final int[] edgeRestriction;
+
+    private final int[] firstIn;
+    private final int[] inSource;
+    private final int[] inEdge;
+
+    private final String[] wayNames;
+    private final int[] restrictionHeightCm;
+    private final int[] restrictionWeightKg;
+    private final int[] restrictionAxleKg;
+
+    private final double maxSpeedMps;
+
+    private RoadGraph(int[] latE7, int[] lngE7, int[] firstOut, int[] edgeTarget,
+                      float[] edgeLengthM, float[] edgeTimeS, byte[] edgeRoadClass, int[] edgeWay, int[] edgeRestriction,
+                      String[] wayNames, int[] restrictionHeightCm, int[] restrictionWeightKg, int[] restrictionAxleKg) {
+        this.latE7 = latE7;
+        this.lngE7 = lngE7;
+        this.firstOut = firstOut;
+        this.edgeTarget = edgeTarget;
+        this.edgeLengthM = edgeLengthM;
+        this.edgeTimeS = edgeTimeS;
+        this.edgeRoadClass = edgeRoadClass;
+        this.edgeWay = edgeWay;
+        this.edgeRestriction = edgeRestriction;
+        this.wayNames = wayNames;
+        this.restrictionHeightCm = restrictionHeightCm;
+        this.restrictionWeightKg = restrictionWeightKg;
+        this.restrictionAxleKg = restrictionAxleKg;
+
+        double maxSpeed = 1.0;
+        for (int e = 0; e < edgeTarget.length; e++) {
+            if (edgeTimeS[e] > 0) {
+                maxSpeed = Math.max(maxSpeed, edgeLengthM[e] / edgeTimeS[e]);
+            }
+        }
+        this.maxSpeedMps = maxSpeed;
+
+        // Indeks krawędzi przychodzących
+        int nodeCount = latE7.length;
+        int edgeCount = edgeTarget.length;
+        this.firstIn = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            firstIn[edgeTarget[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            firstIn[v + 1] += firstIn[v];
+        }
+        this.inSource = new int[edgeCount];
+        this.inEdge = new int[edgeCount];
+        int[] cursor = Arrays.copyOf(firstIn, nodeCount);
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = firstOut[u]; e < firstOut[u + 1]; e++) {
+                int slot = cursor[edgeTarget[e]]++;
+                inSource[slot] = u;
+                inEdge[slot] = e;
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ========================================
+    // WĘZŁY I KRAWĘDZIE
+    // ========================================
+
+    public int nodeCount() {
+        return latE7.length;
+    }
+
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    public double latitude(int node) {
+        return latE7[node] / COORDINATE_SCALE;
+    }
+
+    public double longitude(int node) {
+        return lngE7[node] / COORDINATE_SCALE;
+    }
+
+    public int firstOutEdge(int node) {
+        return firstOut[node];
+    }
+
+    public int endOutEdge(int node) {
+        return firstOut[node + 1];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public int firstInEdge(int node) {
+        return firstIn[node];
+    }
+
+    public int endInEdge(int node) {
+        return firstIn[node + 1];
+    }
+
+    /** Węzeł źródłowy krawędzi przychodzącej o indeksie slot (z zakresu firstInEdge..endInEdge) */
+    public int inSource(int slot) {
+        return inSource[slot];
+    }
+
+    /** Identyfikator krawędzi w przód dla krawędzi przychodzącej o indeksie slot */
+    public int inEdge(int slot) {
+        return inEdge[slot];
+    }
+
+    public double edgeLengthM(int edge) {
+        return edgeLengthM[edge];
+    }
+
+    public double edgeTimeS(int edge) {
+        return edgeTimeS[edge];
+    }
+
+    public RoadClass edgeRoadClass(int edge) {
+        return RoadClass.values()[edgeRoadClass[edge]];
+    }
+
+    public String edgeName(int edge) {
+        return wayNames[edgeWay[edge]];
+    }
+
+    public int edgeWay(int edge) {
+        return edgeWay[edge];
+    }
+
+    /** Najwyższa prędkość w grafie - do dopuszczalnej heurystyki A* */
+    public double maxSpeedMps() {
+        return maxSpeedMps;
+    }
+
+    // ========================================
+    // OGRANICZENIA
+    // ========================================
+
+    public boolean hasRestriction(int edge) {
+        return edgeRestriction[edge] != NO_RESTRICTION;
+    }
+
+    /** 0 = brak limitu */
+    public int edgeMaxHeightCm(int edge) {
+        int r = edgeRestriction[edge];
+        return r == NO_RESTRICTION ? 0 : restrictionHeightCm[r];
+    }
+
+    public int edgeMaxWeightKg(int edge) {
+        int r = edgeRestriction[edge];
+        return r == NO_RESTRICTION ? 0 : restrictionWeightKg[r];
+    }
+
+    public int edgeMaxAxleKg(int edge) {
+        int r = edgeRestriction[edge];
+        return r == NO_RESTRICTION ? 0 : restrictionAxleKg[r];
+    }
+
+    /**
+     * 🚫 Czy zestaw o danych ograniczeniach może przejechać krawędzią
+     */
+    public boolean isPassable(int edge, TransportConstraintsDTO constraints) {
+        int r = edgeRestriction[edge];
+        if (r == NO_RESTRICTION || constraints == null) {
+            return true;
+        }
+        return fits(constraints.getMaxHeightCm(), restrictionHeightCm[r])
+                && fits(constraints.getTotalWeightKg(), restrictionWeightKg[r])
+                && fits(constraints.getMaxAxleLoadKg(), restrictionAxleKg[r]);
+    }
+
+    private static boolean fits(Integer required, int limit) {
+        return limit <= 0 || required == null || required <= limit;
+    }
+
+    /**
+     * 🔑 Odcisk topologii - hierarchie skrótów zapisane dla innego grafu są odrzucane
+     */
+    public long fingerprint() {
+        long hash = 1125899906842597L;
+        hash = 31 * hash + Arrays.hashCode(latE7);
+        hash = 31 * hash + Arrays.hashCode(lngE7);
+        hash = 31 * hash + Arrays.hashCode(firstOut);
+        hash = 31 * hash + Arrays.hashCode(edgeTarget);
+        hash = 31 * hash + Arrays.hashCode(edgeTimeS);
+        hash = 31 * hash + Arrays.hashCode(edgeRestriction);
+        return hash;
+    }
+
+    // ========================================
+    // ZAPIS / ODCZYT
+    // ========================================
+
+    /**
+     * 💾 Zapisz graf w formacie binarnym - odczyt to kopiowanie tablic zamiast parsowania XML
+     */
+    public void write(Path file) throws IOException {
+        try (GraphFiles.Writer out = GraphFiles.writer(file)) {
+            int nodeCount = nodeCount();
+            int edgeCount = edgeCount();
+            out.putInt(FILE_MAGIC).putInt(FILE_VERSION)
+                    .putInt(nodeCount).putInt(edgeCount)
+                    .putInt(restrictionHeightCm.length).putInt(wayNames.length);
+            out.putInts(latE7, nodeCount).putInts(lngE7, nodeCount).putInts(firstOut, nodeCount + 1);
+            out.putInts(edgeTarget, edgeCount).putFloats(edgeLengthM, edgeCount).putFloats(edgeTimeS, edgeCount)
+                    .putBytes(edgeRoadClass, edgeCount).putInts(edgeWay, edgeCount).putInts(edgeRestriction, edgeCount);
+            out.putInts(restrictionHeightCm, restrictionHeightCm.length)
+                    .putInts(restrictionWeightKg, restrictionWeightKg.length)
+                    .putInts(restrictionAxleKg, restrictionAxleKg.length);
+
+            // Nazwy dróg: tablica przesunięć + jeden blok UTF-8
+            byte[][] encoded = new byte[wayNames.length][];
+            int[] offsets = new int[wayNames.length + 1];
+            for (int i = 0; i < wayNames.length; i++) {
+                encoded[i] = wayNames[i].getBytes(StandardCharsets.UTF_8);
+                offsets[i + 1] = offsets[i] + encoded[i].length;
+            }
+            out.putInts(offsets, offsets.length);
+            for (byte[] name : encoded) {
+                out.putBytes(name, name.length);
+            }
+            out.commit();
+        }
+    }
+
+    public static RoadGraph read(Path file) throws IOException {
+        try (GraphFiles.Reader in = GraphFiles.reader(file)) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported road graph file: " + file);
+            }
+            int nodeCount = in.readInt();
+            int edgeCount = in.readInt();
+            int restrictionCount = in.readInt();
+            int wayNameCount = in.readInt();
+
+            int[] latE7 = in.readInts(nodeCount);
+            int[] lngE7 = in.readInts(nodeCount);
+            int[] firstOut = in.readInts(nodeCount + 1);
+            int[] edgeTarget = in.readInts(edgeCount);
+            float[] edgeLengthM = in.readFloats(edgeCount);
+            float[] edgeTimeS = in.readFloats(edgeCount);
+            byte[] edgeRoadClass = in.readBytes(edgeCount);
+            int[] edgeWay = in.readInts(edgeCount);
+            int[] edgeRestriction = in.readInts(edgeCount);
+            int[] heights = in.readInts(restrictionCount);
+            int[] weights = in.readInts(restrictionCount);
+            int[] axles = in.readInts(restrictionCount);
+            int[] nameOffsets = in.readInts(wayNameCount + 1);
+            byte[] names = in.readBytes(nameOffsets[wayNameCount]);
+            String[] wayNames = new String[wayNameCount];
+            for (int i = 0; i < wayNameCount; i++) {
+                wayNames[i] = new String(names, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i], StandardCharsets.UTF_8);
+            }
+
+            return new RoadGraph(latE7, lngE7, firstOut, edgeTarget, edgeLengthM, edgeTimeS, edgeRoadClass,
+                    edgeWay, edgeRestriction, wayNames, heights, weights, axles);
+        }
+    }
+
+    /**
+     * 🏗️ Builder - węzły i krawędzie w dowolnej kolejności, CSR układany w build()
+     */
+    public static final class Builder {
+        private int nodeCount;
+        private int[] latE7 = new int[1024];
+        private int[] lngE7 = new int[1024];
+
+        private int edgeCount;
+        private int[] edgeFrom = new int[1024];
+        private int[] edgeTo = new int[1024];
+        private float[] edgeLengthM = new float[1024];
+        private float[] edgeTimeS = new float[1024];
+        private byte[] edgeRoadClass = new byte[1024];
+        private int[] edgeWay = new int[1024];
+        private int[] edgeRestriction = new int[1024];
+
+        private final List<String> wayNames = new ArrayList<>();
+        private final Map<String, Integer> wayNameIndex = new HashMap<>();
+        private final List<int[]> restrictions = new ArrayList<>();
+        private final Map<List<Integer>, Integer> restrictionIndex = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public int addNode(double latitude, double longitude) {
+            if (nodeCount == latE7.length) {
+                latE7 = Arrays.copyOf(latE7, nodeCount * 2);
+                lngE7 = Arrays.copyOf(lngE7, nodeCount * 2);
+            }
+            latE7[nodeCount] = (int) Math.round(latitude * COORDINATE_SCALE);
+            lngE7[nodeCount] = (int) Math.round(longitude * COORDINATE_SCALE);
+            return nodeCount++;
+        }
+
+        /**
+         * Indeks nazwy drogi (nazwy są współdzielone przez krawędzie)
+         */
+        public int wayName(String name) {
+            return wayNameIndex.computeIfAbsent(name == null ? "" : name, key -> {
+                wayNames.add(key);
+                return wayNames.size() - 1;
+            });
+        }
+
+        /**
+         * Indeks ograniczenia (0 = brak limitu); NO_RESTRICTION gdy wszystkie limity puste
+         */
+        public int restriction(Integer heightCm, Integer weightKg, Integer axleKg) {
+            int h = heightCm != null ? heightCm : 0;
+            int w = weightKg != null ? weightKg : 0;
+            int a = axleKg != null ? axleKg : 0;
+            if (h <= 0 && w <= 0 && a <= 0) {
+                return NO_RESTRICTION;
+            }
+            return restrictionIndex.computeIfAbsent(List.of(h, w, a), key -> {
+                restrictions.add(new int[]{h, w, a});
+                return restrictions.size() - 1;
+            });
+        }
+
+        /**
+         * Dodaj krawędź skierowaną; długość liczona z współrzędnych węzłów
+         */
+        public int addEdge(int from, int to, RoadClass roadClass, double speedKmh, int wayName, int restriction) {
+            if (edgeCount == edgeFrom.length) {
+                int capacity = edgeCount * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeLengthM = Arrays.copyOf(edgeLengthM, capacity);
+                edgeTimeS = Arrays.copyOf(edgeTimeS, capacity);
+                edgeRoadClass = Arrays.copyOf(edgeRoadClass, capacity);
+                edgeWay = Arrays.copyOf(edgeWay, capacity);
+                edgeRestriction = Arrays.copyOf(edgeRestriction, capacity);
+            }
+
+            double lengthM = 1000.0 * GeoUtils.haversineKm(
+                    latE7[from] / COORDINATE_SCALE, lngE7[from] / COORDINATE_SCALE,
+                    latE7[to] / COORDINATE_SCALE, lngE7[to] / COORDINATE_SCALE);
+
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeLengthM[edgeCount] = (float) lengthM;
+            edgeTimeS[edgeCount] = (float) (lengthM / (speedKmh / 3.6));
+            edgeRoadClass[edgeCount] = (byte) roadClass.ordinal();
+            edgeWay[edgeCount] = wayName;
+            edgeRestriction[edgeCount] = restriction;
+            return edgeCount++;
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * 🧱 Sortowanie krawędzi po węźle źródłowym (counting sort) i budowa CSR
+         */
+        public RoadGraph build() {
+            int[] firstOut = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                firstOut[edgeFrom[e] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                firstOut[v + 1] += firstOut[v];
+            }
+
+            int[] order = new int[edgeCount];
+            int[] cursor = Arrays.copyOf(firstOut, nodeCount);
+            for (int e = 0; e < edgeCount; e++) {
+                order[cursor[edgeFrom[e]]++] = e;
+            }
+
+            int[] target = new int[edgeCount];
+            float[] length = new float[edgeCount];
+            float[] time = new float[edgeCount];
+            byte[] roadClass = new byte[edgeCount];
+            int[] way = new int[edgeCount];
+            int[] restriction = new int[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                int source = order[e];
+                target[e] = edgeTo[source];
+                length[e] = edgeLengthM[source];
+                time[e] = edgeTimeS[source];
+                roadClass[e] = edgeRoadClass[source];
+                way[e] = edgeWay[source];
+                restriction[e] = edgeRestriction[source];
+            }
+
+            int restrictionCount = restrictions.size();
+            int[] heights = new int[restrictionCount];
+            int[] weights = new int[restrictionCount];
+            int[] axles = new int[restrictionCount];
+            for (int i = 0; i < restrictionCount; i++) {
+                int[] r = restrictions.get(i);
+                heights[i] = r[0];
+                weights[i] = r[1];
+                axles[i] = r[2];
+            }
+
+            return new RoadGraph(Arrays.copyOf(latE7, nodeCount), Arrays.copyOf(lngE7, nodeCount), firstOut,
+                    target, length, time, roadClass, way, restriction,
+                    wayNames.toArray(new String[0]), heights, weights, axles);
+        }
+    }
+}
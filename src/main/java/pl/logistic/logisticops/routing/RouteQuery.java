@@ -0,0 +1,12 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+
+/**
+ * 📨 Zapytanie o trasę dla dostawcy routingu
+ */
+public record RouteQuery(double startLat, double startLng,
+                         double endLat, double endLng,
+                         TransportConstraintsDTO constraints,
+                         RouteVariant variant) {
+}
@@ -0,0 +1,10 @@
+package pl.logistic.logisticops.routing;
+
+/**
+ * 🔀 Warianty generowanych tras
+ */
+public enum RouteVariant {
+    OPTIMAL,      // najkrótsza z omijaniem ograniczeń
+    SAFE,         // maksymalne unikanie ograniczeń
+    ALTERNATIVE   // backup option
+}
@@ -0,0 +1,30 @@
+package pl.logistic.logisticops.routing;
+
+import pl.logistic.logisticops.dto.RouteSegmentDTO;
+
+import java.util.List;
+
+/**
+ * 🧭 Źródło geometrii tras (Google Directions lub lokalny graf OSM)
+ *
+ * Wybór dostawcy: app.routing.provider = auto | google | osm.
+ */
+public interface RoutingProvider {
+
+    /**
+     * Nazwa używana w konfiguracji (app.routing.provider)
+     */
+    String getName();
+
+    /**
+     * Czy dostawca może teraz odpowiadać (np. graf OSM wczytany)
+     */
+    boolean isAvailable();
+
+    /**
+     * Segmenty trasy w kolejności przejazdu
+     *
+     * @throws IllegalStateException gdy dostawca nie znalazł trasy spełniającej ograniczenia
+     */
+    List<RouteSegmentDTO> route(RouteQuery query);
+}
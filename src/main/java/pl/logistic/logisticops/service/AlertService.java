@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.api.ViewportRouter;
 import pl.logistic.logisticops.dto.AlertDTO;
 import pl.logistic.logisticops.enums.AlertLevel;
 import pl.logistic.logisticops.mapper.AlertMapper;
@@ -25,6 +26,7 @@ public class AlertService {
     private final InfrastructureRepository infrastructureRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final AlertMapper alertMapper;
+    private final ViewportRouter viewportRouter;
 
     public AlertDTO createAlert(String message, AlertLevel level, Long relatedTransportId,
                                 Long relatedInfrastructureId, String type) {
@@ -60,6 +62,13 @@ public class AlertService {
             messagingTemplate.convertAndSend("/topic/transport/" + relatedTransportId + "/alerts", dto);
         }
 
+        // Konsole, których widok mapy obejmuje miejsce alertu
+        if (infrastructure != null && infrastructure.getLatitude() != null && infrastructure.getLongitude() != null) {
+            viewportRouter.routeAlert(infrastructure.getLatitude(), infrastructure.getLongitude(), dto);
+        } else if (transport != null && transport.getCurrentLatitude() != null && transport.getCurrentLongitude() != null) {
+            viewportRouter.routeAlert(transport.getCurrentLatitude(), transport.getCurrentLongitude(), dto);
+        }
+
         return dto;
     }
 
@@ -0,0 +1,309 @@
+package pl.logistic.logisticops.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.event.RestrictedZoneChangedEvent;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
+import pl.logistic.logisticops.geo.PolygonGridIndex;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.model.RestrictedZone;
+import pl.logistic.logisticops.repository.RestrictedZoneRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🚧 GEOFENCING STREF ZAKAZANYCH
+ *
+ * Aktywne strefy z restricted_zones trzymane w siatkowym indeksie wielokątów
+ * (PolygonGridIndex) - ping sprawdza kandydatów z jednej komórki: najpierw prostokąt
+ * ograniczający, potem punkt w wielokącie. Bez zapytań do bazy na ping; indeks
+ * przebudowywany w całości i podmieniany po każdej zmianie stref.
+ *
+ * Dla każdego pojazdu transportu pamiętany jest zbiór stref, w których był ostatnio -
+ * alert GEOFENCING_VIOLATION pada tylko przy wjeździe i wyjeździe, nie na każdy ping.
+ * Konwój sprawdzany jest raz (pozycja czoła), ale stan aktualizowany per pojazd, więc
+ * pojazd raportujący na przemian w konwoju i osobno nie powtarza alertów; przejście
+ * kilku pojazdów konwoju przez tę samą granicę to jeden alert. Pingi starsze niż
+ * ostatnio oceniony nie zmieniają stanu.
+ *
+ * Metryki: logisticops.geofence.check (czas), logisticops.geofence.transitions{direction=enter|exit},
+ * logisticops.geofence.zones
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceService {
+
+    private static final long[] NO_ZONES = new long[0];
+
+    private final RestrictedZoneRepository zoneRepository;
+    private final AlertService alertService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.geofence.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.geofence.cell-size-deg:0.05}")
+    private double cellSizeDeg;
+
+    @Value("${app.geofence.max-cells-per-zone:4096}")
+    private int maxCellsPerZone;
+
+    @Value("${app.geofence.idle-hours:12}")
+    private long idleHours;
+
+    private volatile ZoneSnapshot zones = ZoneSnapshot.EMPTY;
+    private Cache<TrackKey, TrackState> tracks;
+
+    private Timer checkTimer;
+    private Counter enters;
+    private Counter exits;
+
+    /**
+     * 🚧 Strefa w indeksie
+     */
+    public record ZoneInfo(Long id, String name, String zoneType, AlertLevel alertLevel) {
+    }
+
+    /**
+     * Pojazd transportu - ten sam klucz dla pozycji pojedynczej i konwoju
+     */
+    private record TrackKey(Long transportId, Long vehicleId) {
+
+        static TrackKey of(VehicleTrackingDTO position) {
+            return new TrackKey(position.getTransportId(), position.getVehicleId());
+        }
+    }
+
+    /**
+     * Posortowane id stref, w których był pojazd, i czas pingu, który to ustalił
+     */
+    private record TrackState(long[] zoneIds, LocalDateTime at) {
+    }
+
+    private record ZoneSnapshot(PolygonGridIndex<ZoneInfo> index, Map<Long, ZoneInfo> byId) {
+        static final ZoneSnapshot EMPTY = new ZoneSnapshot(
+                PolygonGridIndex.<ZoneInfo>builder(1.0, 1).build(), Map.of());
+    }
+
+    @PostConstruct
+    void init() {
+        // Pojazdy bez pingów wypadają same - nie każdy transport kończy się zmianą statusu
+        tracks = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(idleHours))
+                .build();
+
+        checkTimer = Timer.builder("logisticops.geofence.check")
+                .description("Czas sprawdzenia pozycji względem stref zakazanych")
+                .register(meterRegistry);
+        enters = transitions("enter");
+        exits = transitions("exit");
+        Gauge.builder("logisticops.geofence.zones", this, service -> service.zones.index().size())
+                .description("Aktywne strefy zakazane w indeksie")
+                .register(meterRegistry);
+    }
+
+    private Counter transitions(String direction) {
+        return Counter.builder("logisticops.geofence.transitions")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔄 Wczytaj aktywne strefy i podmień indeks (sprawdzenia nie czekają na przebudowę)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadZones() {
+        try {
+            List<RestrictedZone> active = zoneRepository.findByActiveTrue();
+            PolygonGridIndex.Builder<ZoneInfo> builder = PolygonGridIndex.builder(cellSizeDeg, maxCellsPerZone);
+            Map<Long, ZoneInfo> byId = new HashMap<>(active.size() * 2);
+
+            for (RestrictedZone zone : active) {
+                ZoneInfo info = new ZoneInfo(zone.getId(), zone.getName(), zone.getZoneType(), zone.getAlertLevel());
+                try {
+                    builder.add(info, PolylineCodec.decode(zone.getPolygon()));
+                    byId.put(info.id(), info);
+                } catch (IllegalArgumentException e) {
+                    log.warn("⚠️ Skipping restricted zone {} with invalid polygon: {}", zone.getId(), e.getMessage());
+                }
+            }
+
+            ZoneSnapshot snapshot = new ZoneSnapshot(builder.build(), byId);
+            zones = snapshot;
+            log.info("🚧 Geofence index loaded: {} zones, {} cells, {} oversized",
+                    snapshot.index().size(), snapshot.index().cellCount(), snapshot.index().oversizedCount());
+        } catch (DataAccessException e) {
+            log.error("❌ Failed to load restricted zones, keeping {} indexed zones: {}",
+                    zones.index().size(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onZoneChanged(RestrictedZoneChangedEvent event) {
+        log.debug("🚧 Restricted zone {} changed, rebuilding geofence index", event.getZoneId());
+        reloadZones();
+    }
+
+    /**
+     * 🎯 Aktywne strefy zawierające punkt (z indeksu w pamięci)
+     */
+    public List<ZoneInfo> zonesAt(double latitude, double longitude) {
+        return zones.index().containing(latitude, longitude);
+    }
+
+    /**
+     * 📍 Zapisany wsad pozycji: przejścia granic stref; konwój oceniany raz, pozycją czoła
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsPersisted(VehiclePositionsPersistedEvent event) {
+        if (!enabled || event.getPositions().isEmpty()) {
+            return;
+        }
+        if (event.isConvoy()) {
+            VehicleTrackingDTO lead = event.getPositions().get(0);
+            try {
+                evaluate(lead, event.getPositions().stream().map(TrackKey::of).toList(), "Convoy");
+            } catch (RuntimeException e) {
+                log.error("❌ Geofence check failed for transport {}", lead.getTransportId(), e);
+            }
+            return;
+        }
+        for (VehicleTrackingDTO position : event.getPositions()) {
+            try {
+                evaluate(position, List.of(TrackKey.of(position)), "Vehicle " + position.getVehicleId());
+            } catch (RuntimeException e) {
+                log.error("❌ Geofence check failed for transport {}", position.getTransportId(), e);
+            }
+        }
+    }
+
+    /**
+     * Jedno sprawdzenie pozycji, przejścia liczone per pojazd; strefa, do której wjechał
+     * (lub którą opuścił) którykolwiek z pojazdów, to jeden alert
+     */
+    private void evaluate(VehicleTrackingDTO position, List<TrackKey> keys, String subject) {
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        ZoneSnapshot snapshot = zones;
+        long[] current = zoneIds(snapshot.index().containing(position.getLatitude(), position.getLongitude()));
+        checkTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        // Najczęstszy przypadek: poza strefami i nigdy w żadnej nie był
+        if (current.length == 0 && keys.stream().allMatch(key -> tracks.getIfPresent(key) == null)) {
+            return;
+        }
+
+        LocalDateTime at = position.getRecordedAt() != null ? position.getRecordedAt() : LocalDateTime.now();
+        Set<Long> entered = new TreeSet<>();
+        Set<Long> exited = new TreeSet<>();
+        for (TrackKey key : keys) {
+            long[] previous = transition(key, current, at);
+            for (long zoneId : current) {
+                if (Arrays.binarySearch(previous, zoneId) < 0) {
+                    entered.add(zoneId);
+                }
+            }
+            for (long zoneId : previous) {
+                if (Arrays.binarySearch(current, zoneId) < 0) {
+                    exited.add(zoneId);
+                }
+            }
+        }
+
+        Long transportId = position.getTransportId();
+        for (Long zoneId : entered) {
+            enters.increment();
+            raiseAlert(transportId, subject, snapshot.byId().get(zoneId), true);
+        }
+        for (Long zoneId : exited) {
+            ZoneInfo zone = snapshot.byId().get(zoneId);
+            // Strefa usunięta lub wyłączona - pojazd jej nie opuścił, brak alertu
+            if (zone != null) {
+                exits.increment();
+                raiseAlert(transportId, subject, zone, false);
+            }
+        }
+    }
+
+    /**
+     * Zapisz strefy pojazdu i zwróć poprzednie (ping spóźniony: bez zmiany stanu i bez przejść)
+     */
+    private long[] transition(TrackKey key, long[] current, LocalDateTime at) {
+        long[][] previous = new long[1][];
+        tracks.asMap().compute(key, (k, state) -> {
+            if (state != null && at.isBefore(state.at())) {
+                previous[0] = current;
+                return state;
+            }
+            previous[0] = state != null ? state.zoneIds() : NO_ZONES;
+            return new TrackState(current, at);
+        });
+        return previous[0];
+    }
+
+    private static long[] zoneIds(List<ZoneInfo> inside) {
+        if (inside.isEmpty()) {
+            return NO_ZONES;
+        }
+        long[] ids = new long[inside.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = inside.get(i).id();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * 🚨 Wjazd: alert o poziomie strefy; wyjazd: alert niski
+     */
+    private void raiseAlert(Long transportId, String subject, ZoneInfo zone, boolean entered) {
+        String zoneName = "'" + zone.name() + "' (" + zone.zoneType() + ")";
+
+        if (entered) {
+            log.warn("🚨 {} of transport {} entered restricted zone {}", subject, transportId, zoneName);
+            alertService.createAlert(
+                    "🚨 MILITARY ALERT: " + subject + " entered restricted zone " + zoneName,
+                    zone.alertLevel(),
+                    transportId,
+                    null,
+                    "GEOFENCING_VIOLATION"
+            );
+        } else {
+            log.info("🚧 {} of transport {} left restricted zone {}", subject, transportId, zoneName);
+            alertService.createAlert(
+                    "✅ " + subject + " left restricted zone " + zoneName,
+                    AlertLevel.LOW,
+                    transportId,
+                    null,
+                    "GEOFENCING_VIOLATION"
+            );
+        }
+    }
+}
@@ -10,8 +10,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import pl.logistic.logisticops.dto.RouteSegmentDTO;
 import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.geo.RouteCorridor;
 import pl.logistic.logisticops.model.Infrastructure;
-import pl.logistic.logisticops.repository.InfrastructureRepository;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -25,11 +28,15 @@ public class GoogleMapsService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
-    private final InfrastructureRepository infrastructureRepository;
+    private final InfrastructureSpatialIndex spatialIndex;
+    private final RouteResultCache routeCache;
 
     @Value("${api.googlemaps.key}")
     private String apiKey;
 
+    @Value("${app.routing.corridor-buffer-km:2.0}")
+    private double corridorBufferKm;
+
     @Value("${app.restrictions.critical-height-cm:400}")
     private Integer criticalHeightCm;
 
@@ -57,18 +64,30 @@ public class GoogleMapsService {
      * 1. Sprawdza ograniczenia infrastrukturalne
      * 2. Generuje trasę z omijaniem problemów
      * 3. Waliduje trasę względem naszej bazy danych
+     *
+     * Wynik jest cache'owany (RouteResultCache) po zaokrąglonych współrzędnych i ograniczeniach.
      */
     private List<RouteSegmentDTO> getIntelligentRoute(Double startLat, Double startLng,
                                                       Double endLat, Double endLng,
                                                       Map<String, Object> constraints,
                                                       boolean alternative) {
+        RouteResultCache.Key key = routeCache.keyOf(startLat, startLng, endLat, endLng, alternative, constraints);
+
+        return routeCache.getOrLoad(key, () ->
+                loadIntelligentRoute(startLat, startLng, endLat, endLng, constraints, alternative));
+    }
+
+    private RouteResultCache.CachedRoute loadIntelligentRoute(Double startLat, Double startLng,
+                                                              Double endLat, Double endLng,
+                                                              Map<String, Object> constraints,
+                                                              boolean alternative) {
         try {
             log.info("🧠 Planning intelligent route from [{},{}] to [{},{}]",
                     startLat, startLng, endLat, endLng);
 
             // 1. Identyfikuj problematyczną infrastrukturę w obszarze
-            List<Infrastructure> problematicInfra = findProblematicInfrastructure(
-                    startLat, startLng, endLat, endLng, constraints);
+            BoundingBox area = routeSearchArea(startLat, startLng, endLat, endLng);
+            List<Infrastructure> problematicInfra = findProblematicInfrastructure(area, constraints);
 
             log.info("⚠️ Found {} problematic infrastructure objects", problematicInfra.size());
 
@@ -77,34 +96,36 @@ public class GoogleMapsService {
                     startLat, startLng, endLat, endLng, constraints, alternative, problematicInfra);
 
             // 3. Waliduj i popraw trasę
-            List<RouteSegmentDTO> validatedRoute = validateAndFixRoute(baseRoute, constraints);
+            RouteCorridor corridor = buildRouteCorridor(baseRoute);
+            List<RouteSegmentDTO> validatedRoute = validateAndFixRoute(baseRoute, corridor, constraints);
 
             log.info("✅ Generated route with {} segments", validatedRoute.size());
-            return validatedRoute;
+
+            // Zmiana infrastruktury w obszarze wyszukiwania lub korytarzu trasy unieważnia wynik
+            BoundingBox bounds = corridor.isEmpty() ? area : area.union(corridor.bounds());
+            return RouteResultCache.CachedRoute.of(validatedRoute, bounds);
 
         } catch (Exception e) {
             log.error("❌ Error in intelligent routing", e);
-            // Fallback: prosta trasa bez ograniczeń
-            return getSimpleGoogleRoute(startLat, startLng, endLat, endLng);
+            // Fallback: prosta trasa bez ograniczeń (nie trafia do cache)
+            return RouteResultCache.CachedRoute.uncacheable(getSimpleGoogleRoute(startLat, startLng, endLat, endLng));
         }
     }
 
+    /**
+     * 📦 Obszar wyszukiwania infrastruktury - prostokąt start/cel z marginesem bezpieczeństwa (20km)
+     */
+    private BoundingBox routeSearchArea(Double startLat, Double startLng, Double endLat, Double endLng) {
+        return BoundingBox.of(startLat, startLng, endLat, endLng).expandKm(20.0);
+    }
+
     /**
      * 🔍 Znajdź problematyczną infrastrukturę w obszarze trasy
      */
-    private List<Infrastructure> findProblematicInfrastructure(Double startLat, Double startLng,
-                                                               Double endLat, Double endLng,
+    private List<Infrastructure> findProblematicInfrastructure(BoundingBox area,
                                                                Map<String, Object> constraints) {
-        // Rozszerz bounding box o margines bezpieczeństwa (20km)
-        double margin = 0.2; // ~20km
-        double minLat = Math.min(startLat, endLat) - margin;
-        double maxLat = Math.max(startLat, endLat) + margin;
-        double minLng = Math.min(startLng, endLng) - margin;
-        double maxLng = Math.max(startLng, endLng) + margin;
-
-        // Pobierz infrastrukturę w obszarze
-        List<Infrastructure> areaInfra = infrastructureRepository.findNearPoint(
-                (minLat + maxLat) / 2, (minLng + maxLng) / 2, 50.0); // 50km radius
+        // Pobierz infrastrukturę w obszarze (indeks przestrzenny)
+        List<Infrastructure> areaInfra = spatialIndex.findInBoundingBox(area);
 
         // Filtruj problematyczną infrastrukturę
         return areaInfra.stream()
@@ -250,16 +271,25 @@ public class GoogleMapsService {
 
     /**
      * ✅ Waliduj i popraw trasę względem naszej bazy infrastruktury
+     * Jedno zapytanie korytarzowe dla całej trasy zamiast zapytania na każdy segment
      */
     private List<RouteSegmentDTO> validateAndFixRoute(List<RouteSegmentDTO> route,
+                                                      RouteCorridor corridor,
                                                       Map<String, Object> constraints) {
-        List<RouteSegmentDTO> validatedRoute = new ArrayList<>();
+        Map<Integer, Integer> conflictsPerSegment = new HashMap<>();
+        for (RouteCorridor.Hit<Infrastructure> hit : spatialIndex.findInCorridor(corridor)) {
+            if (isProblematicForConstraints(hit.item(), constraints)) {
+                conflictsPerSegment.merge(hit.segmentIndex(), 1, Integer::sum);
+            }
+        }
 
-        for (RouteSegmentDTO segment : route) {
-            // Sprawdź czy segment przechodzi przez problematyczną infrastrukturę
-            List<Infrastructure> conflictingInfra = checkSegmentConflicts(segment, constraints);
+        List<RouteSegmentDTO> validatedRoute = new ArrayList<>(route.size());
 
-            if (conflictingInfra.isEmpty()) {
+        for (int i = 0; i < route.size(); i++) {
+            RouteSegmentDTO segment = route.get(i);
+            Integer conflicts = conflictsPerSegment.get(i);
+
+            if (conflicts == null) {
                 // Segment bezpieczny - dodaj bez zmian
                 validatedRoute.add(segment);
             } else {
@@ -283,7 +313,7 @@ public class GoogleMapsService {
                 validatedRoute.add(warningSegment);
 
                 log.warn("⚠️ Route segment has {} restrictions: {}",
-                        conflictingInfra.size(), segment.getRoadName());
+                        conflicts, segment.getRoadName());
             }
         }
 
@@ -291,23 +321,37 @@ public class GoogleMapsService {
     }
 
     /**
-     * 🔍 Sprawdź konflikty segmentu z infrastrukturą
+     * 🛣️ Zbuduj korytarz wokół pełnej geometrii trasy
+     * Segment i w korytarzu odpowiada segments.get(i); brak polilinii = odcinek start-koniec
      */
-    private List<Infrastructure> checkSegmentConflicts(RouteSegmentDTO segment,
-                                                       Map<String, Object> constraints) {
-        if (segment.getFromLatitude() == null || segment.getToLatitude() == null) {
-            return Collections.emptyList();
+    public RouteCorridor buildRouteCorridor(List<RouteSegmentDTO> segments) {
+        RouteCorridor.Builder builder = RouteCorridor.builder(corridorBufferKm);
+
+        for (RouteSegmentDTO segment : segments) {
+            builder.addSegment(segmentGeometry(segment));
         }
 
-        // Sprawdź infrastrukturę w okolicy segmentu (2km)
-        double centerLat = (segment.getFromLatitude() + segment.getToLatitude()) / 2;
-        double centerLng = (segment.getFromLongitude() + segment.getToLongitude()) / 2;
+        return builder.build();
+    }
 
-        List<Infrastructure> nearbyInfra = infrastructureRepository.findNearPoint(centerLat, centerLng, 2.0);
+    private List<GeoPoint> segmentGeometry(RouteSegmentDTO segment) {
+        if (segment.getPolyline() != null && !segment.getPolyline().isBlank()) {
+            try {
+                List<GeoPoint> points = PolylineCodec.decode(segment.getPolyline());
+                if (!points.isEmpty()) {
+                    return points;
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("⚠️ Invalid polyline in segment {}: {}", segment.getSequenceOrder(), e.getMessage());
+            }
+        }
 
-        return nearbyInfra.stream()
-                .filter(infra -> isProblematicForConstraints(infra, constraints))
-                .toList();
+        if (segment.getFromLatitude() == null || segment.getToLatitude() == null) {
+            return List.of();
+        }
+        return List.of(
+                new GeoPoint(segment.getFromLatitude(), segment.getFromLongitude()),
+                new GeoPoint(segment.getToLatitude(), segment.getToLongitude()));
     }
 
     /**
@@ -0,0 +1,64 @@
+package pl.logistic.logisticops.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.dto.RouteSegmentDTO;
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+import pl.logistic.logisticops.routing.RouteQuery;
+import pl.logistic.logisticops.routing.RoutingProvider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🗺️ Dostawca tras oparty o Google Directions API (wymaga sieci i klucza API)
+ */
+@Service
+@RequiredArgsConstructor
+public class GoogleRoutingProvider implements RoutingProvider {
+
+    public static final String NAME = "google";
+
+    private final GoogleMapsService googleMapsService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true; // przy błędzie API GoogleMapsService zwraca trasę zastępczą
+    }
+
+    @Override
+    public List<RouteSegmentDTO> route(RouteQuery query) {
+        Map<String, Object> routeConstraints = buildGoogleMapsConstraints(query.constraints());
+
+        return switch (query.variant()) {
+            case OPTIMAL -> googleMapsService.getOptimalRoute(
+                    query.startLat(), query.startLng(), query.endLat(), query.endLng(), routeConstraints);
+            case SAFE -> {
+                routeConstraints.put("avoidRestrictions", true);  // Maksymalne unikanie
+                routeConstraints.put("safety", "maximum");
+                yield googleMapsService.getOptimalRoute(
+                        query.startLat(), query.startLng(), query.endLat(), query.endLng(), routeConstraints);
+            }
+            case ALTERNATIVE -> googleMapsService.getAlternativeRoute(
+                    query.startLat(), query.startLng(), query.endLat(), query.endLng(), routeConstraints);
+        };
+    }
+
+    /**
+     * 🗺️ Zbuduj constraints dla Google Maps API
+     */
+    private Map<String, Object> buildGoogleMapsConstraints(TransportConstraintsDTO constraints) {
+        Map<String, Object> routeConstraints = new HashMap<>();
+        routeConstraints.put("maxHeight", constraints.getMaxHeightCm());
+        routeConstraints.put("maxWeight", constraints.getTotalWeightKg());
+        routeConstraints.put("maxAxleLoad", constraints.getMaxAxleLoadKg());
+        routeConstraints.put("vehicleType", "truck"); // Zawsze truck dla transportów militarnych
+        return routeConstraints;
+    }
+}
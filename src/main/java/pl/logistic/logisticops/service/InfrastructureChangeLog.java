@@ -0,0 +1,299 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.logistic.logisticops.api.TopicSubscriptionRegistry;
+import pl.logistic.logisticops.dto.InfrastructureDeltaDTO;
+import pl.logistic.logisticops.dto.InfrastructureSyncDTO;
+import pl.logistic.logisticops.enums.InfrastructureChangeType;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.mapper.InfrastructureMapper;
+import pl.logistic.logisticops.model.Infrastructure;
+import pl.logistic.logisticops.model.InfrastructureChange;
+import pl.logistic.logisticops.repository.InfrastructureChangeRepository;
+import pl.logistic.logisticops.repository.InfrastructureRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 📜 WERSJONOWANY DZIENNIK ZMIAN INFRASTRUKTURY (migawka + delty)
+ *
+ * Każda zatwierdzona zmiana (CRUD, status, obiekty dodane przez synchronizację OSM)
+ * dostaje kolejną wersję i wpis w infrastructure_changes. Wersje nadawane po commicie,
+ * pod blokadą, więc rosną w kolejności zatwierdzania - klient z wersją N nie przegapi
+ * zmiany zatwierdzonej później z niższym numerem.
+ *
+ * Protokół klienta:
+ * 1. GET /api/infrastructure/snapshot (lub STOMP /app/infrastructure/subscribe bez wersji)
+ *    - wszystkie aktywne obiekty i wersja migawki
+ * 2. SUBSCRIBE /topic/infrastructure/changes - paczki delt (fromVersion, version];
+ *    fromVersion większe niż wersja klienta = luka → krok 3
+ * 3. Po ponownym połączeniu GET /api/infrastructure/changes?since=N (lub STOMP z sinceVersion)
+ *    - zmiany od N, skompaktowane do ostatniego stanu obiektu; migawka, gdy N wypadło
+ *    z retencji albo delt jest więcej niż max-resume-changes
+ *
+ * Delty są idempotentne (ADD/UPDATE = wstaw lub nadpisz, DEACTIVATE = usuń), więc zmiana
+ * widoczna już w migawce i powtórzona deltą niczego nie psuje.
+ *
+ * Licznik wersji żyje w pamięci (wczytany z MAX(version) przy pierwszym użyciu), więc
+ * zakłada jedną instancję aplikacji. Przy kilku instancjach dwie mogą nadać tę samą wersję -
+ * klucz główny odrzuci drugi zapis, licznik jest wtedy wczytywany ponownie, a zmiana nie
+ * trafia do dziennika (klienci zobaczą ją w następnej migawce).
+ *
+ * Metryki: logisticops.infrastructure.changelog.version,
+ * logisticops.infrastructure.changelog.resumes{result=delta|snapshot}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InfrastructureChangeLog {
+
+    public static final String CHANGES_TOPIC = "/topic/infrastructure/changes";
+
+    private final InfrastructureChangeRepository changeRepository;
+    private final InfrastructureRepository infrastructureRepository;
+    private final InfrastructureMapper infrastructureMapper;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicSubscriptionRegistry subscriptions;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.infrastructure.changelog.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${app.infrastructure.changelog.max-resume-changes:5000}")
+    private int maxResumeChanges;
+
+    @Value("${app.infrastructure.changelog.push-batch-size:500}")
+    private int pushBatchSize;
+
+    private TransactionTemplate writeTransaction;
+
+    // Pola pod blokadą this; version czytane bez blokady (volatile)
+    private boolean loaded;
+    private volatile long version;
+    private long truncatedThrough;
+
+    private Counter deltaResumes;
+    private Counter snapshotResumes;
+
+    @PostConstruct
+    void init() {
+        // Zapis dziennika po commicie zmiany - zawsze we własnej transakcji
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        deltaResumes = resumes("delta");
+        snapshotResumes = resumes("snapshot");
+        Gauge.builder("logisticops.infrastructure.changelog.version", this, changeLog -> changeLog.version)
+                .description("Bieżąca wersja dziennika zmian infrastruktury")
+                .register(meterRegistry);
+    }
+
+    private Counter resumes(String result) {
+        return Counter.builder("logisticops.infrastructure.changelog.resumes")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public long currentVersion() {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * 📸 Wszystkie aktywne obiekty; wersja odczytana przed listą, więc zmiany zatwierdzone
+     * w międzyczasie przyjdą jeszcze raz deltą
+     */
+    public InfrastructureSyncDTO snapshot() {
+        long snapshotVersion = currentVersion();
+        return InfrastructureSyncDTO.builder()
+                .fromVersion(0L)
+                .version(snapshotVersion)
+                .snapshot(true)
+                .infrastructure(infrastructureRepository.findByIsActiveTrue().stream()
+                        .map(infrastructureMapper::toDTO)
+                        .toList())
+                .changes(List.of())
+                .build();
+    }
+
+    /**
+     * 🔁 Zmiany od wersji klienta (ostatni stan każdego obiektu) albo migawka, gdy delt nie da się odtworzyć
+     */
+    public InfrastructureSyncDTO changesSince(Long sinceVersion) {
+        long current = currentVersion();
+        if (sinceVersion == null || sinceVersion < truncatedThrough() || sinceVersion > current
+                || changeRepository.countByVersionGreaterThanAndVersionLessThanEqual(sinceVersion, current) > maxResumeChanges) {
+            snapshotResumes.increment();
+            return snapshot();
+        }
+        deltaResumes.increment();
+
+        // Ostatni wpis per obiekt (kolejność wersji zachowana); stan bieżący z tabeli infrastructure
+        Map<Long, InfrastructureChange> latest = new LinkedHashMap<>();
+        for (InfrastructureChange change : changeRepository
+                .findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAsc(sinceVersion, current)) {
+            latest.remove(change.getInfrastructureId());
+            latest.put(change.getInfrastructureId(), change);
+        }
+        Map<Long, Infrastructure> live = infrastructureRepository.findAllById(latest.keySet()).stream()
+                .collect(Collectors.toMap(Infrastructure::getId, Function.identity()));
+
+        List<InfrastructureDeltaDTO> changes = new ArrayList<>(latest.size());
+        for (InfrastructureChange change : latest.values()) {
+            Infrastructure infrastructure = live.get(change.getInfrastructureId());
+            boolean present = change.getChangeType() != InfrastructureChangeType.DEACTIVATE
+                    && infrastructure != null && Boolean.TRUE.equals(infrastructure.getIsActive());
+            changes.add(InfrastructureDeltaDTO.builder()
+                    .version(change.getVersion())
+                    .type(present ? change.getChangeType() : InfrastructureChangeType.DEACTIVATE)
+                    .infrastructureId(change.getInfrastructureId())
+                    .infrastructure(present ? infrastructureMapper.toDTO(infrastructure) : null)
+                    .build());
+        }
+
+        return InfrastructureSyncDTO.builder()
+                .fromVersion(sinceVersion)
+                .version(current)
+                .snapshot(false)
+                .infrastructure(List.of())
+                .changes(changes)
+                .build();
+    }
+
+    /**
+     * 📝 Zatwierdzona zmiana → wpisy dziennika i paczki delt na CHANGES_TOPIC
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInfrastructureChanged(InfrastructureChangedEvent event) {
+        List<InfrastructureDeltaDTO> deltas = new ArrayList<>(event.getInfrastructure().size());
+        for (Infrastructure infrastructure : event.getInfrastructure()) {
+            if (infrastructure.getId() == null) {
+                continue;
+            }
+            InfrastructureChangeType type = typeOf(event.getChangeType(), infrastructure);
+            deltas.add(InfrastructureDeltaDTO.builder()
+                    .type(type)
+                    .infrastructureId(infrastructure.getId())
+                    .infrastructure(type != InfrastructureChangeType.DEACTIVATE ? infrastructureMapper.toDTO(infrastructure) : null)
+                    .build());
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        long fromVersion;
+        try {
+            fromVersion = append(deltas);
+        } catch (RuntimeException e) {
+            // Bez wpisu klienci nie dostaną zmiany deltą - odświeżą się przy następnej migawce
+            log.error("❌ Failed to record {} infrastructure changes in change log", deltas.size(), e);
+            return;
+        }
+
+        if (subscriptions.hasSubscribers(CHANGES_TOPIC)) {
+            for (int start = 0; start < deltas.size(); start += pushBatchSize) {
+                List<InfrastructureDeltaDTO> batch = deltas.subList(start, Math.min(deltas.size(), start + pushBatchSize));
+                messagingTemplate.convertAndSend(CHANGES_TOPIC, InfrastructureSyncDTO.builder()
+                        .fromVersion(fromVersion + start)
+                        .version(fromVersion + start + batch.size())
+                        .snapshot(false)
+                        .infrastructure(List.of())
+                        .changes(batch)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * 🧹 Usuń wpisy starsze niż retencja (zawsze zostaje najnowszy - wersja przeżywa restart)
+     */
+    @Scheduled(fixedRateString = "${app.infrastructure.changelog.prune-interval-ms:3600000}")
+    public synchronized void prune() {
+        ensureLoaded();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        Integer removed = writeTransaction.execute(status -> changeRepository.deleteOlderThan(cutoff, version));
+        if (removed != null && removed > 0) {
+            Long oldest = changeRepository.findMinVersion();
+            truncatedThrough = oldest != null ? oldest - 1 : version;
+            log.info("🧹 Pruned {} infrastructure change log entries, resume possible from version {}",
+                    removed, truncatedThrough);
+        }
+    }
+
+    /**
+     * Wersje kolejnych delt; zwraca wersję sprzed paczki
+     */
+    private synchronized long append(List<InfrastructureDeltaDTO> deltas) {
+        ensureLoaded();
+        long fromVersion = version;
+        LocalDateTime now = LocalDateTime.now();
+        List<InfrastructureChange> entries = new ArrayList<>(deltas.size());
+        long next = fromVersion;
+        for (InfrastructureDeltaDTO delta : deltas) {
+            delta.setVersion(++next);
+            entries.add(InfrastructureChange.builder()
+                    .version(next)
+                    .infrastructureId(delta.getInfrastructureId())
+                    .changeType(delta.getType())
+                    .changedAt(now)
+                    .build());
+        }
+        try {
+            writeTransaction.executeWithoutResult(status -> changeRepository.saveAll(entries));
+        } catch (DataIntegrityViolationException e) {
+            // Wersję nadała inna instancja - licznik do ponownego wczytania z bazy
+            loaded = false;
+            throw e;
+        }
+        version = next;
+        return fromVersion;
+    }
+
+    private synchronized long truncatedThrough() {
+        ensureLoaded();
+        return truncatedThrough;
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        Long max = changeRepository.findMaxVersion();
+        Long min = changeRepository.findMinVersion();
+        version = max != null ? max : 0;
+        truncatedThrough = min != null ? min - 1 : version;
+        loaded = true;
+        log.info("📜 Infrastructure change log at version {} (resume possible from {})", version, truncatedThrough);
+    }
+
+    private static InfrastructureChangeType typeOf(InfrastructureChangedEvent.ChangeType changeType, Infrastructure infrastructure) {
+        if (changeType == InfrastructureChangedEvent.ChangeType.DELETED || !Boolean.TRUE.equals(infrastructure.getIsActive())) {
+            return InfrastructureChangeType.DEACTIVATE;
+        }
+        return changeType == InfrastructureChangedEvent.ChangeType.CREATED
+                || changeType == InfrastructureChangedEvent.ChangeType.SYNCED
+                ? InfrastructureChangeType.ADD
+                : InfrastructureChangeType.UPDATE;
+    }
+}
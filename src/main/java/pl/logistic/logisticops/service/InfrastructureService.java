@@ -1,6 +1,7 @@
 package pl.logistic.logisticops.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -8,6 +9,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.logistic.logisticops.dto.InfrastructureDTO;
 import pl.logistic.logisticops.dto.request.CreateInfrastructureRequestDTO;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent.ChangeType;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.StrRTree;
 import pl.logistic.logisticops.mapper.InfrastructureMapper;
 import pl.logistic.logisticops.model.Infrastructure;
 import pl.logistic.logisticops.repository.InfrastructureRepository;
@@ -26,6 +31,8 @@ public class InfrastructureService {
     private final PolishInfrastructureService polishInfrastructureService;
     private final SimpMessagingTemplate messagingTemplate;
     private final InfrastructureMapper infrastructureMapper;
+    private final InfrastructureSpatialIndex spatialIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<InfrastructureDTO> getAllInfrastructure(Pageable pageable) {
         return infrastructureRepository.findAll(pageable)
@@ -52,14 +59,23 @@ public class InfrastructureService {
     }
 
     public List<InfrastructureDTO> getInfrastructureNearPoint(Double latitude, Double longitude, Double radiusKm) {
-        return infrastructureRepository.findNearPoint(latitude, longitude, radiusKm)
+        return spatialIndex.findWithinRadius(latitude, longitude, radiusKm)
                 .stream()
+                .map(StrRTree.Hit::item)
+                .map(infrastructureMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    public List<InfrastructureDTO> getNearestInfrastructure(Double latitude, Double longitude, int limit, Double radiusKm) {
+        return spatialIndex.findNearest(latitude, longitude, limit, radiusKm)
+                .stream()
+                .map(StrRTree.Hit::item)
                 .map(infrastructureMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
     public List<InfrastructureDTO> getRestrictiveInfrastructure(Integer maxHeightCm, Integer maxWeightKg, Integer maxAxleWeightKg) {
-        return infrastructureRepository.findPotentialRestrictions(maxHeightCm, maxWeightKg, maxAxleWeightKg)
+        return infrastructureRepository.findRestrictionsFor(maxHeightCm, maxWeightKg, maxAxleWeightKg, null)
                 .stream()
                 .map(infrastructureMapper::toDTO)
                 .collect(Collectors.toList());
@@ -81,6 +97,7 @@ public class InfrastructureService {
                 .build();
 
         infrastructure = infrastructureRepository.save(infrastructure);
+        eventPublisher.publishEvent(InfrastructureChangedEvent.of(ChangeType.CREATED, infrastructure));
 
         InfrastructureDTO dto = infrastructureMapper.toDTO(infrastructure);
 
@@ -94,6 +111,8 @@ public class InfrastructureService {
         Infrastructure infrastructure = infrastructureRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Infrastructure not found"));
 
+        GeoPoint previousLocation = new GeoPoint(infrastructure.getLatitude(), infrastructure.getLongitude());
+
         infrastructure.setName(request.getName());
         infrastructure.setType(request.getType());
         infrastructure.setLatitude(request.getLatitude());
@@ -105,6 +124,7 @@ public class InfrastructureService {
         infrastructure.setDescription(request.getDescription());
 
         infrastructure = infrastructureRepository.save(infrastructure);
+        eventPublisher.publishEvent(InfrastructureChangedEvent.updated(infrastructure, previousLocation));
 
         InfrastructureDTO dto = infrastructureMapper.toDTO(infrastructure);
 
@@ -122,6 +142,7 @@ public class InfrastructureService {
         infrastructure.setIsActive(isActive);
 
         infrastructure = infrastructureRepository.save(infrastructure);
+        eventPublisher.publishEvent(InfrastructureChangedEvent.of(ChangeType.STATUS_CHANGED, infrastructure));
 
         InfrastructureDTO dto = infrastructureMapper.toDTO(infrastructure);
 
@@ -145,6 +166,7 @@ public class InfrastructureService {
                 .orElseThrow(() -> new IllegalArgumentException("Infrastructure not found"));
 
         infrastructureRepository.delete(infrastructure);
+        eventPublisher.publishEvent(InfrastructureChangedEvent.of(ChangeType.DELETED, infrastructure));
 
         // Send WebSocket notification
         messagingTemplate.convertAndSend("/topic/infrastructure/deleted",
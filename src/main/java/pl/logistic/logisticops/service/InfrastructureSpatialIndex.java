@@ -0,0 +1,45 @@
+package pl.logistic.logisticops.service;
+
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.RouteCorridor;
+import pl.logistic.logisticops.geo.StrRTree;
+import pl.logistic.logisticops.model.Infrastructure;
+
+import java.util.List;
+
+/**
+ * 🗺️ Indeks przestrzenny aktywnej infrastruktury
+ *
+ * Zastępuje zapytania SQRT(...) po całej tabeli - wszystkie zapytania przestrzenne
+ * o infrastrukturę (trasy, mapy, WebSocket) przechodzą przez ten interfejs.
+ * Zwracane obiekty są odłączonymi kopiami encji (bez relacji lazy).
+ */
+public interface InfrastructureSpatialIndex {
+
+    /**
+     * ⭕ Aktywna infrastruktura w promieniu (haversine), posortowana po odległości
+     */
+    List<StrRTree.Hit<Infrastructure>> findWithinRadius(double latitude, double longitude, double radiusKm);
+
+    /**
+     * 📦 Aktywna infrastruktura wewnątrz prostokąta
+     */
+    List<Infrastructure> findInBoundingBox(BoundingBox boundingBox);
+
+    /**
+     * 🛣️ Aktywna infrastruktura w korytarzu trasy, posortowana po dystansie od startu trasy
+     */
+    List<RouteCorridor.Hit<Infrastructure>> findInCorridor(RouteCorridor corridor);
+
+    /**
+     * 🎯 k najbliższych aktywnych obiektów (maxDistanceKm ogranicza wyszukiwanie)
+     */
+    List<StrRTree.Hit<Infrastructure>> findNearest(double latitude, double longitude, int k, double maxDistanceKm);
+
+    /**
+     * 🔄 Przebuduj indeks z bazy danych
+     */
+    void rebuild();
+
+    int size();
+}
@@ -1,36 +1,64 @@
 package pl.logistic.logisticops.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.logistic.logisticops.dto.*;
+import pl.logistic.logisticops.geo.RouteCorridor;
 import pl.logistic.logisticops.mapper.RouteProposalMapper;
 import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
+import pl.logistic.logisticops.routing.RouteQuery;
+import pl.logistic.logisticops.routing.RouteVariant;
+import pl.logistic.logisticops.routing.RoutingProvider;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class IntelligentRouteService {
 
     private final RouteProposalRepository routeRepository;
-    private final RouteSegmentRepository segmentRepository;
-    private final RouteObstacleRepository obstacleRepository;
-    private final InfrastructureRepository infrastructureRepository;
+    private final InfrastructureSpatialIndex spatialIndex;
     private final VehicleSpecificationRepository vehicleRepository;
     private final MissionRepository missionRepository;
     private final GoogleMapsService googleMapsService;  // ⭐ Nowy ulepszony serwis
     private final RouteProposalMapper routeMapper;
     private final VehicleSpecificationService vehicleService;
+    private final List<RoutingProvider> routingProviders;
+    private final ExecutorService routeVariantExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.routing.concurrent-generation:true}")
+    private boolean concurrentGeneration;
+
+    @Value("${app.routing.variant-timeout-ms:20000}")
+    private long variantTimeoutMs;
+
+    @Value("${app.routing.provider:auto}")
+    private String routingProvider;
 
     /**
      * 🧠 INTELIGENTNE GENEROWANIE TRAS z automatycznym omijaniem ograniczeń
      * Wykorzystuje nowy GoogleMapsService z integracją infrastruktury
+     *
+     * Warianty OPTIMAL/SAFE/ALTERNATIVE są pobierane równolegle na wirtualnych wątkach
+     * (app.routing.concurrent-generation). Wariant, który nie zdąży przed terminem,
+     * jest pomijany - zwracamy częściowy wynik. Zapis do bazy następuje dopiero
+     * po zakończeniu wszystkich pobrań.
+     *
+     * Pipeline: odczyt (krótkie zapytania) → pobranie i analiza (bez połączenia z bazą)
+     * → jedna krótka transakcja zapisu. Metoda celowo nie jest @Transactional.
      */
     public List<RouteProposalDTO> generateIntelligentRoutes(RouteRequestDTO request) {
         log.info("🚀 Generating intelligent routes for mission: {}", request.getMissionId());
@@ -43,100 +71,143 @@ public class IntelligentRouteService {
         log.info("📏 Transport constraints: {}cm height, {}kg weight, {}kg axle",
                 constraints.getMaxHeightCm(), constraints.getTotalWeightKg(), constraints.getMaxAxleLoadKg());
 
-        // 2. Znajdź problematyczną infrastrukturę na potencjalnej trasie
-        List<Infrastructure> restrictiveInfrastructure = infrastructureRepository.findPotentialRestrictions(
-                constraints.getMaxHeightCm(),
-                constraints.getTotalWeightKg(),
-                constraints.getMaxAxleLoadKg()
-        );
-        log.info("⚠️ Found {} potentially restrictive infrastructure objects", restrictiveInfrastructure.size());
-
-        // 3. Generuj różne warianty tras z GoogleMapsService
-        List<RouteProposalDTO> proposals = new ArrayList<>();
+        // 2. Pobierz warianty tras (lokalny graf OSM lub Google - app.routing.provider)
+        Map<String, Callable<List<RouteSegmentDTO>>> variants = new LinkedHashMap<>();
+        for (RouteVariant variant : RouteVariant.values()) {
+            variants.put(variant.name(), () -> fetchRoute(request, constraints, variant));
+        }
 
-        // OPTIMAL ROUTE - najkrótsza z omijaniem ograniczeń
-        proposals.add(generateOptimalRoute(request, constraints, restrictiveInfrastructure, mission));
+        Map<String, List<RouteSegmentDTO>> fetchedRoutes = recordPhase("fetch", () -> concurrentGeneration
+                ? fetchVariantsConcurrently(variants)
+                : fetchVariantsSequentially(variants));
 
-        // SAFE ROUTE - najbezpieczniejsza (maximum avoidance)
-        proposals.add(generateSafeRoute(request, constraints, restrictiveInfrastructure, mission));
+        // 3. Zbuduj propozycje z segmentami i przeszkodami w pamięci (indeks przestrzenny, bez bazy)
+        List<RouteProposal> routes = recordPhase("analysis", () -> {
+            List<RouteProposal> built = new ArrayList<>();
+            fetchedRoutes.forEach((type, segments) ->
+                    built.add(buildRouteProposal(type, segments, mission, constraints)));
+            return built;
+        });
 
-        // ALTERNATIVE ROUTE - backup option
-        proposals.add(generateAlternativeRoute(request, constraints, restrictiveInfrastructure, mission));
+        // 4. Zapisz wszystko w jednej krótkiej transakcji
+        List<RouteProposalDTO> proposals = recordPhase("persist", () -> persistRouteProposals(routes));
 
-        log.info("✅ Generated {} route proposals", proposals.size());
+        log.info("✅ Generated {} of {} route proposals", proposals.size(), variants.size());
         return proposals;
     }
 
     /**
-     * 🎯 OPTIMAL ROUTE - najkrótsza z automatycznym omijaniem ograniczeń
+     * 💾 Jedna transakcja zapisu: propozycje wraz z segmentami i przeszkodami (kaskada ALL)
      */
-    private RouteProposalDTO generateOptimalRoute(RouteRequestDTO request,
-                                                  TransportConstraintsDTO constraints,
-                                                  List<Infrastructure> restrictiveInfrastructure,
-                                                  Mission mission) {
-
-        // Przygotuj constraints dla GoogleMapsService
-        Map<String, Object> routeConstraints = buildGoogleMapsConstraints(constraints);
-
-        // Użyj nowego GoogleMapsService z inteligentnym omijaniem
-        List<RouteSegmentDTO> segments = googleMapsService.getOptimalRoute(
-                request.getStartLatitude(), request.getStartLongitude(),
-                request.getEndLatitude(), request.getEndLongitude(),
-                routeConstraints
-        );
+    private List<RouteProposalDTO> persistRouteProposals(List<RouteProposal> routes) {
+        return transactionTemplate.execute(status -> {
+            routeRepository.saveAll(routes);
+            return routes.stream().map(routeMapper::toDTO).toList();
+        });
+    }
 
-        return createRouteProposal("OPTIMAL", segments, mission, constraints, restrictiveInfrastructure);
+    private <T> T recordPhase(String phase, Supplier<T> action) {
+        return Timer.builder("logisticops.route.generation")
+                .description("Czas faz generowania tras (fetch/analysis bez połączenia z bazą, persist w transakcji)")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(action);
     }
 
     /**
-     * 🛡️ SAFE ROUTE - maksymalne unikanie ograniczeń
+     * 🧵 Równoległe pobieranie wariantów - każdy ma termin liczony od startu generowania
      */
-    private RouteProposalDTO generateSafeRoute(RouteRequestDTO request,
-                                               TransportConstraintsDTO constraints,
-                                               List<Infrastructure> restrictiveInfrastructure,
-                                               Mission mission) {
+    private Map<String, List<RouteSegmentDTO>> fetchVariantsConcurrently(
+            Map<String, Callable<List<RouteSegmentDTO>>> variants) {
 
-        Map<String, Object> routeConstraints = buildGoogleMapsConstraints(constraints);
-        routeConstraints.put("avoidRestrictions", true);  // Maksymalne unikanie
-        routeConstraints.put("safety", "maximum");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(variantTimeoutMs);
 
-        List<RouteSegmentDTO> segments = googleMapsService.getOptimalRoute(
-                request.getStartLatitude(), request.getStartLongitude(),
-                request.getEndLatitude(), request.getEndLongitude(),
-                routeConstraints
-        );
+        Map<String, Future<List<RouteSegmentDTO>>> futures = new LinkedHashMap<>();
+        variants.forEach((type, fetcher) -> futures.put(type, routeVariantExecutor.submit(fetcher)));
+
+        Map<String, List<RouteSegmentDTO>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<List<RouteSegmentDTO>>> entry : futures.entrySet()) {
+            String type = entry.getKey();
+            Future<List<RouteSegmentDTO>> future = entry.getValue();
+
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.put(type, future.get(remaining, TimeUnit.NANOSECONDS));
+
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("⏱️ Route variant {} exceeded {}ms deadline - skipping", type, variantTimeoutMs);
 
-        return createRouteProposal("SAFE", segments, mission, constraints, restrictiveInfrastructure);
+            } catch (ExecutionException e) {
+                log.error("❌ Route variant {} failed", type, e.getCause());
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(f -> f.cancel(true));
+                log.warn("⚠️ Route generation interrupted, returning {} completed variants", results.size());
+                break;
+            }
+        }
+
+        return results;
+    }
+
+    private Map<String, List<RouteSegmentDTO>> fetchVariantsSequentially(
+            Map<String, Callable<List<RouteSegmentDTO>>> variants) {
+
+        Map<String, List<RouteSegmentDTO>> results = new LinkedHashMap<>();
+        variants.forEach((type, fetcher) -> {
+            try {
+                results.put(type, fetcher.call());
+            } catch (Exception e) {
+                log.error("❌ Route variant {} failed", type, e);
+            }
+        });
+        return results;
     }
 
     /**
-     * 🔄 ALTERNATIVE ROUTE - backup option
+     * 🧭 Pobierz wariant trasy od wybranego dostawcy
+     * W trybie auto: lokalny graf OSM, a gdy niedostępny lub bez trasy - Google
      */
-    private RouteProposalDTO generateAlternativeRoute(RouteRequestDTO request,
-                                                      TransportConstraintsDTO constraints,
-                                                      List<Infrastructure> restrictiveInfrastructure,
-                                                      Mission mission) {
+    private List<RouteSegmentDTO> fetchRoute(RouteRequestDTO request,
+                                             TransportConstraintsDTO constraints,
+                                             RouteVariant variant) {
 
-        Map<String, Object> routeConstraints = buildGoogleMapsConstraints(constraints);
-
-        // Użyj alternative routing z GoogleMapsService
-        List<RouteSegmentDTO> segments = googleMapsService.getAlternativeRoute(
+        RouteQuery query = new RouteQuery(
                 request.getStartLatitude(), request.getStartLongitude(),
                 request.getEndLatitude(), request.getEndLongitude(),
-                routeConstraints
-        );
+                constraints, variant);
+
+        if (!"auto".equalsIgnoreCase(routingProvider)) {
+            return findProvider(routingProvider).route(query);
+        }
+
+        RoutingProvider osm = findProvider(OsmRoutingProvider.NAME);
+        if (osm.isAvailable()) {
+            try {
+                return osm.route(query);
+            } catch (IllegalStateException e) {
+                log.warn("⚠️ Offline routing failed for {} variant ({}), falling back to Google", variant, e.getMessage());
+            }
+        }
+        return findProvider(GoogleRoutingProvider.NAME).route(query);
+    }
 
-        return createRouteProposal("ALTERNATIVE", segments, mission, constraints, restrictiveInfrastructure);
+    private RoutingProvider findProvider(String name) {
+        return routingProviders.stream()
+                .filter(provider -> provider.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown routing provider: " + name));
     }
 
     /**
-     * 🏗️ Stwórz RouteProposal z segmentami i przeszkodami
+     * 🏗️ Zbuduj RouteProposal z segmentami i przeszkodami (tylko w pamięci, zapis w persistRouteProposals)
      */
-    private RouteProposalDTO createRouteProposal(String type,
-                                                 List<RouteSegmentDTO> segments,
-                                                 Mission mission,
-                                                 TransportConstraintsDTO constraints,
-                                                 List<Infrastructure> restrictiveInfrastructure) {
+    private RouteProposal buildRouteProposal(String type,
+                                             List<RouteSegmentDTO> segments,
+                                             Mission mission,
+                                             TransportConstraintsDTO constraints) {
 
         double totalDistance = segments.stream().mapToDouble(RouteSegmentDTO::getDistanceKm).sum();
         double totalTime = segments.stream().mapToDouble(RouteSegmentDTO::getEstimatedTimeMin).sum();
@@ -151,29 +222,29 @@ public class IntelligentRouteService {
                 .generatedAt(LocalDateTime.now())
                 .build();
 
-        route = routeRepository.save(route);
+        // Segmenty trasy
+        route.setSegments(buildRouteSegments(route, segments));
 
-        // Zapisz segmenty trasy
-        saveRouteSegments(route, segments);
-
-        // Znajdź i zapisz przeszkody na trasie
+        // Przeszkody na trasie
         List<RouteObstacle> obstacles = findObstaclesOnRoute(route, constraints, segments);
-        obstacleRepository.saveAll(obstacles);
+        route.setObstacles(obstacles);
 
-        log.info("📍 Route {}: {:.1f}km, {:.1f}min, {} obstacles",
-                type, totalDistance, totalTime, obstacles.size());
+        log.info("📍 Route {}: {}km, {}min, {} obstacles",
+                type, String.format("%.1f", totalDistance), String.format("%.1f", totalTime), obstacles.size());
 
-        return routeMapper.toDTO(route);
+        return route;
     }
 
     /**
-     * 💾 Zapisz segmenty trasy do bazy danych
+     * 🧩 Zbuduj encje segmentów trasy
      */
-    private void saveRouteSegments(RouteProposal route, List<RouteSegmentDTO> segments) {
+    private List<RouteSegment> buildRouteSegments(RouteProposal route, List<RouteSegmentDTO> segments) {
+        List<RouteSegment> result = new ArrayList<>(segments.size());
+
         for (int i = 0; i < segments.size(); i++) {
             RouteSegmentDTO dto = segments.get(i);
 
-            RouteSegment segment = RouteSegment.builder()
+            result.add(RouteSegment.builder()
                     .routeProposal(route)
                     .sequenceOrder(i)
                     .fromLocation(dto.getFromLocation())
@@ -187,44 +258,40 @@ public class IntelligentRouteService {
                     .roadCondition(dto.getRoadCondition())
                     .roadName(dto.getRoadName())
                     .polyline(dto.getPolyline())
-                    .build();
-
-            segmentRepository.save(segment);
+                    .build());
         }
+
+        return result;
     }
 
     /**
      * 🚧 Znajdź przeszkody na trasie (analiza przestrzenna)
+     * Jedno zapytanie korytarzowe wzdłuż pełnej geometrii trasy (polilinie kroków Google)
      */
     private List<RouteObstacle> findObstaclesOnRoute(RouteProposal route,
                                                      TransportConstraintsDTO constraints,
                                                      List<RouteSegmentDTO> segments) {
         List<RouteObstacle> obstacles = new ArrayList<>();
 
-        for (RouteSegmentDTO segment : segments) {
-            if (segment.getFromLatitude() == null || segment.getToLatitude() == null) continue;
-
-            // Sprawdź infrastrukturę w okolicy segmentu (buffer 2km)
-            double centerLat = (segment.getFromLatitude() + segment.getToLatitude()) / 2;
-            double centerLng = (segment.getFromLongitude() + segment.getToLongitude()) / 2;
-
-            List<Infrastructure> nearbyInfra = infrastructureRepository.findNearPoint(centerLat, centerLng, 2.0);
-
-            for (Infrastructure infra : nearbyInfra) {
-                if (isProblematicForTransport(infra, constraints)) {
-                    RouteObstacle obstacle = RouteObstacle.builder()
-                            .routeProposal(route)
-                            .infrastructure(infra)
-                            .canPass(false)
-                            .restrictionType(determineRestrictionType(infra, constraints))
-                            .alternativeRouteNeeded(true)
-                            .notes(String.format("Konflikt: transport %s vs limit %s",
-                                    getConstraintValue(constraints, infra),
-                                    getInfraLimit(infra)))
-                            .build();
-
-                    obstacles.add(obstacle);
-                }
+        RouteCorridor corridor = googleMapsService.buildRouteCorridor(segments);
+
+        for (RouteCorridor.Hit<Infrastructure> hit : spatialIndex.findInCorridor(corridor)) {
+            Infrastructure infra = hit.item();
+            if (isProblematicForTransport(infra, constraints)) {
+                RouteObstacle obstacle = RouteObstacle.builder()
+                        .routeProposal(route)
+                        .infrastructure(infra)
+                        .canPass(false)
+                        .restrictionType(determineRestrictionType(infra, constraints))
+                        .alternativeRouteNeeded(true)
+                        .notes(String.format(Locale.ROOT, "Konflikt: transport %s vs limit %s (km %.1f trasy, %.2f km od osi)",
+                                getConstraintValue(constraints, infra),
+                                getInfraLimit(infra),
+                                hit.distanceAlongKm(),
+                                hit.offsetKm()))
+                        .build();
+
+                obstacles.add(obstacle);
             }
         }
 
@@ -269,18 +336,6 @@ public class IntelligentRouteService {
         return "OTHER";
     }
 
-    /**
-     * 🗺️ Zbuduj constraints dla Google Maps API
-     */
-    private Map<String, Object> buildGoogleMapsConstraints(TransportConstraintsDTO constraints) {
-        Map<String, Object> routeConstraints = new HashMap<>();
-        routeConstraints.put("maxHeight", constraints.getMaxHeightCm());
-        routeConstraints.put("maxWeight", constraints.getTotalWeightKg());
-        routeConstraints.put("maxAxleLoad", constraints.getMaxAxleLoadKg());
-        routeConstraints.put("vehicleType", "truck"); // Zawsze truck dla transportów militarnych
-        return routeConstraints;
-    }
-
     /**
      * ⛽ Oblicz zużycie paliwa
      */
@@ -294,12 +349,14 @@ public class IntelligentRouteService {
     // PUBLIC API METHODS
     // ========================================
 
+    @Transactional(readOnly = true)
     public RouteProposalDTO getRouteById(Long routeId) {
         return routeRepository.findById(routeId)
                 .map(routeMapper::toDTO)
                 .orElse(null);
     }
 
+    @Transactional
     public RouteProposalDTO optimizeExistingRoute(Long routeId) {
         RouteProposal existingRoute = routeRepository.findById(routeId)
                 .orElseThrow(() -> new IllegalArgumentException("Route not found"));
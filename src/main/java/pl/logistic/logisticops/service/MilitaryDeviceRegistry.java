@@ -0,0 +1,214 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.enums.CertificateStatus;
+import pl.logistic.logisticops.event.MilitaryDeviceChangedEvent;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🛡️ REJESTR URZĄDZEŃ GPS W PAMIĘCI
+ *
+ * Cała tabela military_devices trzymana w mapie deviceId → DeviceBinding; walidacja pingu
+ * to jedno wyszukanie w mapie i porównania pól - bez regexa, zapytań i alokacji.
+ * Wpis odświeżany po commicie zmiany (MilitaryDeviceChangedEvent), całość wczytywana
+ * przy starcie i co refresh-interval-ms (zmiany wprowadzone poza aplikacją). Zmiany wpisów
+ * odświeżonych w trakcie przeładowania nakładane są na nowy odczyt - starszy odczyt całości
+ * nie przywróci np. odwołanego urządzenia.
+ *
+ * Metryki: logisticops.military.devices.lookup (czas), logisticops.military.devices.lookups{result=hit|miss},
+ * logisticops.military.devices.registered
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MilitaryDeviceRegistry {
+
+    /**
+     * Algorytm MAC ramek terminali polowych (klucz urządzenia: military_devices.frame_key)
+     */
+    public static final String FRAME_KEY_ALGORITHM = "HmacSHA256";
+
+    private static final String SELECT_SQL = "SELECT device_id, vehicle_id, transport_id, certificate_serial, " +
+            "certificate_status, certificate_expires_at, active, frame_key FROM military_devices";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Object reloadLock = new Object();
+
+    private volatile Map<String, DeviceBinding> devices = new ConcurrentHashMap<>();
+    // Wpisy odświeżone w trakcie przeładowania (pod blokadą this; null w mapie = usunięty, null = brak przeładowania)
+    private Map<String, DeviceBinding> changedDuringReload;
+
+    private Timer lookupTimer;
+    private Counter hits;
+    private Counter misses;
+
+    /**
+     * 📟 Powiązanie urządzenia; wygaśnięcie certyfikatu w ms od epoki (Long.MAX_VALUE = bezterminowy),
+     * frameKey = klucz MAC ramek terminala (null = urządzenie nie może nadawać przez odbiornik binarny)
+     */
+    public record DeviceBinding(String deviceId, Long vehicleId, Long transportId, String certificateSerial,
+                                CertificateStatus certificateStatus, long certificateExpiresAtMillis,
+                                boolean active, SecretKey frameKey) {
+
+        public boolean isUsable(long nowMillis) {
+            return active && certificateStatus == CertificateStatus.VALID && nowMillis < certificateExpiresAtMillis;
+        }
+
+        /**
+         * Porównanie w stałym czasie - czas odpowiedzi nie zdradza zgodnego prefiksu
+         */
+        public boolean acceptsCertificate(String certificate) {
+            return certificate != null && MessageDigest.isEqual(
+                    certificateSerial.getBytes(StandardCharsets.UTF_8),
+                    certificate.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Pozycja bez pojazdu przypisywana jest powiązanemu pojazdowi
+         */
+        public boolean reportsFor(Long reportedVehicleId) {
+            return reportedVehicleId == null || reportedVehicleId.equals(vehicleId);
+        }
+
+        /**
+         * Pozycja bez transportu przypisywana jest powiązanemu transportowi; urządzenie
+         * nie może raportować (zapis, pozycja, kanał secure) za inny transport
+         */
+        public boolean reportsForTransport(Long reportedTransportId) {
+            return reportedTransportId == null || reportedTransportId.equals(transportId);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        lookupTimer = Timer.builder("logisticops.military.devices.lookup")
+                .description("Czas sprawdzenia urządzenia w rejestrze")
+                .register(meterRegistry);
+        hits = lookups("hit");
+        misses = lookups("miss");
+        Gauge.builder("logisticops.military.devices.registered", this, registry -> registry.devices.size())
+                .description("Urządzenia w rejestrze w pamięci")
+                .register(meterRegistry);
+    }
+
+    private Counter lookups(String result) {
+        return Counter.builder("logisticops.military.devices.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🔍 Wpis urządzenia albo null gdy nieznane
+     */
+    public DeviceBinding lookup(String deviceId) {
+        long started = System.nanoTime();
+        DeviceBinding binding = deviceId != null ? devices.get(deviceId) : null;
+        lookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        (binding != null ? hits : misses).increment();
+        return binding;
+    }
+
+    /**
+     * 🔄 Wczytaj cały rejestr i podmień mapę (odczyty nie czekają na przeładowanie)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.tracking.devices.refresh-interval-ms:300000}",
+            initialDelayString = "${app.tracking.devices.refresh-interval-ms:300000}")
+    public void reloadAll() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                changedDuringReload = new HashMap<>();
+            }
+            List<DeviceBinding> loaded;
+            try {
+                loaded = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> toBinding(rs));
+            } catch (DataAccessException e) {
+                synchronized (this) {
+                    changedDuringReload = null;
+                }
+                log.error("❌ Failed to load military device registry, keeping {} cached devices: {}",
+                        devices.size(), e.getMessage());
+                return;
+            }
+
+            Map<String, DeviceBinding> fresh = new ConcurrentHashMap<>(loaded.size() * 2);
+            loaded.forEach(binding -> fresh.put(binding.deviceId(), binding));
+            int reapplied;
+            synchronized (this) {
+                // Odczyt zmiany jest po jej commicie - nowszy lub równy odczytowi całości
+                changedDuringReload.forEach((deviceId, binding) -> {
+                    if (binding == null) {
+                        fresh.remove(deviceId);
+                    } else {
+                        fresh.put(deviceId, binding);
+                    }
+                });
+                reapplied = changedDuringReload.size();
+                changedDuringReload = null;
+                devices = fresh;
+            }
+            log.info("🛡️ Military device registry loaded: {} devices ({} concurrent changes re-applied)",
+                    fresh.size(), reapplied);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(MilitaryDeviceChangedEvent event) {
+        List<DeviceBinding> current = jdbcTemplate.query(SELECT_SQL + " WHERE device_id = ?",
+                (rs, rowNum) -> toBinding(rs), event.getDeviceId());
+        DeviceBinding binding = current.isEmpty() ? null : current.get(0);
+        synchronized (this) {
+            if (binding == null) {
+                devices.remove(event.getDeviceId());
+            } else {
+                devices.put(event.getDeviceId(), binding);
+            }
+            if (changedDuringReload != null) {
+                changedDuringReload.put(event.getDeviceId(), binding);
+            }
+        }
+        log.debug("🛡️ Refreshed registry entry of device {}", event.getDeviceId());
+    }
+
+    private static DeviceBinding toBinding(ResultSet rs) throws SQLException {
+        Timestamp expiresAt = rs.getTimestamp("certificate_expires_at");
+        String frameKey = rs.getString("frame_key");
+        return new DeviceBinding(
+                rs.getString("device_id"),
+                rs.getLong("vehicle_id"),
+                rs.getObject("transport_id", Long.class),
+                rs.getString("certificate_serial"),
+                CertificateStatus.valueOf(rs.getString("certificate_status")),
+                expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE,
+                rs.getBoolean("active"),
+                frameKey != null ? new SecretKeySpec(HexFormat.of().parseHex(frameKey), FRAME_KEY_ALGORITHM) : null);
+    }
+}
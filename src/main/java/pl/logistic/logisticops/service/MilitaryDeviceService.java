@@ -0,0 +1,115 @@
+package pl.logistic.logisticops.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.logistic.logisticops.dto.MilitaryDeviceDTO;
+import pl.logistic.logisticops.dto.request.RegisterMilitaryDeviceRequestDTO;
+import pl.logistic.logisticops.enums.CertificateStatus;
+import pl.logistic.logisticops.event.MilitaryDeviceChangedEvent;
+import pl.logistic.logisticops.mapper.MilitaryDeviceMapper;
+import pl.logistic.logisticops.model.MilitaryDevice;
+import pl.logistic.logisticops.model.Transport;
+import pl.logistic.logisticops.model.VehicleSpecification;
+import pl.logistic.logisticops.repository.MilitaryDeviceRepository;
+import pl.logistic.logisticops.repository.TransportRepository;
+import pl.logistic.logisticops.repository.VehicleSpecificationRepository;
+
+import java.util.List;
+
+/**
+ * 🛡️ Zarządzanie rejestrem urządzeń GPS wojskowych
+ *
+ * Każda zmiana publikuje MilitaryDeviceChangedEvent - MilitaryDeviceRegistry odświeża
+ * wpis w pamięci po commicie.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class MilitaryDeviceService {
+
+    private final MilitaryDeviceRepository deviceRepository;
+    private final VehicleSpecificationRepository vehicleRepository;
+    private final TransportRepository transportRepository;
+    private final MilitaryDeviceMapper deviceMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public List<MilitaryDeviceDTO> getAllDevices() {
+        return deviceRepository.findAll().stream()
+                .map(deviceMapper::toDTO)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public MilitaryDeviceDTO getDevice(String deviceId) {
+        return deviceMapper.toDTO(findDevice(deviceId));
+    }
+
+    public MilitaryDeviceDTO registerDevice(RegisterMilitaryDeviceRequestDTO request) {
+        if (deviceRepository.existsByDeviceId(request.getDeviceId())) {
+            throw new IllegalStateException("Device already registered: " + request.getDeviceId());
+        }
+
+        VehicleSpecification vehicle = vehicleRepository.findById(request.getVehicleId())
+                .orElseThrow(() -> new IllegalArgumentException("Vehicle not found"));
+
+        MilitaryDevice device = MilitaryDevice.builder()
+                .deviceId(request.getDeviceId())
+                .vehicle(vehicle)
+                .transport(findTransport(request.getTransportId()))
+                .certificateSerial(request.getCertificateSerial())
+                .certificateStatus(CertificateStatus.VALID)
+                .certificateExpiresAt(request.getCertificateExpiresAt())
+                .frameKey(request.getFrameKey() != null ? request.getFrameKey().toLowerCase() : null)
+                .active(true)
+                .build();
+
+        device = deviceRepository.save(device);
+        log.info("🛡️ Registered military device {} for vehicle {}", device.getDeviceId(), vehicle.getId());
+        return changed(device);
+    }
+
+    /**
+     * 🔗 Powiąż urządzenie z transportem (null = odłącz)
+     */
+    public MilitaryDeviceDTO bindTransport(String deviceId, Long transportId) {
+        MilitaryDevice device = findDevice(deviceId);
+        device.setTransport(findTransport(transportId));
+        return changed(deviceRepository.save(device));
+    }
+
+    public MilitaryDeviceDTO updateCertificateStatus(String deviceId, CertificateStatus status) {
+        MilitaryDevice device = findDevice(deviceId);
+        device.setCertificateStatus(status);
+        log.warn("🛡️ Certificate of device {} set to {}", deviceId, status);
+        return changed(deviceRepository.save(device));
+    }
+
+    public MilitaryDeviceDTO deactivateDevice(String deviceId) {
+        MilitaryDevice device = findDevice(deviceId);
+        device.setActive(false);
+        return changed(deviceRepository.save(device));
+    }
+
+    private MilitaryDeviceDTO changed(MilitaryDevice device) {
+        eventPublisher.publishEvent(new MilitaryDeviceChangedEvent(device.getDeviceId()));
+        return deviceMapper.toDTO(device);
+    }
+
+    private MilitaryDevice findDevice(String deviceId) {
+        return deviceRepository.findByDeviceId(deviceId)
+                .orElseThrow(() -> new IllegalArgumentException("Device not found: " + deviceId));
+    }
+
+    private Transport findTransport(Long transportId) {
+        if (transportId == null) {
+            return null;
+        }
+        return transportRepository.findById(transportId)
+                .orElseThrow(() -> new IllegalArgumentException("Transport not found"));
+    }
+}
@@ -1,15 +1,28 @@
 package pl.logistic.logisticops.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.api.ConflatingBroadcaster;
+import pl.logistic.logisticops.dto.GpsBatchResultDTO;
+import pl.logistic.logisticops.dto.GpsRecordStatusDTO;
 import pl.logistic.logisticops.dto.VehicleTrackingDTO;
 import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.enums.GpsRecordStatus;
+import pl.logistic.logisticops.exception.TrackingBackpressureException;
 import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
+import pl.logistic.logisticops.service.MilitaryDeviceRegistry.DeviceBinding;
+import pl.logistic.logisticops.tracking.TrackingIngestionPipeline;
+import pl.logistic.logisticops.tracking.TrackingPing;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * 🛡️ SERWIS INTEGRACJI Z BEZPIECZNYMI URZĄDZENIAMI GPS WOJSKOWYMI
@@ -26,11 +39,26 @@ import java.time.LocalDateTime;
 @Slf4j
 public class MilitaryGpsIntegrationService {
 
-    private final VehicleTrackingRepository trackingRepository;
     private final TransportRepository transportRepository;
-    private final VehicleSpecificationRepository vehicleRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final TrackingIngestionPipeline ingestionPipeline;
+    private final ConflatingBroadcaster broadcaster;
     private final AlertService alertService;
+    private final RouteDeviationService routeDeviationService;
+    private final MilitaryDeviceRegistry deviceRegistry;
+
+    @Value("${app.tracking.devices.security-alert-window-seconds:600}")
+    private long securityAlertWindowSeconds;
+
+    // Urządzenia, dla których w bieżącym oknie utworzono już alert bezpieczeństwa
+    private Cache<String, Boolean> recentSecurityAlerts;
+
+    @PostConstruct
+    void init() {
+        recentSecurityAlerts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(securityAlertWindowSeconds))
+                .build();
+    }
 
     /**
      * 📡 INTEGRACJA Z URZĄDZENIAMI WOJSKOWYMI
@@ -51,15 +79,15 @@ public class MilitaryGpsIntegrationService {
         try {
             log.info("🛡️ Receiving secure GPS data from device: {}", gpsData.getDeviceId());
 
-            // 1. Walidacja bezpieczeństwa
-            if (!validateMilitaryDevice(gpsData)) {
-                log.error("🚨 SECURITY ALERT: Invalid military device: {}", gpsData.getDeviceId());
-                createSecurityAlert(gpsData);
+            // 1. Walidacja bezpieczeństwa (rejestr urządzeń + integralność)
+            DeviceBinding binding = authorizeDevice(gpsData);
+            if (binding == null || !verifyDataIntegrity(gpsData)) {
+                reportUnauthorizedDevice(gpsData.getDeviceId());
                 return;
             }
 
             // 2. Deszyfrowanie danych GPS (jeśli wymagane)
-            GpsPosition decryptedPosition = decryptGpsData(gpsData);
+            GpsPosition decryptedPosition = decryptGpsData(gpsData, binding);
 
             // 3. Aktualizacja pozycji pojazdu
             updateVehiclePosition(decryptedPosition);
@@ -70,6 +98,8 @@ public class MilitaryGpsIntegrationService {
             // 5. Real-time broadcast do operatorów
             broadcastSecurePosition(decryptedPosition);
 
+        } catch (TrackingBackpressureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("❌ Error processing military GPS data", e);
             createTechnicalAlert(gpsData, e.getMessage());
@@ -77,31 +107,186 @@ public class MilitaryGpsIntegrationService {
     }
 
     /**
-     * 🛡️ Walidacja urządzenia wojskowego
+     * 📦 Odbierz wsad pozycji (urządzenie odtwarza bufor po powrocie do zasięgu)
+     *
+     * Każdy rekord sprawdzany w rejestrze urządzeń (alert raz na urządzenie), rekordy sortowane
+     * po czasie GPS i przekazywane do potoku zapisu w tej kolejności - geofencing i wykrywanie
+     * odchylenia widzą historię chronologicznie. Pozycja transportu i broadcast tylko dla
+     * najświeższego rekordu każdego transportu. Po zapełnieniu kolejki pozostałe rekordy
+     * dostają RETRY_LATER.
      */
-    private boolean validateMilitaryDevice(MilitaryGpsData gpsData) {
-        // Sprawdź certyfikat bezpieczeństwa
-        if (!isValidMilitaryCertificate(gpsData.getSecurityCertificate())) {
-            return false;
+    public GpsBatchResultDTO receiveSecureGpsBatch(List<MilitaryGpsData> batch) {
+        log.info("🛡️ Receiving batch of {} secure GPS records", batch.size());
+
+        GpsRecordStatusDTO[] statuses = new GpsRecordStatusDTO[batch.size()];
+        DeviceBinding[] bindings = new DeviceBinding[batch.size()];
+        Set<String> alertedDevices = new HashSet<>();
+        List<Integer> valid = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            MilitaryGpsData gpsData = batch.get(i);
+            bindings[i] = authorizeDevice(gpsData);
+
+            if (bindings[i] == null) {
+                if (alertedDevices.add(gpsData.getDeviceId())) {
+                    reportUnauthorizedDevice(gpsData.getDeviceId());
+                }
+                statuses[i] = recordStatus(i, gpsData, GpsRecordStatus.UNAUTHORIZED_DEVICE, "Invalid military device");
+            } else if (!verifyDataIntegrity(gpsData)) {
+                statuses[i] = recordStatus(i, gpsData, GpsRecordStatus.INVALID, "Data integrity check failed");
+            } else {
+                valid.add(i);
+            }
+        }
+
+        valid.sort(Comparator.comparing(i -> batch.get(i).getTimestamp(),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<Long, GpsPosition> latestByTransport = new LinkedHashMap<>();
+        boolean queueFull = false;
+
+        for (int i : valid) {
+            MilitaryGpsData gpsData = batch.get(i);
+            if (queueFull) {
+                statuses[i] = recordStatus(i, gpsData, GpsRecordStatus.RETRY_LATER, "Ingestion queue full");
+                continue;
+            }
+
+            GpsPosition position = decryptGpsData(gpsData, bindings[i]);
+            try {
+                boolean queued = ingestionPipeline.submit(toTrackingPing(position));
+                statuses[i] = queued
+                        ? recordStatus(i, gpsData, GpsRecordStatus.ACCEPTED, null)
+                        : recordStatus(i, gpsData, GpsRecordStatus.DROPPED, "Dropped by overflow policy");
+            } catch (TrackingBackpressureException e) {
+                queueFull = true;
+                statuses[i] = recordStatus(i, gpsData, GpsRecordStatus.RETRY_LATER, e.getMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                statuses[i] = recordStatus(i, gpsData, GpsRecordStatus.INVALID, e.getMessage());
+                continue;
+            }
+
+            checkMilitaryGeofencing(position);
+            latestByTransport.put(position.getTransportId(), position);
         }
 
-        // Sprawdź czy urządzenie jest zarejestrowane
-        if (!isRegisteredMilitaryDevice(gpsData.getDeviceId())) {
-            return false;
+        latestByTransport.values().forEach(position -> {
+            updateTransportPosition(position);
+            broadcastSecurePosition(position);
+        });
+
+        int accepted = (int) Arrays.stream(statuses)
+                .filter(status -> status.getStatus() == GpsRecordStatus.ACCEPTED)
+                .count();
+        return GpsBatchResultDTO.builder()
+                .received(batch.size())
+                .accepted(accepted)
+                .rejected(batch.size() - accepted)
+                .processedAt(LocalDateTime.now())
+                .records(Arrays.asList(statuses))
+                .build();
+    }
+
+    /**
+     * 📻 Przyjęcie pozycji terminala polowego (binarny odbiornik TCP/UDP) do potoku zapisu
+     *
+     * Ramka nie niesie certyfikatu - odbiornik sprawdził jej MAC kluczem urządzenia z wpisu
+     * binding; wpis musi być aktywny, z ważnym certyfikatem i powiązany z pojazdem i transportem z ramki.
+     * Tylko pamięć (kolejka zapisu), bez bazy - wywoływane z wątku selektora odbiornika.
+     * Dalsza obsługa przyjętych pozycji: processTerminalPositions.
+     *
+     * @return RETRY_LATER = kolejka zapisu pełna, pozycja nieprzyjęta (odbiornik ją zatrzymuje)
+     */
+    public GpsRecordStatus admitTerminalPosition(GpsPosition position, DeviceBinding binding) {
+        if (!isAuthorizedTerminal(position, binding)) {
+            return GpsRecordStatus.UNAUTHORIZED_DEVICE;
         }
+        try {
+            return ingestionPipeline.submit(toTrackingPing(position))
+                    ? GpsRecordStatus.ACCEPTED
+                    : GpsRecordStatus.DROPPED;
+        } catch (TrackingBackpressureException e) {
+            return GpsRecordStatus.RETRY_LATER;
+        } catch (IllegalArgumentException e) {
+            return GpsRecordStatus.INVALID;
+        }
+    }
 
-        // Sprawdź integralność danych
-        if (!verifyDataIntegrity(gpsData)) {
-            return false;
+    /**
+     * 📻 Dalsza obsługa pozycji terminali przyjętych przez admitTerminalPosition (poza wątkiem
+     * selektora): alert dla urządzeń z rejestru, których ramki odrzucono (raz na urządzenie
+     * w oknie security-alert-window-seconds), geofencing w kolejności przyjęcia, pozycja
+     * transportu i broadcast tylko dla najświeższej pozycji transportu
+     */
+    public void processTerminalPositions(List<GpsPosition> accepted, Set<String> unauthorizedDevices) {
+        unauthorizedDevices.forEach(this::reportUnauthorizedDevice);
+
+        Map<Long, GpsPosition> latestByTransport = new HashMap<>();
+        for (GpsPosition position : accepted) {
+            checkMilitaryGeofencing(position);
+            latestByTransport.merge(position.getTransportId(), position,
+                    (current, candidate) -> candidate.getTimestamp().isBefore(current.getTimestamp()) ? current : candidate);
         }
 
-        return true;
+        latestByTransport.values().forEach(position -> {
+            updateTransportPosition(position);
+            broadcastSecurePosition(position);
+        });
+    }
+
+    /**
+     * 🚨 Alert bezpieczeństwa najwyżej raz na urządzenie w oknie security-alert-window-seconds -
+     * powtarzane ramki/żądania nie mnożą wpisów w alerts i broadcastów
+     */
+    private void reportUnauthorizedDevice(String deviceId) {
+        if (recentSecurityAlerts.asMap().putIfAbsent(String.valueOf(deviceId), Boolean.TRUE) != null) {
+            log.debug("🚨 Repeated invalid military device {} - alert already raised", deviceId);
+            return;
+        }
+        log.error("🚨 SECURITY ALERT: Invalid military device: {}", deviceId);
+        createSecurityAlert(deviceId);
+    }
+
+    private GpsRecordStatusDTO recordStatus(int index, MilitaryGpsData gpsData, GpsRecordStatus status, String message) {
+        return GpsRecordStatusDTO.builder()
+                .index(index)
+                .deviceId(gpsData.getDeviceId())
+                .timestamp(gpsData.getTimestamp())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * 🛡️ Walidacja urządzenia wojskowego - jedno wyszukanie w rejestrze
+     *
+     * @return wpis rejestru, gdy urządzenie jest aktywne, certyfikat ważny i zgodny z przesłanym,
+     * a pozycja dotyczy powiązanego pojazdu i transportu; null w przeciwnym razie
+     */
+    private DeviceBinding authorizeDevice(MilitaryGpsData gpsData) {
+        DeviceBinding binding = deviceRegistry.lookup(gpsData.getDeviceId());
+        boolean authorized = binding != null
+                && binding.isUsable(System.currentTimeMillis())
+                && binding.acceptsCertificate(gpsData.getSecurityCertificate())
+                && binding.reportsFor(gpsData.getVehicleId())
+                && binding.reportsForTransport(gpsData.getTransportId());
+        return authorized ? binding : null;
+    }
+
+    /**
+     * Ramka terminala nie niesie certyfikatu - wystarcza aktywny wpis z ważnym certyfikatem
+     */
+    private boolean isAuthorizedTerminal(GpsPosition position, DeviceBinding binding) {
+        return binding.isUsable(System.currentTimeMillis())
+                && binding.reportsFor(position.getVehicleId())
+                && binding.reportsForTransport(position.getTransportId());
     }
 
     /**
      * 🔓 Deszyfrowanie danych GPS (symulacja)
      */
-    private GpsPosition decryptGpsData(MilitaryGpsData gpsData) {
+    private GpsPosition decryptGpsData(MilitaryGpsData gpsData, DeviceBinding binding) {
         // W rzeczywistości tutaj byłoby prawdziwe deszyfrowanie AES-256
         return GpsPosition.builder()
                 .latitude(gpsData.getEncryptedLatitude())  // Po deszyfrowaniu
@@ -111,8 +296,8 @@ public class MilitaryGpsIntegrationService {
                 .heading(gpsData.getHeading())
                 .accuracy(gpsData.getAccuracy())
                 .timestamp(gpsData.getTimestamp())
-                .vehicleId(gpsData.getVehicleId())
-                .transportId(gpsData.getTransportId())
+                .vehicleId(gpsData.getVehicleId() != null ? gpsData.getVehicleId() : binding.vehicleId())
+                .transportId(gpsData.getTransportId() != null ? gpsData.getTransportId() : binding.transportId())
                 .deviceId(gpsData.getDeviceId())
                 .securityLevel("MILITARY")
                 .build();
@@ -122,38 +307,40 @@ public class MilitaryGpsIntegrationService {
      * 📍 Aktualizacja pozycji pojazdu z danymi GPS
      */
     private void updateVehiclePosition(GpsPosition position) {
-        try {
-            Transport transport = transportRepository.findById(position.getTransportId())
-                    .orElse(null);
+        // Rekord tracking zapisywany wsadowo przez potok (transport i pojazd weryfikowane przy zapisie)
+        ingestionPipeline.submit(toTrackingPing(position));
+        updateTransportPosition(position);
+    }
 
-            VehicleSpecification vehicle = vehicleRepository.findById(position.getVehicleId())
-                    .orElse(null);
+    private TrackingPing toTrackingPing(GpsPosition position) {
+        return TrackingPing.of(
+                position.getTransportId(),
+                position.getVehicleId(),
+                position.getLatitude(),
+                position.getLongitude(),
+                position.getSpeed(),
+                position.getHeading(),
+                null,
+                buildMilitaryGpsSensorData(position),
+                position.getTimestamp()
+        );
+    }
 
-            if (transport == null || vehicle == null) {
-                log.warn("⚠️ Transport or vehicle not found for GPS update");
+    /**
+     * 🚚 Aktualizacja bieżącej pozycji transportu
+     */
+    private void updateTransportPosition(GpsPosition position) {
+        try {
+            // Jedno UPDATE zamiast odczytu i zapisu całej encji
+            int updated = transportRepository.updateCurrentPosition(
+                    position.getTransportId(), position.getLatitude(), position.getLongitude(), LocalDateTime.now());
+
+            if (updated == 0) {
+                log.warn("⚠️ Transport not found for GPS update");
                 return;
             }
 
-            // Stwórz rekord tracking
-            VehicleTracking tracking = VehicleTracking.builder()
-                    .transport(transport)
-                    .vehicle(vehicle)
-                    .latitude(position.getLatitude())
-                    .longitude(position.getLongitude())
-                    .speedKmh(position.getSpeed())
-                    .headingDegrees(position.getHeading())
-                    .sensorData(buildMilitaryGpsSensorData(position))
-                    .recordedAt(position.getTimestamp())
-                    .build();
-
-            trackingRepository.save(tracking);
-
-            // Aktualizuj pozycję transportu
-            transport.setCurrentLatitude(position.getLatitude());
-            transport.setCurrentLongitude(position.getLongitude());
-            transportRepository.save(transport);
-
-            log.debug("✅ Updated military GPS position for transport {}", transport.getId());
+            log.debug("✅ Updated military GPS position for transport {}", position.getTransportId());
 
         } catch (Exception e) {
             log.error("❌ Error updating vehicle position from military GPS", e);
@@ -162,19 +349,10 @@ public class MilitaryGpsIntegrationService {
 
     /**
      * 🚧 Sprawdzenie geofencing wojskowego
+     *
+     * Strefy zakazane sprawdza GeofenceService po zapisie pozycji (przejścia wjazd/wyjazd).
      */
     private void checkMilitaryGeofencing(GpsPosition position) {
-        // Sprawdź czy pojazd nie wjechał w strefy zakazane
-        if (isInRestrictedMilitaryZone(position)) {
-            alertService.createAlert(
-                    "🚨 MILITARY ALERT: Vehicle entered restricted zone",
-                    AlertLevel.CRITICAL,
-                    position.getTransportId(),
-                    null,
-                    "GEOFENCING_VIOLATION"
-            );
-        }
-
         // Sprawdź czy pojazd nie oddalił się za bardzo od trasy
         if (isDeviatingFromRoute(position)) {
             alertService.createAlert(
@@ -202,9 +380,10 @@ public class MilitaryGpsIntegrationService {
                 .recordedAt(position.getTimestamp())
                 .build();
 
-        // Wyślij do autoryzowanych operatorów
-        messagingTemplate.convertAndSend(
+        // Wyślij do autoryzowanych operatorów (ostatni stan pojazdu co takt wysyłki)
+        broadcaster.publish(
                 "/topic/transport/" + position.getTransportId() + "/tracking/secure",
+                position.getVehicleId(),
                 sanitizedDto
         );
     }
@@ -213,31 +392,14 @@ public class MilitaryGpsIntegrationService {
     // METODY BEZPIECZEŃSTWA
     // ========================================
 
-    private boolean isValidMilitaryCertificate(String certificate) {
-        // Sprawdzenie certyfikatu wojskowego (symulacja)
-        return certificate != null && certificate.startsWith("MIL-CERT-");
-    }
-
-    private boolean isRegisteredMilitaryDevice(String deviceId) {
-        // Sprawdzenie czy urządzenie jest w rejestrze wojskowym
-        return deviceId != null && deviceId.matches("^(GTX|DAGR|SOTAS)-[0-9A-F]{8}$");
-    }
-
     private boolean verifyDataIntegrity(MilitaryGpsData gpsData) {
         // Weryfikacja integralności danych (checksum, podpis cyfrowy)
         return gpsData.getChecksum() != null && gpsData.getChecksum().length() == 64;
     }
 
-    private boolean isInRestrictedMilitaryZone(GpsPosition position) {
-        // Sprawdzenie czy pozycja jest w strefie wojskowej (symulacja)
-        // W rzeczywistości sprawdzałoby bazę stref zakazanych
-        return false;
-    }
-
     private boolean isDeviatingFromRoute(GpsPosition position) {
-        // Sprawdzenie odchylenia od zaplanowanej trasy
-        // W rzeczywistości porównywałoby z approved route
-        return false;
+        // Odległość od korytarza zatwierdzonej trasy + próg czasu (RouteDeviationService)
+        return routeDeviationService.isDeviating(position);
     }
 
     private String buildMilitaryGpsSensorData(GpsPosition position) {
@@ -250,9 +412,9 @@ public class MilitaryGpsIntegrationService {
         );
     }
 
-    private void createSecurityAlert(MilitaryGpsData gpsData) {
+    private void createSecurityAlert(String deviceId) {
         alertService.createAlert(
-                "🚨 SECURITY BREACH: Unauthorized military GPS device: " + gpsData.getDeviceId(),
+                "🚨 SECURITY BREACH: Unauthorized military GPS device: " + deviceId,
                 AlertLevel.CRITICAL,
                 null,
                 null,
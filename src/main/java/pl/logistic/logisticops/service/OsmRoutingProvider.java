@@ -0,0 +1,301 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.dto.RouteSegmentDTO;
+import pl.logistic.logisticops.dto.TransportConstraintsDTO;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.routing.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 🛰️ Dostawca tras offline - lokalny graf drogowy z pliku OSM (bez sieci)
+ *
+ * Graf wczytywany jest w tle po starcie aplikacji (app.routing.osm.file). Krawędzie,
+ * których limity mostów/tuneli/wiaduktów są poniżej ograniczeń transportu, są pomijane
+ * już w trakcie wyszukiwania (dwukierunkowy A*), więc trasa nie wymaga korekt po fakcie.
+ *
+ * Gdy app.routing.ch.directory zawiera wynik preprocessingu (RoutingPreprocessor, narzędzie
+ * w src/test), graf czytany jest z pliku binarnego, a hierarchie skrótów są mapowane z dysku. Wariant OPTIMAL korzysta wtedy
+ * z hierarchii najciaśniejszej klasy skrajni, która mieści transport (A* tylko gdy żadna nie pasuje).
+ *
+ * Metryka: logisticops.routing.query{provider=osm,variant,engine=ch|astar}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OsmRoutingProvider implements RoutingProvider {
+
+    public static final String NAME = "osm";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.routing.osm.file:}")
+    private String osmFile;
+
+    @Value("${app.routing.osm.snap-radius-km:2.0}")
+    private double snapRadiusKm;
+
+    @Value("${app.routing.osm.max-settled-nodes:2000000}")
+    private int maxSettledNodes;
+
+    @Value("${app.routing.osm.alternative-penalty:1.5}")
+    private double alternativePenalty;
+
+    @Value("${app.routing.ch.directory:}")
+    private String hierarchyDirectory;
+
+    private volatile LoadedGraph loaded;
+
+    /**
+     * Graf z indeksem przyciągania, wyszukiwarką i hierarchiami skrótów - podmieniany atomowo
+     */
+    private record LoadedGraph(RoadGraph graph, NodeLocator locator, BidirectionalAStar search,
+                               List<ContractionHierarchy> hierarchies) {
+
+        ContractionHierarchy hierarchyFor(TransportConstraintsDTO constraints) {
+            return ClearanceClass.tightestCovering(
+                            hierarchies.stream().map(ContractionHierarchy::clearanceClass).toList(), constraints)
+                    .flatMap(selected -> hierarchies.stream()
+                            .filter(hierarchy -> hierarchy.clearanceClass().equals(selected))
+                            .findFirst())
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * 🚀 Wczytaj graf w tle po starcie aplikacji (duże pliki ładują się kilkadziesiąt sekund)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (osmFile.isBlank() && hierarchyDirectory.isBlank()) {
+            log.info("🛰️ Offline OSM routing disabled (app.routing.osm.file / app.routing.ch.directory not set)");
+            return;
+        }
+        Thread.ofVirtual().name("LogisticOps-OsmGraphLoader").start(this::reload);
+    }
+
+    public void reload() {
+        try {
+            RoadGraph graph = loadGraph();
+            if (graph == null) {
+                return;
+            }
+            List<ContractionHierarchy> hierarchies = mapHierarchies(graph);
+            loaded = new LoadedGraph(graph, new NodeLocator(graph), new BidirectionalAStar(graph), hierarchies);
+            log.info("✅ Offline OSM routing ready: {} nodes, {} contraction hierarchies",
+                    graph.nodeCount(), hierarchies.size());
+        } catch (Exception e) {
+            log.error("❌ Failed to load offline road graph", e);
+        }
+    }
+
+    /**
+     * Graf binarny z preprocessingu ma pierwszeństwo przed parsowaniem XML
+     */
+    private RoadGraph loadGraph() throws IOException {
+        if (!hierarchyDirectory.isBlank()) {
+            Path binary = Path.of(hierarchyDirectory).resolve(RoadGraph.FILE_NAME);
+            if (Files.isReadable(binary)) {
+                return RoadGraph.read(binary);
+            }
+            log.warn("⚠️ {} not found - run the routing preprocessor; falling back to OSM file", binary);
+        }
+
+        if (osmFile.isBlank() || !Files.isReadable(Path.of(osmFile))) {
+            log.warn("⚠️ OSM file '{}' is not readable - offline routing unavailable", osmFile);
+            return null;
+        }
+        return OsmGraphLoader.load(Path.of(osmFile));
+    }
+
+    /**
+     * 🗺️ Zmapuj hierarchie zbudowane dla tego samego grafu (odcisk topologii musi się zgadzać)
+     */
+    private List<ContractionHierarchy> mapHierarchies(RoadGraph graph) throws IOException {
+        if (hierarchyDirectory.isBlank()) {
+            return List.of();
+        }
+
+        long fingerprint = graph.fingerprint();
+        List<ContractionHierarchy> hierarchies = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(hierarchyDirectory),
+                ContractionHierarchy.FILE_PREFIX + "*" + ContractionHierarchy.FILE_SUFFIX)) {
+            for (Path file : files) {
+                ContractionHierarchy hierarchy = ContractionHierarchy.map(file);
+                if (hierarchy.graphFingerprint() != fingerprint) {
+                    log.warn("⚠️ Skipping {} - built for a different road graph", file.getFileName());
+                    continue;
+                }
+                hierarchies.add(hierarchy);
+                log.info("⚡ Mapped contraction hierarchy {} ({})", hierarchy.clearanceClass().name(), file.getFileName());
+            }
+        }
+        return hierarchies;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return loaded != null;
+    }
+
+    @Override
+    public List<RouteSegmentDTO> route(RouteQuery query) {
+        LoadedGraph current = loaded;
+        if (current == null) {
+            throw new IllegalStateException("Offline OSM road graph is not loaded");
+        }
+        return route(current, query);
+    }
+
+    private List<RouteSegmentDTO> route(LoadedGraph current, RouteQuery query) {
+        RoadGraph graph = current.graph();
+
+        int source = current.locator().nearest(query.startLat(), query.startLng(), snapRadiusKm);
+        int target = current.locator().nearest(query.endLat(), query.endLng(), snapRadiusKm);
+        if (source < 0 || target < 0) {
+            throw new IllegalStateException(String.format(Locale.ROOT,
+                    "No road within %.1f km of %s point", snapRadiusKm, source < 0 ? "start" : "end"));
+        }
+
+        TransportConstraintsDTO constraints = query.constraints();
+        ContractionHierarchy hierarchy = current.hierarchyFor(constraints);
+        boolean useHierarchy = hierarchy != null && query.variant() == RouteVariant.OPTIMAL;
+
+        BidirectionalAStar.Path path = queryTimer(query.variant(), useHierarchy ? "ch" : "astar").record(() -> {
+            if (useHierarchy) {
+                return hierarchy.route(source, target);
+            }
+            EdgeWeighting weighting = switch (query.variant()) {
+                case OPTIMAL -> EdgeWeighting.fastest(graph, constraints);
+                case SAFE -> EdgeWeighting.safe(graph, constraints);
+                case ALTERNATIVE -> alternativeWeighting(current, hierarchy, source, target, constraints);
+            };
+            return current.search().route(source, target, weighting, maxSettledNodes);
+        });
+        if (path == null) {
+            throw new IllegalStateException("No passable road route for transport constraints");
+        }
+
+        log.debug("🛰️ OSM {} route: {} edges, {} settled nodes", query.variant(), path.edges().length, path.settledNodes());
+        return toSegments(graph, path.edges());
+    }
+
+    /**
+     * 🔄 Wariant alternatywny: krawędzie trasy optymalnej są droższe o alternative-penalty
+     */
+    private EdgeWeighting alternativeWeighting(LoadedGraph current, ContractionHierarchy hierarchy,
+                                               int source, int target, TransportConstraintsDTO constraints) {
+        EdgeWeighting fastest = EdgeWeighting.fastest(current.graph(), constraints);
+        BidirectionalAStar.Path optimal = hierarchy != null
+                ? hierarchy.route(source, target)
+                : current.search().route(source, target, fastest, maxSettledNodes);
+
+        BitSet used = new BitSet(current.graph().edgeCount());
+        if (optimal != null) {
+            for (int edge : optimal.edges()) {
+                used.set(edge);
+            }
+        }
+        return EdgeWeighting.penalized(fastest, used, alternativePenalty);
+    }
+
+    /**
+     * 🧩 Krawędzie → segmenty: kolejne krawędzie tej samej drogi łączone w jeden segment
+     */
+    private List<RouteSegmentDTO> toSegments(RoadGraph graph, int[] edges) {
+        List<RouteSegmentDTO> segments = new ArrayList<>();
+        int start = 0;
+
+        while (start < edges.length) {
+            int way = graph.edgeWay(edges[start]);
+            int end = start;
+            while (end + 1 < edges.length && graph.edgeWay(edges[end + 1]) == way) {
+                end++;
+            }
+            segments.add(toSegment(graph, edges, start, end, segments.size()));
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private RouteSegmentDTO toSegment(RoadGraph graph, int[] edges, int start, int end, int order) {
+        double lengthM = 0;
+        double timeS = 0;
+        List<GeoPoint> points = new ArrayList<>(end - start + 2);
+
+        int first = edgeSource(graph, edges, start);
+        points.add(new GeoPoint(graph.latitude(first), graph.longitude(first)));
+        for (int i = start; i <= end; i++) {
+            int edge = edges[i];
+            int node = graph.edgeTarget(edge);
+            points.add(new GeoPoint(graph.latitude(node), graph.longitude(node)));
+            lengthM += graph.edgeLengthM(edge);
+            timeS += graph.edgeTimeS(edge);
+        }
+
+        GeoPoint from = points.get(0);
+        GeoPoint to = points.get(points.size() - 1);
+        String name = graph.edgeName(edges[start]);
+
+        return RouteSegmentDTO.builder()
+                .sequenceOrder(order)
+                .fromLocation(String.format(Locale.ROOT, "%.6f,%.6f", from.latitude(), from.longitude()))
+                .toLocation(String.format(Locale.ROOT, "%.6f,%.6f", to.latitude(), to.longitude()))
+                .fromLatitude(from.latitude())
+                .fromLongitude(from.longitude())
+                .toLatitude(to.latitude())
+                .toLongitude(to.longitude())
+                .distanceKm(lengthM / 1000.0)
+                .estimatedTimeMin(timeS / 60.0)
+                .roadCondition("NORMAL")
+                .roadName(name.isEmpty() ? "Unnamed road" : name)
+                .polyline(PolylineCodec.encode(points))
+                .build();
+    }
+
+    /**
+     * Węzeł początkowy krawędzi edges[index] - koniec poprzedniej lub (dla pierwszej) szukany w CSR
+     */
+    private static int edgeSource(RoadGraph graph, int[] edges, int index) {
+        if (index > 0) {
+            return graph.edgeTarget(edges[index - 1]);
+        }
+        int target = graph.edgeTarget(edges[0]);
+        for (int slot = graph.firstInEdge(target); slot < graph.endInEdge(target); slot++) {
+            if (graph.inEdge(slot) == edges[0]) {
+                return graph.inSource(slot);
+            }
+        }
+        throw new IllegalStateException("Edge without source node");
+    }
+
+    private Timer queryTimer(RouteVariant variant, String engine) {
+        return Timer.builder("logisticops.routing.query")
+                .description("Czas zapytania o trasę w lokalnym grafie OSM")
+                .tag("provider", NAME)
+                .tag("variant", variant.name())
+                .tag("engine", engine)
+                .register(meterRegistry);
+    }
+}
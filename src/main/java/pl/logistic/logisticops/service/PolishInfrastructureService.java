@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -11,14 +12,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
 import pl.logistic.logisticops.model.Infrastructure;
 import pl.logistic.logisticops.repository.InfrastructureRepository;
+import pl.logistic.logisticops.routing.OsmTagParser;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +29,9 @@ public class PolishInfrastructureService {
 
     private final InfrastructureRepository infrastructureRepository;
     private final RestTemplate restTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int EXTERNAL_ID_CHUNK_SIZE = 1000;
 
     @Value("${api.googlemaps.key}")
     private String googleMapsApiKey;
@@ -50,14 +55,15 @@ public class PolishInfrastructureService {
         log.info("🚀 Starting 2-tier infrastructure sync for Poland (OSM + Static)");
 
         int syncedCount = 0;
+        List<Infrastructure> added = new ArrayList<>();
 
         try {
             // POZIOM 1: OpenStreetMap (GŁÓWNE ŹRÓDŁO)
-            syncedCount += syncFromOpenStreetMap();
+            syncedCount += syncFromOpenStreetMap(added);
             log.info("✅ Level 1 (OSM): {} new objects", syncedCount);
 
             // POZIOM 2: Statyczne dane (ULTIMATE FALLBACK)
-            syncedCount += loadCriticalInfrastructure();
+            syncedCount += loadCriticalInfrastructure(added);
 
             log.info("🎉 Infrastructure sync completed: {} total objects in database",
                     infrastructureRepository.count());
@@ -65,15 +71,18 @@ public class PolishInfrastructureService {
         } catch (Exception e) {
             log.error("❌ Error during infrastructure synchronization", e);
             // Emergency fallback
-            loadCriticalInfrastructure();
+            loadCriticalInfrastructure(added);
         }
+
+        // Indeksy w pamięci przebudowują się po synchronizacji, dodane obiekty trafiają do dziennika zmian
+        eventPublisher.publishEvent(InfrastructureChangedEvent.synced(added));
     }
 
     /**
      * 🥇 POZIOM 1: OpenStreetMap Overpass API
      * Najlepsze darmowe źródło danych o infrastrukturze
      */
-    private int syncFromOpenStreetMap() {
+    private int syncFromOpenStreetMap(List<Infrastructure> added) {
         int newObjects = 0;
 
         try {
@@ -92,7 +101,7 @@ public class PolishInfrastructureService {
                 out center meta;
                 """;
 
-            newObjects += processOverpassQuery(bridgeQuery, "BRIDGE");
+            newObjects += processOverpassQuery(bridgeQuery, "BRIDGE", added);
 
             // Tunele z ograniczeniami wysokości
             String tunnelQuery = """
@@ -105,7 +114,7 @@ public class PolishInfrastructureService {
                 out center meta;
                 """;
 
-            newObjects += processOverpassQuery(tunnelQuery, "TUNNEL");
+            newObjects += processOverpassQuery(tunnelQuery, "TUNNEL", added);
 
             // Ograniczenia wysokości (wiadukty, przejazdy kolejowe)
             String heightQuery = """
@@ -120,7 +129,7 @@ public class PolishInfrastructureService {
                 out center meta;
                 """;
 
-            newObjects += processOverpassQuery(heightQuery, "HEIGHT_RESTRICTION");
+            newObjects += processOverpassQuery(heightQuery, "HEIGHT_RESTRICTION", added);
 
             // Stacje ważenia i kontroli
             String weightStationQuery = """
@@ -133,7 +142,7 @@ public class PolishInfrastructureService {
                 out center meta;
                 """;
 
-            newObjects += processOverpassQuery(weightStationQuery, "WEIGHT_STATION");
+            newObjects += processOverpassQuery(weightStationQuery, "WEIGHT_STATION", added);
 
         } catch (Exception e) {
             log.warn("⚠️ OpenStreetMap sync failed: {}", e.getMessage());
@@ -146,7 +155,7 @@ public class PolishInfrastructureService {
     // PROCESSING METHODS
     // ========================================
 
-    private int processOverpassQuery(String query, String type) {
+    private int processOverpassQuery(String query, String type, List<Infrastructure> added) {
         try {
             String overpassUrl = "https://overpass-api.de/api/interpreter";
 
@@ -160,7 +169,7 @@ public class PolishInfrastructureService {
                     overpassUrl, request, String.class);
 
             if (response.getStatusCode().is2xxSuccessful()) {
-                return processOpenStreetMapData(response.getBody(), type);
+                return processOpenStreetMapData(response.getBody(), type, added);
             } else {
                 log.warn("⚠️ Overpass API returned status: {}", response.getStatusCode());
             }
@@ -173,7 +182,7 @@ public class PolishInfrastructureService {
     }
 
     @SuppressWarnings("unchecked")
-    private int processOpenStreetMapData(String jsonData, String type) {
+    private int processOpenStreetMapData(String jsonData, String type, List<Infrastructure> added) {
         int newObjects = 0;
 
         try {
@@ -189,12 +198,24 @@ public class PolishInfrastructureService {
 
             log.debug("📊 Processing {} OSM elements for type: {}", elements.size(), type);
 
+            Map<String, Infrastructure> candidates = new LinkedHashMap<>();
             for (Map<String, Object> element : elements) {
-                if (processOSMElement(element, type)) {
-                    newObjects++;
+                Infrastructure infrastructure = processOSMElement(element, type);
+                if (infrastructure != null) {
+                    candidates.putIfAbsent(infrastructure.getExternalId(), infrastructure);
                 }
             }
 
+            // Pomiń istniejące obiekty i zapisz nowe w batchach
+            Set<String> existing = findExistingExternalIds(candidates.keySet());
+            List<Infrastructure> newInfrastructure = candidates.values().stream()
+                    .filter(infra -> !existing.contains(infra.getExternalId()))
+                    .toList();
+
+            infrastructureRepository.saveAll(newInfrastructure);
+            added.addAll(newInfrastructure);
+            newObjects = newInfrastructure.size();
+
         } catch (Exception e) {
             log.error("❌ Error processing OpenStreetMap data for type: {}", type, e);
         }
@@ -202,8 +223,22 @@ public class PolishInfrastructureService {
         return newObjects;
     }
 
+    /**
+     * 🔎 Istniejące externalId (zapytania IN po EXTERNAL_ID_CHUNK_SIZE)
+     */
+    private Set<String> findExistingExternalIds(Collection<String> externalIds) {
+        Set<String> existing = new HashSet<>();
+        List<String> ids = new ArrayList<>(externalIds);
+
+        for (int start = 0; start < ids.size(); start += EXTERNAL_ID_CHUNK_SIZE) {
+            existing.addAll(infrastructureRepository.findExistingExternalIds(
+                    ids.subList(start, Math.min(start + EXTERNAL_ID_CHUNK_SIZE, ids.size()))));
+        }
+        return existing;
+    }
+
     @SuppressWarnings("unchecked")
-    private boolean processOSMElement(Map<String, Object> element, String type) {
+    private Infrastructure processOSMElement(Map<String, Object> element, String type) {
         try {
             // Get coordinates (center for ways, direct lat/lon for nodes)
             Double lat = null, lon = null;
@@ -218,12 +253,12 @@ public class PolishInfrastructureService {
             }
 
             if (lat == null || lon == null) {
-                return false;
+                return null;
             }
 
             // Sprawdź czy współrzędne są w granicach Polski
             if (!isInPoland(lat, lon)) {
-                return false;
+                return null;
             }
 
             Map<String, Object> tags = (Map<String, Object>) element.get("tags");
@@ -233,11 +268,6 @@ public class PolishInfrastructureService {
 
             String externalId = "OSM_" + type + "_" + element.get("id");
 
-            // Skip if already exists
-            if (infrastructureRepository.findByExternalId(externalId) != null) {
-                return false;
-            }
-
             Infrastructure infrastructure = Infrastructure.builder()
                     .externalId(externalId)
                     .name(extractName(tags, type))
@@ -254,13 +284,12 @@ public class PolishInfrastructureService {
                     .updatedAt(LocalDateTime.now())
                     .build();
 
-            infrastructureRepository.save(infrastructure);
-            log.debug("✅ Added OSM {}: {} at [{}, {}]", type, infrastructure.getName(), lat, lon);
-            return true;
+            log.debug("✅ Parsed OSM {}: {} at [{}, {}]", type, infrastructure.getName(), lat, lon);
+            return infrastructure;
 
         } catch (Exception e) {
             log.warn("⚠️ Error processing OSM element: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -268,7 +297,7 @@ public class PolishInfrastructureService {
      * 🛡️ POZIOM 2: Krytyczna infrastruktura (ULTIMATE FALLBACK)
      * Kluczowe obiekty które MUSZĄ być w systemie
      */
-    private int loadCriticalInfrastructure() {
+    private int loadCriticalInfrastructure(List<Infrastructure> added) {
         log.info("🛡️ Loading critical infrastructure (fallback)...");
 
         List<Infrastructure> criticalData = List.of(
@@ -488,19 +517,23 @@ public class PolishInfrastructureService {
                         .build()
         );
 
-        int added = 0;
+        Set<String> existing = findExistingExternalIds(
+                criticalData.stream().map(Infrastructure::getExternalId).toList());
+
+        List<Infrastructure> toAdd = new ArrayList<>();
         for (Infrastructure infra : criticalData) {
-            if (infrastructureRepository.findByExternalId(infra.getExternalId()) == null) {
+            if (!existing.contains(infra.getExternalId())) {
                 infra.setCreatedAt(LocalDateTime.now());
                 infra.setUpdatedAt(LocalDateTime.now());
-                infrastructureRepository.save(infra);
-                added++;
+                toAdd.add(infra);
                 log.info("🛡️ Added critical infrastructure: {}", infra.getName());
             }
         }
+        infrastructureRepository.saveAll(toAdd);
+        added.addAll(toAdd);
 
-        log.info("🛡️ Loaded {} critical infrastructure objects", added);
-        return added;
+        log.info("🛡️ Loaded {} critical infrastructure objects", toAdd.size());
+        return toAdd.size();
     }
 
     // ========================================
@@ -538,64 +571,15 @@ public class PolishInfrastructureService {
     }
 
     private Integer extractHeightLimit(Map<String, Object> tags) {
-        String[] heightKeys = {"maxheight", "maxheight:physical", "bridge:maxheight", "tunnel:maxheight", "barrier:height"};
-        for (String key : heightKeys) {
-            if (tags.get(key) != null) {
-                try {
-                    String height = tags.get(key).toString().replaceAll("[^0-9.]", "");
-                    if (!height.isEmpty()) {
-                        double heightM = Double.parseDouble(height);
-                        // If value seems to be in meters, convert to cm
-                        if (heightM < 10) {
-                            return (int)(heightM * 100);
-                        } else {
-                            return (int)heightM; // Already in cm
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    // ignore and try next
-                }
-            }
-        }
-        return null;
+        return OsmTagParser.parseHeightCm(tags);
     }
 
     private Integer extractWeightLimit(Map<String, Object> tags) {
-        String[] weightKeys = {"maxweight", "maxweight:signed", "bridge:maxweight", "maxweight:conditional"};
-        for (String key : weightKeys) {
-            if (tags.get(key) != null) {
-                try {
-                    String weight = tags.get(key).toString().replaceAll("[^0-9.]", "");
-                    if (!weight.isEmpty()) {
-                        double weightT = Double.parseDouble(weight);
-                        // Convert tons to kg
-                        return (int)(weightT * 1000);
-                    }
-                } catch (NumberFormatException e) {
-                    // ignore and try next
-                }
-            }
-        }
-        return null;
+        return OsmTagParser.parseWeightKg(tags);
     }
 
     private Integer extractAxleWeightLimit(Map<String, Object> tags) {
-        String[] axleKeys = {"maxaxleload", "maxweight:axle", "maxaxleweight"};
-        for (String key : axleKeys) {
-            if (tags.get(key) != null) {
-                try {
-                    String weight = tags.get(key).toString().replaceAll("[^0-9.]", "");
-                    if (!weight.isEmpty()) {
-                        double weightT = Double.parseDouble(weight);
-                        // Convert tons to kg
-                        return (int)(weightT * 1000);
-                    }
-                } catch (NumberFormatException e) {
-                    // ignore and try next
-                }
-            }
-        }
-        return null;
+        return OsmTagParser.parseAxleLoadKg(tags);
     }
 
     private String extractDescription(Map<String, Object> tags) {
@@ -0,0 +1,345 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.GeoUtils;
+import pl.logistic.logisticops.geo.RouteCorridor;
+import pl.logistic.logisticops.geo.StrRTree;
+import pl.logistic.logisticops.model.Infrastructure;
+import pl.logistic.logisticops.repository.InfrastructureRepository;
+
+import java.util.*;
+
+/**
+ * 🌲 INDEKS PRZESTRZENNY INFRASTRUKTURY (R-drzewo STR w pamięci)
+ *
+ * - Budowany hurtowo przy starcie i po każdej synchronizacji OSM
+ * - Zmiany CRUD nakładane są jako "overlay" (bez przebudowy drzewa)
+ * - Gdy overlay urośnie, drzewo jest kompaktowane w pamięci (bez zapytań do bazy)
+ *
+ * Czytelnicy widzą zawsze spójny, niemutowalny snapshot (volatile, copy-on-write).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RTreeInfrastructureSpatialIndex implements InfrastructureSpatialIndex {
+
+    private static final int MIN_COMPACTION_THRESHOLD = 256;
+
+    private final InfrastructureRepository infrastructureRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Object rebuildLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // Zmiany nałożone w trakcie przebudowy (pod blokadą this; null w mapie = usunięty, null = brak przebudowy)
+    private Map<Long, Infrastructure> changedDuringRebuild;
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        rebuildTimer = Timer.builder("logisticops.infrastructure.index.rebuild")
+                .description("Czas przebudowy indeksu przestrzennego infrastruktury")
+                .register(meterRegistry);
+        Gauge.builder("logisticops.infrastructure.index.size", this, RTreeInfrastructureSpatialIndex::size)
+                .description("Liczba aktywnych obiektów w indeksie przestrzennym")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🚀 Zbuduj indeks po starcie aplikacji
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * 🔨 Przebudowa z bazy - odczyt bez blokady czytelników i overlay; zmiany nałożone
+     * między odczytem a podmianą drzewa są zapamiętywane i nakładane na nowe drzewo
+     */
+    @Override
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuildTimer.record(() -> {
+                synchronized (this) {
+                    changedDuringRebuild = new LinkedHashMap<>();
+                }
+                List<Infrastructure> active;
+                try {
+                    active = infrastructureRepository.findByIsActiveTrue().stream()
+                            .map(RTreeInfrastructureSpatialIndex::detachedCopy)
+                            .toList();
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        changedDuringRebuild = null;
+                    }
+                    throw e;
+                }
+
+                int reapplied;
+                synchronized (this) {
+                    Map<Long, Infrastructure> changes = changedDuringRebuild;
+                    changedDuringRebuild = null;
+                    reapplied = changes.size();
+                    snapshot = Snapshot.of(reapply(active, changes));
+                }
+                log.info("🌲 Infrastructure spatial index rebuilt: {} active objects ({} concurrent changes re-applied)",
+                        active.size(), reapplied);
+            });
+        }
+    }
+
+    private static List<Infrastructure> reapply(List<Infrastructure> active, Map<Long, Infrastructure> changes) {
+        if (changes.isEmpty()) {
+            return active;
+        }
+        Map<Long, Infrastructure> byId = new LinkedHashMap<>(active.size() * 2);
+        active.forEach(infra -> byId.put(infra.getId(), infra));
+        changes.forEach((id, infra) -> {
+            if (infra != null) {
+                byId.put(id, infra);
+            } else {
+                byId.remove(id);
+            }
+        });
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * 🔄 Nałóż zmiany infrastruktury po commicie transakcji
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInfrastructureChanged(InfrastructureChangedEvent event) {
+        if (event.getChangeType() == InfrastructureChangedEvent.ChangeType.SYNCED) {
+            rebuild();
+            return;
+        }
+
+        for (Infrastructure infrastructure : event.getInfrastructure()) {
+            if (event.getChangeType() == InfrastructureChangedEvent.ChangeType.DELETED
+                    || !Boolean.TRUE.equals(infrastructure.getIsActive())) {
+                remove(infrastructure.getId());
+            } else {
+                upsert(infrastructure);
+            }
+        }
+    }
+
+    synchronized void upsert(Infrastructure infrastructure) {
+        if (infrastructure.getId() == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        Map<Long, Infrastructure> overlay = new HashMap<>(current.overlay);
+        Set<Long> hidden = new HashSet<>(current.hidden);
+
+        Infrastructure copy = detachedCopy(infrastructure);
+        overlay.put(infrastructure.getId(), copy);
+        hidden.add(infrastructure.getId());
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(infrastructure.getId(), copy);
+        }
+
+        publish(new Snapshot(current.tree, current.treeIds, overlay, hidden));
+    }
+
+    synchronized void remove(Long infrastructureId) {
+        if (infrastructureId == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        Map<Long, Infrastructure> overlay = new HashMap<>(current.overlay);
+        Set<Long> hidden = new HashSet<>(current.hidden);
+
+        overlay.remove(infrastructureId);
+        hidden.add(infrastructureId);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(infrastructureId, null);
+        }
+
+        publish(new Snapshot(current.tree, current.treeIds, overlay, hidden));
+    }
+
+    private void publish(Snapshot next) {
+        int threshold = Math.max(MIN_COMPACTION_THRESHOLD, next.tree.size() / 20);
+        if (next.overlay.size() + next.hidden.size() > threshold) {
+            List<Infrastructure> merged = new ArrayList<>(next.tree.size() + next.overlay.size());
+            next.tree.forEach(infra -> {
+                if (!next.hidden.contains(infra.getId())) {
+                    merged.add(infra);
+                }
+            });
+            merged.addAll(next.overlay.values());
+            snapshot = Snapshot.of(merged);
+            log.debug("🌲 Spatial index compacted: {} objects", merged.size());
+        } else {
+            snapshot = next;
+        }
+    }
+
+    // ========================================
+    // ZAPYTANIA
+    // ========================================
+
+    @Override
+    public List<StrRTree.Hit<Infrastructure>> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        Snapshot current = snapshot;
+        List<StrRTree.Hit<Infrastructure>> hits = current.tree.searchRadius(
+                latitude, longitude, radiusKm, current::isVisible);
+
+        if (!current.overlay.isEmpty()) {
+            hits = new ArrayList<>(hits);
+            for (Infrastructure infra : current.overlay.values()) {
+                double distance = GeoUtils.haversineKm(latitude, longitude, infra.getLatitude(), infra.getLongitude());
+                if (distance <= radiusKm) {
+                    hits.add(new StrRTree.Hit<>(infra, distance));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(StrRTree.Hit::distanceKm));
+        }
+        return hits;
+    }
+
+    @Override
+    public List<Infrastructure> findInBoundingBox(BoundingBox boundingBox) {
+        Snapshot current = snapshot;
+        List<Infrastructure> result = new ArrayList<>();
+        current.tree.visitBoundingBox(boundingBox, infra -> {
+            if (current.isVisible(infra)) {
+                result.add(infra);
+            }
+        });
+        for (Infrastructure infra : current.overlay.values()) {
+            if (boundingBox.contains(infra.getLatitude(), infra.getLongitude())) {
+                result.add(infra);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<RouteCorridor.Hit<Infrastructure>> findInCorridor(RouteCorridor corridor) {
+        if (corridor.isEmpty()) {
+            return List.of();
+        }
+
+        // Zapytania per pas komórek korytarza zamiast jednego prostokąta całej trasy;
+        // pasy stykają się krawędziami, więc obiekt na granicy może wrócić dwa razy
+        Snapshot current = snapshot;
+        Map<Long, Infrastructure> candidates = new HashMap<>();
+        for (BoundingBox box : corridor.coveringBoxes()) {
+            current.tree.visitBoundingBox(box, infra -> {
+                if (current.isVisible(infra)) {
+                    candidates.putIfAbsent(infra.getId(), infra);
+                }
+            });
+        }
+        candidates.putAll(current.overlay);
+
+        List<RouteCorridor.Hit<Infrastructure>> hits = new ArrayList<>();
+        for (Infrastructure infra : candidates.values()) {
+            RouteCorridor.Projection projection = corridor.locate(infra.getLatitude(), infra.getLongitude());
+            if (projection != null) {
+                hits.add(new RouteCorridor.Hit<>(infra, projection.offsetKm(),
+                        projection.distanceAlongKm(), projection.segmentIndex()));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(RouteCorridor.Hit::distanceAlongKm));
+        return hits;
+    }
+
+    @Override
+    public List<StrRTree.Hit<Infrastructure>> findNearest(double latitude, double longitude, int k, double maxDistanceKm) {
+        Snapshot current = snapshot;
+        List<StrRTree.Hit<Infrastructure>> hits = current.tree.nearest(
+                latitude, longitude, k, maxDistanceKm, current::isVisible);
+
+        if (!current.overlay.isEmpty()) {
+            hits = new ArrayList<>(hits);
+            for (Infrastructure infra : current.overlay.values()) {
+                double distance = GeoUtils.haversineKm(latitude, longitude, infra.getLatitude(), infra.getLongitude());
+                if (distance <= maxDistanceKm) {
+                    hits.add(new StrRTree.Hit<>(infra, distance));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(StrRTree.Hit::distanceKm));
+            if (hits.size() > k) {
+                hits = new ArrayList<>(hits.subList(0, k));
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public int size() {
+        Snapshot current = snapshot;
+        return current.tree.size() - current.hiddenInTree + current.overlay.size();
+    }
+
+    /**
+     * 📋 Kopia encji bez relacji lazy - bezpieczna poza sesją Hibernate
+     */
+    static Infrastructure detachedCopy(Infrastructure source) {
+        return Infrastructure.builder()
+                .id(source.getId())
+                .externalId(source.getExternalId())
+                .name(source.getName())
+                .type(source.getType())
+                .latitude(source.getLatitude())
+                .longitude(source.getLongitude())
+                .roadNumber(source.getRoadNumber())
+                .maxHeightCm(source.getMaxHeightCm())
+                .maxWeightKg(source.getMaxWeightKg())
+                .maxAxleWeightKg(source.getMaxAxleWeightKg())
+                .isActive(source.getIsActive())
+                .description(source.getDescription())
+                .createdAt(source.getCreatedAt())
+                .updatedAt(source.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * 📸 Niemutowalny stan indeksu: drzewo + nakładka zmian
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = of(List.of());
+
+        final StrRTree<Infrastructure> tree;
+        final Set<Long> treeIds;
+        final Map<Long, Infrastructure> overlay;
+        final Set<Long> hidden;
+        final int hiddenInTree;
+
+        Snapshot(StrRTree<Infrastructure> tree, Set<Long> treeIds,
+                 Map<Long, Infrastructure> overlay, Set<Long> hidden) {
+            this.tree = tree;
+            this.treeIds = treeIds;
+            this.overlay = overlay;
+            this.hidden = hidden;
+            this.hiddenInTree = (int) hidden.stream().filter(treeIds::contains).count();
+        }
+
+        static Snapshot of(List<Infrastructure> items) {
+            Set<Long> ids = new HashSet<>(items.size() * 2);
+            items.forEach(infra -> ids.add(infra.getId()));
+            return new Snapshot(
+                    StrRTree.build(items, Infrastructure::getLatitude, Infrastructure::getLongitude),
+                    ids, Map.of(), Set.of());
+        }
+
+        boolean isVisible(Infrastructure infra) {
+            return !hidden.contains(infra.getId());
+        }
+    }
+}
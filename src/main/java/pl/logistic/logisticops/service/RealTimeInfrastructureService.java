@@ -3,12 +3,14 @@ package pl.logistic.logisticops.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import pl.logistic.logisticops.api.TomTomTrafficClient;
 import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
 import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
 
@@ -36,6 +38,7 @@ public class RealTimeInfrastructureService {
     private final IntelligentRouteService intelligentRouteService;
     private final TomTomTrafficClient tomTomClient;
     private final ApiHealthCheckService apiHealthCheck;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${api.googlemaps.key}")
     private String googleMapsApiKey;
@@ -232,6 +235,8 @@ public class RealTimeInfrastructureService {
             infra.setIsActive(isActive);
             infra.setUpdatedAt(LocalDateTime.now());
             infrastructureRepository.save(infra);
+            eventPublisher.publishEvent(InfrastructureChangedEvent.of(
+                    InfrastructureChangedEvent.ChangeType.STATUS_CHANGED, infra));
 
             log.info("🔄 Infrastructure status changed: {} -> {} ({})",
                     infra.getName(), isActive ? "ACTIVE" : "INACTIVE", reason);
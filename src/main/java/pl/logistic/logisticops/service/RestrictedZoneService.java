@@ -0,0 +1,106 @@
+package pl.logistic.logisticops.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.logistic.logisticops.dto.RestrictedZoneDTO;
+import pl.logistic.logisticops.dto.request.RestrictedZoneRequestDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.event.RestrictedZoneChangedEvent;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.mapper.RestrictedZoneMapper;
+import pl.logistic.logisticops.model.RestrictedZone;
+import pl.logistic.logisticops.repository.RestrictedZoneRepository;
+
+import java.util.List;
+
+/**
+ * 🚧 Zarządzanie strefami zakazanymi (wielokąty geofencingu)
+ *
+ * Każda zmiana publikuje RestrictedZoneChangedEvent - GeofenceService przebudowuje
+ * indeks stref po commicie.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class RestrictedZoneService {
+
+    private final RestrictedZoneRepository zoneRepository;
+    private final RestrictedZoneMapper zoneMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public List<RestrictedZoneDTO> getAllZones() {
+        return zoneRepository.findAll().stream()
+                .map(zoneMapper::toDTO)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public RestrictedZoneDTO getZone(Long id) {
+        return zoneMapper.toDTO(findZone(id));
+    }
+
+    public RestrictedZoneDTO createZone(RestrictedZoneRequestDTO request) {
+        RestrictedZone zone = new RestrictedZone();
+        apply(zone, request);
+        zone = zoneRepository.save(zone);
+        log.info("🚧 Created restricted zone {} '{}' ({} vertices)", zone.getId(), zone.getName(),
+                request.getBoundary().size());
+        return changed(zone);
+    }
+
+    public RestrictedZoneDTO updateZone(Long id, RestrictedZoneRequestDTO request) {
+        RestrictedZone zone = findZone(id);
+        apply(zone, request);
+        return changed(zoneRepository.save(zone));
+    }
+
+    public void deleteZone(Long id) {
+        RestrictedZone zone = findZone(id);
+        zoneRepository.delete(zone);
+        log.info("🚧 Deleted restricted zone {} '{}'", id, zone.getName());
+        eventPublisher.publishEvent(new RestrictedZoneChangedEvent(id));
+    }
+
+    private void apply(RestrictedZone zone, RestrictedZoneRequestDTO request) {
+        zone.setName(request.getName());
+        zone.setZoneType(request.getZoneType());
+        zone.setAlertLevel(request.getAlertLevel() != null ? request.getAlertLevel() : AlertLevel.CRITICAL);
+        zone.setPolygon(PolylineCodec.encode(normalizeBoundary(request.getBoundary())));
+        zone.setDescription(request.getDescription());
+        zone.setActive(request.getActive() == null || request.getActive());
+    }
+
+    /**
+     * Walidacja pierścienia; powtórzony pierwszy wierzchołek (pierścień domknięty) jest usuwany
+     */
+    private static List<GeoPoint> normalizeBoundary(List<GeoPoint> boundary) {
+        for (GeoPoint point : boundary) {
+            if (point == null || Math.abs(point.latitude()) > 90 || Math.abs(point.longitude()) > 180) {
+                throw new IllegalArgumentException("Zone boundary contains invalid coordinates: " + point);
+            }
+        }
+        List<GeoPoint> ring = boundary.size() > 1 && boundary.get(0).equals(boundary.get(boundary.size() - 1))
+                ? boundary.subList(0, boundary.size() - 1)
+                : boundary;
+        if (ring.stream().distinct().count() < 3) {
+            throw new IllegalArgumentException("Zone boundary needs at least 3 distinct vertices");
+        }
+        return ring;
+    }
+
+    private RestrictedZoneDTO changed(RestrictedZone zone) {
+        eventPublisher.publishEvent(new RestrictedZoneChangedEvent(zone.getId()));
+        return zoneMapper.toDTO(zone);
+    }
+
+    private RestrictedZone findZone(Long id) {
+        return zoneRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Restricted zone not found: " + id));
+    }
+}
@@ -0,0 +1,231 @@
+package pl.logistic.logisticops.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.enums.TransportStatus;
+import pl.logistic.logisticops.event.TransportStatusChangedEvent;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.geo.RouteCorridor;
+import pl.logistic.logisticops.model.GpsPosition;
+import pl.logistic.logisticops.model.RouteSegment;
+import pl.logistic.logisticops.repository.RouteSegmentRepository;
+import pl.logistic.logisticops.repository.TransportRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 🧭 WYKRYWANIE ODCHYLENIA OD ZATWIERDZONEJ TRASY
+ *
+ * Polilinie segmentów zatwierdzonej trasy dekodowane są raz i rozkładane do siatki
+ * korytarza (RouteCorridor) o buforze równym progowi odległości - każdy ping sprawdza
+ * tylko krawędzie z sąsiednich komórek. Alert pada dopiero, gdy pojazd pozostaje poza
+ * korytarzem dłużej niż dwell-seconds; powrót na trasę zeruje licznik.
+ *
+ * Geometria cache'owana per trasa, powiązanie transport → trasa per transport, licznik
+ * zjazdu per pojazd (w konwoju pojazd wciąż na trasie nie zeruje licznika innego).
+ * Zakończenie lub anulowanie transportu usuwa wszystkie wpisy transportu.
+ *
+ * Metryki: cache.gets{cache=routeDeviationCorridors}, logisticops.tracking.route.deviations
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RouteDeviationService {
+
+    private static final String CACHE_NAME = "routeDeviationCorridors";
+
+    private final TransportRepository transportRepository;
+    private final RouteSegmentRepository segmentRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.tracking.deviation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.tracking.deviation.distance-km:0.5}")
+    private double distanceKm;
+
+    @Value("${app.tracking.deviation.dwell-seconds:60}")
+    private long dwellSeconds;
+
+    @Value("${app.tracking.deviation.max-routes:1000}")
+    private long maxRoutes;
+
+    @Value("${app.tracking.deviation.idle-hours:12}")
+    private long idleHours;
+
+    private Cache<Long, RouteCorridor> corridors;
+    private Cache<Long, TransportRoute> transports;
+    private Cache<TrackerKey, OffRouteState> trackers;
+    private Counter deviations;
+
+    /**
+     * 🚚 Powiązanie transportu z zatwierdzoną trasą (null = brak trasy)
+     */
+    private record TransportRoute(Long routeId) {
+    }
+
+    /**
+     * 🔑 Źródło pingów w transporcie: pojazd, a gdy go brak - urządzenie
+     */
+    private record TrackerKey(Long transportId, Long vehicleId, String deviceId) {
+
+        static TrackerKey of(GpsPosition position) {
+            return position.getVehicleId() != null
+                    ? new TrackerKey(position.getTransportId(), position.getVehicleId(), null)
+                    : new TrackerKey(position.getTransportId(), null, position.getDeviceId());
+        }
+    }
+
+    /**
+     * ⏱️ Początek bieżącego zjazdu z trasy jednego pojazdu
+     */
+    private static final class OffRouteState {
+        private LocalDateTime offRouteSince;
+        private boolean alerted;
+    }
+
+    @PostConstruct
+    void init() {
+        corridors = Caffeine.newBuilder()
+                .maximumSize(maxRoutes)
+                .expireAfterAccess(Duration.ofHours(idleHours))
+                .recordStats()
+                .build();
+        // Transporty bez pingów wypadają same - nie każdy kończy się zmianą statusu
+        transports = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(idleHours))
+                .build();
+        trackers = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(idleHours))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, corridors, CACHE_NAME);
+        deviations = Counter.builder("logisticops.tracking.route.deviations")
+                .description("Alerty odchylenia od zatwierdzonej trasy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🎯 Czy ping potwierdza odchylenie od trasy - true tylko raz na każdy zjazd,
+     * w chwili przekroczenia progu czasu
+     */
+    public boolean isDeviating(GpsPosition position) {
+        if (!enabled || position.getTransportId() == null
+                || position.getLatitude() == null || position.getLongitude() == null) {
+            return false;
+        }
+
+        TransportRoute route = transports.get(position.getTransportId(),
+                id -> new TransportRoute(transportRepository.findApprovedRouteId(id).orElse(null)));
+        if (route.routeId() == null) {
+            return false;
+        }
+
+        RouteCorridor corridor = corridors.get(route.routeId(), this::loadCorridor);
+        if (corridor.isEmpty()) {
+            return false;
+        }
+
+        boolean onRoute = corridor.locate(position.getLatitude(), position.getLongitude()) != null;
+        LocalDateTime at = position.getTimestamp() != null ? position.getTimestamp() : LocalDateTime.now();
+        OffRouteState state = trackers.get(TrackerKey.of(position), key -> new OffRouteState());
+
+        synchronized (state) {
+            if (onRoute) {
+                state.offRouteSince = null;
+                state.alerted = false;
+                return false;
+            }
+
+            if (state.offRouteSince == null) {
+                state.offRouteSince = at;
+            }
+            if (state.alerted || Duration.between(state.offRouteSince, at).getSeconds() < dwellSeconds) {
+                return false;
+            }
+            state.alerted = true;
+        }
+
+        deviations.increment();
+        log.warn("🧭 Transport {} vehicle {} off approved route {} for over {}s (> {} km)",
+                position.getTransportId(), position.getVehicleId() != null ? position.getVehicleId() : position.getDeviceId(),
+                route.routeId(), dwellSeconds, distanceKm);
+        return true;
+    }
+
+    /**
+     * 🗺️ Geometria trasy; segment bez polilinii (lub z uszkodzoną) zastępowany odcinkiem start-koniec
+     */
+    private RouteCorridor loadCorridor(Long routeId) {
+        List<RouteSegment> segments = segmentRepository.findByRouteProposalIdOrderBySequenceOrder(routeId);
+        RouteCorridor.Builder builder = RouteCorridor.builder(distanceKm);
+
+        for (RouteSegment segment : segments) {
+            List<GeoPoint> points = decodePolyline(routeId, segment);
+            if (points.isEmpty() && segment.getFromLatitude() != null && segment.getToLatitude() != null) {
+                points = List.of(
+                        new GeoPoint(segment.getFromLatitude(), segment.getFromLongitude()),
+                        new GeoPoint(segment.getToLatitude(), segment.getToLongitude()));
+            }
+            if (!points.isEmpty()) {
+                builder.addSegment(points);
+            }
+        }
+
+        RouteCorridor corridor = builder.build();
+        log.debug("🧭 Decoded route {} for deviation checks: {} segments, {} km",
+                routeId, corridor.segmentCount(), String.format("%.1f", corridor.lengthKm()));
+        return corridor;
+    }
+
+    private static List<GeoPoint> decodePolyline(Long routeId, RouteSegment segment) {
+        if (segment.getPolyline() == null || segment.getPolyline().isBlank()) {
+            return List.of();
+        }
+        try {
+            return PolylineCodec.decode(segment.getPolyline());
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Corrupt polyline in segment {} of route {} - using straight start-end line: {}",
+                    segment.getId(), routeId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 🔄 Zakończenie transportu zwalnia jego stan i geometrię trasy; zatwierdzenie
+     * (nowej) trasy wymusza ponowne odczytanie powiązania
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransportStatusChanged(TransportStatusChangedEvent event) {
+        if (!event.isFinished() && event.getNewStatus() != TransportStatus.APPROVED) {
+            return;
+        }
+
+        trackers.asMap().keySet().removeIf(key -> key.transportId().equals(event.getTransportId()));
+        TransportRoute removed = transports.asMap().remove(event.getTransportId());
+        if (removed == null || removed.routeId() == null) {
+            return;
+        }
+
+        boolean stillUsed = transports.asMap().values().stream()
+                .anyMatch(route -> removed.routeId().equals(route.routeId()));
+        if (!stillUsed) {
+            corridors.invalidate(removed.routeId());
+        }
+        if (event.isFinished()) {
+            log.debug("🧭 Released deviation state of transport {} (route {})", event.getTransportId(), removed.routeId());
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package pl.logistic.logisticops.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.geo.BoundingBox;
 import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
 
@@ -20,6 +22,9 @@ public class RouteOptimizationService {
     private final InfrastructureRepository infrastructureRepository;
     private final GoogleMapsService googleMapsService;
 
+    @Value("${app.routing.restriction-search-margin-km:25.0}")
+    private double restrictionSearchMarginKm;
+
     public List<RouteProposal> calculateOptimalRoutes(RouteRequest request) {
         List<VehicleSpecification> vehicles = vehicleRepository.findAllById(request.getTransportSetIds());
 
@@ -30,12 +35,16 @@ public class RouteOptimizationService {
         // Calculate transport constraints
         TransportConstraints constraints = calculateConstraints(vehicles);
 
-        // Get all infrastructure restrictions along potential routes
+        // Get infrastructure restrictions in the area between start and destination
+        BoundingBox searchArea = BoundingBox.of(
+                request.getStartLat(), request.getStartLon(),
+                request.getEndLat(), request.getEndLon()).expandKm(restrictionSearchMarginKm);
         List<Infrastructure> restrictiveInfrastructure =
-                infrastructureRepository.findPotentialRestrictions(
+                infrastructureRepository.findRestrictionsFor(
                         constraints.getMaxHeightCm(),
                         constraints.getTotalWeightKg(),
-                        constraints.getMaxAxleLoadKg()
+                        constraints.getMaxAxleLoadKg(),
+                        searchArea
                 );
 
         List<RouteProposal> proposals = new ArrayList<>();
@@ -88,7 +97,8 @@ public class RouteOptimizationService {
 
         proposal = routeProposalRepository.save(proposal);
 
-        // Save segments
+        // Save segments (jeden batch)
+        List<RouteSegment> segments = new java.util.ArrayList<>(segmentDTOs.size());
         for (int i = 0; i < segmentDTOs.size(); i++) {
             pl.logistic.logisticops.dto.RouteSegmentDTO segmentDTO = segmentDTOs.get(i);
 
@@ -108,8 +118,9 @@ public class RouteOptimizationService {
                     .polyline(segmentDTO.getPolyline())
                     .build();
 
-            routeSegmentRepository.save(segment);
+            segments.add(segment);
         }
+        routeSegmentRepository.saveAll(segments);
 
         // Log avoided infrastructure (for reporting purposes)
         logAvoidedInfrastructure(proposal, restrictiveInfrastructure, constraints);
@@ -118,6 +129,7 @@ public class RouteOptimizationService {
     }
 
     private void logAvoidedInfrastructure(RouteProposal proposal, List<Infrastructure> avoidedInfrastructure, TransportConstraints constraints) {
+        List<RouteObstacle> obstacles = new java.util.ArrayList<>();
         for (Infrastructure infra : avoidedInfrastructure) {
             if (isProblematicForTransport(infra, constraints)) {
                 RouteObstacle obstacle = RouteObstacle.builder()
@@ -128,9 +140,10 @@ public class RouteOptimizationService {
                         .alternativeRouteNeeded(true)
                         .notes("Transport constraints exceed infrastructure limits")
                         .build();
-                routeObstacleRepository.save(obstacle);
+                obstacles.add(obstacle);
             }
         }
+        routeObstacleRepository.saveAll(obstacles);
     }
 
     private boolean isProblematicForTransport(Infrastructure infra, TransportConstraints constraints) {
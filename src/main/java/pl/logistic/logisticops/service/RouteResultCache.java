@@ -0,0 +1,195 @@
+package pl.logistic.logisticops.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.dto.RouteSegmentDTO;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.GeoPoint;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 🗃️ CACHE WYNIKÓW TRAS (Google Directions + filtrowanie infrastruktury)
+ *
+ * Klucz: zaokrąglony start/cel, flaga alternative i znormalizowane ograniczenia
+ * (maxHeight, maxWeight, maxAxleLoad, avoidRestrictions). Wpisy wygasają po TTL, rozmiar jest ograniczony.
+ * Zmiana infrastruktury wewnątrz prostokąta trasy usuwa wpis (sync OSM czyści wszystko).
+ *
+ * Metryki: cache.gets{cache=routeResults,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteResultCache {
+
+    private static final String CACHE_NAME = "routeResults";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.routing.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.routing.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${app.routing.cache.max-size:500}")
+    private long maxSize;
+
+    @Value("${app.routing.cache.coordinate-decimals:3}")
+    private int coordinateDecimals;
+
+    private AsyncCache<Key, CachedRoute> cache;
+    private Counter invalidations;
+
+    // Zwiększany przy każdym unieważnieniu - wynik wyliczany w trakcie zmiany nie trafia do cache
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    /**
+     * 🔑 Klucz cache - współrzędne zaokrąglone do coordinate-decimals miejsc
+     */
+    public record Key(long originLat, long originLng, long destinationLat, long destinationLng,
+                      boolean alternative, int maxHeight, int maxWeight, int maxAxleLoad,
+                      Boolean avoidRestrictions) {
+    }
+
+    /**
+     * 📦 Wynik do zapamiętania; bounds = obszar, którego zmiana unieważnia trasę
+     */
+    public record CachedRoute(List<RouteSegmentDTO> segments, BoundingBox bounds, boolean cacheable) {
+
+        public static CachedRoute of(List<RouteSegmentDTO> segments, BoundingBox bounds) {
+            return new CachedRoute(List.copyOf(segments), bounds, !segments.isEmpty() && bounds != null);
+        }
+
+        public static CachedRoute uncacheable(List<RouteSegmentDTO> segments) {
+            return new CachedRoute(segments, null, false);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+        invalidations = Counter.builder("logisticops.route.cache.invalidations")
+                .description("Wpisy cache tras unieważnione zmianą infrastruktury")
+                .register(meterRegistry);
+    }
+
+    public Key keyOf(double startLat, double startLng, double endLat, double endLng,
+                     boolean alternative, Map<String, Object> constraints) {
+        return new Key(round(startLat), round(startLng), round(endLat), round(endLng), alternative,
+                normalize(constraints.get("maxHeight")),
+                normalize(constraints.get("maxWeight")),
+                normalize(constraints.get("maxAxleLoad")),
+                constraints.get("avoidRestrictions") instanceof Boolean avoid ? avoid : null);
+    }
+
+    /**
+     * 🔍 Pobierz trasę z cache lub wylicz ją (w wątku wywołującego); równoległe zapytania
+     * o ten sam klucz czekają na jedno wyliczenie. Wyniki niecache'owalne (fallback, błąd API)
+     * nie są zapamiętywane.
+     */
+    public List<RouteSegmentDTO> getOrLoad(Key key, Supplier<CachedRoute> loader) {
+        if (!enabled) {
+            return copyOf(loader.get());
+        }
+
+        CompletableFuture<CachedRoute> pending = new CompletableFuture<>();
+        CompletableFuture<CachedRoute> entry = cache.get(key, (k, executor) -> pending);
+
+        if (entry != pending) {
+            CachedRoute shared = entry.join();
+            // Wyliczenie innego wątku nie nadawało się do cache - liczymy samodzielnie
+            return copyOf(shared != null ? shared : loader.get());
+        }
+
+        long epoch = invalidationEpoch.get();
+        CachedRoute route;
+        try {
+            route = loader.get();
+        } catch (RuntimeException e) {
+            pending.complete(null); // null usuwa wpis z cache
+            throw e;
+        }
+
+        boolean stale = epoch != invalidationEpoch.get();
+        pending.complete(route.cacheable() && !stale ? route : null);
+        return copyOf(route);
+    }
+
+    /**
+     * Kopie DTO - wywołujący mogą modyfikować segmenty
+     */
+    private static List<RouteSegmentDTO> copyOf(CachedRoute route) {
+        List<RouteSegmentDTO> copies = new ArrayList<>(route.segments().size());
+        route.segments().forEach(segment -> copies.add(segment.toBuilder().build()));
+        return copies;
+    }
+
+    /**
+     * 🔄 Unieważnij trasy, których obszar obejmuje zmienioną infrastrukturę
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInfrastructureChanged(InfrastructureChangedEvent event) {
+        if (cache == null) {
+            return;
+        }
+        invalidationEpoch.incrementAndGet();
+
+        if (event.getChangeType() == InfrastructureChangedEvent.ChangeType.SYNCED) {
+            long size = cache.synchronous().estimatedSize();
+            cache.synchronous().invalidateAll();
+            invalidations.increment(size);
+            log.info("🗃️ Route cache cleared after infrastructure sync ({} entries)", size);
+            return;
+        }
+
+        List<GeoPoint> changedPoints = new ArrayList<>(event.getPreviousLocations());
+        event.getInfrastructure().forEach(infra ->
+                changedPoints.add(new GeoPoint(infra.getLatitude(), infra.getLongitude())));
+
+        int[] removed = {0};
+        cache.synchronous().asMap().values().removeIf(route -> {
+            boolean affected = changedPoints.stream()
+                    .anyMatch(point -> route.bounds().contains(point.latitude(), point.longitude()));
+            if (affected) {
+                removed[0]++;
+            }
+            return affected;
+        });
+
+        if (removed[0] > 0) {
+            invalidations.increment(removed[0]);
+            log.debug("🗃️ Invalidated {} cached routes after {} change", removed[0], event.getChangeType());
+        }
+    }
+
+    private long round(double coordinate) {
+        return Math.round(coordinate * Math.pow(10, coordinateDecimals));
+    }
+
+    private static int normalize(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+}
@@ -2,6 +2,7 @@ package pl.logistic.logisticops.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import pl.logistic.logisticops.dto.*;
 import pl.logistic.logisticops.mapper.RouteProposalMapper;
@@ -41,6 +42,8 @@ public class RouteService {
                 .collect(Collectors.toList());
     }
 
+    // Generowanie zarządza własnymi transakcjami - nie trzymamy połączenia podczas wywołań Google Maps
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<RouteProposalDTO> generateRouteProposals(RouteRequestDTO request) {
         return intelligentRouteService.generateIntelligentRoutes(request);
     }
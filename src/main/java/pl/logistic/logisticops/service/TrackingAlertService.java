@@ -0,0 +1,237 @@
+package pl.logistic.logisticops.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.logistic.logisticops.dto.AlertDTO;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.tracking.AlertRule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * 🚦 STANOWE REGUŁY ALERTÓW ŚLEDZENIA (paliwo, prędkość)
+ *
+ * Dla każdego pojazdu i reguły automat NORMAL → PENDING → ACTIVE: alert tworzony jest raz,
+ * gdy warunek utrzyma się min-duration-seconds (i minął cooldown od poprzedniego), a
+ * rozwiązywany automatycznie, gdy wartość wróci za próg histerezy. Pingi w stanie
+ * ustalonym nie dotykają bazy ani WebSocket - tylko porównania na polach prymitywnych.
+ *
+ * Czas liczony z recordedAt pingu; pingi starsze niż ostatnio oceniony są pomijane.
+ *
+ * Metryki: logisticops.tracking.alerts{rule, transition=fired|resolved|suppressed}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingAlertService {
+
+    private static final byte NORMAL = 0;
+    private static final byte PENDING = 1;
+    private static final byte ACTIVE = 2;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final AlertService alertService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.tracking.alerts.fuel.trigger-percent:20}")
+    private double fuelTrigger;
+
+    @Value("${app.tracking.alerts.fuel.clear-percent:25}")
+    private double fuelClear;
+
+    @Value("${app.tracking.alerts.fuel.min-duration-seconds:30}")
+    private long fuelMinDurationSeconds;
+
+    @Value("${app.tracking.alerts.fuel.cooldown-seconds:1800}")
+    private long fuelCooldownSeconds;
+
+    @Value("${app.tracking.alerts.speed.trigger-kmh:90}")
+    private double speedTrigger;
+
+    @Value("${app.tracking.alerts.speed.clear-kmh:85}")
+    private double speedClear;
+
+    @Value("${app.tracking.alerts.speed.min-duration-seconds:10}")
+    private long speedMinDurationSeconds;
+
+    @Value("${app.tracking.alerts.speed.cooldown-seconds:600}")
+    private long speedCooldownSeconds;
+
+    @Value("${app.tracking.alerts.idle-hours:12}")
+    private long idleHours;
+
+    private AlertRule[] rules;
+    private Cache<Long, VehicleRuleState> vehicles;
+    private Function<Long, VehicleRuleState> newState;
+
+    private Counter[] fired;
+    private Counter[] resolved;
+    private Counter[] suppressed;
+
+    /**
+     * 🚚 Stan reguł jednego pojazdu - tablice indeksowane numerem reguły
+     */
+    private static final class VehicleRuleState {
+        private long lastAt = NEVER;
+        private final byte[] phase;
+        private final long[] since;
+        private final long[] lastFiredAt;
+        private final long[] alertIds;  // 0 = brak aktywnego alertu
+
+        private VehicleRuleState(int ruleCount) {
+            phase = new byte[ruleCount];
+            since = new long[ruleCount];
+            lastFiredAt = new long[ruleCount];
+            alertIds = new long[ruleCount];
+            Arrays.fill(lastFiredAt, NEVER);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        rules = new AlertRule[]{
+                new AlertRule("FUEL", AlertRule.Direction.BELOW, fuelTrigger, fuelClear,
+                        fuelMinDurationSeconds * 1000, fuelCooldownSeconds * 1000, AlertLevel.MEDIUM,
+                        "Niski poziom paliwa: %.1f%% (pojazd %d)",
+                        dto -> dto.getFuelLevelPercentage() != null ? dto.getFuelLevelPercentage() : Double.NaN),
+                new AlertRule("SPEED", AlertRule.Direction.ABOVE, speedTrigger, speedClear,
+                        speedMinDurationSeconds * 1000, speedCooldownSeconds * 1000, AlertLevel.MEDIUM,
+                        "Przekroczenie prędkości: %.1f km/h (pojazd %d)",
+                        dto -> dto.getSpeedKmh() != null ? dto.getSpeedKmh() : Double.NaN)
+        };
+
+        // Pojazdy bez pingów wypadają same; aktywny alert zostaje do ręcznego rozwiązania
+        vehicles = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(idleHours))
+                .build();
+        newState = vehicleId -> new VehicleRuleState(rules.length);
+
+        fired = new Counter[rules.length];
+        resolved = new Counter[rules.length];
+        suppressed = new Counter[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            fired[i] = transitions(rules[i], "fired");
+            resolved[i] = transitions(rules[i], "resolved");
+            suppressed[i] = transitions(rules[i], "suppressed");
+        }
+    }
+
+    private Counter transitions(AlertRule rule, String transition) {
+        return Counter.builder("logisticops.tracking.alerts")
+                .tag("rule", rule.type())
+                .tag("transition", transition)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🎯 Oceń pozycję wszystkimi regułami; alert tylko przy zmianie stanu
+     */
+    public void evaluate(VehicleTrackingDTO position) {
+        if (position.getVehicleId() == null) {
+            return;
+        }
+        long at = epochMillis(position.getRecordedAt());
+        VehicleRuleState state = vehicles.get(position.getVehicleId(), newState);
+
+        // Zmiany stanu rzadkie - tworzenie i rozwiązanie alertu pod blokadą pojazdu
+        synchronized (state) {
+            if (at < state.lastAt) {
+                return;
+            }
+            state.lastAt = at;
+            for (int i = 0; i < rules.length; i++) {
+                double value = rules[i].read(position);
+                if (!Double.isNaN(value)) {
+                    step(state, i, value, at, position);
+                }
+            }
+        }
+    }
+
+    private void step(VehicleRuleState state, int i, double value, long at, VehicleTrackingDTO position) {
+        AlertRule rule = rules[i];
+        switch (state.phase[i]) {
+            case NORMAL -> {
+                if (!rule.breached(value)) {
+                    return;
+                }
+                state.phase[i] = PENDING;
+                state.since[i] = at;
+                tryFire(state, i, value, at, position);
+            }
+            case PENDING -> {
+                // Ta sama histereza co w ACTIVE - wahania wokół progu (89 ↔ 91) nie zerują odliczania
+                if (rule.cleared(value)) {
+                    state.phase[i] = NORMAL;
+                } else if (rule.breached(value)) {
+                    tryFire(state, i, value, at, position);
+                }
+            }
+            case ACTIVE -> {
+                if (rule.cleared(value)) {
+                    state.phase[i] = NORMAL;
+                    resolve(state, i, position);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown rule phase " + state.phase[i]);
+        }
+    }
+
+    private void tryFire(VehicleRuleState state, int i, double value, long at, VehicleTrackingDTO position) {
+        AlertRule rule = rules[i];
+        if (at - state.since[i] < rule.minDurationMillis()) {
+            return;
+        }
+        if (state.lastFiredAt[i] != NEVER && at - state.lastFiredAt[i] < rule.cooldownMillis()) {
+            // Warunek trwa, ale alert tej reguły był niedawno - czekamy w PENDING do końca cooldownu
+            suppressed[i].increment();
+            return;
+        }
+
+        state.phase[i] = ACTIVE;
+        state.lastFiredAt[i] = at;
+        fired[i].increment();
+        AlertDTO alert = alertService.createAlert(
+                rule.message(value, position.getVehicleId()),
+                rule.level(),
+                position.getTransportId(),
+                null,
+                rule.type()
+        );
+        state.alertIds[i] = alert.getId() != null ? alert.getId() : 0;
+    }
+
+    private void resolve(VehicleRuleState state, int i, VehicleTrackingDTO position) {
+        long alertId = state.alertIds[i];
+        state.alertIds[i] = 0;
+        resolved[i].increment();
+        if (alertId == 0) {
+            return;
+        }
+        try {
+            alertService.resolveAlert(alertId);
+            log.debug("✅ {} alert {} of vehicle {} resolved automatically", rules[i].type(), alertId,
+                    position.getVehicleId());
+        } catch (IllegalArgumentException e) {
+            // Alert usunięty lub rozwiązany ręcznie w międzyczasie
+            log.debug("Alert {} no longer exists: {}", alertId, e.getMessage());
+        }
+    }
+
+    private static long epochMillis(LocalDateTime recordedAt) {
+        LocalDateTime at = recordedAt != null ? recordedAt : LocalDateTime.now();
+        return at.toEpochSecond(ZoneOffset.UTC) * 1000 + at.getNano() / 1_000_000;
+    }
+}
@@ -1,14 +1,17 @@
 package pl.logistic.logisticops.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.logistic.logisticops.api.ConflatingBroadcaster;
 import pl.logistic.logisticops.dto.*;
 import pl.logistic.logisticops.dto.request.*;
 import pl.logistic.logisticops.enums.TransportStatus;
+import pl.logistic.logisticops.event.TransportStatusChangedEvent;
 import pl.logistic.logisticops.mapper.TransportMapper;
 import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
@@ -31,7 +34,9 @@ public class TransportService {
     private final MissionRepository missionRepository;
     private final VehicleTrackingService trackingService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ConflatingBroadcaster broadcaster;
     private final TransportMapper transportMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<TransportDTO> getAllTransports(Pageable pageable) {
         return transportRepository.findAll(pageable)
@@ -150,6 +155,7 @@ public class TransportService {
 
         transport = transportRepository.save(transport);
         TransportDTO dto = transportMapper.toDTO(transport);
+        eventPublisher.publishEvent(new TransportStatusChangedEvent(id, oldStatus, status));
 
         // Send WebSocket notifications
         messagingTemplate.convertAndSend("/topic/transport/" + id + "/status",
@@ -180,32 +186,33 @@ public class TransportService {
 
         transport = transportRepository.save(transport);
 
-        // Update vehicle tracking for all vehicles in transport
-        if (transport.getVehicles() != null) {
-            for (TransportVehicle tv : transport.getVehicles()) {
-                trackingService.updateVehiclePosition(
-                        id,
-                        tv.getVehicle().getId(),
-                        request.getLatitude(),
-                        request.getLongitude(),
-                        request.getSpeedKmh(),
-                        request.getHeadingDegrees(),
-                        request.getFuelLevelPercentage(),
-                        request.getSensorData()
-                );
-            }
+        // Jeden wsad pozycji i jeden komunikat dla całego konwoju
+        if (transport.getVehicles() != null && !transport.getVehicles().isEmpty()) {
+            List<Long> vehicleIds = transport.getVehicles().stream()
+                    .map(tv -> tv.getVehicle().getId())
+                    .toList();
+            trackingService.updateConvoyPosition(
+                    id,
+                    vehicleIds,
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    request.getSpeedKmh(),
+                    request.getHeadingDegrees(),
+                    request.getFuelLevelPercentage(),
+                    request.getSensorData()
+            );
         }
 
         TransportDTO dto = transportMapper.toDTO(transport);
 
-        // Send real-time location update
-        messagingTemplate.convertAndSend("/topic/transport/" + id + "/location",
-                Map.of(
-                        "latitude", request.getLatitude(),
-                        "longitude", request.getLongitude(),
-                        "progress", request.getProgressPercentage(),
-                        "timestamp", System.currentTimeMillis()
-                ));
+        // Real-time location update (ostatni stan co takt wysyłki)
+        broadcaster.publish("/topic/transport/" + id + "/location",
+                TransportLocationDTO.builder()
+                        .latitude(request.getLatitude())
+                        .longitude(request.getLongitude())
+                        .progress(request.getProgressPercentage())
+                        .timestamp(System.currentTimeMillis())
+                        .build());
 
         return dto;
     }
@@ -222,6 +229,7 @@ public class TransportService {
         routeRepository.save(route);
 
         // Update transport
+        TransportStatus oldStatus = transport.getStatus();
         transport.setApprovedRoute(route);
         transport.setStatus(TransportStatus.APPROVED);
         transport.setDistanceRemainingKm(route.getTotalDistanceKm());
@@ -231,6 +239,7 @@ public class TransportService {
         }
 
         transport = transportRepository.save(transport);
+        eventPublisher.publishEvent(new TransportStatusChangedEvent(transportId, oldStatus, TransportStatus.APPROVED));
 
         TransportDTO dto = transportMapper.toDTO(transport);
 
@@ -1,13 +1,22 @@
 package pl.logistic.logisticops.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.api.ConflatingBroadcaster;
+import pl.logistic.logisticops.dto.ConvoyPositionDTO;
+import pl.logistic.logisticops.dto.ConvoyVehicleDTO;
 import pl.logistic.logisticops.dto.VehicleTrackingDTO;
-import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
 import pl.logistic.logisticops.mapper.VehicleTrackingMapper;
-import pl.logistic.logisticops.model.*;
 import pl.logistic.logisticops.repository.*;
+import pl.logistic.logisticops.tracking.LatestPositionStore;
+import pl.logistic.logisticops.tracking.TrackingBatchWriter;
+import pl.logistic.logisticops.tracking.TrackingIngestionPipeline;
+import pl.logistic.logisticops.tracking.TrackingPing;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,74 +24,147 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class VehicleTrackingService {
 
     private final VehicleTrackingRepository trackingRepository;
-    private final TransportRepository transportRepository;
-    private final VehicleSpecificationRepository vehicleRepository;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final AlertService alertService;
+    private final TrackingAlertService trackingAlertService;
     private final VehicleTrackingMapper trackingMapper;
-
+    private final TrackingIngestionPipeline ingestionPipeline;
+    private final LatestPositionStore latestPositionStore;
+    private final TrackingBatchWriter batchWriter;
+    private final ConflatingBroadcaster broadcaster;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.limits.tracking-history-days:30}")
+    private int trackingHistoryDays;
+
+    /**
+     * 📥 Przyjmij pozycję do potoku zapisu - zapis, broadcast i alerty odbywają się
+     * wsadowo po zapisie (onPositionsPersisted); zwrócone DTO nie ma jeszcze id
+     *
+     * Istnienie transportu i pojazdu sprawdzane jest wsadowo przy zapisie, więc pierwsza
+     * pozycja z nieznanym id jest przyjmowana (200) i pomijana przy zapisie
+     * (logisticops.tracking.ingest.pings{result=unknown}). Kolejne pozycje z tym id
+     * są odrzucane od razu (IllegalArgumentException - 400), dopóki zapis pamięta brak.
+     */
     public VehicleTrackingDTO updateVehiclePosition(Long transportId, Long vehicleId,
                                                     Double latitude, Double longitude,
                                                     Double speed, Integer heading,
                                                     Double fuelLevel, String sensorData) {
 
-        Transport transport = transportRepository.findById(transportId)
-                .orElseThrow(() -> new IllegalArgumentException("Transport not found"));
+        batchWriter.rejectKnownMissing(transportId, vehicleId);
 
-        VehicleSpecification vehicle = vehicleRepository.findById(vehicleId)
-                .orElseThrow(() -> new IllegalArgumentException("Vehicle not found"));
+        TrackingPing ping = TrackingPing.of(transportId, vehicleId, latitude, longitude,
+                speed, heading, fuelLevel, sensorData, LocalDateTime.now());
+        ingestionPipeline.submit(ping);
 
-        VehicleTracking tracking = VehicleTracking.builder()
-                .transport(transport)
-                .vehicle(vehicle)
+        return VehicleTrackingDTO.builder()
+                .transportId(transportId)
+                .vehicleId(vehicleId)
                 .latitude(latitude)
                 .longitude(longitude)
                 .speedKmh(speed)
                 .headingDegrees(heading)
                 .fuelLevelPercentage(fuelLevel)
                 .sensorData(sensorData)
-                .recordedAt(LocalDateTime.now())
+                .recordedAt(ping.recordedAt())
                 .build();
+    }
 
-        tracking = trackingRepository.save(tracking);
-
-        VehicleTrackingDTO dto = trackingMapper.toDTO(tracking);
+    /**
+     * 🚛 Wspólna pozycja wszystkich pojazdów konwoju
+     *
+     * Wiersze zapisywane od razu jednym wsadem JDBC (w transakcji wywołującego), bez kolejki
+     * potoku - konwój nie zostanie rozdzielony między wsady. Po commicie komunikat zbiorczy
+     * (/convoy), dotychczasowe komunikaty per pojazd na /tracking transportu i jedno
+     * sprawdzenie alertów (onPositionsPersisted). Pojazdy nieistniejące są pomijane.
+     */
+    public List<VehicleTrackingDTO> updateConvoyPosition(Long transportId, List<Long> vehicleIds,
+                                                         Double latitude, Double longitude,
+                                                         Double speed, Integer heading,
+                                                         Double fuelLevel, String sensorData) {
+        LocalDateTime recordedAt = LocalDateTime.now();
+        List<TrackingPing> pings = vehicleIds.stream()
+                .map(vehicleId -> TrackingPing.of(transportId, vehicleId, latitude, longitude,
+                        speed, heading, fuelLevel, sensorData, recordedAt))
+                .toList();
+
+        List<VehicleTrackingDTO> rows = batchWriter.resolve(pings);
+        if (!rows.isEmpty()) {
+            batchWriter.insert(rows);
+            eventPublisher.publishEvent(VehiclePositionsPersistedEvent.convoy(transportId, rows));
+        }
+        return rows;
+    }
 
-        // Send real-time update
-        messagingTemplate.convertAndSend("/topic/vehicle/" + vehicleId + "/tracking", dto);
-        messagingTemplate.convertAndSend("/topic/transport/" + transportId + "/tracking", dto);
+    /**
+     * 📡 Zapisany wsad: real-time update i sprawdzenie alertów
+     *
+     * Pozycje idą przez ConflatingBroadcaster - do klienta trafia ostatni stan co takt wysyłki.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsPersisted(VehiclePositionsPersistedEvent event) {
+        if (event.isConvoy()) {
+            publishConvoy(event.getConvoyTransportId(), event.getPositions());
+            return;
+        }
+        for (VehicleTrackingDTO dto : event.getPositions()) {
+            try {
+                sendToVehicleTopic(dto);
+                sendToTransportTopic(dto);
+
+                checkTrackingAlerts(dto);
+            } catch (RuntimeException e) {
+                log.error("❌ Error publishing tracking update for vehicle {}", dto.getVehicleId(), e);
+            }
+        }
+    }
 
-        // Check for alerts
-        checkTrackingAlerts(tracking, transportId);
+    private void publishConvoy(Long transportId, List<VehicleTrackingDTO> positions) {
+        try {
+            VehicleTrackingDTO lead = positions.get(0);
+            ConvoyPositionDTO convoy = ConvoyPositionDTO.builder()
+                    .transportId(transportId)
+                    .latitude(lead.getLatitude())
+                    .longitude(lead.getLongitude())
+                    .speedKmh(lead.getSpeedKmh())
+                    .headingDegrees(lead.getHeadingDegrees())
+                    .fuelLevelPercentage(lead.getFuelLevelPercentage())
+                    .recordedAt(lead.getRecordedAt())
+                    .vehicles(positions.stream()
+                            .map(dto -> ConvoyVehicleDTO.builder()
+                                    .trackingId(dto.getId())
+                                    .vehicleId(dto.getVehicleId())
+                                    .vehicleModel(dto.getVehicleModel())
+                                    .build())
+                            .toList())
+                    .build();
+            broadcaster.publish("/topic/transport/" + transportId + "/convoy", convoy);
+            // Klienci /tracking transportu dostają konwój jak dotąd - pozycja każdego pojazdu
+            positions.forEach(dto -> {
+                sendToVehicleTopic(dto);
+                sendToTransportTopic(dto);
+            });
+
+            // Wspólne paliwo i prędkość - jeden alert na konwój, nie na pojazd
+            checkTrackingAlerts(lead);
+        } catch (RuntimeException e) {
+            log.error("❌ Error publishing convoy update for transport {}", transportId, e);
+        }
+    }
 
-        return dto;
+    private void sendToVehicleTopic(VehicleTrackingDTO dto) {
+        broadcaster.publish("/topic/vehicle/" + dto.getVehicleId() + "/tracking", dto);
     }
 
-    private void checkTrackingAlerts(VehicleTracking tracking, Long transportId) {
-        // Check fuel level
-        if (tracking.getFuelLevelPercentage() != null && tracking.getFuelLevelPercentage() < 20) {
-            alertService.createAlert(
-                    "Niski poziom paliwa: " + tracking.getFuelLevelPercentage() + "%",
-                    AlertLevel.MEDIUM,
-                    transportId,
-                    null,
-                    "FUEL"
-            );
-        }
+    private void sendToTransportTopic(VehicleTrackingDTO dto) {
+        broadcaster.publish("/topic/transport/" + dto.getTransportId() + "/tracking", dto.getVehicleId(), dto);
+    }
 
-        // Check speed
-        if (tracking.getSpeedKmh() != null && tracking.getSpeedKmh() > 90) {
-            alertService.createAlert(
-                    "Przekroczenie prędkości: " + tracking.getSpeedKmh() + " km/h",
-                    AlertLevel.MEDIUM,
-                    transportId,
-                    null,
-                    "SPEED"
-            );
-        }
+    private void checkTrackingAlerts(VehicleTrackingDTO tracking) {
+        // Paliwo i prędkość: alert przy wejściu w stan, rozwiązanie przy wyjściu (TrackingAlertService)
+        trackingAlertService.evaluate(tracking);
     }
 
     public List<VehicleTrackingDTO> getVehicleHistory(Long vehicleId, LocalDateTime from, LocalDateTime to) {
@@ -93,10 +175,16 @@ public class VehicleTrackingService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 📍 Ostatnie pozycje pojazdów transportu - z pamięci; baza tylko dla transportów,
+     * których magazyn nie zna (zakończone, bez pozycji), w granicach retencji historii
+     */
     public List<VehicleTrackingDTO> getTransportTracking(Long transportId) {
-        return trackingRepository.findLatestByTransportId(transportId)
-                .stream()
-                .map(trackingMapper::toDTO)
-                .collect(Collectors.toList());
+        return latestPositionStore.findByTransport(transportId)
+                .orElseGet(() -> trackingRepository.findLatestByTransportId(
+                                transportId, LocalDateTime.now().minusDays(trackingHistoryDays))
+                        .stream()
+                        .map(trackingMapper::toDTO)
+                        .collect(Collectors.toList()));
     }
 }
@@ -0,0 +1,91 @@
+package pl.logistic.logisticops.tracking;
+
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 📏 Progowa reguła alertu śledzenia z histerezą
+ *
+ * Warunek wchodzi po przekroczeniu progu trigger, a ustępuje dopiero po powrocie
+ * za próg clear - wartości pomiędzy nie zmieniają stanu (brak migotania na granicy).
+ * Alert pada, gdy warunek trwa co najmniej minDurationMillis, i nie częściej niż
+ * raz na cooldownMillis dla danego pojazdu.
+ */
+public final class AlertRule {
+
+    public enum Direction {
+        /** Alert gdy wartość rośnie ponad próg (np. prędkość) */
+        ABOVE,
+        /** Alert gdy wartość spada poniżej progu (np. paliwo) */
+        BELOW
+    }
+
+    private final String type;
+    private final Direction direction;
+    private final double trigger;
+    private final double clear;
+    private final long minDurationMillis;
+    private final long cooldownMillis;
+    private final AlertLevel level;
+    private final String messageFormat;
+    private final ToDoubleFunction<VehicleTrackingDTO> metric;
+
+    /**
+     * @param messageFormat wzorzec String.format z wartością (%f) i id pojazdu (%d)
+     * @param metric        odczyt wartości z pozycji; NaN gdy brak danych
+     * @throws IllegalArgumentException gdy próg clear leży po złej stronie progu trigger
+     */
+    public AlertRule(String type, Direction direction, double trigger, double clear,
+                     long minDurationMillis, long cooldownMillis, AlertLevel level,
+                     String messageFormat, ToDoubleFunction<VehicleTrackingDTO> metric) {
+        if (direction == Direction.ABOVE ? clear > trigger : clear < trigger) {
+            throw new IllegalArgumentException("Clear threshold of rule " + type + " must be on the safe side of trigger");
+        }
+        if (minDurationMillis < 0 || cooldownMillis < 0) {
+            throw new IllegalArgumentException("Durations of rule " + type + " cannot be negative");
+        }
+        this.type = type;
+        this.direction = direction;
+        this.trigger = trigger;
+        this.clear = clear;
+        this.minDurationMillis = minDurationMillis;
+        this.cooldownMillis = cooldownMillis;
+        this.level = level;
+        this.messageFormat = messageFormat;
+        this.metric = metric;
+    }
+
+    public double read(VehicleTrackingDTO position) {
+        return metric.applyAsDouble(position);
+    }
+
+    public boolean breached(double value) {
+        return direction == Direction.ABOVE ? value > trigger : value < trigger;
+    }
+
+    public boolean cleared(double value) {
+        return direction == Direction.ABOVE ? value <= clear : value >= clear;
+    }
+
+    public String message(double value, Long vehicleId) {
+        return String.format(messageFormat, value, vehicleId);
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public long minDurationMillis() {
+        return minDurationMillis;
+    }
+
+    public long cooldownMillis() {
+        return cooldownMillis;
+    }
+
+    public AlertLevel level() {
+        return level;
+    }
+}
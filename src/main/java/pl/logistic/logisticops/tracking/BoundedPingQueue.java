@@ -0,0 +1,75 @@
+package pl.logistic.logisticops.tracking;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 📥 Ograniczona kolejka bez blokad (wielu producentów, jeden konsument)
+ *
+ * Miejsce rezerwowane jest licznikiem CAS przed wstawieniem do ConcurrentLinkedQueue,
+ * więc liczba elementów nigdy nie przekracza pojemności, a producenci się nie blokują.
+ */
+final class BoundedPingQueue {
+
+    private final ConcurrentLinkedQueue<TrackingPing> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    BoundedPingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return liczba elementów po wstawieniu albo -1 gdy brak miejsca
+     */
+    int offer(TrackingPing ping) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return -1;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        queue.offer(ping);
+        return current + 1;
+    }
+
+    /**
+     * Usuń najstarszy element (polityka DROP_OLDEST); false gdy kolejka pusta
+     */
+    boolean evictOldest() {
+        return poll() != null;
+    }
+
+    TrackingPing poll() {
+        TrackingPing ping = queue.poll();
+        if (ping != null) {
+            size.decrementAndGet();
+        }
+        return ping;
+    }
+
+    int drainTo(List<TrackingPing> target, int max) {
+        int drained = 0;
+        while (drained < max) {
+            TrackingPing ping = poll();
+            if (ping == null) break;
+            target.add(ping);
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,47 @@
+package pl.logistic.logisticops.tracking;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * 🧱 Pula buforów direct o stałym rozmiarze (ograniczona liczba)
+ *
+ * Bufory alokowane leniwie i nigdy nie zwalniane - alokacja direct jest kosztowna,
+ * a liczba buforów ograniczona pojemnością puli. Nie jest bezpieczna wątkowo
+ * (używa jej tylko wątek selektora).
+ */
+final class DirectBufferPool {
+
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private final int bufferSize;
+    private final int capacity;
+    private int allocated;
+
+    DirectBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return wyczyszczony bufor albo null gdy pula wyczerpana
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        if (buffer == null) {
+            if (allocated >= capacity) {
+                return null;
+            }
+            allocated++;
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer.clear();
+    }
+
+    void release(ByteBuffer buffer) {
+        free.offerFirst(buffer.clear());
+    }
+
+    int inUse() {
+        return allocated - free.size();
+    }
+}
@@ -0,0 +1,60 @@
+package pl.logistic.logisticops.tracking;
+
+import pl.logistic.logisticops.model.GpsPosition;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+/**
+ * 📻 Zdekodowana ramka pozycji terminala polowego
+ *
+ * Obiekt wielokrotnego użytku - GpsFrameCodec nadpisuje pola przy każdej ramce, więc
+ * dekodowanie nie alokuje. Wartości skalowane jak w ramce (GpsFrameCodec).
+ */
+final class GpsFrame {
+
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    int deviceType;
+    int deviceSerial;
+    long transportId;
+    long vehicleId;
+    int latitudeE7;
+    int longitudeE7;
+    int speedDeciKmh;
+    int headingDegrees;
+    int accuracyDm;
+    long timestampMillis;
+
+    double latitude() {
+        return latitudeE7 / GpsFrameCodec.COORDINATE_SCALE;
+    }
+
+    double longitude() {
+        return longitudeE7 / GpsFrameCodec.COORDINATE_SCALE;
+    }
+
+    /**
+     * Identyfikator w formacie rejestru urządzeń, np. GTX-0000A1F3
+     */
+    String deviceId() {
+        return GpsFrameCodec.DEVICE_TYPES[deviceType] + "-" + HEX.toHexDigits(deviceSerial);
+    }
+
+    GpsPosition toPosition(ZoneId zone) {
+        return GpsPosition.builder()
+                .latitude(latitude())
+                .longitude(longitude())
+                .speed(speedDeciKmh == GpsFrameCodec.UNKNOWN ? null : speedDeciKmh / 10.0)
+                .heading(headingDegrees == GpsFrameCodec.UNKNOWN ? null : headingDegrees)
+                .accuracy(accuracyDm == GpsFrameCodec.UNKNOWN ? null : accuracyDm / 10.0)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), zone))
+                .vehicleId(vehicleId)
+                .transportId(transportId)
+                .deviceId(deviceId())
+                .securityLevel("MILITARY")
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package pl.logistic.logisticops.tracking;
+
+import pl.logistic.logisticops.service.MilitaryDeviceRegistry;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 📦 Binarna ramka pozycji terminala polowego (stały układ, big-endian, 62 B)
+ *
+ * <pre>
+ *  0  u16  magic 0x4C47 ("LG")
+ *  2  u8   wersja (2)
+ *  3  u8   typ urządzenia: 0 = GTX, 1 = DAGR, 2 = SOTAS
+ *  4  u32  numer seryjny urządzenia
+ *  8  i64  id transportu
+ * 16  i64  id pojazdu
+ * 24  i32  szerokość × 10^7
+ * 28  i32  długość × 10^7
+ * 32  u16  prędkość × 10 km/h     (0xFFFF = brak)
+ * 34  u16  kurs w stopniach       (0xFFFF = brak)
+ * 36  u16  dokładność × 10 m      (0xFFFF = brak)
+ * 38  i64  czas GPS, ms od epoki UTC
+ * 46  16B  HMAC-SHA256 bajtów 0..45 kluczem urządzenia, obcięty do 128 bitów
+ * </pre>
+ *
+ * Ramka nie niesie certyfikatu - autentyczność i integralność zapewnia MAC kluczem
+ * wgranym do terminala przy rejestracji (military_devices.frame_key). Wersja 1 (CRC32C
+ * bez klucza) jest odrzucana jak zły nagłówek.
+ *
+ * Odczyty absolutne z bufora (pozycja bufora się nie zmienia) - bez alokacji.
+ */
+final class GpsFrameCodec {
+
+    static final int FRAME_SIZE = 62;
+    static final short MAGIC = 0x4C47;
+    static final byte VERSION = 2;
+    static final double COORDINATE_SCALE = 1e7;
+    static final int UNKNOWN = 0xFFFF;
+    static final String[] DEVICE_TYPES = {"GTX", "DAGR", "SOTAS"};
+
+    private static final int MAC_OFFSET = 46;
+    private static final int MAC_SIZE = 16;
+
+    enum Status {
+        OK,
+        /** Zły magic/wersja - strumień rozsynchronizowany */
+        BAD_HEADER,
+        /** Wartości poza zakresem */
+        BAD_VALUE
+    }
+
+    /**
+     * 🔏 MAC ramek - jeden na wątek (Mac nie jest bezpieczny wątkowo), bez alokacji na ramkę
+     */
+    static final class Authenticator {
+
+        private final Mac mac;
+        private final byte[] digest;
+
+        Authenticator() {
+            try {
+                mac = Mac.getInstance(MilitaryDeviceRegistry.FRAME_KEY_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("No " + MilitaryDeviceRegistry.FRAME_KEY_ALGORITHM + " provider", e);
+            }
+            digest = new byte[mac.getMacLength()];
+        }
+
+        /**
+         * Czy MAC ramki zaczynającej się na offset zgadza się z kluczem urządzenia (porównanie w stałym czasie)
+         */
+        boolean verify(ByteBuffer buffer, int offset, SecretKey key) {
+            compute(buffer, offset, key);
+            int difference = 0;
+            for (int i = 0; i < MAC_SIZE; i++) {
+                difference |= digest[i] ^ buffer.get(offset + MAC_OFFSET + i);
+            }
+            return difference == 0;
+        }
+
+        private void compute(ByteBuffer buffer, int offset, SecretKey key) {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            try {
+                mac.init(key);
+                buffer.limit(offset + MAC_OFFSET).position(offset);
+                mac.update(buffer);
+                mac.doFinal(digest, 0);
+            } catch (InvalidKeyException e) {
+                throw new IllegalArgumentException("Invalid frame key", e);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                buffer.limit(limit).position(position);
+            }
+        }
+    }
+
+    private GpsFrameCodec() {
+    }
+
+    /**
+     * Dekoduj ramkę zaczynającą się na offset (bufor musi mieć FRAME_SIZE bajtów od offset);
+     * MAC sprawdza Authenticator.verify kluczem urządzenia z ramki
+     */
+    static Status decode(ByteBuffer buffer, int offset, GpsFrame frame) {
+        if (buffer.getShort(offset) != MAGIC || buffer.get(offset + 2) != VERSION) {
+            return Status.BAD_HEADER;
+        }
+
+        frame.deviceType = Byte.toUnsignedInt(buffer.get(offset + 3));
+        frame.deviceSerial = buffer.getInt(offset + 4);
+        frame.transportId = buffer.getLong(offset + 8);
+        frame.vehicleId = buffer.getLong(offset + 16);
+        frame.latitudeE7 = buffer.getInt(offset + 24);
+        frame.longitudeE7 = buffer.getInt(offset + 28);
+        frame.speedDeciKmh = Short.toUnsignedInt(buffer.getShort(offset + 32));
+        frame.headingDegrees = Short.toUnsignedInt(buffer.getShort(offset + 34));
+        frame.accuracyDm = Short.toUnsignedInt(buffer.getShort(offset + 36));
+        frame.timestampMillis = buffer.getLong(offset + 38);
+
+        boolean valid = frame.deviceType < DEVICE_TYPES.length
+                && frame.transportId > 0 && frame.vehicleId > 0
+                && Math.abs(frame.latitudeE7) <= 90 * COORDINATE_SCALE
+                && Math.abs(frame.longitudeE7) <= 180 * COORDINATE_SCALE
+                && (frame.headingDegrees < 360 || frame.headingDegrees == UNKNOWN);
+        return valid ? Status.OK : Status.BAD_VALUE;
+    }
+
+    /**
+     * Zapisz ramkę podpisaną kluczem urządzenia od bieżącej pozycji bufora (przesuwa pozycję o FRAME_SIZE)
+     */
+    static void encode(GpsFrame frame, ByteBuffer buffer, Authenticator authenticator, SecretKey key) {
+        int offset = buffer.position();
+        buffer.putShort(MAGIC)
+                .put(VERSION)
+                .put((byte) frame.deviceType)
+                .putInt(frame.deviceSerial)
+                .putLong(frame.transportId)
+                .putLong(frame.vehicleId)
+                .putInt(frame.latitudeE7)
+                .putInt(frame.longitudeE7)
+                .putShort((short) frame.speedDeciKmh)
+                .putShort((short) frame.headingDegrees)
+                .putShort((short) frame.accuracyDm)
+                .putLong(frame.timestampMillis);
+        authenticator.compute(buffer, offset, key);
+        buffer.put(authenticator.digest, 0, MAC_SIZE);
+    }
+}
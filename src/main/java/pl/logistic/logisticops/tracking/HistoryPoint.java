@@ -0,0 +1,23 @@
+package pl.logistic.logisticops.tracking;
+
+import java.time.LocalDateTime;
+
+/**
+ * 📍 Wierzchołek historii trasy pojazdu
+ *
+ * @param stop        postój (sekwencja pozycji z prędkością ≤ progu) zwinięty do jednego punktu
+ * @param stopSeconds czas trwania postoju; 0 dla zwykłych punktów
+ */
+public record HistoryPoint(double latitude, double longitude, LocalDateTime recordedAt,
+                           Double speedKmh, Integer headingDegrees,
+                           boolean stop, long stopSeconds) {
+
+    public static HistoryPoint of(double latitude, double longitude, LocalDateTime recordedAt,
+                                  Double speedKmh, Integer headingDegrees) {
+        return new HistoryPoint(latitude, longitude, recordedAt, speedKmh, headingDegrees, false, 0);
+    }
+
+    HistoryPoint asStop(long seconds) {
+        return new HistoryPoint(latitude, longitude, recordedAt, speedKmh, headingDegrees, true, seconds);
+    }
+}
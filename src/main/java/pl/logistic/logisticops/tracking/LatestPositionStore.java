@@ -0,0 +1,188 @@
+package pl.logistic.logisticops.tracking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.event.TransportStatusChangedEvent;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
+import pl.logistic.logisticops.geo.BoundingBox;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📍 Ostatnie pozycje pojazdów w pamięci (per transport i per pojazd)
+ *
+ * Zasilane każdym zapisanym wsadem potoku śledzenia, przy starcie wypełniane jednym
+ * zapytaniem okienkowym (ROW_NUMBER per transport/pojazd) dla niezakończonych transportów.
+ * Pozycja starsza od zapamiętanej jest ignorowana, więc kolejność zdarzeń nie ma znaczenia.
+ * Zakończenie/anulowanie transportu usuwa jego wpisy; wsad zapisany już po zakończeniu
+ * (spóźniony w potoku) nie zakłada ich ponownie.
+ *
+ * Odczyty nie dotykają bazy; zwrócone DTO są współdzielone - tylko do odczytu.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LatestPositionStore {
+
+    private static final String SEED_SQL = """
+            SELECT id, transport_id, vehicle_id, vehicle_model, latitude, longitude, speed_kmh,
+                   heading_degrees, fuel_level_percentage, sensor_data, recorded_at
+            FROM (SELECT vt.*, vs.model AS vehicle_model,
+                         ROW_NUMBER() OVER (PARTITION BY vt.transport_id, vt.vehicle_id
+                                            ORDER BY vt.recorded_at DESC, vt.id DESC) AS position_rank
+                  FROM vehicle_tracking vt
+                  JOIN transports t ON t.id = vt.transport_id
+                  JOIN vehicle_specifications vs ON vs.id = vt.vehicle_id
+                  WHERE t.status NOT IN ('COMPLETED', 'CANCELLED')) ranked
+            WHERE position_rank = 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Map<Long, VehicleTrackingDTO>> byTransport = new ConcurrentHashMap<>();
+    private final Map<Long, VehicleTrackingDTO> byVehicle = new ConcurrentHashMap<>();
+    // Transporty zakończone od startu - ich spóźnione pozycje są pomijane
+    private final Cache<Long, Boolean> finishedTransports = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+    private volatile boolean seeded;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("logisticops.tracking.latest.vehicles", byVehicle, Map::size)
+                .description("Pojazdy z ostatnią pozycją w pamięci")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 🌱 Wypełnij magazyn ostatnimi pozycjami niezakończonych transportów
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long started = System.currentTimeMillis();
+        try {
+            List<VehicleTrackingDTO> latest = jdbcTemplate.query(SEED_SQL, (rs, rowNum) -> toDto(rs));
+            latest.forEach(this::update);
+            seeded = true;
+            log.info("📍 Latest positions seeded: {} vehicles in {} transports ({} ms)",
+                    byVehicle.size(), byTransport.size(), System.currentTimeMillis() - started);
+        } catch (DataAccessException e) {
+            log.error("❌ Failed to seed latest positions, reads fall back to the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Zapamiętaj pozycję, o ile nie jest starsza od znanej
+     */
+    public void update(VehicleTrackingDTO position) {
+        Long transportId = position.getTransportId();
+        if (finishedTransports.getIfPresent(transportId) != null) {
+            return;
+        }
+        byTransport.computeIfAbsent(transportId, id -> new ConcurrentHashMap<>())
+                .merge(position.getVehicleId(), position, LatestPositionStore::newer);
+        byVehicle.merge(position.getVehicleId(), position, LatestPositionStore::newer);
+
+        // Transport zakończony w trakcie zapisu - sprzątanie mogło już minąć
+        if (finishedTransports.getIfPresent(transportId) != null) {
+            release(transportId);
+        }
+    }
+
+    /**
+     * 🚚 Ostatnie pozycje pojazdów transportu; pusty Optional gdy magazyn nie zna transportu
+     * (niewypełniony, transport zakończony lub bez pozycji) - wtedy decyduje baza
+     */
+    public Optional<List<VehicleTrackingDTO>> findByTransport(Long transportId) {
+        Map<Long, VehicleTrackingDTO> vehicles = byTransport.get(transportId);
+        if (!seeded || vehicles == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ArrayList<>(vehicles.values()));
+    }
+
+    /**
+     * 🗺️ Ostatnie pozycje pojazdów w prostokącie (przegląd całego magazynu - do migawek, nie na ping)
+     */
+    public List<VehicleTrackingDTO> findInBox(BoundingBox box) {
+        List<VehicleTrackingDTO> result = new ArrayList<>();
+        for (VehicleTrackingDTO position : byVehicle.values()) {
+            if (position.getLatitude() != null && position.getLongitude() != null
+                    && box.contains(position.getLatitude(), position.getLongitude())) {
+                result.add(position);
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsPersisted(VehiclePositionsPersistedEvent event) {
+        event.getPositions().forEach(this::update);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransportStatusChanged(TransportStatusChangedEvent event) {
+        if (!event.isFinished()) {
+            // Transport wznowiony - znów przyjmuje pozycje
+            finishedTransports.invalidate(event.getTransportId());
+            return;
+        }
+        // Najpierw znacznik, potem sprzątanie - update() sprawdza znacznik po swoim zapisie
+        finishedTransports.put(event.getTransportId(), Boolean.TRUE);
+        int released = release(event.getTransportId());
+        if (released > 0) {
+            log.debug("📍 Released latest positions of transport {} ({} vehicles)", event.getTransportId(), released);
+        }
+    }
+
+    private int release(Long transportId) {
+        Map<Long, VehicleTrackingDTO> removed = byTransport.remove(transportId);
+        if (removed == null) {
+            return 0;
+        }
+        // Pojazd mógł już raportować w innym transporcie - usuń tylko wpis z tego
+        removed.forEach(byVehicle::remove);
+        return removed.size();
+    }
+
+    private static VehicleTrackingDTO newer(VehicleTrackingDTO current, VehicleTrackingDTO candidate) {
+        return candidate.getRecordedAt().isBefore(current.getRecordedAt()) ? current : candidate;
+    }
+
+    private static VehicleTrackingDTO toDto(ResultSet rs) throws SQLException {
+        return VehicleTrackingDTO.builder()
+                .id(rs.getLong("id"))
+                .transportId(rs.getLong("transport_id"))
+                .vehicleId(rs.getLong("vehicle_id"))
+                .vehicleModel(rs.getString("vehicle_model"))
+                .latitude(rs.getDouble("latitude"))
+                .longitude(rs.getDouble("longitude"))
+                .speedKmh(rs.getObject("speed_kmh", Double.class))
+                .headingDegrees(rs.getObject("heading_degrees", Integer.class))
+                .fuelLevelPercentage(rs.getObject("fuel_level_percentage", Double.class))
+                .sensorData(rs.getString("sensor_data"))
+                .recordedAt(rs.getTimestamp("recorded_at").toLocalDateTime())
+                .build();
+    }
+}
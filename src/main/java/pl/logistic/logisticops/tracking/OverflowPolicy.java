@@ -0,0 +1,15 @@
+package pl.logistic.logisticops.tracking;
+
+/**
+ * 🚦 Zachowanie potoku przy pełnej kolejce pozycji
+ */
+public enum OverflowPolicy {
+    /** Odrzuć nową pozycję - nadawca dostaje 503 i ponawia */
+    REJECT,
+    /** Przyjmij i po cichu porzuć nową pozycję */
+    DROP_NEWEST,
+    /** Porzuć najstarszą oczekującą pozycję (najświeższe dane wygrywają) */
+    DROP_OLDEST,
+    /** Czekaj na miejsce do block-timeout-ms, potem odrzuć */
+    BLOCK
+}
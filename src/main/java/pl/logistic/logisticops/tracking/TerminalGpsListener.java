@@ -0,0 +1,585 @@
+package pl.logistic.logisticops.tracking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pl.logistic.logisticops.enums.GpsRecordStatus;
+import pl.logistic.logisticops.model.GpsPosition;
+import pl.logistic.logisticops.service.MilitaryDeviceRegistry;
+import pl.logistic.logisticops.service.MilitaryDeviceRegistry.DeviceBinding;
+import pl.logistic.logisticops.service.MilitaryGpsIntegrationService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 📻 ODBIORNIK BINARNY TERMINALI POLOWYCH (TCP + UDP, NIO)
+ *
+ * Jeden wątek selektora obsługuje połączenia TCP (strumień ramek GpsFrameCodec) i datagramy
+ * UDP (jedna lub więcej ramek w datagramie). Ramki dekodowane wprost z buforów direct z puli
+ * (jeden bufor na połączenie, ramka niepełna czeka na resztę), bez HTTP, JSON i dispatchu MVC.
+ * Każda ramka podpisana jest kluczem HMAC swojego urządzenia (rejestr urządzeń, frame_key) -
+ * ramka nieznanego urządzenia, bez klucza lub ze złym MAC to unauthorized_device.
+ * UDP nie wymaga połączenia, więc ramki z nieznanym id urządzenia są tylko liczone;
+ * alert bezpieczeństwa (ograniczony w czasie per urządzenie) dotyczy wyłącznie
+ * urządzeń z rejestru, których ramka została odrzucona.
+ * Wątek selektora tylko przekazuje pozycje do potoku zapisu
+ * (MilitaryGpsIntegrationService.admitTerminalPosition - rejestr i kolejka w pamięci);
+ * przyjęte pozycje z jednego obrotu selektora idą jednym zadaniem do wątku roboczego
+ * (processTerminalPositions - geofencing, pozycja transportu, alerty), więc baza nie
+ * blokuje żadnego połączenia.
+ *
+ * Backpressure: gdy kolejka zapisu jest pełna (lub wątek roboczy ma max-pending-batches
+ * zadań), źródło przestaje być czytane (OP_READ zdjęte), a nieprzekazane ramki zostają
+ * w jego buforze. Co backpressure-pause-ms selektor ponawia przekazanie i po opróżnieniu
+ * bufora wznawia odczyt - TCP spowalnia nadawcę oknem, nadmiar UDP odrzuca jądro.
+ * Zły nagłówek w strumieniu TCP = rozsynchronizowanie, połączenie jest zamykane.
+ *
+ * Metryki:
+ * - logisticops.tracking.terminal.frames{result=accepted|dropped|invalid|unauthorized_device|corrupt}
+ * - logisticops.tracking.terminal.frames{result=retry_later} - wstrzymania odczytu źródła
+ * - logisticops.tracking.terminal.connections, logisticops.tracking.terminal.connections.refused
+ * - logisticops.tracking.terminal.worker.backlog (zadania czekające na wątek roboczy)
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracking.terminal.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TerminalGpsListener implements SmartLifecycle {
+
+    private static final long SELECT_TIMEOUT_MS = 1_000;
+    private static final int MAX_DATAGRAMS_PER_WAKEUP = 1_024;
+
+    private final MilitaryGpsIntegrationService militaryGpsService;
+    private final MilitaryDeviceRegistry deviceRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.tracking.terminal.bind-address:0.0.0.0}")
+    private String bindAddress;
+
+    @Value("${app.tracking.terminal.tcp-port:5055}")
+    private int tcpPort;
+
+    @Value("${app.tracking.terminal.udp-port:5056}")
+    private int udpPort;
+
+    @Value("${app.tracking.terminal.buffer-size:16384}")
+    private int bufferSize;
+
+    @Value("${app.tracking.terminal.udp-receive-buffer-bytes:4194304}")
+    private int udpReceiveBufferBytes;
+
+    @Value("${app.tracking.terminal.max-connections:256}")
+    private int maxConnections;
+
+    @Value("${app.tracking.terminal.idle-timeout-seconds:300}")
+    private long idleTimeoutSeconds;
+
+    @Value("${app.tracking.terminal.backpressure-pause-ms:50}")
+    private long backpressurePauseMs;
+
+    @Value("${app.tracking.terminal.max-pending-batches:64}")
+    private int maxPendingBatches;
+
+    /**
+     * Wynik przekazania ramek z bufora
+     */
+    private enum Handoff {
+        /** Wszystkie pełne ramki przekazane */
+        DONE,
+        /** Kolejka pełna - bufor stoi na pierwszej nieprzekazanej ramce */
+        RETRY_LATER,
+        /** Zły nagłówek - dalsze bajty nie są wyrównane do ramek */
+        OUT_OF_SYNC
+    }
+
+    // Stan wątku selektora
+    private final GpsFrame frame = new GpsFrame();
+    private final GpsFrameCodec.Authenticator authenticator = new GpsFrameCodec.Authenticator();
+    private final List<GpsPosition> accepted = new ArrayList<>();
+    private final Set<String> unauthorizedDevices = new HashSet<>();
+    private final List<SelectionKey> paused = new ArrayList<>();
+    private final Consumer<SelectionKey> keyHandler = this::handle;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger workerBacklog = new AtomicInteger();
+    private DirectBufferPool buffers;
+    private ByteBuffer datagramBuffer;
+    private ByteBuffer datagramBacklog;
+    private long lastIdleSweep;
+
+    private ExecutorService worker;
+
+    private Selector selector;
+    private ServerSocketChannel tcpChannel;
+    private DatagramChannel udpChannel;
+    private volatile Thread selectorThread;
+    private volatile boolean running;
+
+    private final Map<GpsRecordStatus, Counter> frames = new EnumMap<>(GpsRecordStatus.class);
+    private Counter corrupt;
+    private Counter refused;
+
+    /**
+     * 🔌 Połączenie TCP terminala - bufor z puli i czas ostatniego odczytu
+     */
+    private static final class Connection {
+        private final ByteBuffer buffer;
+        private final String remote;
+        private long lastReadNanos;
+
+        private Connection(ByteBuffer buffer, String remote) {
+            this.buffer = buffer;
+            this.remote = remote;
+            this.lastReadNanos = System.nanoTime();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        for (GpsRecordStatus status : GpsRecordStatus.values()) {
+            frames.put(status, framesCounter(status.name().toLowerCase()));
+        }
+        corrupt = framesCounter("corrupt");
+        refused = Counter.builder("logisticops.tracking.terminal.connections.refused")
+                .description("Połączenia odrzucone (limit połączeń lub buforów)")
+                .register(meterRegistry);
+        Gauge.builder("logisticops.tracking.terminal.connections", connections, AtomicInteger::get)
+                .description("Otwarte połączenia TCP terminali")
+                .register(meterRegistry);
+        Gauge.builder("logisticops.tracking.terminal.worker.backlog", workerBacklog, AtomicInteger::get)
+                .description("Wsady pozycji terminali czekające na wątek roboczy")
+                .register(meterRegistry);
+    }
+
+    private Counter framesCounter(String result) {
+        return Counter.builder("logisticops.tracking.terminal.frames")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ========================================
+    // PĘTLA SELEKTORA
+    // ========================================
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select(keyHandler, paused.isEmpty() ? SELECT_TIMEOUT_MS : backpressurePauseMs);
+                resumePaused();
+                dispatch();
+                closeIdleConnections();
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                accepted.clear();
+                unauthorizedDevices.clear();
+                log.error("❌ Terminal GPS listener error", e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+        } else if (key.channel() == udpChannel) {
+            receiveDatagrams();
+        } else {
+            read(key);
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = tcpChannel.accept();
+            if (channel == null) {
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to accept terminal connection: {}", e.getMessage());
+            return;
+        }
+
+        ByteBuffer buffer = connections.get() < maxConnections ? buffers.acquire() : null;
+        if (buffer == null) {
+            refused.increment();
+            closeQuietly(channel);
+            return;
+        }
+
+        try {
+            channel.configureBlocking(false);
+            String remote = String.valueOf(channel.getRemoteAddress());
+            channel.register(selector, SelectionKey.OP_READ, new Connection(buffer, remote));
+            connections.incrementAndGet();
+            log.debug("📻 Terminal connected from {}", remote);
+        } catch (IOException e) {
+            buffers.release(buffer);
+            closeQuietly(channel);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = connection.buffer;
+
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            close(key);
+            return;
+        }
+        connection.lastReadNanos = System.nanoTime();
+        handOffConnection(key, connection);
+    }
+
+    /**
+     * Przekaż ramki z bufora połączenia; przy pełnej kolejce zostają w buforze, a odczyt jest wstrzymany
+     *
+     * @return true gdy bufor nie ma już pełnych ramek do przekazania
+     */
+    private boolean handOffConnection(SelectionKey key, Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+        buffer.flip();
+        Handoff result = handOff(buffer);
+        buffer.compact();
+
+        switch (result) {
+            case OUT_OF_SYNC -> {
+                log.warn("⚠️ Terminal stream from {} out of sync, closing connection", connection.remote);
+                close(key);
+            }
+            case RETRY_LATER -> pause(key);
+            case DONE -> {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void receiveDatagrams() {
+        for (int i = 0; i < MAX_DATAGRAMS_PER_WAKEUP; i++) {
+            datagramBuffer.clear();
+            try {
+                if (udpChannel.receive(datagramBuffer) == null) {
+                    return;
+                }
+            } catch (IOException e) {
+                log.warn("⚠️ Failed to receive terminal datagram: {}", e.getMessage());
+                return;
+            }
+            datagramBuffer.flip();
+            if (!handOffDatagram(datagramBuffer)) {
+                // Reszta datagramu czeka w datagramBacklog - kolejne czeka w buforze jądra
+                datagramBacklog.put(datagramBuffer);
+                pause(udpChannel.keyFor(selector));
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false gdy kolejka pełna - bufor stoi na pierwszej nieprzekazanej ramce
+     */
+    private boolean handOffDatagram(ByteBuffer datagram) {
+        Handoff result = handOff(datagram);
+        if (result == Handoff.RETRY_LATER) {
+            return false;
+        }
+        if (result == Handoff.OUT_OF_SYNC || datagram.hasRemaining()) {
+            // Reszta datagramu po złym nagłówku lub ucięta ramka
+            corrupt.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Dekoduj i przekaż pełne ramki od pozycji bufora; pozycja zostaje na pierwszej
+     * niepełnej lub nieprzyjętej (pełna kolejka) ramce
+     */
+    private Handoff handOff(ByteBuffer buffer) {
+        while (buffer.remaining() >= GpsFrameCodec.FRAME_SIZE) {
+            int offset = buffer.position();
+            GpsFrameCodec.Status status = GpsFrameCodec.decode(buffer, offset, frame);
+            if (status == GpsFrameCodec.Status.BAD_HEADER) {
+                return Handoff.OUT_OF_SYNC;
+            }
+            if (status != GpsFrameCodec.Status.OK) {
+                buffer.position(offset + GpsFrameCodec.FRAME_SIZE);
+                corrupt.increment();
+                continue;
+            }
+            if (workerBacklog.get() >= maxPendingBatches) {
+                return Handoff.RETRY_LATER;
+            }
+
+            GpsPosition position = frame.toPosition(zone);
+            DeviceBinding binding = deviceRegistry.lookup(position.getDeviceId());
+            GpsRecordStatus result = binding != null && binding.frameKey() != null
+                    && authenticator.verify(buffer, offset, binding.frameKey())
+                    ? militaryGpsService.admitTerminalPosition(position, binding)
+                    : GpsRecordStatus.UNAUTHORIZED_DEVICE;
+            if (result == GpsRecordStatus.RETRY_LATER) {
+                return Handoff.RETRY_LATER;
+            }
+            buffer.position(offset + GpsFrameCodec.FRAME_SIZE);
+            frames.get(result).increment();
+            if (result == GpsRecordStatus.ACCEPTED) {
+                accepted.add(position);
+            } else if (result == GpsRecordStatus.UNAUTHORIZED_DEVICE && binding != null) {
+                // Id spoza rejestru może podać każdy - bez alertu (tylko metryka)
+                unauthorizedDevices.add(position.getDeviceId());
+            }
+        }
+        return Handoff.DONE;
+    }
+
+    private void pause(SelectionKey key) {
+        if (key.isValid() && key.interestOps() != 0) {
+            key.interestOps(0);
+            paused.add(key);
+            frames.get(GpsRecordStatus.RETRY_LATER).increment();
+            log.debug("⏸️ Tracking queue full, pausing terminal reads from {}", describe(key));
+        }
+    }
+
+    /**
+     * Ponów przekazanie ramek wstrzymanych źródeł (w kolejności wstrzymania); opróżnione wracają do odczytu
+     */
+    private void resumePaused() {
+        while (!paused.isEmpty()) {
+            SelectionKey key = paused.get(0);
+            if (key.isValid() && !drain(key)) {
+                // Kolejka wciąż pełna - pozostałe źródła też poczekają
+                return;
+            }
+            paused.remove(0);
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ);
+                log.debug("▶️ Resuming terminal reads from {}", describe(key));
+            }
+        }
+    }
+
+    /**
+     * @return true gdy wstrzymane źródło nie ma już ramek do przekazania (lub zostało zamknięte)
+     */
+    private boolean drain(SelectionKey key) {
+        if (key.channel() == udpChannel) {
+            datagramBacklog.flip();
+            boolean drained = handOffDatagram(datagramBacklog);
+            if (drained) {
+                datagramBacklog.clear();
+            } else {
+                datagramBacklog.compact();
+            }
+            return drained;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        connection.lastReadNanos = System.nanoTime();
+        ByteBuffer buffer = connection.buffer;
+        buffer.flip();
+        Handoff result = handOff(buffer);
+        buffer.compact();
+        if (result == Handoff.OUT_OF_SYNC) {
+            log.warn("⚠️ Terminal stream from {} out of sync, closing connection", connection.remote);
+            close(key);
+        }
+        return result != Handoff.RETRY_LATER;
+    }
+
+    /**
+     * Przekaż przyjęte pozycje z tego obrotu selektora do wątku roboczego
+     */
+    private void dispatch() {
+        if (accepted.isEmpty() && unauthorizedDevices.isEmpty()) {
+            return;
+        }
+        List<GpsPosition> positions = List.copyOf(accepted);
+        Set<String> devices = Set.copyOf(unauthorizedDevices);
+        accepted.clear();
+        unauthorizedDevices.clear();
+
+        workerBacklog.incrementAndGet();
+        try {
+            worker.execute(() -> {
+                try {
+                    militaryGpsService.processTerminalPositions(positions, devices);
+                } catch (RuntimeException e) {
+                    log.error("❌ Error processing {} terminal positions", positions.size(), e);
+                } finally {
+                    workerBacklog.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            workerBacklog.decrementAndGet();
+            log.warn("⚠️ Terminal worker stopped, skipping follow-up of {} positions", positions.size());
+        }
+    }
+
+    private String describe(SelectionKey key) {
+        return key.attachment() instanceof Connection connection ? connection.remote : "udp:" + udpPort;
+    }
+
+    private void closeIdleConnections() {
+        long now = System.nanoTime();
+        if (now - lastIdleSweep < TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT_MS)) {
+            return;
+        }
+        lastIdleSweep = now;
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+
+        for (SelectionKey key : selector.keys()) {
+            // Wstrzymane połączenie nie jest czytane z naszej winy - nie jest bezczynne
+            if (key.attachment() instanceof Connection connection && key.isValid() && key.interestOps() != 0
+                    && now - connection.lastReadNanos > idleNanos) {
+                log.debug("📻 Closing idle terminal connection from {}", connection.remote);
+                close(key);
+            }
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+        if (key.attachment() instanceof Connection connection) {
+            buffers.release(connection.buffer);
+            connections.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(Closeable channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // zamykane i tak
+        }
+    }
+
+    // ========================================
+    // CYKL ŻYCIA
+    // ========================================
+
+    @Override
+    public void start() {
+        if (bufferSize < GpsFrameCodec.FRAME_SIZE) {
+            throw new IllegalStateException("Terminal buffer-size must hold at least one frame");
+        }
+        buffers = new DirectBufferPool(bufferSize, maxConnections);
+
+        try {
+            selector = Selector.open();
+            if (tcpPort > 0) {
+                tcpChannel = ServerSocketChannel.open();
+                tcpChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                tcpChannel.bind(new InetSocketAddress(bindAddress, tcpPort));
+                tcpChannel.configureBlocking(false);
+                tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+            if (udpPort > 0) {
+                datagramBuffer = ByteBuffer.allocateDirect(bufferSize);
+                datagramBacklog = ByteBuffer.allocateDirect(bufferSize);
+                udpChannel = DatagramChannel.open();
+                udpChannel.setOption(StandardSocketOptions.SO_RCVBUF, udpReceiveBufferBytes);
+                udpChannel.bind(new InetSocketAddress(bindAddress, udpPort));
+                udpChannel.configureBlocking(false);
+                udpChannel.register(selector, SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            stopChannels();
+            throw new IllegalStateException("Cannot open terminal GPS listener on " + bindAddress, e);
+        }
+
+        worker = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name("LogisticOps-TerminalGps-worker")
+                .daemon(true)
+                .factory());
+        running = true;
+        selectorThread = Thread.ofPlatform()
+                .name("LogisticOps-TerminalGps")
+                .daemon(true)
+                .start(this::run);
+        log.info("📻 Terminal GPS listener on {} (tcp {}, udp {}, {} B frames)",
+                bindAddress, tcpPort > 0 ? tcpPort : "off", udpPort > 0 ? udpPort : "off", GpsFrameCodec.FRAME_SIZE);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = selectorThread;
+        if (thread != null) {
+            selector.wakeup();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            selectorThread = null;
+        }
+        stopChannels();
+        if (worker != null) {
+            worker.shutdown();
+            try {
+                worker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void stopChannels() {
+        if (selector != null && selector.isOpen()) {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+        if (tcpChannel != null) closeQuietly(tcpChannel);
+        if (udpChannel != null) closeQuietly(udpChannel);
+        connections.set(0);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,216 @@
+package pl.logistic.logisticops.tracking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 💾 Wsadowy zapis pozycji do vehicle_tracking (JDBC batch, bez encji JPA)
+ *
+ * Identyfikatory pobierane są blokami z vehicle_tracking_seq w tym samym schemacie co
+ * optymalizator pooled Hibernate (nextval = koniec bloku 50 id), więc zapis wsadowy
+ * i zwykły save encji nie kolidują. Istnienie transportu/pojazdu sprawdzane jest jednym
+ * zapytaniem IN na wsad dla id spoza cache - pozycje z nieznanymi id są pomijane.
+ * Id, których zapytanie nie znalazło, są pamiętane krótko (MISSING_TTL), żeby
+ * VehicleTrackingService mógł je odrzucić przed kolejką (400 jak przed potokiem).
+ * Sterownik przepisuje wsad na wielowierszowe INSERT (reWriteBatchedInserts).
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackingBatchWriter {
+
+    // Zgodne z @SequenceGenerator(allocationSize = 50) w VehicleTracking
+    private static final int ID_BLOCK_SIZE = 50;
+
+    // Krótko - transport utworzony po odrzuconej pozycji ma być widoczny bez restartu
+    private static final Duration MISSING_TTL = Duration.ofSeconds(30);
+
+    private static final String INSERT_SQL = "INSERT INTO vehicle_tracking " +
+            "(id, transport_id, vehicle_id, latitude, longitude, speed_kmh, heading_degrees, " +
+            "fuel_level_percentage, sensor_data, recorded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final Cache<Long, Boolean> knownTransports = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    // Model pojazdu ("" gdy brak) - do DTO broadcastu bez ładowania encji
+    private final Cache<Long, String> vehicleModels = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    // Id sprawdzone w bazie i nieistniejące
+    private final Cache<Long, Boolean> missingTransports = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(MISSING_TTL)
+            .build();
+
+    private final Cache<Long, Boolean> missingVehicles = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(MISSING_TTL)
+            .build();
+
+    // Blok id współdzielony przez wątek zapisu potoku i zapis konwojów (allocateId synchronized)
+    private long nextId;
+    private long idBlockEnd = -1;
+
+    /**
+     * 🚫 Odrzuć pozycję, której transport lub pojazd zapis ostatnio już nie znalazł
+     *
+     * Sprawdza tylko pamięć - id jeszcze niesprawdzone przechodzą i są weryfikowane
+     * wsadowo w resolve().
+     *
+     * @throws IllegalArgumentException gdy transport lub pojazd nie istnieje
+     */
+    public void rejectKnownMissing(Long transportId, Long vehicleId) {
+        if (missingTransports.getIfPresent(transportId) != null) {
+            throw new IllegalArgumentException("Transport not found");
+        }
+        if (missingVehicles.getIfPresent(vehicleId) != null) {
+            throw new IllegalArgumentException("Vehicle not found");
+        }
+    }
+
+    /**
+     * 🔍 Zamień pozycje na DTO, pomijając te z nieistniejącym transportem lub pojazdem
+     */
+    public List<VehicleTrackingDTO> resolve(List<TrackingPing> batch) {
+        return resolve(batch, null);
+    }
+
+    /**
+     * @param sources gdy podana - dopisywane są pozycje, z których powstały kolejne wiersze
+     */
+    public List<VehicleTrackingDTO> resolve(List<TrackingPing> batch, List<TrackingPing> sources) {
+        loadMissing(batch);
+
+        List<VehicleTrackingDTO> rows = new ArrayList<>(batch.size());
+        for (TrackingPing ping : batch) {
+            String model = vehicleModels.getIfPresent(ping.vehicleId());
+            if (model == null || knownTransports.getIfPresent(ping.transportId()) == null) {
+                continue;
+            }
+            if (sources != null) {
+                sources.add(ping);
+            }
+            rows.add(VehicleTrackingDTO.builder()
+                    .transportId(ping.transportId())
+                    .vehicleId(ping.vehicleId())
+                    .vehicleModel(model.isEmpty() ? null : model)
+                    .latitude(ping.latitude())
+                    .longitude(ping.longitude())
+                    .speedKmh(ping.speedKmh())
+                    .headingDegrees(ping.headingDegrees())
+                    .fuelLevelPercentage(ping.fuelLevelPercentage())
+                    .sensorData(ping.sensorData())
+                    .recordedAt(ping.recordedAt())
+                    .build());
+        }
+        return rows;
+    }
+
+    private void loadMissing(List<TrackingPing> batch) {
+        Set<Long> transports = new HashSet<>();
+        Set<Long> vehicles = new HashSet<>();
+        for (TrackingPing ping : batch) {
+            if (knownTransports.getIfPresent(ping.transportId()) == null) transports.add(ping.transportId());
+            if (vehicleModels.getIfPresent(ping.vehicleId()) == null) vehicles.add(ping.vehicleId());
+        }
+
+        if (!transports.isEmpty()) {
+            namedJdbcTemplate.queryForList("SELECT id FROM transports WHERE id IN (:ids)",
+                            Map.of("ids", transports), Long.class)
+                    .forEach(id -> {
+                        knownTransports.put(id, Boolean.TRUE);
+                        transports.remove(id);
+                    });
+            rememberMissing(transports, missingTransports);
+        }
+        if (!vehicles.isEmpty()) {
+            namedJdbcTemplate.query("SELECT id, model FROM vehicle_specifications WHERE id IN (:ids)",
+                    Map.of("ids", vehicles),
+                    rs -> {
+                        String model = rs.getString("model");
+                        vehicleModels.put(rs.getLong("id"), model != null ? model : "");
+                        vehicles.remove(rs.getLong("id"));
+                    });
+            rememberMissing(vehicles, missingVehicles);
+        }
+    }
+
+    private static void rememberMissing(Set<Long> notFound, Cache<Long, Boolean> missing) {
+        notFound.forEach(id -> {
+            if (id != null) {
+                missing.put(id, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * 📝 Wstaw wiersze w jednej transakcji i nadaj im id
+     */
+    @Transactional
+    public void insert(List<VehicleTrackingDTO> rows) {
+        for (VehicleTrackingDTO row : rows) {
+            row.setId(allocateId());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getId());
+            ps.setLong(2, row.getTransportId());
+            ps.setLong(3, row.getVehicleId());
+            ps.setDouble(4, row.getLatitude());
+            ps.setDouble(5, row.getLongitude());
+            ps.setObject(6, row.getSpeedKmh(), Types.DOUBLE);
+            ps.setObject(7, row.getHeadingDegrees(), Types.INTEGER);
+            ps.setObject(8, row.getFuelLevelPercentage(), Types.DOUBLE);
+            ps.setString(9, row.getSensorData());
+            ps.setTimestamp(10, Timestamp.valueOf(row.getRecordedAt()));
+        });
+    }
+
+    /**
+     * Transport lub pojazd usunięty po sprawdzeniu - wymuś ponowną weryfikację
+     */
+    public void forget(VehicleTrackingDTO row) {
+        knownTransports.invalidate(row.getTransportId());
+        vehicleModels.invalidate(row.getVehicleId());
+    }
+
+    private synchronized long allocateId() {
+        if (nextId > idBlockEnd) {
+            long value = nextSequenceValue();
+            if (value < ID_BLOCK_SIZE) {
+                // Świeża sekwencja - jak pooled: pierwsza wartość to początek, druga koniec bloku
+                nextId = value;
+                idBlockEnd = nextSequenceValue();
+            } else {
+                nextId = value - ID_BLOCK_SIZE + 1;
+                idBlockEnd = value;
+            }
+        }
+        return nextId++;
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT nextval('vehicle_tracking_seq')", Long.class);
+    }
+}
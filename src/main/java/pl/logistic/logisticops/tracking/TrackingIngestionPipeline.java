@@ -0,0 +1,450 @@
+package pl.logistic.logisticops.tracking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
+import pl.logistic.logisticops.exception.TrackingBackpressureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 📡 POTOK PRZYJMOWANIA POZYCJI GPS
+ *
+ * Pozycja trafia do ograniczonej kolejki bez blokad i jest od razu potwierdzana.
+ * Jeden wątek zapisu zbiera mikro-wsady (do batch-size pozycji lub flush-interval-ms
+ * od pierwszej pozycji wsadu), zapisuje je przez JDBC batch i przekazuje
+ * VehiclePositionsPersistedEvent osobnemu wątkowi publikacji - broadcast, alerty i geofencing
+ * nie wstrzymują zapisu kolejnych wsadów. Wątek publikacji jest jeden (kolejność wsadów
+ * zachowana); gdy czeka na niego max-pending-events wsadów, pisarz zwalnia do jego tempa.
+ * Przy pełnej kolejce działa overflow-policy.
+ *
+ * Pozycje są już potwierdzone, więc błąd bazy nie porzuca wsadu: zapis jest ponawiany
+ * (retry-backoff-ms, podwajany do retry-max-backoff-ms, max-write-attempts prób). W tym
+ * czasie kolejka się zapełnia i urządzenia dostają backpressure (overflow-policy) zamiast
+ * cichej utraty danych. Wiersz, którego nie da się zapisać (klucz obcy, błędne dane),
+ * jest pomijany pojedynczo; wyjątek wsadu nie kończy wątku zapisu.
+ *
+ * Metryki:
+ * - logisticops.tracking.ingest.queue.depth
+ * - logisticops.tracking.ingest.pings{result=accepted|dropped|rejected|unknown|invalid|failed}
+ *   (unknown - transport lub pojazd nie istnieje, pozycja pominięta przy zapisie)
+ * - logisticops.tracking.ingest.batch.size, logisticops.tracking.ingest.flush (czas zapisu wsadu)
+ * - logisticops.tracking.ingest.retries (ponowione zapisy wsadu)
+ * - logisticops.tracking.ingest.latency (od przyjęcia do zapisu - tylko zapisane pozycje)
+ * - logisticops.tracking.ingest.publish.backlog (zapisane wsady czekające na publikację)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingIngestionPipeline implements SmartLifecycle {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final TrackingBatchWriter writer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.tracking.ingest.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${app.tracking.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.tracking.ingest.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.tracking.ingest.overflow-policy:REJECT}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.tracking.ingest.block-timeout-ms:500}")
+    private long blockTimeoutMs;
+
+    @Value("${app.tracking.ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.tracking.ingest.max-write-attempts:6}")
+    private int maxWriteAttempts;
+
+    @Value("${app.tracking.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.tracking.ingest.retry-max-backoff-ms:30000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${app.tracking.ingest.max-pending-events:64}")
+    private int maxPendingEvents;
+
+    private BoundedPingQueue queue;
+    private volatile Thread writerThread;
+    private volatile boolean running;
+    private ExecutorService publisher;
+    private final AtomicInteger publishBacklog = new AtomicInteger();
+
+    private Counter accepted;
+    private Counter dropped;
+    private Counter rejected;
+    private Counter unknown;
+    private Counter invalid;
+    private Counter failed;
+    private Counter retries;
+    private DistributionSummary batchSizes;
+    private Timer flushTimer;
+    private Timer latency;
+
+    @PostConstruct
+    void init() {
+        queue = new BoundedPingQueue(queueCapacity);
+
+        Gauge.builder("logisticops.tracking.ingest.queue.depth", queue, BoundedPingQueue::size)
+                .description("Pozycje oczekujące na zapis")
+                .register(meterRegistry);
+        accepted = pings("accepted");
+        dropped = pings("dropped");
+        rejected = pings("rejected");
+        unknown = pings("unknown");
+        invalid = pings("invalid");
+        failed = pings("failed");
+        retries = Counter.builder("logisticops.tracking.ingest.retries")
+                .description("Ponowione zapisy wsadu po błędzie bazy")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("logisticops.tracking.ingest.batch.size")
+                .description("Liczba pozycji w zapisanym wsadzie")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("logisticops.tracking.ingest.flush")
+                .description("Czas zapisu wsadu do vehicle_tracking")
+                .register(meterRegistry);
+        latency = Timer.builder("logisticops.tracking.ingest.latency")
+                .description("Czas od przyjęcia pozycji do jej zapisu")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("logisticops.tracking.ingest.publish.backlog", publishBacklog, AtomicInteger::get)
+                .description("Zapisane wsady czekające na publikację zdarzenia")
+                .register(meterRegistry);
+    }
+
+    private Counter pings(String result) {
+        return Counter.builder("logisticops.tracking.ingest.pings")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 📥 Przyjmij pozycję bez czekania na zapis
+     *
+     * @return false gdy pozycja została porzucona zgodnie z polityką DROP_NEWEST
+     * @throws TrackingBackpressureException gdy kolejka pełna (REJECT, BLOCK po czasie)
+     */
+    public boolean submit(TrackingPing ping) {
+        int depth = queue.offer(ping);
+
+        if (depth < 0) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> {
+                    dropped.increment();
+                    return false;
+                }
+                case DROP_OLDEST -> depth = offerEvictingOldest(ping);
+                case BLOCK -> depth = offerWaiting(ping);
+                case REJECT -> depth = -1;
+            }
+        }
+
+        if (depth < 0) {
+            rejected.increment();
+            throw new TrackingBackpressureException("Tracking ingestion queue is full, retry later");
+        }
+
+        accepted.increment();
+        // Budzimy pisarza na początku wsadu (start odliczania) i gdy wsad jest pełny
+        if (depth == 1 || depth >= batchSize) {
+            Thread thread = writerThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return true;
+    }
+
+    private int offerEvictingOldest(TrackingPing ping) {
+        int depth;
+        while ((depth = queue.offer(ping)) < 0) {
+            if (queue.evictOldest()) {
+                dropped.increment();
+            }
+        }
+        return depth;
+    }
+
+    private int offerWaiting(TrackingPing ping) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        int depth;
+        while ((depth = queue.offer(ping)) < 0) {
+            if (System.nanoTime() >= deadline) {
+                return -1;
+            }
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        return depth;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // ========================================
+    // WĄTEK ZAPISU
+    // ========================================
+
+    private void runWriter() {
+        List<TrackingPing> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (running || queue.size() > 0) {
+            if (queue.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+
+            // Dobierz do pełnego wsadu albo do upływu flush-interval od pierwszej pozycji
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            while (batch.size() < batchSize && running) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                if (queue.drainTo(batch, batchSize - batch.size()) == 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                // Wątek zapisu jest jeden - błąd wsadu nie może go zakończyć
+                failed.increment(batch.size());
+                log.error("❌ Unexpected error writing {} tracking positions - batch discarded", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<TrackingPing> batch) {
+        long started = System.nanoTime();
+        List<TrackingPing> sources = new ArrayList<>(batch.size());
+        List<VehicleTrackingDTO> rows = null;
+        List<VehicleTrackingDTO> persisted = new ArrayList<>();
+        long backoffMs = retryBackoffMs;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (rows == null) {
+                    rows = writer.resolve(batch, sources);
+                    unknown.increment(batch.size() - rows.size());
+                }
+                insert(rows, persisted);
+                break;
+            } catch (DataAccessException e) {
+                int unsaved = (rows != null ? rows.size() : batch.size()) - persisted.size();
+                if (attempt >= maxWriteAttempts) {
+                    failed.increment(unsaved);
+                    log.error("❌ Failed to write {} tracking positions after {} attempts: {}",
+                            unsaved, attempt, e.getMessage());
+                    break;
+                }
+                retries.increment();
+                log.warn("⚠️ Writing {} tracking positions failed (attempt {}/{}), retrying in {} ms: {}",
+                        unsaved, attempt, maxWriteAttempts, backoffMs, e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, retryMaxBackoffMs);
+            }
+        }
+
+        long finished = System.nanoTime();
+        flushTimer.record(finished - started, TimeUnit.NANOSECONDS);
+        batchSizes.record(persisted.size());
+        if (persisted.isEmpty()) {
+            return;
+        }
+
+        Map<VehicleTrackingDTO, TrackingPing> sourceOf = new IdentityHashMap<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            sourceOf.put(rows.get(i), sources.get(i));
+        }
+        for (VehicleTrackingDTO row : persisted) {
+            latency.record(finished - sourceOf.get(row).acceptedNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        publish(new VehiclePositionsPersistedEvent(persisted));
+    }
+
+    /**
+     * 📢 Przekaż zdarzenie wątkowi publikacji; przy max-pending-events oczekujących wsadach
+     * pisarz czeka (nie porzucamy zapisanych pozycji i nie zmieniamy kolejności wsadów)
+     */
+    private void publish(VehiclePositionsPersistedEvent event) {
+        while (publishBacklog.get() >= maxPendingEvents && !publisher.isShutdown()) {
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+
+        publishBacklog.incrementAndGet();
+        try {
+            publisher.execute(() -> {
+                try {
+                    publishNow(event);
+                } finally {
+                    publishBacklog.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            publishBacklog.decrementAndGet();
+            publishNow(event);
+        }
+    }
+
+    private void publishNow(VehiclePositionsPersistedEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("❌ Error handling persisted tracking positions", e);
+        }
+    }
+
+    /**
+     * Zapisz wiersze jeszcze nieobecne w persisted (ponowienie po błędzie bazy nie dubluje
+     * zapisanych). Wsad odrzucony przez wiersz (klucz obcy - transport/pojazd usunięty
+     * w międzyczasie, błędne dane) zapisywany jest wiersz po wierszu, z pominięciem błędnych.
+     *
+     * @throws DataAccessException błąd bazy niezwiązany z wierszem - do ponowienia
+     */
+    private void insert(List<VehicleTrackingDTO> rows, List<VehicleTrackingDTO> persisted) {
+        List<VehicleTrackingDTO> pending = unsaved(rows, persisted);
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            writer.insert(pending);
+            persisted.addAll(pending);
+            return;
+        } catch (RuntimeException e) {
+            if (!isRowError(e)) {
+                throw e;
+            }
+            log.warn("⚠️ Tracking batch rejected ({}), retrying row by row", rootMessage(e));
+        }
+
+        for (VehicleTrackingDTO row : pending) {
+            try {
+                writer.insert(List.of(row));
+                persisted.add(row);
+            } catch (RuntimeException e) {
+                if (!isRowError(e)) {
+                    throw e;
+                }
+                if (e instanceof DataIntegrityViolationException) {
+                    writer.forget(row);
+                } else {
+                    log.warn("⚠️ Skipping invalid tracking row of vehicle {}: {}", row.getVehicleId(), rootMessage(e));
+                }
+                invalid.increment();
+            }
+        }
+    }
+
+    private static List<VehicleTrackingDTO> unsaved(List<VehicleTrackingDTO> rows, List<VehicleTrackingDTO> persisted) {
+        if (persisted.isEmpty()) {
+            return rows;
+        }
+        Set<VehicleTrackingDTO> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        saved.addAll(persisted);
+        return rows.stream().filter(row -> !saved.contains(row)).toList();
+    }
+
+    /**
+     * Błąd konkretnego wiersza (naruszenie ograniczenia, null w polu wymaganym) - ponowienie nie pomoże
+     */
+    private static boolean isRowError(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException || !(e instanceof DataAccessException);
+    }
+
+    private static String rootMessage(RuntimeException e) {
+        return e instanceof DataAccessException dataAccess
+                ? dataAccess.getMostSpecificCause().getMessage()
+                : e.toString();
+    }
+
+    // ========================================
+    // CYKL ŻYCIA
+    // ========================================
+
+    @Override
+    public void start() {
+        publisher = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name("LogisticOps-TrackingPublisher")
+                .daemon(true)
+                .factory());
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("LogisticOps-TrackingWriter")
+                .daemon(true)
+                .start(this::runWriter);
+        log.info("📡 Tracking ingestion started: capacity {}, batch {}, flush {} ms, overflow {}",
+                queueCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * Zatrzymanie dopisuje pozostałe pozycje (do shutdown-timeout-ms)
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (queue.size() > 0) {
+            log.warn("⚠️ Tracking ingestion stopped with {} unwritten positions", queue.size());
+        }
+        writerThread = null;
+
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
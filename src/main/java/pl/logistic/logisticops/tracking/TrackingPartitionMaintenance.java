@@ -0,0 +1,313 @@
+package pl.logistic.logisticops.tracking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🗂️ PARTYCJE vehicle_tracking I RETENCJA HISTORII
+ *
+ * Tabela jest partycjonowana zakresowo po recorded_at (Liquibase 016). Zadanie:
+ * - zakłada partycje dzienne/tygodniowe od bieżącego okresu do precreate-days naprzód,
+ *   przenosząc ewentualne rekordy z partycji DEFAULT do nowej partycji,
+ * - usuwa (DROP) albo odłącza (DETACH) partycje w całości starsze niż
+ *   app.limits.tracking-history-days, a z DEFAULT kasuje przeterminowane wiersze.
+ *
+ * Całość na jednym połączeniu pod blokadą doradczą - przy kilku instancjach pracuje jedna.
+ * Metryki: logisticops.tracking.partitions, logisticops.tracking.retention.oldest.age.hours,
+ * logisticops.tracking.partitions.changes{action=created|dropped|detached},
+ * logisticops.tracking.retention.purged.rows, logisticops.tracking.partitions.maintenance
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingPartitionMaintenance {
+
+    private static final String TABLE = "vehicle_tracking";
+    private static final String DEFAULT_PARTITION = "vehicle_tracking_default";
+    private static final long ADVISORY_LOCK_KEY = 0x7472_6163_6b70L; // "trackp"
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern RANGE_BOUND = Pattern.compile(
+            "FOR VALUES FROM \\((MINVALUE|'[^']+')\\) TO \\((MAXVALUE|'[^']+')\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.tracking.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.tracking.partitions.granularity:DAILY}")
+    private Granularity granularity;
+
+    @Value("${app.tracking.partitions.precreate-days:7}")
+    private int precreateDays;
+
+    @Value("${app.tracking.partitions.expired-action:DROP}")
+    private ExpiredAction expiredAction;
+
+    @Value("${app.limits.tracking-history-days:30}")
+    private int retentionDays;
+
+    private final AtomicLong partitionCount = new AtomicLong();
+    private final AtomicLong oldestAgeHours = new AtomicLong();
+    private Counter created;
+    private Counter dropped;
+    private Counter detached;
+    private Counter purgedRows;
+    private Timer maintenanceTimer;
+
+    public enum Granularity {
+        DAILY,
+        WEEKLY
+    }
+
+    public enum ExpiredAction {
+        DROP,
+        DETACH
+    }
+
+    /**
+     * Partycja zakresowa; null w from/to = MINVALUE/MAXVALUE
+     */
+    record Partition(String name, LocalDateTime from, LocalDateTime to) {
+    }
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("logisticops.tracking.partitions", partitionCount, AtomicLong::get)
+                .description("Partycje zakresowe vehicle_tracking")
+                .register(meterRegistry);
+        Gauge.builder("logisticops.tracking.retention.oldest.age.hours", oldestAgeHours, AtomicLong::get)
+                .description("Wiek najstarszej zachowanej pozycji")
+                .register(meterRegistry);
+        created = changes("created");
+        dropped = changes("dropped");
+        detached = changes("detached");
+        purgedRows = Counter.builder("logisticops.tracking.retention.purged.rows")
+                .description("Przeterminowane wiersze usunięte z partycji domyślnej")
+                .register(meterRegistry);
+        maintenanceTimer = Timer.builder("logisticops.tracking.partitions.maintenance")
+                .register(meterRegistry);
+    }
+
+    private Counter changes(String action) {
+        return Counter.builder("logisticops.tracking.partitions.changes")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.tracking.partitions.cron:0 15 0 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintenanceTimer.record(() -> jdbcTemplate.execute(this::runMaintenance));
+        } catch (DataAccessException e) {
+            log.error("❌ Tracking partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private Void runMaintenance(Connection connection) throws SQLException {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+        if (!isPartitioned(jdbc)) {
+            log.debug("🗂️ {} is not partitioned - maintenance skipped", TABLE);
+            return null;
+        }
+        if (!Boolean.TRUE.equals(jdbc.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, ADVISORY_LOCK_KEY))) {
+            log.debug("🗂️ Partition maintenance running elsewhere");
+            return null;
+        }
+
+        try {
+            createUpcoming(jdbc, connection);
+            removeExpired(jdbc);
+            refreshStatistics(jdbc);
+        } finally {
+            jdbc.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        }
+        return null;
+    }
+
+    private boolean isPartitioned(JdbcTemplate jdbc) {
+        List<String> kinds = jdbc.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, TABLE);
+        return kinds.size() == 1 && "p".equals(kinds.get(0));
+    }
+
+    // ========================================
+    // TWORZENIE PARTYCJI
+    // ========================================
+
+    private void createUpcoming(JdbcTemplate jdbc, Connection connection) throws SQLException {
+        List<Partition> existing = listPartitions(jdbc);
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(precreateDays);
+
+        for (LocalDate start = periodStart(today); !start.isAfter(last); start = nextPeriod(start)) {
+            LocalDateTime from = start.atStartOfDay();
+            LocalDateTime to = nextPeriod(start).atStartOfDay();
+            if (existing.stream().noneMatch(partition -> overlaps(partition, from, to))) {
+                createPartition(jdbc, connection, "vehicle_tracking_p" + start.format(SUFFIX), from, to);
+            }
+        }
+    }
+
+    /**
+     * Nowa partycja nie może przejąć zakresu, w którym DEFAULT ma już wiersze - takie
+     * wiersze przenoszone są w jednej transakcji z podpięciem partycji
+     */
+    private void createPartition(JdbcTemplate jdbc, Connection connection,
+                                 String name, LocalDateTime from, LocalDateTime to) throws SQLException {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        boolean defaultHasRows = Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE recorded_at >= ? AND recorded_at < ?)",
+                Boolean.class, fromTs, toTs));
+
+        if (!defaultHasRows) {
+            jdbc.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM (" + literal(from) + ") TO (" + literal(to) + ")");
+            created.increment();
+            log.info("🗂️ Created tracking partition {} [{}, {})", name, from.toLocalDate(), to.toLocalDate());
+            return;
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            jdbc.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+            int moved = jdbc.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                    + " WHERE recorded_at >= ? AND recorded_at < ? RETURNING *) "
+                    + "INSERT INTO " + name + " SELECT * FROM moved", fromTs, toTs);
+            jdbc.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name
+                    + " FOR VALUES FROM (" + literal(from) + ") TO (" + literal(to) + ")");
+            connection.commit();
+            created.increment();
+            log.info("🗂️ Created tracking partition {} [{}, {}), moved {} rows from default",
+                    name, from.toLocalDate(), to.toLocalDate(), moved);
+        } catch (DataAccessException | SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // ========================================
+    // RETENCJA
+    // ========================================
+
+    private void removeExpired(JdbcTemplate jdbc) {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+
+        for (Partition partition : listPartitions(jdbc)) {
+            if (partition.to() == null || partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            if (expiredAction == ExpiredAction.DETACH) {
+                jdbc.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+                detached.increment();
+            } else {
+                jdbc.execute("DROP TABLE " + partition.name());
+                dropped.increment();
+            }
+            log.info("🗂️ {} expired tracking partition {} (< {})",
+                    expiredAction == ExpiredAction.DETACH ? "Detached" : "Dropped", partition.name(), partition.to());
+        }
+
+        int purged = jdbc.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE recorded_at < ?", Timestamp.valueOf(cutoff));
+        if (purged > 0) {
+            purgedRows.increment(purged);
+            log.info("🗂️ Purged {} expired rows from {}", purged, DEFAULT_PARTITION);
+        }
+    }
+
+    private void refreshStatistics(JdbcTemplate jdbc) {
+        partitionCount.set(listPartitions(jdbc).size());
+        Timestamp oldest = jdbc.queryForObject("SELECT MIN(recorded_at) FROM " + TABLE, Timestamp.class);
+        oldestAgeHours.set(oldest == null ? 0 : ChronoUnit.HOURS.between(oldest.toLocalDateTime(), LocalDateTime.now()));
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    /**
+     * Partycje zakresowe z granicami odczytanymi z pg_get_expr (DEFAULT pomijana)
+     */
+    private List<Partition> listPartitions(JdbcTemplate jdbc) {
+        List<Partition> partitions = new ArrayList<>();
+        jdbc.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?)",
+                rs -> {
+                    Matcher matcher = RANGE_BOUND.matcher(rs.getString("bound"));
+                    if (matcher.find()) {
+                        partitions.add(new Partition(rs.getString("relname"),
+                                parseBound(matcher.group(1)), parseBound(matcher.group(2))));
+                    }
+                }, TABLE);
+        return partitions;
+    }
+
+    private static LocalDateTime parseBound(String bound) {
+        if (bound.endsWith("VALUE")) {
+            return null;
+        }
+        return Timestamp.valueOf(bound.substring(1, bound.length() - 1)).toLocalDateTime();
+    }
+
+    private static String literal(LocalDateTime value) {
+        return "'" + value.format(BOUND_FORMAT) + "'";
+    }
+
+    private static boolean overlaps(Partition partition, LocalDateTime from, LocalDateTime to) {
+        boolean startsBeforeEnd = partition.from() == null || partition.from().isBefore(to);
+        boolean endsAfterStart = partition.to() == null || partition.to().isAfter(from);
+        return startsBeforeEnd && endsAfterStart;
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return granularity == Granularity.WEEKLY
+                ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : date;
+    }
+
+    private LocalDate nextPeriod(LocalDate start) {
+        return granularity == Granularity.WEEKLY ? start.plusWeeks(1) : start.plusDays(1);
+    }
+}
@@ -0,0 +1,29 @@
+package pl.logistic.logisticops.tracking;
+
+import java.time.LocalDateTime;
+
+/**
+ * 📍 Pojedyncza pozycja pojazdu przyjęta do potoku zapisu
+ *
+ * @param acceptedNanos System.nanoTime() w chwili przyjęcia - do pomiaru opóźnienia zapisu
+ */
+public record TrackingPing(Long transportId, Long vehicleId,
+                           double latitude, double longitude,
+                           Double speedKmh, Integer headingDegrees, Double fuelLevelPercentage,
+                           String sensorData, LocalDateTime recordedAt, long acceptedNanos) {
+
+    public static TrackingPing of(Long transportId, Long vehicleId, Double latitude, Double longitude,
+                                  Double speedKmh, Integer headingDegrees, Double fuelLevelPercentage,
+                                  String sensorData, LocalDateTime recordedAt) {
+        if (transportId == null || vehicleId == null) {
+            throw new IllegalArgumentException("Transport and vehicle id are required");
+        }
+        if (latitude == null || longitude == null
+                || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new IllegalArgumentException("Invalid position: " + latitude + ", " + longitude);
+        }
+        return new TrackingPing(transportId, vehicleId, latitude, longitude,
+                speedKmh, headingDegrees, fuelLevelPercentage, sensorData,
+                recordedAt != null ? recordedAt : LocalDateTime.now(), System.nanoTime());
+    }
+}
@@ -0,0 +1,231 @@
+package pl.logistic.logisticops.tracking;
+
+import pl.logistic.logisticops.geo.GeoUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * ✂️ Strumieniowe upraszczanie trajektorii (Douglas-Peucker w oknach)
+ *
+ * Punkty przychodzą w kolejności czasu i trafiają do okna o stałym rozmiarze; po zapełnieniu
+ * okno jest upraszczane, a jego ostatni punkt przechodzi na początek kolejnego - pamięć nie
+ * zależy od długości historii. Dla każdego wierzchołka liczone jest znaczenie DP (odległość,
+ * przy której zostałby wybrany, nie większa niż u rodzica), więc ten sam przebieg obsługuje
+ * próg tolerancji (zoom) i budżet punktów (zachowaj najbardziej znaczący ułamek okna).
+ *
+ * Postoje (prędkość ≤ stopSpeedKmh przez co najmniej minStopSeconds) zwijane są do jednego
+ * punktu z czasem postoju i zawsze zachowywane. Zachowane wierzchołki to oryginalne pozycje,
+ * z prędkością i kursem z chwili pomiaru.
+ *
+ * Nie jest bezpieczny wątkowo - jedna instancja na jedno zapytanie.
+ */
+public final class TrajectorySimplifier {
+
+    private static final double METERS_PER_DEGREE = GeoUtils.KM_PER_DEGREE_LAT * 1000.0;
+
+    private final Consumer<HistoryPoint> sink;
+    private final double toleranceMeters;   // tryb progu; NaN w trybie budżetu
+    private final double keepRatio;         // tryb budżetu
+    private final double stopSpeedKmh;
+    private final long minStopSeconds;
+
+    private final HistoryPoint[] window;
+    private final double[] significance;
+    private final int[] stack;
+    private int size;
+
+    private HistoryPoint stopStart;
+    private HistoryPoint stopLast;
+
+    private long received;
+    private long emitted;
+
+    private TrajectorySimplifier(Consumer<HistoryPoint> sink, double toleranceMeters, double keepRatio,
+                                 int windowSize, double stopSpeedKmh, long minStopSeconds) {
+        if (windowSize < 3) {
+            throw new IllegalArgumentException("Simplification window must hold at least 3 points");
+        }
+        this.sink = sink;
+        this.toleranceMeters = toleranceMeters;
+        this.keepRatio = keepRatio;
+        this.stopSpeedKmh = stopSpeedKmh;
+        this.minStopSeconds = minStopSeconds;
+        this.window = new HistoryPoint[windowSize];
+        this.significance = new double[windowSize];
+        this.stack = new int[2 * windowSize];
+    }
+
+    /**
+     * Zachowaj wierzchołki odchylone od uproszczonej linii o co najmniej toleranceMeters
+     */
+    public static TrajectorySimplifier withTolerance(double toleranceMeters, int windowSize,
+                                                     double stopSpeedKmh, long minStopSeconds,
+                                                     Consumer<HistoryPoint> sink) {
+        return new TrajectorySimplifier(sink, toleranceMeters, Double.NaN, windowSize, stopSpeedKmh, minStopSeconds);
+    }
+
+    /**
+     * Zachowaj około keepRatio punktów każdego okna (najbardziej znaczące)
+     */
+    public static TrajectorySimplifier withKeepRatio(double keepRatio, int windowSize,
+                                                     double stopSpeedKmh, long minStopSeconds,
+                                                     Consumer<HistoryPoint> sink) {
+        return new TrajectorySimplifier(sink, Double.NaN, GeoUtils.clamp(keepRatio, 0.0, 1.0),
+                windowSize, stopSpeedKmh, minStopSeconds);
+    }
+
+    /**
+     * 📏 Tolerancja odpowiadająca pikselom mapy Web Mercator na danym zoomie i szerokości
+     */
+    public static double toleranceForZoom(int zoom, double latitude, double pixels) {
+        double metersPerPixel = 156_543.033_92 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+        return metersPerPixel * pixels;
+    }
+
+    public void accept(HistoryPoint point) {
+        received++;
+        if (point.speedKmh() != null && point.speedKmh() <= stopSpeedKmh) {
+            if (stopStart == null) {
+                stopStart = point;
+            }
+            stopLast = point;
+            return;
+        }
+        flushStop();
+        push(point);
+    }
+
+    /**
+     * Domknij ostatnie okno - wywołać po ostatnim punkcie
+     */
+    public void finish() {
+        flushStop();
+        if (size > 0) {
+            simplifyWindow(true);
+        }
+    }
+
+    public long receivedPoints() {
+        return received;
+    }
+
+    public long emittedPoints() {
+        return emitted;
+    }
+
+    private void flushStop() {
+        if (stopStart == null) {
+            return;
+        }
+        long seconds = Duration.between(stopStart.recordedAt(), stopLast.recordedAt()).getSeconds();
+        if (seconds >= minStopSeconds) {
+            push(stopStart.asStop(seconds));
+        } else {
+            // Krótkie zwolnienie - zwykłe punkty (początek i koniec)
+            push(stopStart);
+            if (stopLast != stopStart) {
+                push(stopLast);
+            }
+        }
+        stopStart = null;
+        stopLast = null;
+    }
+
+    private void push(HistoryPoint point) {
+        window[size++] = point;
+        if (size == window.length) {
+            simplifyWindow(false);
+            window[0] = window[size - 1];
+            Arrays.fill(window, 1, size, null);
+            size = 1;
+        }
+    }
+
+    /**
+     * Okno pośrednie emituje punkty [0, n-1) - ostatni przechodzi do kolejnego okna
+     * i zostanie wyemitowany jako jego pierwszy punkt
+     */
+    private void simplifyWindow(boolean last) {
+        int n = size;
+        computeSignificance(n);
+        double threshold = Double.isNaN(toleranceMeters) ? thresholdForRatio(n) : toleranceMeters;
+
+        int end = last ? n : n - 1;
+        for (int i = 0; i < end; i++) {
+            if (significance[i] >= threshold) {
+                sink.accept(window[i]);
+                emitted++;
+            }
+        }
+    }
+
+    private void computeSignificance(int n) {
+        Arrays.fill(significance, 0, n, 0.0);
+        int top = 0;
+        int anchor = 0;
+        significance[0] = Double.POSITIVE_INFINITY;
+
+        // Końce okna i postoje są przypięte - DP działa na odcinkach między nimi
+        for (int i = 1; i < n; i++) {
+            if (i == n - 1 || window[i].stop()) {
+                significance[i] = Double.POSITIVE_INFINITY;
+                top = pushRange(top, anchor, i);
+                anchor = i;
+            }
+        }
+
+        while (top > 0) {
+            int b = stack[--top];
+            int a = stack[--top];
+            double parent = Math.min(significance[a], significance[b]);
+
+            int farthest = -1;
+            double maxDistance = -1;
+            for (int i = a + 1; i < b; i++) {
+                double distance = crossTrackMeters(window[i], window[a], window[b]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) continue;
+
+            significance[farthest] = Math.min(maxDistance, parent);
+            top = pushRange(top, a, farthest);
+            top = pushRange(top, farthest, b);
+        }
+    }
+
+    private int pushRange(int top, int a, int b) {
+        if (b - a >= 2) {
+            stack[top++] = a;
+            stack[top++] = b;
+        }
+        return top;
+    }
+
+    private double thresholdForRatio(int n) {
+        int keep = (int) Math.ceil(n * keepRatio);
+        if (keep >= n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double[] sorted = Arrays.copyOf(significance, n);
+        Arrays.sort(sorted);
+        return sorted[n - Math.max(keep, 1)];
+    }
+
+    /**
+     * Odległość punktu od odcinka a-b w metrach (lokalne rzutowanie równoodległościowe)
+     */
+    private static double crossTrackMeters(HistoryPoint p, HistoryPoint a, HistoryPoint b) {
+        double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(a.latitude()));
+        double bx = (b.longitude() - a.longitude()) * kx, by = (b.latitude() - a.latitude()) * METERS_PER_DEGREE;
+        double px = (p.longitude() - a.longitude()) * kx, py = (p.latitude() - a.latitude()) * METERS_PER_DEGREE;
+        double lengthSq = bx * bx + by * by;
+        double t = lengthSq == 0 ? 0 : GeoUtils.clamp((px * bx + py * by) / lengthSq, 0, 1);
+        double dx = px - t * bx, dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,190 @@
+package pl.logistic.logisticops.tracking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * 🕒 Strumieniowa historia pozycji pojazdu (JSON)
+ *
+ * Wiersze czytane kursorem (fetch-size w transakcji tylko do odczytu - inaczej sterownik
+ * PostgreSQL wczytuje cały wynik), przepuszczane przez TrajectorySimplifier i od razu
+ * zapisywane do odpowiedzi. Ani wynik zapytania, ani odpowiedź nie są materializowane.
+ *
+ * Tolerancja uproszczenia: z zoomu mapy (piksele → metry na szerokości pierwszego punktu)
+ * albo z budżetu punktów (jedno COUNT na zakresie, potem stały ułamek każdego okna).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VehicleHistoryStreamer {
+
+    private static final String HISTORY_SQL = "SELECT latitude, longitude, recorded_at, speed_kmh, heading_degrees " +
+            "FROM vehicle_tracking WHERE vehicle_id = ? AND recorded_at BETWEEN ? AND ? ORDER BY recorded_at";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM vehicle_tracking " +
+            "WHERE vehicle_id = ? AND recorded_at BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.tracking.history.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.tracking.history.window-size:4096}")
+    private int windowSize;
+
+    @Value("${app.tracking.history.default-max-points:2000}")
+    private int defaultMaxPoints;
+
+    @Value("${app.tracking.history.tolerance-pixels:1.0}")
+    private double tolerancePixels;
+
+    @Value("${app.tracking.history.stop-speed-kmh:3.0}")
+    private double stopSpeedKmh;
+
+    @Value("${app.tracking.history.min-stop-seconds:120}")
+    private long minStopSeconds;
+
+    @Value("${app.tracking.history.max-range-days:31}")
+    private long maxRangeDays;
+
+    /**
+     * 🔍 Parametry zapytania; zoom ma pierwszeństwo przed maxPoints, simplify=false = surowe pozycje
+     */
+    public record HistoryQuery(Long vehicleId, LocalDateTime from, LocalDateTime to,
+                               boolean simplify, Integer zoom, Integer maxPoints) {
+    }
+
+    /**
+     * Sprawdź parametry przed rozpoczęciem odpowiedzi (błąd po pierwszym bajcie nie zmieni statusu)
+     */
+    public void validate(HistoryQuery query) {
+        if (query.from() == null || query.to() == null || query.from().isAfter(query.to())) {
+            throw new IllegalArgumentException("History range requires from <= to");
+        }
+        if (Duration.between(query.from(), query.to()).toDays() > maxRangeDays) {
+            throw new IllegalArgumentException("History range exceeds " + maxRangeDays + " days");
+        }
+        if (query.zoom() != null && (query.zoom() < 0 || query.zoom() > 24)) {
+            throw new IllegalArgumentException("Zoom must be between 0 and 24");
+        }
+        if (query.maxPoints() != null && query.maxPoints() < 2) {
+            throw new IllegalArgumentException("maxPoints must be at least 2");
+        }
+    }
+
+    public void write(HistoryQuery query, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberField("vehicleId", query.vehicleId());
+            json.writeStringField("from", query.from().toString());
+            json.writeStringField("to", query.to().toString());
+            json.writeBooleanField("simplified", query.simplify());
+            json.writeArrayFieldStart("points");
+
+            Consumer<HistoryPoint> sink = point -> {
+                try {
+                    json.writeObject(point);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+
+            long[] counts;
+            try {
+                counts = transaction.execute(status -> stream(query, sink));
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // klient przerwał połączenie
+            }
+
+            json.writeEndArray();
+            json.writeNumberField("sourcePoints", counts[0]);
+            json.writeNumberField("returnedPoints", counts[1]);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * @return {punkty źródłowe, punkty zwrócone}
+     */
+    private long[] stream(HistoryQuery query, Consumer<HistoryPoint> sink) {
+        Timestamp from = Timestamp.valueOf(query.from());
+        Timestamp to = Timestamp.valueOf(query.to());
+
+        if (!query.simplify()) {
+            long[] counts = new long[2];
+            query(query.vehicleId(), from, to, point -> {
+                sink.accept(point);
+                counts[0]++;
+                counts[1]++;
+            });
+            return counts;
+        }
+
+        TrajectorySimplifier[] simplifier = new TrajectorySimplifier[1];
+        if (query.zoom() == null) {
+            int budget = query.maxPoints() != null ? query.maxPoints() : defaultMaxPoints;
+            Long total = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, query.vehicleId(), from, to);
+            double ratio = total == null || total <= budget ? 1.0 : budget / (double) total;
+            simplifier[0] = TrajectorySimplifier.withKeepRatio(ratio, windowSize, stopSpeedKmh, minStopSeconds, sink);
+        }
+
+        query(query.vehicleId(), from, to, point -> {
+            if (simplifier[0] == null) {
+                double tolerance = TrajectorySimplifier.toleranceForZoom(query.zoom(), point.latitude(), tolerancePixels);
+                simplifier[0] = TrajectorySimplifier.withTolerance(tolerance, windowSize, stopSpeedKmh, minStopSeconds, sink);
+            }
+            simplifier[0].accept(point);
+        });
+
+        if (simplifier[0] == null) {
+            return new long[]{0, 0};
+        }
+        simplifier[0].finish();
+        log.debug("🕒 History of vehicle {}: {} → {} points",
+                query.vehicleId(), simplifier[0].receivedPoints(), simplifier[0].emittedPoints());
+        return new long[]{simplifier[0].receivedPoints(), simplifier[0].emittedPoints()};
+    }
+
+    private void query(Long vehicleId, Timestamp from, Timestamp to, Consumer<HistoryPoint> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(HISTORY_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, vehicleId);
+            statement.setTimestamp(2, from);
+            statement.setTimestamp(3, to);
+            return statement;
+        }, (ResultSet rs) -> consumer.accept(toPoint(rs)));
+    }
+
+    private static HistoryPoint toPoint(ResultSet rs) throws SQLException {
+        return HistoryPoint.of(
+                rs.getDouble("latitude"),
+                rs.getDouble("longitude"),
+                rs.getTimestamp("recorded_at").toLocalDateTime(),
+                rs.getObject("speed_kmh", Double.class),
+                rs.getObject("heading_degrees", Integer.class));
+    }
+}
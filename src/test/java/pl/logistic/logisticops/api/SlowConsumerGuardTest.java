@@ -0,0 +1,332 @@
+package pl.logistic.logisticops.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 🐢 SlowConsumerGuard na tym samym stosie co aplikacja (bez sieci)
+ *
+ * Kanał wychodzący na puli wątków z interceptorem strażnika, SubProtocolWebSocketHandler ze
+ * StompSubProtocolHandler i limitami wysyłki - tylko gniazda zastępują sesje, których zapis
+ * ramki nie wraca do zamknięcia sesji (zawieszony klient).
+ */
+class SlowConsumerGuardTest {
+
+    private static final int CONFLATE_THRESHOLD = 5;
+    private static final int MAX_PENDING_MESSAGES = 20;
+    private static final int SEND_TIME_LIMIT_MS = 200;
+
+    private MeterRegistry meters;
+    private SlowConsumerGuard guard;
+    private ThreadPoolTaskExecutor outboundExecutor;
+    private SubProtocolWebSocketHandler stomp;
+
+    @BeforeEach
+    void setUp() {
+        meters = new SimpleMeterRegistry();
+        guard = new SlowConsumerGuard(meters);
+        ReflectionTestUtils.setField(guard, "conflateThreshold", CONFLATE_THRESHOLD);
+        ReflectionTestUtils.setField(guard, "maxPendingMessages", MAX_PENDING_MESSAGES);
+        ReflectionTestUtils.setField(guard, "conflatableDestinations", new String[]{"/topic/vehicle/*/tracking"});
+        guard.init();
+
+        outboundExecutor = new ThreadPoolTaskExecutor();
+        outboundExecutor.setCorePoolSize(4);
+        outboundExecutor.setQueueCapacity(1_000);
+        outboundExecutor.setThreadNamePrefix("clientOutboundChannel-");
+        outboundExecutor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stomp != null) {
+            stomp.stop();
+        }
+        outboundExecutor.shutdown();
+    }
+
+    @Test
+    void dropsStateUpdatesAboveThresholdAndDisconnectsAtMaxPendingMessages() throws Exception {
+        ExecutorSubscribableChannel outbound = outboundChannel(outboundExecutor);
+        StalledSession session = connect(outbound, 60_000);
+
+        // Zapis pierwszej ramki wisi - każda kolejna czeka w kolejce sesji
+        for (int i = 0; i < CONFLATE_THRESHOLD * 2; i++) {
+            send(outbound, session, "/topic/vehicle/1/tracking", "{\"tick\":" + i + "}");
+        }
+        assertThat(counter("logisticops.websocket.outbound.dropped")).isEqualTo(CONFLATE_THRESHOLD);
+        assertThat(depth("max")).isEqualTo(CONFLATE_THRESHOLD);
+
+        // Alerty nie są pomijane - kolejka rośnie do limitu, następny komunikat zamyka sesję
+        for (int i = CONFLATE_THRESHOLD; i < MAX_PENDING_MESSAGES; i++) {
+            send(outbound, session, "/topic/alerts/new", "{\"alert\":" + i + "}");
+        }
+        assertThat(session.isOpen()).isTrue();
+        send(outbound, session, "/topic/alerts/new", "{\"alert\":\"over limit\"}");
+
+        assertThat(session.closeStatus).isNotNull();
+        assertThat(session.closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)).isTrue();
+        assertThat(disconnected("slow_consumer")).isEqualTo(1);
+        assertThat(disconnected("send_limit")).isZero();
+        assertThat(counter("logisticops.websocket.outbound.dropped")).isEqualTo(CONFLATE_THRESHOLD);
+    }
+
+    @Test
+    void disconnectsAtSendTimeLimit() throws Exception {
+        ExecutorSubscribableChannel outbound = outboundChannel(outboundExecutor);
+        StalledSession session = connect(outbound, SEND_TIME_LIMIT_MS);
+
+        send(outbound, session, "/topic/alerts/new", "{\"alert\":1}");
+        awaitCondition(() -> session.writing);
+        Thread.sleep(SEND_TIME_LIMIT_MS * 2L);
+
+        // Kolejna ramka przy zapisie dłuższym niż limit - Spring zamyka sesję
+        send(outbound, session, "/topic/alerts/new", "{\"alert\":2}");
+        awaitCondition(() -> session.closeStatus != null);
+
+        assertThat(session.closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)).isTrue();
+        assertThat(disconnected("send_limit")).isEqualTo(1);
+        assertThat(disconnected("slow_consumer")).isZero();
+        assertThat(counter("logisticops.websocket.outbound.dropped")).isZero();
+    }
+
+    @Test
+    void releasesQueueSlotWhenLaterInterceptorDropsOrFailsMessage() throws Exception {
+        ExecutorSubscribableChannel outbound = outboundChannel(outboundExecutor);
+        // Za strażnikiem: co drugi komunikat odrzucony, pozostałe kończą się błędem - żaden nie trafia do sesji
+        AtomicInteger seen = new AtomicInteger();
+        outbound.addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (seen.incrementAndGet() % 2 == 0) {
+                    return null;
+                }
+                throw new MessageDeliveryException(message, "Rejected downstream");
+            }
+        });
+        StalledSession session = connect(outbound, 60_000);
+
+        for (int i = 0; i < MAX_PENDING_MESSAGES * 2; i++) {
+            String json = "{\"alert\":" + i + "}";
+            if (i % 2 == 0) {
+                assertThatThrownBy(() -> send(outbound, session, "/topic/alerts/new", json))
+                        .isInstanceOf(MessageDeliveryException.class);
+            } else {
+                send(outbound, session, "/topic/alerts/new", json);
+            }
+        }
+
+        assertThat(seen.get()).isEqualTo(MAX_PENDING_MESSAGES * 2);
+        assertThat(depth("total")).isZero();
+        assertThat(session.isOpen()).isTrue();
+        assertThat(disconnected("slow_consumer")).isZero();
+    }
+
+    private ExecutorSubscribableChannel outboundChannel(TaskExecutor executor) {
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel(executor);
+        outbound.addInterceptor(guard.outboundInterceptor());
+        return outbound;
+    }
+
+    private StalledSession connect(ExecutorSubscribableChannel outbound, int sendTimeLimitMs) throws Exception {
+        stomp = new SubProtocolWebSocketHandler(new ExecutorSubscribableChannel(), outbound);
+        stomp.setDefaultProtocolHandler(new StompSubProtocolHandler());
+        stomp.setSendTimeLimit(sendTimeLimitMs);
+        stomp.setSendBufferSizeLimit(512 * 1024);
+        stomp.start();
+
+        WebSocketHandler handler = guard.decorate(stomp);
+        StalledSession session = new StalledSession("stalled", handler);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private static void send(MessageChannel outbound, WebSocketSession session, String destination, String json) {
+        // Jak SimpleBrokerMessageHandler przy wysyłce do subskrybenta
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(session.getId());
+        headers.setSubscriptionId("sub-" + destination);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        outbound.send(MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders()));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private double counter(String name) {
+        return meters.get(name).counter().count();
+    }
+
+    private double disconnected(String reason) {
+        return meters.get("logisticops.websocket.sessions.disconnected").tag("reason", reason).counter().count();
+    }
+
+    private double depth(String stat) {
+        return meters.get("logisticops.websocket.session.queue.depth").tag("stat", stat).gauge().value();
+    }
+
+    /**
+     * Gniazdo klienta, którego zapis ramki nie wraca do zamknięcia sesji
+     */
+    private static final class StalledSession implements WebSocketSession {
+        private final String id;
+        private final WebSocketHandler handler;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private volatile boolean writing;
+        private volatile CloseStatus closeStatus;
+
+        private StalledSession(String id, WebSocketHandler handler) {
+            this.id = id;
+            this.handler = handler;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            writing = true;
+            try {
+                while (closeStatus == null) {
+                    Thread.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted write");
+            } finally {
+                writing = false;
+            }
+            throw new IOException("Session closed during write");
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            synchronized (this) {
+                if (closeStatus != null) {
+                    return;
+                }
+                closeStatus = status;
+            }
+            try {
+                handler.afterConnectionClosed(this, status);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closeStatus == null;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost/ws-native");
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 64 * 1024;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 64 * 1024;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+    }
+}
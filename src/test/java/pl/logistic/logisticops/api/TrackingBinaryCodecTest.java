@@ -0,0 +1,115 @@
+package pl.logistic.logisticops.api;
+
+import org.junit.jupiter.api.Test;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.dto.ViewportUpdateDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 📦 TrackingBinaryCodec: zapis i odczyt pozycji bez utraty danych (w granicach zaokrągleń)
+ */
+class TrackingBinaryCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0, 0, 250_000_000);
+
+    @Test
+    void positionsRoundTrip() {
+        List<VehicleTrackingDTO> positions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            positions.add(VehicleTrackingDTO.builder()
+                    .id(1_000L + i)
+                    .transportId(7L + i % 3)
+                    .vehicleId(20L + i % 5)
+                    .latitude(52.229676 + i * 0.000137)
+                    .longitude(21.012229 - i * 0.000211)
+                    .speedKmh(i % 7 == 0 ? null : 40.0 + i * 0.5)
+                    .headingDegrees(i % 9 == 0 ? null : (i * 37) % 360)
+                    .fuelLevelPercentage(i % 11 == 0 ? null : 100.0 - i * 1.5)
+                    .recordedAt(START.plusSeconds(i * 5L))
+                    .build());
+        }
+        // Pozycja z samymi wymaganymi polami
+        positions.add(VehicleTrackingDTO.builder().latitude(-33.5).longitude(-70.25).recordedAt(START).build());
+
+        assertRoundTrip(TrackingBinaryCodec.encodePositions(positions), positions);
+    }
+
+    @Test
+    void headingIsNormalisedToFullCircle() {
+        int[] headings = {0, 359, 360, 361, 720, -1, -90, -360, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        List<VehicleTrackingDTO> positions = new ArrayList<>();
+        for (int heading : headings) {
+            positions.add(position(heading));
+        }
+
+        byte[] encoded = TrackingBinaryCodec.encodePositions(positions);
+        List<VehicleTrackingDTO> decoded = TrackingBinaryCodec.decodePositions(encoded);
+
+        assertThat(decoded).extracting(VehicleTrackingDTO::getHeadingDegrees)
+                .containsExactly(0, 359, 0, 1, 0, 359, 270, 0, Math.floorMod(Integer.MIN_VALUE, 360),
+                        Math.floorMod(Integer.MAX_VALUE, 360));
+        // Kurs mieści się w 2 bajtach varinta - żadnych 10-bajtowych wartości ujemnych
+        assertThat(TrackingBinaryCodec.encodePositions(List.of(position(-1))))
+                .hasSameSizeAs(TrackingBinaryCodec.encodePositions(List.of(position(359))));
+    }
+
+    @Test
+    void viewportCarriesPositions() {
+        List<VehicleTrackingDTO> positions = List.of(position(90), position(180));
+        byte[] encoded = TrackingBinaryCodec.encode(ViewportUpdateDTO.builder()
+                .sequence(42L)
+                .snapshot(true)
+                .positions(positions)
+                .build());
+
+        assertRoundTrip(encoded, positions);
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedData() {
+        byte[] encoded = TrackingBinaryCodec.encodePositions(List.of(position(10)));
+
+        assertThatThrownBy(() -> TrackingBinaryCodec.decodePositions(new byte[]{'{', '"', 'a', '"'}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TrackingBinaryCodec.decodePositions(
+                Arrays.copyOf(encoded, encoded.length - 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(TrackingBinaryCodec.encodePositions(List.of(VehicleTrackingDTO.builder()
+                .latitude(52.0).longitude(21.0).build()))).isNull();
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    /**
+     * Współrzędne porównywane z dokładnością zapisu (10^-6°), pozostałe pola dokładnie
+     */
+    private static void assertRoundTrip(byte[] encoded, List<VehicleTrackingDTO> expected) {
+        Comparator<Double> withinScale = (a, b) -> Math.abs(a - b) <= 5e-7 ? 0 : Double.compare(a, b);
+        assertThat(TrackingBinaryCodec.decodePositions(encoded))
+                .usingRecursiveComparison()
+                .withComparatorForType(withinScale, Double.class)
+                .isEqualTo(expected);
+    }
+
+    private static VehicleTrackingDTO position(int heading) {
+        return VehicleTrackingDTO.builder()
+                .id(1L)
+                .transportId(7L)
+                .vehicleId(3L)
+                .latitude(52.0)
+                .longitude(21.0)
+                .headingDegrees(heading)
+                .recordedAt(START)
+                .build();
+    }
+}
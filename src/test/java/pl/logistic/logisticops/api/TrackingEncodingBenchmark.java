@@ -0,0 +1,142 @@
+package pl.logistic.logisticops.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.logistic.logisticops.dto.TopicUpdateDTO;
+import pl.logistic.logisticops.dto.TrackingFrameDTO;
+import pl.logistic.logisticops.dto.TransportLocationDTO;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.dto.ViewportUpdateDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ JMH: JSON (Jackson, konfiguracja jak w Spring Boot) vs TrackingBinaryCodec
+ *
+ * Parametry: payload (position, location, frame, viewport), positions (pozycje w ramce/widoku).
+ * Przed pomiarem wypisuje bajty na komunikat i na pozycję dla obu kodowań.
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TrackingEncodingBenchmark -p positions=50"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackingEncodingBenchmark {
+
+    private static final double START_LATITUDE = 52.2297;
+    private static final double START_LONGITUDE = 21.0122;
+
+    @Param({"position", "location", "frame", "viewport"})
+    public String payload;
+
+    @Param("50")
+    public int positions;
+
+    private ObjectMapper mapper;
+    private Object message;
+
+    @Setup(Level.Trial)
+    public void prepare() throws JsonProcessingException {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<VehicleTrackingDTO> fleet = fleet(positions);
+        int count = 1;
+        switch (payload) {
+            case "position" -> message = fleet.get(0);
+            case "location" -> message = TransportLocationDTO.builder()
+                    .latitude(START_LATITUDE)
+                    .longitude(START_LONGITUDE)
+                    .progress(42.5)
+                    .timestamp(System.currentTimeMillis())
+                    .build();
+            case "frame" -> {
+                List<TopicUpdateDTO> updates = new ArrayList<>();
+                for (VehicleTrackingDTO position : fleet) {
+                    updates.add(new TopicUpdateDTO("/topic/vehicle/" + position.getVehicleId() + "/tracking", position));
+                }
+                message = new TrackingFrameDTO(1L, System.currentTimeMillis(), updates);
+                count = positions;
+            }
+            case "viewport" -> {
+                message = ViewportUpdateDTO.builder()
+                        .sequence(1L)
+                        .snapshot(false)
+                        .positions(fleet)
+                        .alerts(List.of())
+                        .infrastructure(List.of())
+                        .build();
+                count = positions;
+            }
+            default -> throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+
+        byte[] binary = TrackingBinaryCodec.encode(message);
+        if (binary == null) {
+            throw new IllegalStateException(payload + " has no binary form");
+        }
+        int jsonBytes = mapper.writeValueAsBytes(message).length;
+        System.out.printf(Locale.ROOT, "%n%s: json %d B, binary %d B (%.1fx), per position %.1f / %.1f B%n",
+                payload, jsonBytes, binary.length, (double) jsonBytes / binary.length,
+                (double) jsonBytes / count, (double) binary.length / count);
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return TrackingBinaryCodec.encode(message);
+    }
+
+    /**
+     * Pojazdy rozrzucone w promieniu kilkunastu km, jak jeden rejon operacyjny
+     */
+    private static List<VehicleTrackingDTO> fleet(int size) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<VehicleTrackingDTO> fleet = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            fleet.add(VehicleTrackingDTO.builder()
+                    .id(1_000_000L + i * 3L)
+                    .transportId(100L + i / 10)
+                    .vehicleId(500L + i)
+                    .vehicleModel("Jelcz 882.57")
+                    .latitude(START_LATITUDE + random.nextGaussian() * 0.05)
+                    .longitude(START_LONGITUDE + random.nextGaussian() * 0.05)
+                    .speedKmh(Math.round(random.nextDouble() * 800) / 10.0)
+                    .headingDegrees(random.nextInt(360))
+                    .fuelLevelPercentage(Math.round(random.nextDouble() * 1000) / 10.0)
+                    .recordedAt(now.minusSeconds(random.nextInt(5)))
+                    .build());
+        }
+        return fleet;
+    }
+}
@@ -0,0 +1,142 @@
+package pl.logistic.logisticops.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 🔷 PolygonGridIndex: punkt w wielokącie (wklęsłe pierścienie, krawędzie),
+ * wielokąty ponad limit komórek i zgodność siatki z pełnym sprawdzeniem
+ */
+class PolygonGridIndexTest {
+
+    // Litera "U" otwarta od północy: wcięcie 52.2-52.4 x 21.1-21.3
+    private static final List<GeoPoint> U_SHAPE = List.of(
+            new GeoPoint(52.0, 21.0), new GeoPoint(52.0, 21.4), new GeoPoint(52.4, 21.4),
+            new GeoPoint(52.4, 21.3), new GeoPoint(52.2, 21.3), new GeoPoint(52.2, 21.1),
+            new GeoPoint(52.4, 21.1), new GeoPoint(52.4, 21.0));
+
+    @Test
+    void concaveRingExcludesPointsInTheNotch() {
+        PolygonGridIndex<String> index = PolygonGridIndex.<String>builder(0.05, 4096)
+                .add("U", U_SHAPE)
+                .build();
+
+        assertThat(index.containing(52.1, 21.2)).containsExactly("U");    // podstawa
+        assertThat(index.containing(52.3, 21.05)).containsExactly("U");   // lewe ramię
+        assertThat(index.containing(52.3, 21.35)).containsExactly("U");   // prawe ramię
+        assertThat(index.containing(52.3, 21.2)).isEmpty();               // wcięcie (w prostokącie ograniczającym)
+        assertThat(index.containing(52.5, 21.2)).isEmpty();
+        assertThat(index.containing(51.9, 21.2)).isEmpty();
+    }
+
+    @Test
+    void pointsOnEdgesFollowHalfOpenRule() {
+        List<GeoPoint> square = List.of(
+                new GeoPoint(52.0, 21.0), new GeoPoint(52.0, 21.1),
+                new GeoPoint(52.1, 21.1), new GeoPoint(52.1, 21.0));
+        double[] lats = square.stream().mapToDouble(GeoPoint::latitude).toArray();
+        double[] lngs = square.stream().mapToDouble(GeoPoint::longitude).toArray();
+
+        // Krawędź południowa i zachodnia należą do wielokąta, północna i wschodnia nie
+        assertThat(PolygonGridIndex.contains(lats, lngs, 52.0, 21.05)).isTrue();
+        assertThat(PolygonGridIndex.contains(lats, lngs, 52.05, 21.0)).isTrue();
+        assertThat(PolygonGridIndex.contains(lats, lngs, 52.1, 21.05)).isFalse();
+        assertThat(PolygonGridIndex.contains(lats, lngs, 52.05, 21.1)).isFalse();
+
+        // Dwie strefy ze wspólną krawędzią - punkt na granicy należy dokładnie do jednej
+        List<GeoPoint> east = List.of(
+                new GeoPoint(52.0, 21.1), new GeoPoint(52.0, 21.2),
+                new GeoPoint(52.1, 21.2), new GeoPoint(52.1, 21.1));
+        PolygonGridIndex<String> index = PolygonGridIndex.<String>builder(0.05, 4096)
+                .add("west", square)
+                .add("east", east)
+                .build();
+        assertThat(index.containing(52.05, 21.1)).containsExactly("east");
+    }
+
+    @Test
+    void closedRingIsAcceptedAndDegenerateRingRejected() {
+        List<GeoPoint> closed = new ArrayList<>(U_SHAPE);
+        closed.add(U_SHAPE.get(0));
+        PolygonGridIndex<String> index = PolygonGridIndex.<String>builder(0.05, 4096)
+                .add("U", closed)
+                .build();
+        assertThat(index.containing(52.1, 21.2)).containsExactly("U");
+
+        PolygonGridIndex.Builder<String> builder = PolygonGridIndex.builder(0.05, 4096);
+        assertThatThrownBy(() -> builder.add("line", List.of(
+                new GeoPoint(52.0, 21.0), new GeoPoint(52.1, 21.1), new GeoPoint(52.0, 21.0))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void oversizedPolygonIsCheckedOutsideTheGrid() {
+        List<GeoPoint> voivodeship = List.of(
+                new GeoPoint(51.0, 19.0), new GeoPoint(51.0, 22.0),
+                new GeoPoint(53.0, 22.0), new GeoPoint(53.0, 19.0));
+        PolygonGridIndex<String> index = PolygonGridIndex.<String>builder(0.05, 100)
+                .add("large", voivodeship)
+                .add("U", U_SHAPE)
+                .build();
+
+        assertThat(index.oversizedCount()).isEqualTo(1);
+        assertThat(index.containing(51.5, 19.5)).containsExactly("large");
+        assertThat(index.containing(52.1, 21.2)).containsExactlyInAnyOrder("large", "U");
+        assertThat(index.containing(52.3, 21.2)).containsExactly("large");
+        assertThat(index.containing(50.5, 19.5)).isEmpty();
+    }
+
+    @Test
+    void gridAnswersLikeCheckingEveryPolygon() {
+        Random random = new Random(3L);
+        List<List<GeoPoint>> rings = new ArrayList<>();
+        PolygonGridIndex.Builder<Integer> builder = PolygonGridIndex.builder(0.05, 400);
+        for (int i = 0; i < 200; i++) {
+            List<GeoPoint> ring = randomStar(random);
+            rings.add(ring);
+            builder.add(i, ring);
+        }
+        PolygonGridIndex<Integer> index = builder.build();
+        assertThat(index.oversizedCount()).isPositive();
+
+        for (int i = 0; i < 5_000; i++) {
+            double lat = 50 + random.nextDouble() * 4;
+            double lng = 17 + random.nextDouble() * 6;
+
+            List<Integer> expected = new ArrayList<>();
+            for (int p = 0; p < rings.size(); p++) {
+                List<GeoPoint> ring = rings.get(p);
+                if (PolygonGridIndex.contains(
+                        ring.stream().mapToDouble(GeoPoint::latitude).toArray(),
+                        ring.stream().mapToDouble(GeoPoint::longitude).toArray(), lat, lng)) {
+                    expected.add(p);
+                }
+            }
+            assertThat(index.containing(lat, lng)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    /**
+     * Wklęsła "gwiazda" wokół losowego środka; część ma promień ponad limit komórek
+     */
+    private static List<GeoPoint> randomStar(Random random) {
+        double centerLat = 50.5 + random.nextDouble() * 3;
+        double centerLng = 17.5 + random.nextDouble() * 5;
+        double radius = random.nextInt(10) == 0 ? 0.8 : 0.02 + random.nextDouble() * 0.2;
+        int arms = 5 + random.nextInt(4);
+
+        List<GeoPoint> ring = new ArrayList<>();
+        for (int k = 0; k < 2 * arms; k++) {
+            double angle = Math.PI * k / arms;
+            double r = k % 2 == 0 ? radius : radius * 0.4;
+            ring.add(new GeoPoint(centerLat + r * Math.sin(angle), centerLng + r * Math.cos(angle)));
+        }
+        return ring;
+    }
+}
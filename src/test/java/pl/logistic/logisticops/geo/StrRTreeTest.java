@@ -0,0 +1,157 @@
+package pl.logistic.logisticops.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 🌲 StrRTree kontra pełny skan (wyrocznia brute-force) na losowych punktach w Polsce
+ */
+class StrRTreeTest {
+
+    private static final long SEED = 20240611L;
+
+    private record Point(int id, double lat, double lng) {
+    }
+
+    @Test
+    void boundingBoxQueryMatchesFullScan() {
+        Random random = new Random(SEED);
+        List<Point> points = randomPoints(random, 5_000);
+
+        for (int capacity : new int[]{2, 4, StrRTree.DEFAULT_NODE_CAPACITY}) {
+            StrRTree<Point> tree = StrRTree.build(points, Point::lat, Point::lng, capacity);
+            assertThat(tree.size()).isEqualTo(points.size());
+
+            for (int i = 0; i < 200; i++) {
+                BoundingBox box = BoundingBox.of(
+                        randomLat(random), randomLng(random), randomLat(random), randomLng(random));
+
+                List<Integer> expected = points.stream()
+                        .filter(p -> box.contains(p.lat(), p.lng()))
+                        .map(Point::id).sorted().toList();
+
+                assertThat(ids(tree.searchBoundingBox(box))).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void boundingBoxIncludesPointsOnTheEdge() {
+        List<Point> points = List.of(new Point(1, 52.0, 21.0), new Point(2, 52.5, 21.5), new Point(3, 53.0, 22.0));
+        StrRTree<Point> tree = StrRTree.build(points, Point::lat, Point::lng, 2);
+
+        assertThat(ids(tree.searchBoundingBox(new BoundingBox(52.0, 21.0, 52.5, 21.5)))).containsExactly(1, 2);
+        assertThat(tree.searchBoundingBox(new BoundingBox(53.1, 22.1, 54.0, 23.0))).isEmpty();
+    }
+
+    @Test
+    void radiusQueryMatchesFullScanAndIsSortedByDistance() {
+        Random random = new Random(SEED + 1);
+        List<Point> points = randomPoints(random, 3_000);
+        StrRTree<Point> tree = StrRTree.build(points, Point::lat, Point::lng);
+        Predicate<Point> even = p -> p.id() % 2 == 0;
+
+        for (int i = 0; i < 100; i++) {
+            double lat = randomLat(random);
+            double lng = randomLng(random);
+            double radiusKm = 5 + random.nextDouble() * 80;
+
+            List<StrRTree.Hit<Point>> expected = bruteForce(points, lat, lng, even).stream()
+                    .filter(hit -> hit.distanceKm() <= radiusKm)
+                    .toList();
+            List<StrRTree.Hit<Point>> actual = tree.searchRadius(lat, lng, radiusKm, even);
+
+            assertThat(ids(actual.stream().map(StrRTree.Hit::item).toList()))
+                    .isEqualTo(ids(expected.stream().map(StrRTree.Hit::item).toList()));
+            assertThat(actual).isSortedAccordingTo(Comparator.comparingDouble(StrRTree.Hit::distanceKm));
+        }
+    }
+
+    @Test
+    void nearestMatchesFullScan() {
+        Random random = new Random(SEED + 2);
+        List<Point> points = randomPoints(random, 4_000);
+        StrRTree<Point> tree = StrRTree.build(points, Point::lat, Point::lng);
+        Predicate<Point> notDivisibleByThree = p -> p.id() % 3 != 0;
+
+        for (int i = 0; i < 200; i++) {
+            double lat = randomLat(random);
+            double lng = randomLng(random);
+            int k = 1 + random.nextInt(20);
+            double maxDistanceKm = i % 4 == 0 ? 15.0 : Double.MAX_VALUE;
+
+            List<Double> expected = bruteForce(points, lat, lng, notDivisibleByThree).stream()
+                    .map(StrRTree.Hit::distanceKm)
+                    .filter(distance -> distance <= maxDistanceKm)
+                    .limit(k)
+                    .toList();
+            List<StrRTree.Hit<Point>> actual = tree.nearest(lat, lng, k, maxDistanceKm, notDivisibleByThree);
+
+            // Porównujemy odległości - przy remisach kolejność obiektów może się różnić
+            assertThat(actual.stream().map(StrRTree.Hit::distanceKm).toList()).isEqualTo(expected);
+            assertThat(actual).allMatch(hit -> notDivisibleByThree.test(hit.item()));
+        }
+    }
+
+    @Test
+    void emptyTreeAndDegenerateArguments() {
+        StrRTree<Point> empty = StrRTree.build(List.of(), Point::lat, Point::lng);
+
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(empty.searchBoundingBox(new BoundingBox(-90, -180, 90, 180))).isEmpty();
+        assertThat(empty.searchRadius(52, 21, 100, p -> true)).isEmpty();
+        assertThat(empty.nearest(52, 21, 5, Double.MAX_VALUE, p -> true)).isEmpty();
+
+        StrRTree<Point> single = StrRTree.build(List.of(new Point(7, 52, 21)), Point::lat, Point::lng);
+        assertThat(single.nearest(52, 21, 0, Double.MAX_VALUE, p -> true)).isEmpty();
+        assertThat(single.nearest(52, 21, 3, Double.MAX_VALUE, p -> true))
+                .extracting(hit -> hit.item().id()).containsExactly(7);
+
+        assertThatThrownBy(() -> StrRTree.build(List.of(), Point::lat, Point::lng, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    private static List<StrRTree.Hit<Point>> bruteForce(List<Point> points, double lat, double lng,
+                                                        Predicate<Point> filter) {
+        List<StrRTree.Hit<Point>> hits = new ArrayList<>();
+        for (Point point : points) {
+            if (filter.test(point)) {
+                hits.add(new StrRTree.Hit<>(point, GeoUtils.haversineKm(lat, lng, point.lat(), point.lng())));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(StrRTree.Hit::distanceKm));
+        return hits;
+    }
+
+    private static List<Point> randomPoints(Random random, int count) {
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(i, randomLat(random), randomLng(random)));
+        }
+        return points;
+    }
+
+    private static double randomLat(Random random) {
+        return 49.0 + random.nextDouble() * 5.8;
+    }
+
+    private static double randomLng(Random random) {
+        return 14.1 + random.nextDouble() * 10.1;
+    }
+
+    private static List<Integer> ids(List<Point> points) {
+        return points.stream().map(Point::id).sorted().toList();
+    }
+}
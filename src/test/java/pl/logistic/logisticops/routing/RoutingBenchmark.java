@@ -0,0 +1,105 @@
+package pl.logistic.logisticops.routing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ JMH: dwukierunkowy A* vs hierarchia skrótów (ten sam graf i klasa skrajni)
+ *
+ * Parametry: routingDir (wynik RoutingPreprocessor), clearanceClass, pairs. Pary start/cel
+ * losowane ze stałym ziarnem; przed pomiarem sprawdzane, czy oba algorytmy zwracają ten sam
+ * koszt trasy.
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main RoutingBenchmark -p routingDir=/var/lib/logisticops/routing"
+ * </pre>
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+    @Param("")
+    public String routingDir;
+
+    @Param("LIGHT")
+    public String clearanceClass;
+
+    @Param("1000")
+    public int pairs;
+
+    private BidirectionalAStar astar;
+    private EdgeWeighting weighting;
+    private ContractionHierarchy hierarchy;
+    private int[] sources;
+    private int[] targets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        if (routingDir.isBlank()) {
+            throw new IllegalArgumentException("Set -p routingDir=<RoutingPreprocessor output directory>");
+        }
+        Path directory = Path.of(routingDir);
+        RoadGraph graph = RoadGraph.read(directory.resolve(RoadGraph.FILE_NAME));
+        hierarchy = ContractionHierarchy.map(directory.resolve(
+                ContractionHierarchy.FILE_PREFIX + clearanceClass + ContractionHierarchy.FILE_SUFFIX));
+        astar = new BidirectionalAStar(graph);
+        weighting = EdgeWeighting.fastest(graph, hierarchy.clearanceClass().asConstraints());
+
+        Random random = new Random(42);
+        sources = new int[pairs];
+        targets = new int[pairs];
+        int mismatches = 0;
+        for (int i = 0; i < pairs; i++) {
+            sources[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+
+            BidirectionalAStar.Path a = astar.route(sources[i], targets[i], weighting, Integer.MAX_VALUE);
+            BidirectionalAStar.Path c = hierarchy.route(sources[i], targets[i]);
+            if ((a == null) != (c == null)
+                    || a != null && Math.abs(a.weight() - c.weight()) > 1e-3 * Math.max(1.0, a.weight())) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " of " + pairs + " pairs differ in route cost between A* and CH");
+        }
+    }
+
+    private int nextPair() {
+        int pair = next;
+        next = pair + 1 == pairs ? 0 : pair + 1;
+        return pair;
+    }
+
+    @Benchmark
+    public BidirectionalAStar.Path bidirectionalAStar() {
+        int pair = nextPair();
+        return astar.route(sources[pair], targets[pair], weighting, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public BidirectionalAStar.Path contractionHierarchy() {
+        int pair = nextPair();
+        return hierarchy.route(sources[pair], targets[pair]);
+    }
+}
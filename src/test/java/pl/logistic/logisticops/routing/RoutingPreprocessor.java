@@ -0,0 +1,45 @@
+package pl.logistic.logisticops.routing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 🏭 Preprocessing offline: plik OSM → graf binarny + hierarchie skrótów dla klas skrajni
+ *
+ * Narzędzie spoza jara aplikacji (classpath testowy), uruchamiane raz po pobraniu nowego wycinka OSM:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=pl.logistic.logisticops.routing.RoutingPreprocessor \
+ *     -Dexec.args="poland-latest.osm.gz /var/lib/logisticops/routing [LIGHT:380:40000:10000,...]"
+ * </pre>
+ * Katalog wynikowy wskazuje app.routing.ch.directory.
+ */
+@Slf4j
+public final class RoutingPreprocessor {
+
+    private RoutingPreprocessor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                    "Usage: RoutingPreprocessor <osm-file> <output-dir> [NAME:heightCm:weightKg:axleKg,...]");
+        }
+        Path osmFile = Path.of(args[0]);
+        Path outputDir = Path.of(args[1]);
+        List<ClearanceClass> classes = args.length > 2 ? ClearanceClass.parseAll(args[2]) : ClearanceClass.DEFAULTS;
+
+        RoadGraph graph = OsmGraphLoader.load(osmFile);
+        graph.write(outputDir.resolve(RoadGraph.FILE_NAME));
+        log.info("💾 Road graph written to {}", outputDir.resolve(RoadGraph.FILE_NAME));
+
+        for (ClearanceClass clearanceClass : classes) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, clearanceClass);
+            Path file = outputDir.resolve(ContractionHierarchy.fileName(clearanceClass));
+            hierarchy.write(file);
+            log.info("💾 Contraction hierarchy {} written to {}", clearanceClass.name(), file);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+import pl.logistic.logisticops.event.VehiclePositionsPersistedEvent;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.PolylineCodec;
+import pl.logistic.logisticops.model.RestrictedZone;
+import pl.logistic.logisticops.repository.RestrictedZoneRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 🚧 GeofenceService: alerty przy wjeździe i wyjeździe ze strefy, spóźnione pingi
+ * i strefy ponad limit komórek siatki
+ */
+class GeofenceServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+    private static final Long TRANSPORT_ID = 7L;
+
+    // Poligon 52.0-52.2 x 21.0-21.2
+    private static final RestrictedZone RANGE = zone(1L, "Poligon", AlertLevel.HIGH, List.of(
+            new GeoPoint(52.0, 21.0), new GeoPoint(52.0, 21.2),
+            new GeoPoint(52.2, 21.2), new GeoPoint(52.2, 21.0)));
+
+    private RestrictedZoneRepository zoneRepository;
+    private AlertService alertService;
+    private GeofenceService service;
+
+    @BeforeEach
+    void setUp() {
+        zoneRepository = mock(RestrictedZoneRepository.class);
+        alertService = mock(AlertService.class);
+        service = new GeofenceService(zoneRepository, alertService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "cellSizeDeg", 0.05);
+        ReflectionTestUtils.setField(service, "maxCellsPerZone", 4096);
+        ReflectionTestUtils.setField(service, "idleHours", 12L);
+        service.init();
+    }
+
+    @Test
+    void enterAndExitRaiseOneAlertEach() {
+        load(RANGE);
+
+        ping(1L, 51.9, 21.1, 0);
+        verifyNoInteractions(alertService);
+
+        ping(1L, 52.1, 21.1, 1);
+        verify(alertService).createAlert(contains("entered restricted zone 'Poligon'"),
+                eq(AlertLevel.HIGH), eq(TRANSPORT_ID), isNull(), eq("GEOFENCING_VIOLATION"));
+
+        // Dalsza jazda wewnątrz strefy - bez kolejnych alertów
+        ping(1L, 52.15, 21.15, 2);
+        verify(alertService, times(1)).createAlert(anyString(), any(), any(), any(), anyString());
+
+        ping(1L, 52.3, 21.1, 3);
+        verify(alertService).createAlert(contains("left restricted zone 'Poligon'"),
+                eq(AlertLevel.LOW), eq(TRANSPORT_ID), isNull(), eq("GEOFENCING_VIOLATION"));
+        verify(alertService, times(2)).createAlert(anyString(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void latePingDoesNotChangeState() {
+        load(RANGE);
+
+        ping(1L, 52.1, 21.1, 10);
+        ping(1L, 52.3, 21.1, 20);
+        clearInvocations(alertService);
+
+        // Ping sprzed wyjazdu doszedł po nim - pojazd nie "wraca" do strefy
+        ping(1L, 52.1, 21.1, 15);
+        verifyNoInteractions(alertService);
+
+        // Kolejny aktualny ping poza strefą - nadal bez przejścia
+        ping(1L, 52.35, 21.1, 30);
+        verifyNoInteractions(alertService);
+
+        // Spóźniony ping poza strefą nie kasuje pobytu w strefie
+        ping(2L, 52.1, 21.1, 40);
+        ping(2L, 51.9, 21.1, 35);
+        ping(2L, 52.15, 21.1, 50);
+        verify(alertService, times(1)).createAlert(anyString(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void oversizedZoneIsStillDetected() {
+        ReflectionTestUtils.setField(service, "maxCellsPerZone", 1);
+        RestrictedZone large = zone(2L, "Obszar", AlertLevel.CRITICAL, List.of(
+                new GeoPoint(51.0, 19.0), new GeoPoint(51.0, 22.0),
+                new GeoPoint(53.0, 22.0), new GeoPoint(53.0, 19.0)));
+        load(large, RANGE);
+
+        assertThat(service.zonesAt(52.1, 21.1)).extracting(GeofenceService.ZoneInfo::id)
+                .containsExactlyInAnyOrder(1L, 2L);
+        assertThat(service.zonesAt(51.5, 19.5)).extracting(GeofenceService.ZoneInfo::id).containsExactly(2L);
+        assertThat(service.zonesAt(50.5, 19.5)).isEmpty();
+
+        ping(1L, 51.5, 19.5, 0);
+        verify(alertService).createAlert(contains("entered restricted zone 'Obszar'"),
+                eq(AlertLevel.CRITICAL), eq(TRANSPORT_ID), isNull(), eq("GEOFENCING_VIOLATION"));
+    }
+
+    @Test
+    void convoyRaisesSingleAlertPerTransition() {
+        load(RANGE);
+
+        service.onPositionsPersisted(VehiclePositionsPersistedEvent.convoy(TRANSPORT_ID, List.of(
+                position(1L, 52.1, 21.1, 0), position(2L, 52.1, 21.1, 0), position(3L, 52.1, 21.1, 0))));
+        verify(alertService, times(1)).createAlert(contains("entered restricted zone"),
+                any(), eq(TRANSPORT_ID), isNull(), anyString());
+
+        service.onPositionsPersisted(VehiclePositionsPersistedEvent.convoy(TRANSPORT_ID, List.of(
+                position(1L, 52.3, 21.1, 1), position(2L, 52.3, 21.1, 1), position(3L, 52.3, 21.1, 1))));
+        verify(alertService, times(1)).createAlert(contains("left restricted zone"),
+                any(), eq(TRANSPORT_ID), isNull(), anyString());
+        verify(alertService, never()).createAlert(contains("Vehicle"), any(), any(), any(), anyString());
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    private void load(RestrictedZone... zones) {
+        when(zoneRepository.findByActiveTrue()).thenReturn(List.of(zones));
+        service.reloadZones();
+    }
+
+    private void ping(Long vehicleId, double lat, double lng, long minute) {
+        service.onPositionsPersisted(new VehiclePositionsPersistedEvent(List.of(position(vehicleId, lat, lng, minute))));
+    }
+
+    private static VehicleTrackingDTO position(Long vehicleId, double lat, double lng, long minute) {
+        return VehicleTrackingDTO.builder()
+                .transportId(TRANSPORT_ID)
+                .vehicleId(vehicleId)
+                .latitude(lat)
+                .longitude(lng)
+                .recordedAt(START.plusMinutes(minute))
+                .build();
+    }
+
+    private static RestrictedZone zone(Long id, String name, AlertLevel alertLevel, List<GeoPoint> ring) {
+        return RestrictedZone.builder()
+                .id(id)
+                .name(name)
+                .zoneType("MILITARY")
+                .alertLevel(alertLevel)
+                .polygon(PolylineCodec.encode(ring))
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,227 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent;
+import pl.logistic.logisticops.event.InfrastructureChangedEvent.ChangeType;
+import pl.logistic.logisticops.geo.BoundingBox;
+import pl.logistic.logisticops.geo.GeoPoint;
+import pl.logistic.logisticops.geo.GeoUtils;
+import pl.logistic.logisticops.geo.RouteCorridor;
+import pl.logistic.logisticops.geo.StrRTree;
+import pl.logistic.logisticops.model.Infrastructure;
+import pl.logistic.logisticops.repository.InfrastructureRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 🌲 Indeks przestrzenny infrastruktury: drzewo + overlay zmian CRUD + kompaktowanie
+ *
+ * Każda zmiana jest odbijana w mapie-wyroczni, a wyniki zapytań porównywane z pełnym skanem tej mapy.
+ */
+class RTreeInfrastructureSpatialIndexTest {
+
+    private static final BoundingBox POLAND = new BoundingBox(49.0, 14.1, 54.8, 24.2);
+
+    private final Random random = new Random(42L);
+    private final Map<Long, Infrastructure> oracle = new LinkedHashMap<>();
+
+    private InfrastructureRepository repository;
+    private RTreeInfrastructureSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(InfrastructureRepository.class);
+        index = new RTreeInfrastructureSpatialIndex(repository, new SimpleMeterRegistry());
+        index.registerMetrics();
+
+        for (long id = 1; id <= 2_000; id++) {
+            oracle.put(id, randomInfrastructure(id));
+        }
+        when(repository.findByIsActiveTrue()).thenReturn(new ArrayList<>(oracle.values()));
+        index.rebuild();
+    }
+
+    @Test
+    void freshIndexAnswersLikeFullScan() {
+        assertThat(index.size()).isEqualTo(oracle.size());
+        assertMatchesOracle();
+    }
+
+    @Test
+    void overlayAppliesCreateMoveDeactivateAndDelete() {
+        Infrastructure created = randomInfrastructure(5_000L);
+        apply(ChangeType.CREATED, created);
+
+        Infrastructure moved = copyAt(oracle.get(10L), 50.06, 19.94);
+        apply(ChangeType.UPDATED, moved);
+
+        Infrastructure deactivated = copyAt(oracle.get(20L), oracle.get(20L).getLatitude(), oracle.get(20L).getLongitude());
+        deactivated.setIsActive(false);
+        apply(ChangeType.STATUS_CHANGED, deactivated);
+
+        apply(ChangeType.DELETED, oracle.get(30L));
+
+        assertThat(index.size()).isEqualTo(oracle.size());
+        assertMatchesOracle();
+
+        // Przesunięty obiekt znika ze starego położenia i pojawia się tylko raz w nowym
+        assertThat(index.findInBoundingBox(new BoundingBox(50.05, 19.93, 50.07, 19.95)))
+                .extracting(Infrastructure::getId).containsOnlyOnce(10L);
+    }
+
+    @Test
+    void largeOverlayIsCompactedWithoutLosingChanges() {
+        for (long id = 1; id <= 600; id++) {
+            if (id % 3 == 0) {
+                apply(ChangeType.DELETED, oracle.get(id));
+            } else {
+                apply(ChangeType.UPDATED, copyAt(oracle.get(id), randomLat(), randomLng()));
+            }
+            if (id % 97 == 0) {
+                assertMatchesOracle();
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(oracle.size());
+        assertMatchesOracle();
+
+        // 600 zmian > próg 256 - nakładka została wchłonięta przez drzewo i jest znowu mała
+        Object snapshot = ReflectionTestUtils.getField(index, "snapshot");
+        Map<?, ?> overlay = (Map<?, ?>) ReflectionTestUtils.getField(snapshot, "overlay");
+        Set<?> hidden = (Set<?>) ReflectionTestUtils.getField(snapshot, "hidden");
+        assertThat(overlay.size() + hidden.size()).isLessThanOrEqualTo(256);
+    }
+
+    @Test
+    void changesDuringRebuildAreReappliedOnNewTree() {
+        List<Infrastructure> staleRead = new ArrayList<>(oracle.values());
+        Infrastructure movedDuringRebuild = copyAt(oracle.get(5L), 54.35, 18.65);
+
+        when(repository.findByIsActiveTrue()).thenAnswer(invocation -> {
+            // Zmiana zatwierdzona po odczycie z bazy, ale przed podmianą drzewa
+            apply(ChangeType.UPDATED, movedDuringRebuild);
+            apply(ChangeType.DELETED, oracle.get(6L));
+            return staleRead;
+        });
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(oracle.size());
+        assertMatchesOracle();
+    }
+
+    @Test
+    void corridorQueryMatchesFullScanOnLongDiagonalRoute() {
+        apply(ChangeType.UPDATED, copyAt(oracle.get(1L), 51.0, 17.0));
+        apply(ChangeType.CREATED, randomInfrastructure(9_000L));
+
+        // Szczecin -> Rzeszów z odbiciem przez Łódź, bufor 3 km
+        RouteCorridor corridor = RouteCorridor.builder(3.0)
+                .addSegment(List.of(new GeoPoint(53.43, 14.55), new GeoPoint(51.76, 19.46)))
+                .addSegment(List.of(new GeoPoint(51.76, 19.46), new GeoPoint(51.0, 17.0), new GeoPoint(50.04, 22.0)))
+                .build();
+
+        List<Long> expected = oracle.values().stream()
+                .filter(infra -> corridor.locate(infra.getLatitude(), infra.getLongitude()) != null)
+                .map(Infrastructure::getId)
+                .toList();
+        List<RouteCorridor.Hit<Infrastructure>> hits = index.findInCorridor(corridor);
+
+        assertThat(expected).contains(1L);
+        assertThat(hits).extracting(hit -> hit.item().getId()).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(RouteCorridor.Hit::distanceAlongKm));
+
+        // Pasy komórek obejmują ułamek prostokąta całej trasy
+        double coveredArea = corridor.coveringBoxes().stream().mapToDouble(RTreeInfrastructureSpatialIndexTest::area).sum();
+        assertThat(coveredArea).isLessThan(area(corridor.bounds()) / 5);
+    }
+
+    private static double area(BoundingBox box) {
+        return (box.maxLat() - box.minLat()) * (box.maxLng() - box.minLng());
+    }
+
+    // ========================================
+    // WYROCZNIA
+    // ========================================
+
+    private void assertMatchesOracle() {
+        for (int i = 0; i < 25; i++) {
+            double lat = randomLat();
+            double lng = randomLng();
+
+            BoundingBox box = BoundingBox.of(lat, lng, randomLat(), randomLng());
+            assertThat(index.findInBoundingBox(box)).extracting(Infrastructure::getId)
+                    .containsExactlyInAnyOrderElementsOf(oracle.values().stream()
+                            .filter(infra -> box.contains(infra.getLatitude(), infra.getLongitude()))
+                            .map(Infrastructure::getId).toList());
+
+            double radiusKm = 10 + random.nextDouble() * 60;
+            List<StrRTree.Hit<Infrastructure>> expected = bruteForce(lat, lng);
+            assertThat(index.findWithinRadius(lat, lng, radiusKm)).extracting(hit -> hit.item().getId())
+                    .containsExactlyInAnyOrderElementsOf(expected.stream()
+                            .filter(hit -> hit.distanceKm() <= radiusKm)
+                            .map(hit -> hit.item().getId()).toList());
+
+            int k = 1 + random.nextInt(15);
+            assertThat(index.findNearest(lat, lng, k, Double.MAX_VALUE))
+                    .extracting(StrRTree.Hit::distanceKm)
+                    .containsExactlyElementsOf(expected.stream().limit(k).map(StrRTree.Hit::distanceKm).toList());
+        }
+    }
+
+    private List<StrRTree.Hit<Infrastructure>> bruteForce(double lat, double lng) {
+        List<StrRTree.Hit<Infrastructure>> hits = new ArrayList<>();
+        for (Infrastructure infra : oracle.values()) {
+            hits.add(new StrRTree.Hit<>(infra, GeoUtils.haversineKm(lat, lng, infra.getLatitude(), infra.getLongitude())));
+        }
+        hits.sort(Comparator.comparingDouble(StrRTree.Hit::distanceKm));
+        return hits;
+    }
+
+    private void apply(ChangeType changeType, Infrastructure infrastructure) {
+        if (changeType == ChangeType.DELETED || !Boolean.TRUE.equals(infrastructure.getIsActive())) {
+            oracle.remove(infrastructure.getId());
+        } else {
+            oracle.put(infrastructure.getId(), infrastructure);
+        }
+        index.onInfrastructureChanged(InfrastructureChangedEvent.of(changeType, infrastructure));
+    }
+
+    private Infrastructure randomInfrastructure(long id) {
+        return Infrastructure.builder()
+                .id(id)
+                .name("Obiekt " + id)
+                .type(id % 2 == 0 ? "BRIDGE" : "TUNNEL")
+                .latitude(randomLat())
+                .longitude(randomLng())
+                .isActive(true)
+                .build();
+    }
+
+    private static Infrastructure copyAt(Infrastructure source, double latitude, double longitude) {
+        Infrastructure copy = RTreeInfrastructureSpatialIndex.detachedCopy(source);
+        copy.setLatitude(latitude);
+        copy.setLongitude(longitude);
+        return copy;
+    }
+
+    private double randomLat() {
+        return POLAND.minLat() + random.nextDouble() * (POLAND.maxLat() - POLAND.minLat());
+    }
+
+    private double randomLng() {
+        return POLAND.minLng() + random.nextDouble() * (POLAND.maxLng() - POLAND.minLng());
+    }
+}
@@ -0,0 +1,158 @@
+package pl.logistic.logisticops.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pl.logistic.logisticops.dto.AlertDTO;
+import pl.logistic.logisticops.dto.VehicleTrackingDTO;
+import pl.logistic.logisticops.enums.AlertLevel;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 🚦 TrackingAlertService: automat NORMAL → PENDING → ACTIVE reguły prędkości
+ * (próg 90 km/h, histereza do 85 km/h, min. 10 s, cooldown 600 s)
+ */
+class TrackingAlertServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+    private static final Long VEHICLE_ID = 3L;
+    private static final Long TRANSPORT_ID = 7L;
+    private static final long ALERT_ID = 100L;
+
+    private AlertService alertService;
+    private SimpleMeterRegistry meterRegistry;
+    private TrackingAlertService service;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        when(alertService.createAlert(anyString(), any(), any(), any(), anyString()))
+                .thenReturn(AlertDTO.builder().id(ALERT_ID).build());
+        meterRegistry = new SimpleMeterRegistry();
+
+        service = new TrackingAlertService(alertService, meterRegistry);
+        ReflectionTestUtils.setField(service, "fuelTrigger", 20.0);
+        ReflectionTestUtils.setField(service, "fuelClear", 25.0);
+        ReflectionTestUtils.setField(service, "fuelMinDurationSeconds", 30L);
+        ReflectionTestUtils.setField(service, "fuelCooldownSeconds", 1800L);
+        ReflectionTestUtils.setField(service, "speedTrigger", 90.0);
+        ReflectionTestUtils.setField(service, "speedClear", 85.0);
+        ReflectionTestUtils.setField(service, "speedMinDurationSeconds", 10L);
+        ReflectionTestUtils.setField(service, "speedCooldownSeconds", 600L);
+        ReflectionTestUtils.setField(service, "idleHours", 12L);
+        service.init();
+    }
+
+    @Test
+    void firesOnceAfterMinDuration() {
+        ping(0, 95);
+        ping(5, 95);
+        verify(alertService, never()).createAlert(anyString(), any(), any(), any(), anyString());
+
+        ping(10, 96);
+        ping(20, 97);
+        ping(30, 95);
+
+        verify(alertService, times(1)).createAlert(startsWith(String.format("Przekroczenie prędkości: %.1f km/h", 96.0)),
+                eq(AlertLevel.MEDIUM), eq(TRANSPORT_ID), any(), eq("SPEED"));
+        assertThat(count("fired")).isEqualTo(1);
+    }
+
+    @Test
+    void oscillationAroundTriggerStillFires() {
+        // Spadki do 89 km/h leżą w paśmie histerezy - odliczanie trwa od pierwszego przekroczenia
+        ping(0, 91);
+        ping(3, 89);
+        ping(6, 91);
+        ping(9, 89);
+        ping(10, 91);
+
+        verify(alertService, times(1)).createAlert(anyString(), any(), eq(TRANSPORT_ID), any(), eq("SPEED"));
+    }
+
+    @Test
+    void returnBelowClearResetsPending() {
+        ping(0, 95);
+        ping(5, 80);
+        ping(10, 95);
+        verify(alertService, never()).createAlert(anyString(), any(), any(), any(), anyString());
+
+        ping(20, 95);
+        verify(alertService, times(1)).createAlert(anyString(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void activeAlertResolvesOnlyBelowClearThreshold() {
+        ping(0, 95);
+        ping(10, 95);
+
+        ping(20, 87);
+        verify(alertService, never()).resolveAlert(anyLong());
+
+        ping(30, 84);
+        verify(alertService).resolveAlert(ALERT_ID);
+        assertThat(count("resolved")).isEqualTo(1);
+    }
+
+    @Test
+    void cooldownSuppressesRepeatedAlert() {
+        ping(0, 95);
+        ping(10, 95);
+        ping(20, 80);
+
+        // Ponowne przekroczenie w cooldownie - czekamy w PENDING
+        ping(30, 95);
+        ping(40, 95);
+        ping(300, 95);
+        verify(alertService, times(1)).createAlert(anyString(), any(), any(), any(), anyString());
+        assertThat(count("suppressed")).isEqualTo(2);
+
+        // 600 s od poprzedniego alertu - warunek wciąż trwa, alert pada
+        ping(610, 95);
+        verify(alertService, times(2)).createAlert(anyString(), any(), any(), any(), anyString());
+        assertThat(count("fired")).isEqualTo(2);
+    }
+
+    @Test
+    void latePingIsIgnored() {
+        ping(0, 95);
+        ping(10, 95);
+
+        // Ping sprzed ostatnio ocenionego nie rozwiązuje alertu
+        ping(5, 80);
+        verify(alertService, never()).resolveAlert(anyLong());
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    private void ping(long second, double speedKmh) {
+        service.evaluate(VehicleTrackingDTO.builder()
+                .transportId(TRANSPORT_ID)
+                .vehicleId(VEHICLE_ID)
+                .latitude(52.0)
+                .longitude(21.0)
+                .speedKmh(speedKmh)
+                .recordedAt(START.plusSeconds(second))
+                .build());
+    }
+
+    private double count(String transition) {
+        return meterRegistry.counter("logisticops.tracking.alerts", "rule", "SPEED", "transition", transition).count();
+    }
+}
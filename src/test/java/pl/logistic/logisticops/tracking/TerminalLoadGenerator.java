@@ -0,0 +1,146 @@
+package pl.logistic.logisticops.tracking;
+
+import pl.logistic.logisticops.geo.GeoUtils;
+import pl.logistic.logisticops.service.MilitaryDeviceRegistry;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🧪 Lokalny generator ruchu dla TerminalGpsListener
+ *
+ * Argumenty: host, port, tcp|udp, id transportu, id pojazdu, klucz ramek (hex), [terminale],
+ * [ramki/s], [sekundy]. Każdy terminal (GTX-00000000, GTX-00000001, ...) jedzie losowym
+ * marszrutem od Warszawy; przy TCP ma własne połączenie, przy UDP każda ramka to osobny
+ * datagram. Terminale muszą być w rejestrze urządzeń (powiązane z pojazdem, z tym kluczem
+ * ramek), a transport i pojazd istnieć - inaczej ramki odpadną jako unauthorized_device /
+ * invalid. Co sekundę wypisuje
+ * osiągnięte tempo; spadek poniżej zadanego przy TCP oznacza backpressure odbiornika.
+ *
+ * Narzędzie spoza jara aplikacji (classpath testowy, jak RoutingPreprocessor):
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=pl.logistic.logisticops.tracking.TerminalLoadGenerator \
+ *     -Dexec.args="localhost 5055 tcp 1 1 &lt;frame-key-hex&gt; 10 5000 30"
+ * </pre>
+ */
+public final class TerminalLoadGenerator {
+
+    private static final double START_LATITUDE = 52.2297;
+    private static final double START_LONGITUDE = 21.0122;
+
+    private TerminalLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 6) {
+            throw new IllegalArgumentException("Usage: TerminalLoadGenerator <host> <port> <tcp|udp> <transport-id> "
+                    + "<vehicle-id> <frame-key-hex> [terminals] [frames-per-second] [seconds]");
+        }
+        InetSocketAddress address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        boolean tcp = "tcp".equalsIgnoreCase(args[2]);
+        long transportId = Long.parseLong(args[3]);
+        long vehicleId = Long.parseLong(args[4]);
+        SecretKey frameKey = new SecretKeySpec(HexFormat.of().parseHex(args[5]), MilitaryDeviceRegistry.FRAME_KEY_ALGORITHM);
+        int terminals = args.length > 6 ? Integer.parseInt(args[6]) : 10;
+        int framesPerSecond = args.length > 7 ? Integer.parseInt(args[7]) : 1_000;
+        int seconds = args.length > 8 ? Integer.parseInt(args[8]) : 30;
+
+        GpsFrame[] frames = new GpsFrame[terminals];
+        SocketChannel[] streams = new SocketChannel[tcp ? terminals : 0];
+        Random random = new Random(42);
+        for (int i = 0; i < terminals; i++) {
+            GpsFrame frame = new GpsFrame();
+            frame.deviceType = 0;
+            frame.deviceSerial = i;
+            frame.transportId = transportId;
+            frame.vehicleId = vehicleId;
+            frame.latitudeE7 = (int) Math.round(START_LATITUDE * GpsFrameCodec.COORDINATE_SCALE);
+            frame.longitudeE7 = (int) Math.round(START_LONGITUDE * GpsFrameCodec.COORDINATE_SCALE);
+            frame.headingDegrees = random.nextInt(360);
+            frame.accuracyDm = 35;
+            frames[i] = frame;
+            if (tcp) {
+                streams[i] = SocketChannel.open(address);
+            }
+        }
+        DatagramChannel datagrams = tcp ? null : DatagramChannel.open().connect(address);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(GpsFrameCodec.FRAME_SIZE);
+        GpsFrameCodec.Authenticator authenticator = new GpsFrameCodec.Authenticator();
+        long started = System.nanoTime();
+        long end = started + TimeUnit.SECONDS.toNanos(seconds);
+        long sent = 0;
+        long reportedSent = 0;
+        long nextReport = started + TimeUnit.SECONDS.toNanos(1);
+
+        System.out.printf(Locale.ROOT, "Sending %d frames/s from %d terminals over %s to %s for %d s%n",
+                framesPerSecond, terminals, tcp ? "TCP" : "UDP", address, seconds);
+
+        while (System.nanoTime() < end) {
+            long due = (System.nanoTime() - started) * framesPerSecond / 1_000_000_000L;
+            if (sent >= due) {
+                Thread.sleep(1);
+                continue;
+            }
+            while (sent < due) {
+                int terminal = (int) (sent % terminals);
+                move(frames[terminal], random);
+
+                buffer.clear();
+                GpsFrameCodec.encode(frames[terminal], buffer, authenticator, frameKey);
+                buffer.flip();
+                if (tcp) {
+                    while (buffer.hasRemaining()) {
+                        streams[terminal].write(buffer);
+                    }
+                } else {
+                    datagrams.write(buffer);
+                }
+                sent++;
+            }
+
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                System.out.printf(Locale.ROOT, "%6.1f s  %,10d frames  %,8d frames/s%n",
+                        (now - started) / 1e9, sent, sent - reportedSent);
+                reportedSent = sent;
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+            }
+        }
+
+        for (SocketChannel stream : streams) {
+            stream.close();
+        }
+        if (datagrams != null) {
+            datagrams.close();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf(Locale.ROOT, "Sent %,d frames in %.1f s (%,.0f frames/s)%n", sent, elapsed, sent / elapsed);
+    }
+
+    /**
+     * Krok marszruty: ~60 km/h z lekką zmianą kursu, czas bieżący
+     */
+    private static void move(GpsFrame frame, Random random) {
+        frame.headingDegrees = Math.floorMod(frame.headingDegrees + random.nextInt(11) - 5, 360);
+        double speedKmh = 55 + random.nextDouble() * 10;
+        double stepKm = speedKmh / 3600.0;
+        double latitude = frame.latitude();
+        double heading = Math.toRadians(frame.headingDegrees);
+        frame.latitudeE7 += (int) Math.round(stepKm * Math.cos(heading) / GeoUtils.KM_PER_DEGREE_LAT * GpsFrameCodec.COORDINATE_SCALE);
+        frame.longitudeE7 += (int) Math.round(stepKm * Math.sin(heading)
+                / (GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(latitude))) * GpsFrameCodec.COORDINATE_SCALE);
+        frame.speedDeciKmh = (int) Math.round(speedKmh * 10);
+        frame.timestampMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,205 @@
+package pl.logistic.logisticops.tracking;
+
+import org.junit.jupiter.api.Test;
+import pl.logistic.logisticops.geo.GeoUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ✂️ TrajectorySimplifier: postoje, przejście między oknami, budżet punktów i zgodność
+ * trybu tolerancji z klasycznym (rekurencyjnym) Douglas-Peuckerem
+ */
+class TrajectorySimplifierTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 8, 0);
+    private static final double STOP_SPEED_KMH = 3.0;
+    private static final long MIN_STOP_SECONDS = 120;
+    private static final double METERS_PER_DEGREE = GeoUtils.KM_PER_DEGREE_LAT * 1000.0;
+
+    private final List<HistoryPoint> collected = new ArrayList<>();
+
+    @Test
+    void longStopCollapsesToSinglePinnedPoint() {
+        List<HistoryPoint> track = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            track.add(point(i, 52.0 + i * 0.001, 21.0, 50.0));
+        }
+        // 10 minut postoju (co 60 s), potem dalsza jazda po prostej
+        for (int i = 10; i < 21; i++) {
+            track.add(point(10 + (i - 10) * 6, 52.0095, 21.0, 0.5));
+        }
+        for (int i = 0; i < 10; i++) {
+            track.add(point(80 + i, 52.011 + i * 0.001, 21.0, 50.0));
+        }
+
+        // Ogromna tolerancja - z prostej zostają tylko końce, postój jest przypięty
+        List<HistoryPoint> result = simplify(TrajectorySimplifier.withTolerance(
+                1_000_000, 64, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track);
+
+        assertThat(result).filteredOn(HistoryPoint::stop).singleElement().satisfies(stop -> {
+            assertThat(stop.recordedAt()).isEqualTo(track.get(10).recordedAt());
+            assertThat(stop.stopSeconds()).isEqualTo(600);
+        });
+        assertThat(result).containsExactly(track.get(0), track.get(10).asStop(600), track.get(track.size() - 1));
+    }
+
+    @Test
+    void shortSlowdownKeepsFirstAndLastSlowPointsAsRegularPoints() {
+        List<HistoryPoint> track = List.of(
+                point(0, 52.000, 21.0, 50.0),
+                point(1, 52.001, 21.0, 2.0),
+                point(2, 52.002, 21.0, 1.0),
+                point(3, 52.003, 21.0, 2.0),
+                point(4, 52.004, 21.0, 50.0));
+
+        List<HistoryPoint> result = simplify(TrajectorySimplifier.withTolerance(
+                0, 64, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track);
+
+        assertThat(result).containsExactly(track.get(0), track.get(1), track.get(3), track.get(4));
+        assertThat(result).noneMatch(HistoryPoint::stop);
+    }
+
+    @Test
+    void windowBoundaryPointIsEmittedOnceAndCarriedIntoNextWindow() {
+        List<HistoryPoint> track = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            track.add(point(i, 52.0 + i * 0.001, 21.0, 50.0));
+        }
+
+        // Zerowa tolerancja: każdy punkt dokładnie raz, w kolejności, mimo przejść między oknami
+        assertThat(simplify(TrajectorySimplifier.withTolerance(
+                0, 5, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track)).containsExactlyElementsOf(track);
+
+        // Prosta i ogromna tolerancja: zostają tylko końce okien (0-4, 4-8, 8-12)
+        assertThat(simplify(TrajectorySimplifier.withTolerance(
+                1_000_000, 5, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track))
+                .containsExactly(track.get(0), track.get(4), track.get(8), track.get(12));
+    }
+
+    @Test
+    void keepRatioFollowsPointBudget() {
+        Random random = new Random(7L);
+        List<HistoryPoint> track = randomWalk(random, 5_000);
+        int windowSize = 256;
+
+        for (int budget : new int[]{200, 1_000, 2_500}) {
+            double ratio = budget / (double) track.size();
+            List<HistoryPoint> result = new ArrayList<>();
+            TrajectorySimplifier simplifier = TrajectorySimplifier.withKeepRatio(
+                    ratio, windowSize, STOP_SPEED_KMH, MIN_STOP_SECONDS, result::add);
+            track.forEach(simplifier::accept);
+            simplifier.finish();
+
+            // Zaokrąglenie w górę w każdym oknie - co najwyżej punkt na okno ponad budżet
+            int windows = (int) Math.ceil(track.size() / (double) (windowSize - 1));
+            assertThat(result.size()).isBetween((int) (budget * 0.9), budget + windows);
+            assertThat(simplifier.emittedPoints()).isEqualTo(result.size());
+            assertThat(simplifier.receivedPoints()).isEqualTo(track.size());
+            assertThat(result.get(0)).isEqualTo(track.get(0));
+            assertThat(result.get(result.size() - 1)).isEqualTo(track.get(track.size() - 1));
+        }
+
+        List<HistoryPoint> everything = simplify(TrajectorySimplifier.withKeepRatio(
+                1.0, windowSize, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track);
+        assertThat(everything).containsExactlyElementsOf(track);
+    }
+
+    @Test
+    void toleranceModeMatchesReferenceDouglasPeucker() {
+        Random random = new Random(11L);
+
+        for (int run = 0; run < 20; run++) {
+            List<HistoryPoint> track = randomWalk(random, 50 + random.nextInt(400));
+            double tolerance = 5 + random.nextDouble() * 200;
+
+            // Jedno okno na całą trasę - wynik ma być identyczny z rekurencyjnym DP
+            List<HistoryPoint> result = simplify(TrajectorySimplifier.withTolerance(
+                    tolerance, track.size() + 1, STOP_SPEED_KMH, MIN_STOP_SECONDS, sink()), track);
+
+            assertThat(result).containsExactlyElementsOf(referenceDouglasPeucker(track, tolerance));
+        }
+    }
+
+    // ========================================
+    // POMOCNICZE
+    // ========================================
+
+    private Consumer<HistoryPoint> sink() {
+        collected.clear();
+        return collected::add;
+    }
+
+    private List<HistoryPoint> simplify(TrajectorySimplifier simplifier, List<HistoryPoint> track) {
+        track.forEach(simplifier::accept);
+        simplifier.finish();
+        return List.copyOf(collected);
+    }
+
+    private static List<HistoryPoint> referenceDouglasPeucker(List<HistoryPoint> track, double tolerance) {
+        boolean[] keep = new boolean[track.size()];
+        keep[0] = true;
+        keep[track.size() - 1] = true;
+        mark(track, 0, track.size() - 1, tolerance, keep);
+
+        List<HistoryPoint> result = new ArrayList<>();
+        for (int i = 0; i < track.size(); i++) {
+            if (keep[i]) {
+                result.add(track.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static void mark(List<HistoryPoint> track, int a, int b, double tolerance, boolean[] keep) {
+        int farthest = -1;
+        double maxDistance = -1;
+        for (int i = a + 1; i < b; i++) {
+            double distance = crossTrackMeters(track.get(i), track.get(a), track.get(b));
+            if (distance > maxDistance) {
+                maxDistance = distance;
+                farthest = i;
+            }
+        }
+        if (farthest < 0 || maxDistance < tolerance) {
+            return;
+        }
+        keep[farthest] = true;
+        mark(track, a, farthest, tolerance, keep);
+        mark(track, farthest, b, tolerance, keep);
+    }
+
+    private static double crossTrackMeters(HistoryPoint p, HistoryPoint a, HistoryPoint b) {
+        double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(a.latitude()));
+        double bx = (b.longitude() - a.longitude()) * kx, by = (b.latitude() - a.latitude()) * METERS_PER_DEGREE;
+        double px = (p.longitude() - a.longitude()) * kx, py = (p.latitude() - a.latitude()) * METERS_PER_DEGREE;
+        double lengthSq = bx * bx + by * by;
+        double t = lengthSq == 0 ? 0 : GeoUtils.clamp((px * bx + py * by) / lengthSq, 0, 1);
+        double dx = px - t * bx, dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static List<HistoryPoint> randomWalk(Random random, int count) {
+        List<HistoryPoint> track = new ArrayList<>(count);
+        double lat = 52.0, lng = 21.0, bearing = 0;
+        for (int i = 0; i < count; i++) {
+            track.add(point(i, lat, lng, 40 + random.nextDouble() * 50));
+            bearing += random.nextGaussian() * 0.4;
+            lat += Math.cos(bearing) * 0.0005;
+            lng += Math.sin(bearing) * 0.0008;
+        }
+        return track;
+    }
+
+    /**
+     * @param tick kolejny pomiar co 10 s od START
+     */
+    private static HistoryPoint point(long tick, double lat, double lng, double speedKmh) {
+        return HistoryPoint.of(lat, lng, START.plusSeconds(tick * 10), speedKmh, null);
+    }
+}